@@ -0,0 +1,150 @@
+/*
+ * CollectionBenchmark.java
+ * General Transit Feed Specification
+ *
+ * Copyright 2016 Kevin J. Burns
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Revision Log:
+ *   2026-10-16  Basic functionality
+ */
+package com.github.kjburns.gtfs;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.kjburns.gtfs.benchmark.BenchmarkFeed;
+import com.github.kjburns.gtfs.benchmark.Throughput;
+import com.github.kjburns.gtfs.misc.CsvTokenizer;
+
+/**
+ * Construction of each collection from its table, held in memory. The
+ * benchmarks are in this package because the constructors are not public.
+ * <p>
+ * Collections which need a {@link GtfsFile} are given one opened lazily,
+ * which has loaded nothing, so that its dictionary of identifiers is still
+ * open; stops then find their identifiers already in the dictionary after
+ * the first operation. The other collections are given a new dictionary
+ * each time.
+ * </p>
+ * @author Kevin J. Burns
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CollectionBenchmark {
+	private GtfsFile gtfs;
+
+	@Setup(Level.Trial)
+	public void setUp(BenchmarkFeed feed) throws Exception {
+		GtfsLoadOptions options = new GtfsLoadOptions();
+		options.setLazyLoading(true);
+		this.gtfs = new GtfsFile(feed.getFolderPath(), null, options);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws Exception {
+		this.gtfs.close();
+	}
+
+	@Benchmark
+	public AgencyCollection agencies(BenchmarkFeed feed, Throughput counts)
+			throws Exception {
+		try (CsvTokenizer table = this.open(feed, counts, 
+				GtfsFile.FILENAME_AGENCY)) {
+			return new AgencyCollection(table);
+		}
+	}
+
+	@Benchmark
+	public StopCollection stops(BenchmarkFeed feed, Throughput counts)
+			throws Exception {
+		try (CsvTokenizer table = this.open(feed, counts, 
+				GtfsFile.FILENAME_STOPS)) {
+			return new StopCollection(this.gtfs, table);
+		}
+	}
+
+	@Benchmark
+	public RouteCollection routes(BenchmarkFeed feed, Throughput counts)
+			throws Exception {
+		try (CsvTokenizer table = this.open(feed, counts, 
+				GtfsFile.FILENAME_ROUTES)) {
+			return new RouteCollection(table, new IdentifierDictionary());
+		}
+	}
+
+	@Benchmark
+	public TripCollection trips(BenchmarkFeed feed, Throughput counts)
+			throws Exception {
+		try (CsvTokenizer table = this.open(feed, counts, 
+				GtfsFile.FILENAME_TRIPS)) {
+			return new TripCollection(table, new IdentifierDictionary());
+		}
+	}
+
+	@Benchmark
+	public TransitShapeCollection shapes(BenchmarkFeed feed, 
+			Throughput counts) throws Exception {
+		try (CsvTokenizer table = this.open(feed, counts, 
+				GtfsFile.FILENAME_SHAPES)) {
+			return new TransitShapeCollection(table, 
+					new IdentifierDictionary());
+		}
+	}
+
+	@Benchmark
+	public StopTimeCollection stopTimes(BenchmarkFeed feed, 
+			Throughput counts) throws Exception {
+		try (CsvTokenizer table = this.open(feed, counts, 
+				GtfsFile.FILENAME_STOP_TIMES)) {
+			return new StopTimeCollection(this.gtfs, table);
+		}
+	}
+
+	/**
+	 * The calendar reads both of its tables itself, from the folder
+	 */
+	@Benchmark
+	public ServiceCalendar serviceCalendar(BenchmarkFeed feed, 
+			Throughput counts) throws Exception {
+		counts.add(feed.getRowCount(GtfsFile.FILENAME_CALENDAR) + 
+				feed.getRowCount(GtfsFile.FILENAME_CALENDAR_OVERRIDES),
+				feed.getByteCount(GtfsFile.FILENAME_CALENDAR) + 
+				feed.getByteCount(GtfsFile.FILENAME_CALENDAR_OVERRIDES));
+		return new ServiceCalendar(this.gtfs);
+	}
+
+	private CsvTokenizer open(BenchmarkFeed feed, Throughput counts, 
+			String table) throws Exception {
+		counts.add(feed.getRowCount(table), feed.getByteCount(table));
+		return feed.open(table);
+	}
+}
@@ -0,0 +1,254 @@
+/*
+ * BenchmarkFeed.java
+ * General Transit Feed Specification
+ *
+ * Copyright 2016 Kevin J. Burns
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Revision Log:
+ *   2026-10-16  Basic functionality
+ *   2026-10-16  Generate the feed with FeedGenerator
+ */
+package com.github.kjburns.gtfs.benchmark;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.github.kjburns.gtfs.misc.CsvTokenizer;
+import com.github.kjburns.gtfs.tools.FeedGenerator;
+
+/**
+ * The feed which the benchmarks run against, as both a zip file and a
+ * folder, with the bytes of each table held in memory for benchmarks which
+ * only parse.
+ * <p>
+ * Unless the feed parameter names a feed, one is generated at the start of
+ * each trial by {@link FeedGenerator#atScale(double)}, at the size given by
+ * the scale parameter, where 1 is about the size of a large metropolitan
+ * bus network. Generation is seeded, so every run sees the same feed.
+ * </p>
+ * @author Kevin J. Burns
+ *
+ */
+@State(Scope.Benchmark)
+public class BenchmarkFeed {
+	/**
+	 * Tables read by the benchmarks, in the order they are written
+	 */
+	public static final String[] TABLES = {
+			"agency.txt", "stops.txt", "routes.txt", "trips.txt",
+			"stop_times.txt", "calendar.txt", "calendar_dates.txt",
+			"shapes.txt", "transfers.txt" };
+
+	/**
+	 * Path of a zip file or folder holding the feed to benchmark against;
+	 * empty to generate one.
+	 */
+	@Param({""})
+	public String feed;
+
+	/**
+	 * Size of the generated feed, as passed to
+	 * {@link FeedGenerator#atScale(double)}.
+	 */
+	@Param({"1"})
+	public double scale;
+
+	private Path temp = null;
+	private String zipPath;
+	private String folderPath;
+	private final Map<String, byte[]> contents = new HashMap<>();
+	private final Map<String, Integer> rows = new HashMap<>();
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		this.temp = Files.createTempDirectory("gtfs-benchmark");
+		File folder;
+		File zip;
+		if (this.feed.isEmpty()) {
+			folder = this.temp.resolve("feed").toFile();
+			zip = this.temp.resolve("feed.zip").toFile();
+			FeedGenerator generator = FeedGenerator.atScale(this.scale);
+			generator.writeFolder(folder);
+			generator.writeZip(zip);
+		}
+		else if (new File(this.feed).isDirectory()) {
+			folder = new File(this.feed);
+			zip = this.temp.resolve("feed.zip").toFile();
+			zip(folder, zip);
+		}
+		else {
+			zip = new File(this.feed);
+			folder = this.temp.resolve("feed").toFile();
+			folder.mkdir();
+			unzip(zip, folder);
+		}
+		this.zipPath = zip.getPath();
+		this.folderPath = folder.getPath();
+
+		for (String table : TABLES) {
+			File file = new File(folder, table);
+			if (!file.exists()) {
+				continue;
+			}
+			byte[] bytes = Files.readAllBytes(file.toPath());
+			this.contents.put(table, bytes);
+
+			int count = 0;
+			try (CsvTokenizer tokenizer = this.open(table)) {
+				while (tokenizer.next()) {
+					count++;
+				}
+			}
+			this.rows.put(table, count);
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		try (Stream<Path> paths = Files.walk(this.temp)) {
+			paths.sorted(Comparator.reverseOrder())
+				.map(Path::toFile)
+				.forEach(File::delete);
+		}
+	}
+
+	/**
+	 * @return path of the feed as a zip file
+	 */
+	public String getZipPath() {
+		return this.zipPath;
+	}
+
+	/**
+	 * @return path of the feed as a folder of tables
+	 */
+	public String getFolderPath() {
+		return this.folderPath;
+	}
+
+	/**
+	 * Opens a tokenizer over the bytes of a table held in memory.
+	 * @param table name of the table, such as stops.txt
+	 * @return
+	 * @throws IOException
+	 * @throws IllegalArgumentException if the feed has no such table
+	 */
+	public CsvTokenizer open(String table) throws IOException {
+		return CsvTokenizer.open(ByteBuffer.wrap(this.getBytes(table)));
+	}
+
+	/**
+	 * Gets the contents of a table.
+	 * @param table name of the table, such as stops.txt
+	 * @return
+	 * @throws IllegalArgumentException if the feed has no such table
+	 */
+	public byte[] getBytes(String table) {
+		byte[] ret = this.contents.get(table);
+		if (ret == null) {
+			throw new IllegalArgumentException(table);
+		}
+		return ret;
+	}
+
+	/**
+	 * Gets the size of a table.
+	 * @param table name of the table, such as stops.txt
+	 * @return the size in bytes, or 0 if there is no such table
+	 */
+	public int getByteCount(String table) {
+		byte[] bytes = this.contents.get(table);
+		return (bytes == null) ? 0 : bytes.length;
+	}
+
+	/**
+	 * Gets the number of records in a table.
+	 * @param table name of the table, such as stops.txt
+	 * @return the number of records, or 0 if there is no such table
+	 */
+	public int getRowCount(String table) {
+		return this.rows.getOrDefault(table, 0);
+	}
+
+	/**
+	 * @return the number of records in every table of the feed
+	 */
+	public long getTotalRowCount() {
+		long ret = 0;
+		for (int count : this.rows.values()) {
+			ret += count;
+		}
+		return ret;
+	}
+
+	/**
+	 * @return the size of every table of the feed, in bytes
+	 */
+	public long getTotalByteCount() {
+		long ret = 0;
+		for (byte[] bytes : this.contents.values()) {
+			ret += bytes.length;
+		}
+		return ret;
+	}
+
+	private static void zip(File folder, File zip) throws IOException {
+		try (ZipOutputStream out =
+				new ZipOutputStream(new FileOutputStream(zip))) {
+			for (String table : TABLES) {
+				File file = new File(folder, table);
+				if (!file.exists()) {
+					continue;
+				}
+				out.putNextEntry(new ZipEntry(table));
+				Files.copy(file.toPath(), out);
+				out.closeEntry();
+			}
+		}
+	}
+
+	private static void unzip(File zip, File folder) throws IOException {
+		try (ZipFile in = new ZipFile(zip)) {
+			for (String table : TABLES) {
+				ZipEntry entry = in.getEntry(table);
+				if (entry == null) {
+					continue;
+				}
+				try (InputStream is = in.getInputStream(entry)) {
+					Files.copy(is, new File(folder, table).toPath());
+				}
+			}
+		}
+	}
+}
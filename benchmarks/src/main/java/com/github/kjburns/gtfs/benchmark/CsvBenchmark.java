@@ -0,0 +1,101 @@
+/*
+ * CsvBenchmark.java
+ * General Transit Feed Specification
+ *
+ * Copyright 2016 Kevin J. Burns
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Revision Log:
+ *   2026-10-16  Basic functionality
+ */
+package com.github.kjburns.gtfs.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.github.kjburns.gtfs.misc.CsvFile;
+import com.github.kjburns.gtfs.misc.CsvTokenizer;
+
+/**
+ * Decoding of a table into records, without interpreting them: through
+ * {@link CsvFile}, which holds the whole table, and through a
+ * {@link CsvTokenizer} over bytes in memory or over a stream.
+ * @author Kevin J. Burns
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CsvBenchmark {
+	@Param({"stops.txt", "trips.txt", "stop_times.txt", "shapes.txt"})
+	public String table;
+
+	@Benchmark
+	public CsvFile csvFile(BenchmarkFeed feed, Throughput counts)
+			throws IOException {
+		CsvFile ret = new CsvFile(feed.open(this.table));
+		this.count(feed, counts);
+		return ret;
+	}
+
+	@Benchmark
+	public void tokenizeBuffer(BenchmarkFeed feed, Throughput counts,
+			Blackhole blackhole) throws IOException {
+		try (CsvTokenizer tokenizer = feed.open(this.table)) {
+			tokenize(tokenizer, blackhole);
+		}
+		this.count(feed, counts);
+	}
+
+	@Benchmark
+	public void tokenizeStream(BenchmarkFeed feed, Throughput counts,
+			Blackhole blackhole) throws IOException {
+		try (CsvTokenizer tokenizer = CsvTokenizer.open(
+				new ByteArrayInputStream(feed.getBytes(this.table)))) {
+			tokenize(tokenizer, blackhole);
+		}
+		this.count(feed, counts);
+	}
+
+	private static void tokenize(CsvTokenizer tokenizer, Blackhole blackhole)
+			throws IOException {
+		int columns = tokenizer.getColumnCount();
+		while (tokenizer.next()) {
+			for (int col = 0; col < columns; col++) {
+				blackhole.consume(tokenizer.getFieldLength(col));
+			}
+		}
+	}
+
+	private void count(BenchmarkFeed feed, Throughput counts) {
+		counts.add(feed.getRowCount(this.table),
+				feed.getByteCount(this.table));
+	}
+}
@@ -0,0 +1,99 @@
+/*
+ * GtfsFileBenchmark.java
+ * General Transit Feed Specification
+ *
+ * Copyright 2016 Kevin J. Burns
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Revision Log:
+ *   2026-10-16  Basic functionality
+ */
+package com.github.kjburns.gtfs.benchmark;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.kjburns.gtfs.GtfsFile;
+import com.github.kjburns.gtfs.GtfsLoadOptions;
+
+/**
+ * Loading of a whole feed through {@link GtfsFile}, from a zip file or a
+ * folder, with tables parsed one after another or in parallel. Rows and
+ * bytes are those of every table in the feed.
+ * @author Kevin J. Burns
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class GtfsFileBenchmark {
+	@Param({"zip", "folder"})
+	public String source;
+
+	/**
+	 * Threads on which tables are parsed; 1 parses them one after another
+	 */
+	@Param({"1", "4"})
+	public int threads;
+
+	private ExecutorService executor = null;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		if (this.threads > 1) {
+			this.executor = Executors.newFixedThreadPool(this.threads);
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		if (this.executor != null) {
+			this.executor.shutdownNow();
+		}
+	}
+
+	@Benchmark
+	public int load(BenchmarkFeed feed, Throughput counts) throws Exception {
+		GtfsLoadOptions options = new GtfsLoadOptions();
+		options.setLoadExecutor(this.executor);
+		options.setStopTimesParallelism(this.threads);
+		String path = "zip".equals(this.source) ? 
+				feed.getZipPath() : feed.getFolderPath();
+
+		int ret;
+		try (GtfsFile gtfs = new GtfsFile(path, null, options)) {
+			ret = gtfs.getTrips().getTripCount();
+		}
+		counts.add(feed.getTotalRowCount(), feed.getTotalByteCount());
+		return ret;
+	}
+}
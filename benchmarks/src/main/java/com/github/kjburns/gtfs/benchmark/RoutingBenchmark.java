@@ -0,0 +1,183 @@
+/*
+ * RoutingBenchmark.java
+ * General Transit Feed Specification
+ *
+ * Copyright 2016 Kevin J. Burns
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Revision Log:
+ *   2026-10-16  Basic functionality
+ *   2026-10-16  Connection scan queries
+ *   2026-10-16  Reachability from the stops' locations
+ */
+package com.github.kjburns.gtfs.benchmark;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.kjburns.gtfs.ConnectionScanner;
+import com.github.kjburns.gtfs.GtfsFile;
+import com.github.kjburns.gtfs.GtfsLoadOptions;
+import com.github.kjburns.gtfs.Journey;
+import com.github.kjburns.gtfs.RaptorRouter;
+import com.github.kjburns.gtfs.Reachability;
+import com.github.kjburns.gtfs.ReachabilityAnalyzer;
+import com.github.kjburns.gtfs.ReachabilityOptions;
+import com.github.kjburns.gtfs.ServiceCalendar;
+import com.github.kjburns.gtfs.Station;
+import com.github.kjburns.gtfs.Stop;
+
+/**
+ * Journey planning over a loaded feed: building a {@link RaptorRouter}, and
+ * queries between random pairs of stops departing at random times in the
+ * morning of one service date, by the router and by a
+ * {@link ConnectionScanner}; and the reachability of every stop from the
+ * location of a random stop, over a ten minute window of departures. The pairs and times are drawn with a fixed
+ * seed, so every run makes the same queries.
+ * @author Kevin J. Burns
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RoutingBenchmark {
+	private static final int QUERY_COUNT = 1024;
+
+	private GtfsFile gtfs;
+	private RaptorRouter router;
+	private ConnectionScanner scanner;
+	private ReachabilityAnalyzer analyzer;
+	private ReachabilityOptions options = new ReachabilityOptions();
+	private LocalDate date;
+	private String[] from = new String[QUERY_COUNT];
+	private String[] to = new String[QUERY_COUNT];
+	private long[] departure = new long[QUERY_COUNT];
+	private double[] latitude = new double[QUERY_COUNT];
+	private double[] longitude = new double[QUERY_COUNT];
+
+	/**
+	 * Position of each benchmark thread in the queries
+	 */
+	@State(Scope.Thread)
+	public static class Cursor {
+		int next = 0;
+	}
+
+	@Setup(Level.Trial)
+	public void setUp(BenchmarkFeed feed) throws Exception {
+		this.gtfs = new GtfsFile(feed.getFolderPath(), null,
+				new GtfsLoadOptions());
+		this.router = new RaptorRouter(this.gtfs);
+		this.scanner = new ConnectionScanner(this.gtfs);
+		this.analyzer = new ReachabilityAnalyzer(this.scanner);
+
+		List<String> stops = new ArrayList<>();
+		Iterator<Stop> it = this.gtfs.getStops().iterator();
+		while (it.hasNext()) {
+			Stop stop = it.next();
+			if (!(stop instanceof Station)) {
+				stops.add(stop.getStopId());
+			}
+		}
+
+		/*
+		 * A week into the calendar, so that the day before is in it too
+		 */
+		ServiceCalendar calendar = this.gtfs.getServiceCalendar();
+		LocalDate date = calendar.getFirstDate().plusDays(7);
+		if (date.isAfter(calendar.getLastDate())) {
+			date = calendar.getFirstDate();
+		}
+		long morning = this.gtfs.getNoonEpochSecond(date) - 5 * 3600;
+		Random random = new Random(20161016);
+		for (int i = 0; i < QUERY_COUNT; i++) {
+			this.from[i] = stops.get(random.nextInt(stops.size()));
+			this.to[i] = stops.get(random.nextInt(stops.size()));
+			this.departure[i] = morning + random.nextInt(4 * 3600);
+			Stop stop = this.gtfs.getStops().getStopById(this.from[i]);
+			this.latitude[i] = stop.getLatitude();
+			this.longitude[i] = stop.getLongitude();
+		}
+		this.date = date;
+		this.options.setWindow(LocalTime.of(8, 0), LocalTime.of(8, 10));
+		/*
+		 * Build the connections of the date outside the measurements
+		 */
+		this.scanner.earliestArrival(this.from[0], this.to[0],
+				this.departure[0]);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws Exception {
+		this.gtfs.close();
+	}
+
+	@Benchmark
+	public RaptorRouter build() {
+		return new RaptorRouter(this.gtfs);
+	}
+
+	@Benchmark
+	public List<Journey> raptor(Cursor cursor) {
+		int i = cursor.next;
+		cursor.next = (i + 1) % QUERY_COUNT;
+		return this.router.route(this.from[i], this.to[i],
+				this.departure[i]);
+	}
+
+	@Benchmark
+	public long csaOneToOne(Cursor cursor) {
+		int i = cursor.next;
+		cursor.next = (i + 1) % QUERY_COUNT;
+		return this.scanner.earliestArrival(this.from[i], this.to[i],
+				this.departure[i]);
+	}
+
+	@Benchmark
+	public long[] csaOneToAll(Cursor cursor) {
+		int i = cursor.next;
+		cursor.next = (i + 1) % QUERY_COUNT;
+		return this.scanner.earliestArrivals(this.from[i],
+				this.departure[i]);
+	}
+
+	@Benchmark
+	public Reachability reachability(Cursor cursor) {
+		int i = cursor.next;
+		cursor.next = (i + 1) % QUERY_COUNT;
+		return this.analyzer.analyze(this.latitude[i], this.longitude[i],
+				this.date, this.options);
+	}
+}
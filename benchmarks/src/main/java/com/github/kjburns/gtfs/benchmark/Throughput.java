@@ -0,0 +1,64 @@
+/*
+ * Throughput.java
+ * General Transit Feed Specification
+ *
+ * Copyright 2016 Kevin J. Burns
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Revision Log:
+ *   2026-10-16  Basic functionality
+ */
+package com.github.kjburns.gtfs.benchmark;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Counts the feed data processed by a benchmark. JMH reports each field as
+ * a rate alongside the benchmark's own score: rows per second, and bytes 
+ * per second, which divided by 1048576 gives MB/s.
+ * @author Kevin J. Burns
+ *
+ */
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.OPERATIONS)
+public class Throughput {
+	/**
+	 * Records parsed
+	 */
+	public long rows;
+	/**
+	 * Bytes of table data parsed
+	 */
+	public long bytes;
+
+	@Setup(Level.Iteration)
+	public void reset() {
+		this.rows = 0;
+		this.bytes = 0;
+	}
+
+	/**
+	 * Counts one pass over some data.
+	 * @param rows records parsed
+	 * @param bytes bytes parsed
+	 */
+	public void add(long rows, long bytes) {
+		this.rows += rows;
+		this.bytes += bytes;
+	}
+}
@@ -20,26 +20,25 @@
  *   2016-05-01  Basic functionality
  *   2016-05-01  Raise exception if agency.txt contains duplicate values for
  *               agency_id
+ *   2026-10-16  Read agency.txt from a tokenizer supplied by GtfsFile
  */
 package com.github.kjburns.gtfs;
 
-import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.util.HashMap;
 import java.util.Iterator;
 
 import com.github.kjburns.gtfs.misc.CsvFile;
+import com.github.kjburns.gtfs.misc.CsvTokenizer;
 
 public class AgencyCollection implements Iterable<Agency> {
 	private HashMap<String, Agency> agencies = new HashMap<>();
 	
-	AgencyCollection(File f) 
+	AgencyCollection(CsvTokenizer tokenizer) 
 			throws IOException, MissingRequiredFieldException, 
 					DatasetUniquenessException {
-		try (InputStream is = new FileInputStream(f)) {
-			CsvFile table = new CsvFile(is);
+		try {
+			CsvFile table = new CsvFile(tokenizer);
 			
 			for (int i = 1; i <= table.getRecordCount(); i++) {
 				Agency a = new Agency(table, i);
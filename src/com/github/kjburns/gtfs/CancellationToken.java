@@ -0,0 +1,49 @@
+/*
+ * CancellationToken.java
+ * General Transit Feed Specification
+ *
+ * Copyright 2016 Kevin J. Burns
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Revision Log:
+ *   2026-10-16  Basic functionality
+ */
+package com.github.kjburns.gtfs;
+
+/**
+ * A request to stop a long-running operation, such as loading a
+ * {@link GtfsFile}, which may be made from any thread. The operation
+ * checks the token as it works and gives up soon after it is cancelled.
+ * A token cannot be reset once cancelled.
+ * @see GtfsLoadOptions#setCancellationToken(CancellationToken)
+ * @author Kevin J. Burns
+ *
+ */
+public class CancellationToken {
+	private volatile boolean cancelled = false;
+
+	/**
+	 * Asks the operations checking this token to stop.
+	 */
+	public void cancel() {
+		this.cancelled = true;
+	}
+
+	/**
+	 * @return whether {@link #cancel()} has been called
+	 */
+	public boolean isCancelled() {
+		return this.cancelled;
+	}
+}
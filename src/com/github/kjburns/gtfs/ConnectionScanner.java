@@ -0,0 +1,656 @@
+/*
+ * ConnectionScanner.java
+ * General Transit Feed Specification
+ *
+ * Copyright 2016 Kevin J. Burns
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Revision Log:
+ *   2026-10-16  Basic functionality
+ *   2026-10-16  Travel times from several origins, for reachability
+ *   2026-10-16  Keep the connections of only the most recent dates
+ */
+package com.github.kjburns.gtfs;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Computes earliest arrival times from a stop to every other stop with the
+ * Connection Scan Algorithm of Dibbelt, Pajor, Strasser and Wagner. Each
+ * date has one array of elementary connections, each the ride of one trip
+ * from one stop to the next, in order of departure; a query reads it once,
+ * from start to end, so it suits bulk computations over many origins,
+ * such as reachability analysis.
+ * <p>
+ * The connections of a date are those departing from the midnight which
+ * starts it until noon of the next day, from the trips of that service
+ * date and of the ones before and after it. They are built on first use,
+ * and kept for the {@value #CACHED_DATES} dates most recently queried.
+ * Walks and the time needed to
+ * change vehicles at a stop come from the transfer rules of the stops,
+ * as for {@link RaptorRouter}; a minimum transfer time between two stops
+ * is the length of the walk, and one from a stop to itself is the time
+ * needed to board another trip there.
+ * </p>
+ * <p>
+ * Queries may be made from several threads at once, each reusing the
+ * working arrays of its thread.
+ * </p>
+ * @author Kevin J. Burns
+ *
+ */
+public class ConnectionScanner {
+	/**
+	 * Arrival time of a stop which cannot be reached
+	 */
+	public static final long UNREACHABLE = Long.MAX_VALUE;
+
+	/**
+	 * Arrival time of a stop which has not been reached, in the working
+	 * arrays
+	 */
+	static final int UNREACHED = Integer.MAX_VALUE;
+	/**
+	 * Ints per connection: departure, arrival, stop departed from, stop
+	 * arrived at, and trip and flags
+	 */
+	private static final int STRIDE = 5;
+	private static final int DEPARTURE = 0;
+	private static final int ARRIVAL = 1;
+	private static final int FROM = 2;
+	private static final int TO = 3;
+	private static final int TRIP = 4;
+	/**
+	 * Flags of a connection, below its trip
+	 */
+	private static final int CAN_BOARD = RoutingTimes.CAN_BOARD;
+	private static final int CAN_ALIGHT = RoutingTimes.CAN_ALIGHT;
+	private static final int FLAG_BITS = 2;
+	/**
+	 * Number of dates whose connections are kept
+	 */
+	static final int CACHED_DATES = 8;
+
+	private final GtfsFile gtfs;
+	private final StopTimeTable table;
+	private final ServiceCalendar calendar;
+	private final Footpaths footpaths;
+	private final RoutingTimes times;
+	/**
+	 * Service index of each table trip index
+	 */
+	private final int[] tripServices;
+	/**
+	 * Connections of the dates most recently queried, least recent first.
+	 * Guarded by itself.
+	 */
+	private final LinkedHashMap<LocalDate, Connections> byDate =
+			new LinkedHashMap<LocalDate, Connections>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(
+				Map.Entry<LocalDate, Connections> eldest) {
+			return this.size() > CACHED_DATES;
+		}
+	};
+	/**
+	 * Working arrays of the queries made on each thread
+	 */
+	private final ThreadLocal<State> states;
+
+	/**
+	 * Builds a scanner over the trips of a feed. Every table the scanner
+	 * needs is loaded first, if the feed is loading lazily.
+	 * @param gtfs feed to scan
+	 */
+	public ConnectionScanner(GtfsFile gtfs) {
+		this.gtfs = gtfs;
+		StopTimeCollection stopTimes = gtfs.getAllTimetables();
+		this.table = stopTimes.getTable();
+		this.calendar = gtfs.getServiceCalendar();
+		this.footpaths = new Footpaths(this.table, gtfs.getStops());
+		this.times = new RoutingTimes(this.table);
+		this.tripServices = stopTimes.getTripServices();
+
+		int stops = this.table.stopIds.size();
+		this.states = ThreadLocal.withInitial(() -> new State(stops));
+	}
+
+	/**
+	 * Gets the number of stops which have stop times. The arrays of
+	 * arrival times returned by this scanner are indexed by these stops.
+	 * @return
+	 */
+	public int getStopCount() {
+		return this.table.stopIds.size();
+	}
+
+	/**
+	 * Gets the stop_id of a stop.
+	 * @param index index of the stop in the arrays of arrival times
+	 * @return
+	 * @throws IndexOutOfBoundsException if there is no such stop
+	 */
+	public String getStopId(int index) {
+		return this.table.stopIds.get(index);
+	}
+
+	/**
+	 * Gets the position of a stop in the arrays of arrival times.
+	 * @param stopId stop_id to look up
+	 * @return the index, or -1 if the stop has no stop times
+	 */
+	public int getStopIndex(String stopId) {
+		return this.table.stopIds.indexOf(stopId);
+	}
+
+	/**
+	 * Computes the earliest arrival at every stop from a stop, without a
+	 * limit on the length of the journey. See
+	 * {@link #earliestArrivals(String, long, int)}.
+	 * @param fromStopId stop_id of the origin
+	 * @param epochSecond time of departure
+	 * @return
+	 */
+	public long[] earliestArrivals(String fromStopId, long epochSecond) {
+		return this.earliestArrivals(fromStopId, epochSecond,
+				Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Computes the earliest arrival at every stop from a stop. The stop
+	 * may be a station, in which case journeys may start from any of its
+	 * stops.
+	 * @param fromStopId stop_id of the origin
+	 * @param epochSecond time of departure, in seconds since
+	 * 1970-01-01T00:00:00Z
+	 * @param maxSeconds longest journey of interest; stops reached later
+	 * than this after departure are left unreached. Limiting the length of
+	 * the journey shortens the scan.
+	 * @return the earliest arrival at each stop, indexed as by
+	 * {@link #getStopIndex(String)}, in seconds since 1970-01-01T00:00:00Z,
+	 * or {@link #UNREACHABLE}. Every element is {@link #UNREACHABLE} if
+	 * the origin is unknown or has no stop times.
+	 */
+	public long[] earliestArrivals(String fromStopId, long epochSecond,
+			int maxSeconds) {
+		int[] origins = this.table.indicesOf(
+				this.gtfs.getStops().getStopById(fromStopId));
+		int[] offsets = new int[origins.length];
+		long[] ret = new long[this.getStopCount()];
+		Arrays.fill(ret, UNREACHABLE);
+		if (origins.length == 0) {
+			return ret;
+		}
+
+		Query query = this.query(epochSecond);
+		State state = this.states.get();
+		this.scan(state, query, origins, offsets, maxSeconds, -1);
+		for (int s = 0; s < ret.length; s++) {
+			if (state.arrival[s] != UNREACHED) {
+				ret[s] = query.base + state.arrival[s];
+			}
+		}
+		return ret;
+	}
+
+	/**
+	 * Computes the earliest arrival at one stop from another. The scan
+	 * stops as soon as no later connection could arrive earlier.
+	 * @param fromStopId stop_id of the origin, which may be a station
+	 * @param toStopId stop_id of the destination, which may be a station
+	 * @param epochSecond time of departure, in seconds since
+	 * 1970-01-01T00:00:00Z
+	 * @return the earliest arrival, in seconds since 1970-01-01T00:00:00Z,
+	 * or {@link #UNREACHABLE}
+	 */
+	public long earliestArrival(String fromStopId, String toStopId,
+			long epochSecond) {
+		StopCollection stops = this.gtfs.getStops();
+		int[] origins = this.table.indicesOf(stops.getStopById(fromStopId));
+		int[] targets = this.table.indicesOf(stops.getStopById(toStopId));
+		if ((origins.length == 0) || (targets.length == 0)) {
+			return UNREACHABLE;
+		}
+
+		Query query = this.query(epochSecond);
+		State state = this.states.get();
+		long ret = UNREACHABLE;
+		if (targets.length == 1) {
+			this.scan(state, query, origins, new int[origins.length],
+					Integer.MAX_VALUE, targets[0]);
+		}
+		else {
+			this.scan(state, query, origins, new int[origins.length],
+					Integer.MAX_VALUE, -1);
+		}
+		for (int t : targets) {
+			if (state.arrival[t] != UNREACHED) {
+				ret = Math.min(ret, query.base + state.arrival[t]);
+			}
+		}
+		return ret;
+	}
+
+	/**
+	 * Computes the earliest arrival at every stop from each of several
+	 * stops, with the scans from different origins running at the same
+	 * time on a pool.
+	 * @param fromStopIds stop_ids of the origins
+	 * @param epochSecond time of departure, in seconds since
+	 * 1970-01-01T00:00:00Z
+	 * @param maxSeconds longest journey of interest; see
+	 * {@link #earliestArrivals(String, long, int)}
+	 * @param pool pool to scan on
+	 * @return the arrival times from each origin, in the order of
+	 * fromStopIds
+	 * @throws InterruptedException if the calling thread is interrupted
+	 * while waiting for the scans
+	 */
+	public List<long[]> earliestArrivals(List<String> fromStopIds,
+			long epochSecond, int maxSeconds, ForkJoinPool pool)
+					throws InterruptedException {
+		/*
+		 * Build the connections once, before the scans need them
+		 */
+		this.query(epochSecond);
+
+		List<ForkJoinTask<long[]>> tasks = new ArrayList<>();
+		for (String fromStopId : fromStopIds) {
+			tasks.add(pool.submit(() -> this.earliestArrivals(
+					fromStopId, epochSecond, maxSeconds)));
+		}
+
+		List<long[]> ret = new ArrayList<>(tasks.size());
+		try {
+			for (ForkJoinTask<long[]> task : tasks) {
+				ret.add(task.get());
+			}
+		} catch (ExecutionException ex) {
+			Throwable cause = ex.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException)cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error)cause;
+			}
+			throw new IllegalStateException(cause);
+		} finally {
+			for (ForkJoinTask<?> task : tasks) {
+				task.cancel(false);
+			}
+		}
+		return ret;
+	}
+
+	/**
+	 * @return the feed scanned
+	 */
+	GtfsFile getGtfs() {
+		return this.gtfs;
+	}
+
+	/**
+	 * Computes the travel time to every stop from several origins, each
+	 * reached some time after departure.
+	 * @param origins stops to start from
+	 * @param offsets seconds after departure at which each origin is
+	 * reached
+	 * @param epochSecond time of departure
+	 * @param maxSeconds longest journey of interest
+	 * @param out receives the seconds from departure to the earliest
+	 * arrival at each stop, or {@link #UNREACHED}
+	 */
+	void travelTimes(int[] origins, int[] offsets, long epochSecond,
+			int maxSeconds, int[] out) {
+		Query query = this.query(epochSecond);
+		State state = this.states.get();
+		this.scan(state, query, origins, offsets, maxSeconds, -1);
+		for (int s = 0; s < out.length; s++) {
+			int arrival = state.arrival[s];
+			out[s] = (arrival == UNREACHED) ? UNREACHED :
+					arrival - query.start;
+		}
+	}
+
+	/**
+	 * Finds the connections of the date of a time of departure, building
+	 * them if they are not kept. They are built outside of the lock, so
+	 * that queries of other dates can go on meanwhile; threads which query
+	 * a new date at the same time may each build it, but only one copy is
+	 * kept.
+	 * @param epochSecond
+	 * @return
+	 */
+	Query query(long epochSecond) {
+		LocalDate date = Instant.ofEpochSecond(epochSecond)
+				.atZone(this.gtfs.getZoneId()).toLocalDate();
+		Connections connections;
+		synchronized (this.byDate) {
+			connections = this.byDate.get(date);
+		}
+		if (connections == null) {
+			Connections built = this.connect(date);
+			synchronized (this.byDate) {
+				connections = this.byDate.putIfAbsent(date, built);
+			}
+			if (connections == null) {
+				connections = built;
+			}
+		}
+		return new Query(connections,
+				(int)(epochSecond - connections.base));
+	}
+
+	/**
+	 * Scans the connections from some origins. The arrival times are left
+	 * in the state, in seconds after noon on the date of departure.
+	 * @param state working arrays of the calling thread
+	 * @param query connections and time of departure
+	 * @param origins stops to start from
+	 * @param offsets seconds after departure at which each origin is
+	 * reached
+	 * @param maxSeconds longest journey of interest
+	 * @param target stop at which to stop early, or -1 to scan until
+	 * maxSeconds
+	 */
+	void scan(State state, Query query, int[] origins, int[] offsets,
+			int maxSeconds, int target) {
+		Connections connections = query.connections;
+		state.prepare(connections.tripCount);
+		int[] arrival = state.arrival;
+		int[] ready = state.ready;
+
+		int start = query.start;
+		int limit = (int)Math.min((long)start + maxSeconds, UNREACHED - 1);
+		for (int i = 0; i < origins.length; i++) {
+			int time = start + offsets[i];
+			if (time <= limit) {
+				this.reach(state, origins[i], time, time);
+			}
+		}
+		for (int i = 0; i < origins.length; i++) {
+			if (arrival[origins[i]] != UNREACHED) {
+				this.walk(state, origins[i], arrival[origins[i]], limit);
+			}
+		}
+
+		int[] data = connections.data;
+		int[] boarded = state.boarded;
+		int stamp = state.stamp;
+		int end = data.length;
+		for (int c = connections.firstAtOrAfter(start); c < end;
+				c += STRIDE) {
+			int departure = data[c + DEPARTURE];
+			if (departure > limit) {
+				break;
+			}
+			if ((target != -1) && (departure >= arrival[target])) {
+				break;
+			}
+
+			int trip = data[c + TRIP] >>> FLAG_BITS;
+			if (boarded[trip] != stamp) {
+				if (((data[c + TRIP] & CAN_BOARD) == 0) ||
+						(ready[data[c + FROM]] > departure)) {
+					continue;
+				}
+				boarded[trip] = stamp;
+			}
+
+			if ((data[c + TRIP] & CAN_ALIGHT) != 0) {
+				int to = data[c + TO];
+				int time = data[c + ARRIVAL];
+				if ((time < arrival[to]) && (time <= limit)) {
+					int change = this.footpaths.changeTime[to];
+					this.reach(state, to, time, time + change);
+					this.walk(state, to, time, limit);
+				}
+				else if (time + this.footpaths.changeTime[to] < ready[to]) {
+					ready[to] = time + this.footpaths.changeTime[to];
+				}
+			}
+		}
+	}
+
+	private void reach(State state, int stop, int arrival, int ready) {
+		if (arrival < state.arrival[stop]) {
+			state.arrival[stop] = arrival;
+		}
+		if (ready < state.ready[stop]) {
+			state.ready[stop] = ready;
+		}
+	}
+
+	private void walk(State state, int stop, int from, int limit) {
+		for (int i = this.footpaths.start[stop];
+				i < this.footpaths.start[stop + 1]; i++) {
+			int time = from + this.footpaths.duration[i];
+			if (time <= limit) {
+				this.reach(state, this.footpaths.to[i], time, time);
+			}
+		}
+	}
+
+	/**
+	 * Builds the connections of a date.
+	 */
+	private Connections connect(LocalDate date) {
+		long base = this.gtfs.getNoonEpochSecond(date);
+		int windowStart = (int)(date.atStartOfDay(this.gtfs.getZoneId())
+				.toEpochSecond() - base);
+		int windowEnd = (int)(this.gtfs.getNoonEpochSecond(
+				date.plusDays(1)) - base);
+
+		/*
+		 * Trips of the service dates before, of and after the date
+		 */
+		int[] shift = new int[3];
+		BitSet[] active = new BitSet[3];
+		for (int k = 0; k < 3; k++) {
+			LocalDate day = date.plusDays(k - 1);
+			shift[k] = (int)(this.gtfs.getNoonEpochSecond(day) - base);
+			int index = this.calendar.getDayIndex(day);
+			active[k] = (index == -1) ? null :
+					this.calendar.getActiveServices(index);
+		}
+
+		StopTimeTable table = this.table;
+		int[] departure = this.times.departure;
+		int[] arrival = this.times.arrival;
+		byte[] flags = this.times.flags;
+
+		/*
+		 * Sort keys hold the departure, the length of the connection and
+		 * the order in which it was found, so that connections departing
+		 * together are in order of arrival, and those of one trip in order
+		 * along it.
+		 */
+		long[] keys = new long[1024];
+		int[] rows = new int[1024];
+		int[] trips = new int[1024];
+		int count = 0;
+		int tripCount = 0;
+		for (int t = 0; t < table.getTripCount(); t++) {
+			int service = this.tripServices[t];
+			if ((service == -1) || !this.times.isRoutable(table, t)) {
+				continue;
+			}
+			for (int k = 0; k < 3; k++) {
+				if ((active[k] == null) || !active[k].get(service)) {
+					continue;
+				}
+				int found = 0;
+				for (int row = table.tripStart[t];
+						row < table.tripStart[t + 1] - 1; row++) {
+					int dep = departure[row] + shift[k];
+					if ((dep < windowStart) || (dep >= windowEnd)) {
+						continue;
+					}
+					if (count == (1 << 27) - 1) {
+						throw new IllegalStateException(
+								"Too many connections on " + date);
+					}
+					if (count == keys.length) {
+						keys = Arrays.copyOf(keys, count * 2);
+						rows = Arrays.copyOf(rows, count * 2);
+						trips = Arrays.copyOf(trips, count * 2);
+					}
+					long length = Math.max(0, Math.min(0x3ffff,
+							arrival[row + 1] - departure[row]));
+					keys[count] = ((long)(dep - windowStart) << 45) |
+							(length << 27) | count;
+					rows[count] = row;
+					trips[count] = (tripCount << 2) | k;
+					count++;
+					found++;
+				}
+				if (found > 0) {
+					tripCount++;
+				}
+			}
+		}
+		Arrays.sort(keys, 0, count);
+
+		int[] data = new int[count * STRIDE];
+		for (int i = 0; i < count; i++) {
+			int found = (int)(keys[i] & ((1 << 27) - 1));
+			int row = rows[found];
+			int k = trips[found] & 3;
+			int c = i * STRIDE;
+			data[c + DEPARTURE] = departure[row] + shift[k];
+			data[c + ARRIVAL] = arrival[row + 1] + shift[k];
+			data[c + FROM] = table.stop[row];
+			data[c + TO] = table.stop[row + 1];
+			data[c + TRIP] = ((trips[found] >>> 2) << FLAG_BITS) |
+					(flags[row] & CAN_BOARD) | (flags[row + 1] & CAN_ALIGHT);
+		}
+		return new Connections(base, data, tripCount);
+	}
+
+	/**
+	 * The connections of one date, in order of departure.
+	 */
+	static final class Connections {
+		/**
+		 * Noon on the date, as an epoch second. Times are in seconds after
+		 * it.
+		 */
+		final long base;
+		final int[] data;
+		/**
+		 * Number of trips running on the date, counting a trip once for
+		 * each service date on which it runs
+		 */
+		final int tripCount;
+
+		Connections(long base, int[] data, int tripCount) {
+			this.base = base;
+			this.data = data;
+			this.tripCount = tripCount;
+		}
+
+		/**
+		 * Finds the first connection departing at or after a time.
+		 * @param time seconds after base
+		 * @return the offset of the connection in data
+		 */
+		int firstAtOrAfter(int time) {
+			int lo = 0;
+			int hi = this.data.length / STRIDE;
+			while (lo < hi) {
+				int mid = (lo + hi) >>> 1;
+				if (this.data[mid * STRIDE + DEPARTURE] < time) {
+					lo = mid + 1;
+				}
+				else {
+					hi = mid;
+				}
+			}
+			return lo * STRIDE;
+		}
+	}
+
+	/**
+	 * A time of departure, with the connections of its date.
+	 */
+	static final class Query {
+		final Connections connections;
+		final long base;
+		/**
+		 * Time of departure, in seconds after base
+		 */
+		final int start;
+
+		Query(Connections connections, int start) {
+			this.connections = connections;
+			this.base = connections.base;
+			this.start = start;
+		}
+	}
+
+	/**
+	 * Working arrays of the queries made on one thread.
+	 */
+	static final class State {
+		/**
+		 * Earliest arrival at each stop
+		 */
+		final int[] arrival;
+		/**
+		 * Earliest time at which a trip can be boarded at each stop
+		 */
+		final int[] ready;
+		/**
+		 * Stamp of the last query to board each trip. Trips are numbered
+		 * by date, so the array grows to the busiest date queried.
+		 */
+		int[] boarded = new int[0];
+		int stamp = 0;
+
+		State(int stops) {
+			this.arrival = new int[stops];
+			this.ready = new int[stops];
+		}
+
+		/**
+		 * Readies the state for a query.
+		 * @param tripCount number of trips on the date of the query
+		 */
+		void prepare(int tripCount) {
+			if (this.boarded.length < tripCount) {
+				this.boarded = new int[tripCount];
+				this.stamp = 0;
+			}
+			this.stamp++;
+			if (this.stamp == 0) {
+				Arrays.fill(this.boarded, 0);
+				this.stamp = 1;
+			}
+			Arrays.fill(this.arrival, UNREACHED);
+			Arrays.fill(this.ready, UNREACHED);
+		}
+	}
+}
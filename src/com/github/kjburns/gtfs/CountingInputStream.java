@@ -0,0 +1,72 @@
+/*
+ * CountingInputStream.java
+ * General Transit Feed Specification
+ *
+ * Copyright 2016 Kevin J. Burns
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Revision Log:
+ *   2026-10-16  Basic functionality, moved out of LoadMeter
+ */
+package com.github.kjburns.gtfs;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * A stream which counts the bytes read through it. The count may be read
+ * from another thread while the stream is in use.
+ * @author Kevin J. Burns
+ *
+ */
+class CountingInputStream extends FilterInputStream {
+	private volatile long count = 0;
+
+	CountingInputStream(InputStream in) {
+		super(in);
+	}
+
+	/**
+	 * @return the number of bytes read or skipped so far
+	 */
+	long getCount() {
+		return this.count;
+	}
+
+	@Override
+	public int read() throws IOException {
+		int ret = super.read();
+		if (ret >= 0) {
+			this.count++;
+		}
+		return ret;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		int ret = super.read(b, off, len);
+		if (ret > 0) {
+			this.count += ret;
+		}
+		return ret;
+	}
+
+	@Override
+	public long skip(long n) throws IOException {
+		long ret = super.skip(n);
+		this.count += ret;
+		return ret;
+	}
+}
@@ -0,0 +1,140 @@
+/*
+ * Footpaths.java
+ * General Transit Feed Specification
+ *
+ * Copyright 2016 Kevin J. Burns
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Revision Log:
+ *   2026-10-16  Basic functionality
+ */
+package com.github.kjburns.gtfs;
+
+import java.util.Arrays;
+
+import com.github.kjburns.gtfs.TransferRule.TransferTypeEnum;
+
+/**
+ * The transfers of a feed, as used for routing: walks between pairs of
+ * stops, and the time needed to change vehicles at a stop. Stops are
+ * numbered by their index in a {@link StopTimeTable}, so stops without any
+ * stop times take no part.
+ * <p>
+ * Every transfer rule between two different stops is a walk, unless
+ * transfers between them are not possible. A walk takes the minimum
+ * transfer time of its rule if there is one; otherwise it is estimated from
+ * the great-circle distance between the stops at {@link #WALKING_SPEED}.
+ * A rule from a stop to itself sets the time needed to change vehicles
+ * there, or forbids changing vehicles there altogether.
+ * </p>
+ * @author Kevin J. Burns
+ *
+ */
+class Footpaths {
+	/**
+	 * Speed at which walks without a minimum transfer time are taken, in
+	 * meters per second.
+	 */
+	static final double WALKING_SPEED = 1.3;
+	/**
+	 * Change time of a stop at which vehicles cannot be changed. It is
+	 * large enough that no change is ever made, and small enough that adding
+	 * it to any time of day does not overflow.
+	 */
+	static final int NO_CHANGE = Integer.MAX_VALUE / 4;
+
+	/**
+	 * Offsets into {@link #to} and {@link #duration} for each stop. The
+	 * extra last element holds the number of walks.
+	 */
+	final int[] start;
+	/**
+	 * Stop reached by each walk, grouped by the stop it leaves from
+	 */
+	final int[] to;
+	/**
+	 * Length of each walk, in seconds
+	 */
+	final int[] duration;
+	/**
+	 * Seconds needed to change vehicles at each stop, or
+	 * {@link #NO_CHANGE}
+	 */
+	final int[] changeTime;
+
+	/**
+	 * Collects the transfers between the stops of a table.
+	 * @param table finished table of stop times
+	 * @param stops stops of the feed, with their transfer rules
+	 */
+	Footpaths(StopTimeTable table, StopCollection stops) {
+		int stopCount = table.stopIds.size();
+		this.start = new int[stopCount + 1];
+		this.changeTime = new int[stopCount];
+
+		int[] from = new int[16];
+		int[] to = new int[16];
+		int[] duration = new int[16];
+		int count = 0;
+		for (int s = 0; s < stopCount; s++) {
+			Stop stop = stops.getStopById(table.stopIds.get(s));
+			if (stop == null) {
+				continue;
+			}
+			for (TransferRule rule : stop.getOutgoingTransfers()) {
+				boolean possible = (rule.getTransferType() !=
+						TransferTypeEnum.NO_TRANSFER_POSSIBLE);
+				if (rule.getToStopId().equals(stop.getStopId())) {
+					this.changeTime[s] = !possible ? NO_CHANGE :
+							Math.max(0, rule.getMinTransferTime());
+					continue;
+				}
+
+				int target = table.stopIds.indexOf(rule.getToStopId());
+				if (!possible || (target == -1)) {
+					continue;
+				}
+				int seconds = rule.getMinTransferTime();
+				if (seconds < 0) {
+					Stop toStop = stops.getStopById(rule.getToStopId());
+					seconds = (int)Math.ceil(GreatCircle.distance(
+							stop.getLatitude(), stop.getLongitude(),
+							toStop.getLatitude(), toStop.getLongitude()) /
+							WALKING_SPEED);
+				}
+				if (count == from.length) {
+					from = Arrays.copyOf(from, count * 2);
+					to = Arrays.copyOf(to, count * 2);
+					duration = Arrays.copyOf(duration, count * 2);
+				}
+				from[count] = s;
+				to[count] = target;
+				duration[count] = seconds;
+				count++;
+			}
+		}
+
+		/*
+		 * Rules are visited stop by stop, so the walks are already grouped
+		 */
+		this.to = Arrays.copyOf(to, count);
+		this.duration = Arrays.copyOf(duration, count);
+		for (int i = 0; i < count; i++) {
+			this.start[from[i] + 1]++;
+		}
+		for (int s = 0; s < stopCount; s++) {
+			this.start[s + 1] += this.start[s];
+		}
+	}
+}
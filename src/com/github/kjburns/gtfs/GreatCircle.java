@@ -0,0 +1,88 @@
+/*
+ * GreatCircle.java
+ * General Transit Feed Specification
+ *
+ * Copyright 2016 Kevin J. Burns
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Revision Log:
+ *   2026-10-16  Basic functionality
+ *   2026-10-16  Initial bearing
+ */
+package com.github.kjburns.gtfs;
+
+/**
+ * Distances over the surface of the earth, treated as a sphere.
+ * @author Kevin J. Burns
+ *
+ */
+class GreatCircle {
+	/**
+	 * Mean radius of the earth, in meters.
+	 */
+	static final double EARTH_RADIUS = 6371008.8;
+
+	private GreatCircle() {
+	}
+
+	/**
+	 * Computes the distance between two points, using the haversine formula.
+	 * @param lat1 latitude of the first point, in degrees
+	 * @param lon1 longitude of the first point, in degrees
+	 * @param lat2 latitude of the second point, in degrees
+	 * @param lon2 longitude of the second point, in degrees
+	 * @return distance in meters
+	 */
+	static double distance(double lat1, double lon1,
+			double lat2, double lon2) {
+		double dLat = Math.toRadians(lat2 - lat1);
+		double dLon = Math.toRadians(lon2 - lon1);
+		double h = Math.sin(dLat / 2) * Math.sin(dLat / 2) +
+				Math.cos(Math.toRadians(lat1)) *
+				Math.cos(Math.toRadians(lat2)) *
+				Math.sin(dLon / 2) * Math.sin(dLon / 2);
+		return 2 * EARTH_RADIUS * Math.asin(Math.min(1, Math.sqrt(h)));
+	}
+
+	/**
+	 * Computes the initial bearing of the great circle from one point to
+	 * another.
+	 * @param lat1 latitude of the first point, in degrees
+	 * @param lon1 longitude of the first point, in degrees
+	 * @param lat2 latitude of the second point, in degrees
+	 * @param lon2 longitude of the second point, in degrees
+	 * @return degrees clockwise from north, from 0 up to 360
+	 */
+	static double bearing(double lat1, double lon1, 
+			double lat2, double lon2) {
+		double phi1 = Math.toRadians(lat1);
+		double phi2 = Math.toRadians(lat2);
+		double dLon = Math.toRadians(lon2 - lon1);
+		double y = Math.sin(dLon) * Math.cos(phi2);
+		double x = Math.cos(phi1) * Math.sin(phi2) - 
+				Math.sin(phi1) * Math.cos(phi2) * Math.cos(dLon);
+		double ret = Math.toDegrees(Math.atan2(y, x));
+		return (ret < 0) ? ret + 360 : ret;
+	}
+
+	/**
+	 * Converts a distance over the surface to the angle it subtends at the
+	 * center of the earth.
+	 * @param meters distance in meters
+	 * @return angle in degrees
+	 */
+	static double toDegrees(double meters) {
+		return Math.toDegrees(meters / EARTH_RADIUS);
+	}
+}
@@ -31,21 +31,62 @@
  *   2016-05-30  Load and process stop_times.txt
  * Revision Log:
  *   2016-06-02  Replace GregorianCalendar functionality with java.time
+ *   2026-10-16  Read tables straight from the zip file unless extraction
+ *               is requested through GtfsLoadOptions
+ *   2026-10-16  Load unpacked feeds from a folder through memory-mapped
+ *               tables
+ *   2026-10-16  Parse independent tables in parallel on the executor given
+ *               in GtfsLoadOptions
+ *   2026-10-16  Split memory-mapped stop_times.txt across several threads
+ *   2026-10-16  Read and write binary snapshots
+ *   2026-10-16  Read the service calendar from the snapshot
+ *   2026-10-16  Cache the feed's ZoneId and the instant of noon on every
+ *               date of the calendar
+ *   2026-10-16  Attach service indices to the stop time index after loading
+ *   2026-10-16  Optional interpolation of missing stop times
+ *   2026-10-16  Feed-wide dictionary of identifiers
+ *   2026-10-16  Optionally load each table when it is first needed
+ *   2026-10-16  Report each phase of loading to a GtfsLoadListener, which
+ *               also takes over progress reports to the worker thread
+ *   2026-10-16  Check for cancellation and report progress in bytes every
+ *               few records of each table
+ *   2026-10-16  Close the source, removing any extracted files, whenever
+ *               loading fails
+ *   2026-10-16  Parse the feed instead when a snapshot cannot be read
+ *   2026-10-16  Keep the UTC offset at noon only where it changes, rather
+ *               than noon on every date of the calendar
  */
 package com.github.kjburns.gtfs;
 
 import java.io.File;
-import java.io.FileInputStream;
+import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.text.ParseException;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import javax.swing.SwingWorker;
 
+import com.github.kjburns.gtfs.GtfsLoadListener.Phase;
 import com.github.kjburns.gtfs.misc.CsvFile;
+import com.github.kjburns.gtfs.misc.CsvTokenizer;
+import com.github.kjburns.gtfs.misc.DirectoryWrapper;
+import com.github.kjburns.gtfs.misc.EntrySource;
 import com.github.kjburns.gtfs.misc.ZipWrapper;
 
 /**
@@ -57,7 +98,9 @@ import com.github.kjburns.gtfs.misc.ZipWrapper;
  *
  */
 public class GtfsFile implements AutoCloseable {
-	private ZipWrapper zipFile = null;
+	private EntrySource source = null;
+	private String path;
+	private GtfsLoadOptions options;
 	
 	private AgencyCollection transitAgencies;
 	private StopCollection stops;
@@ -66,9 +109,48 @@ public class GtfsFile implements AutoCloseable {
 	private ServiceCalendar serviceCalendar;
 	private TripCollection trips;
 	private StopTimeCollection stopTimes;
+	private final IdentifierDictionary identifiers = 
+			new IdentifierDictionary();
+	
+	private ZoneId zoneId;
+	/**
+	 * Days of the service calendar, as indexed by
+	 * {@link ServiceCalendar#getDayIndex(LocalDate)}, from which the UTC
+	 * offset at noon changes, in increasing order from 0
+	 */
+	private int[] offsetChangeDays = new int[0];
+	/**
+	 * UTC offset at noon, in seconds, from each day of
+	 * {@link #offsetChangeDays} until the next
+	 */
+	private int[] noonOffsets = new int[0];
+	/**
+	 * Steps which have yet to be loaded, when loading lazily; otherwise, or
+	 * once every step has been loaded, {@code null}
+	 */
+	private volatile TableLoadGraph lazyLoads = null;
+	/**
+	 * Where to write a snapshot once every table has been loaded, if one
+	 * is to be written
+	 */
+	private Path pendingSnapshotPath = null;
+	private long fingerprint = 0;
+	/**
+	 * Listener which receives reports on each phase of loading, or 
+	 * {@code null}
+	 */
+	private GtfsLoadListener listener = null;
+	private long loadStartNanos;
+	/**
+	 * Checks for cancellation and reports progress while tables are 
+	 * parsed, or {@code null} if there is nothing to check or report to
+	 */
+	private LoadControl control = null;
 
 	private static final Pattern DATE_PATTERN = 
 				Pattern.compile("^(\\d{4})(\\d{2})(\\d{2})$");
+	private static final long SECONDS_PER_DAY = 86400;
+	private static final long NOON_SECONDS = 43200;
 
 	static final String FILENAME_AGENCY = "agency.txt";
 	static final String FILENAME_STOPS = "stops.txt";
@@ -80,10 +162,22 @@ public class GtfsFile implements AutoCloseable {
 	static final String FILENAME_CALENDAR_OVERRIDES = "calendar_dates.txt";
 	static final String FILENAME_TRIPS = "trips.txt";
 	static final String FILENAME_STOP_TIMES = "stop_times.txt";
+	/**
+	 * Name of the load step which interpolates missing stop times
+	 */
+	private static final String STAGE_INTERPOLATION = "interpolation";
+	/**
+	 * Name of the load step which caches the time zone and the UTC offset
+	 * at noon on each date
+	 */
+	private static final String STAGE_CLOCK = "clock";
+	/**
+	 * Name of the load step which attaches services to the stop time index
+	 */
+	private static final String STAGE_SERVICE_INDEX = "service index";
 	
 	/**
-	 * Loads a GTFS file from disk. The file is loaded lazily (i.e., individual
-	 * text files are only parsed as they are needed).
+	 * Loads a GTFS file from disk with the default {@link GtfsLoadOptions}.
 	 * @param path Path to the file to load. This file must be a zip file.
 	 * @param worker An optional worker thread to report progress to. 
 	 * Invocation of cancel on the worker thread will be honored on a 
@@ -106,103 +200,615 @@ public class GtfsFile implements AutoCloseable {
 					MissingRequiredFieldException, DatasetUniquenessException, 
 					InvalidDataException, ParentStationNotStationException, 
 					TerminalTimepointException {
-		this.zipFile = new ZipWrapper(path, worker);
+		this(path, worker, new GtfsLoadOptions());
+	}
+	
+	/**
+	 * Loads a GTFS file from disk.
+	 * <p>
+	 * If the path names a folder rather than a zip file, it is expected to
+	 * hold the unpacked tables of a feed. Each table is then memory-mapped
+	 * and tokenized in place, without being copied into the heap first.
+	 * </p>
+	 * @param path Path to the file to load. This must be either a zip file 
+	 * or a folder holding the contents of one.
+	 * @param worker An optional worker thread to report progress to, 
+	 * through a {@link SwingWorkerLoadListener}. Invocation of cancel on the
+	 * worker thread will be honored on a best-effort basis. If there is no 
+	 * worker thread, pass {@code null}.
+	 * @param options Settings controlling how the file is loaded. If a
+	 * load executor is set, tables which do not depend on each other are
+	 * parsed on it at the same time; if several of them fail, the failure of
+	 * the table which would have been loaded first is thrown and the others
+	 * are attached to it as suppressed exceptions. If a cancellation token
+	 * or progress sink is set, each table checks and reports to them every
+	 * few records.
+	 * @throws IOException If there are problems opening the supplied zip file
+	 * @throws InterruptedException if a worker thread was passed, or a 
+	 * cancellation token was set, and it was canceled prematurely 
+	 * @throws MissingRequiredFieldException if any of the files have a 
+	 * required field which is missing.
+	 * @throws DatasetUniquenessException if a file with a dataset-unique
+	 * field contains illegal duplicate values
+	 * @throws InvalidDataException if any data is invalid by the spec
+	 * @throws ParentStationNotStationException if a stop is listed with a
+	 * parent station, but the alleged parent station is not a station
+	 * @throws TerminalTimepointException if a trip fails to start and end 
+	 * with a timepoint
+	 */
+	public GtfsFile(String path, SwingWorker<?, ?> worker, 
+			GtfsLoadOptions options) 
+			throws IOException, InterruptedException, 
+					MissingRequiredFieldException, DatasetUniquenessException, 
+					InvalidDataException, ParentStationNotStationException, 
+					TerminalTimepointException {
+		this.path = path;
+		this.options = options;
+		this.listener = options.getLoadListener();
 		if (worker != null) {
-			if (worker.isCancelled()) {
-				throw new InterruptedException();
-			}
+			GtfsLoadListener progress = new SwingWorkerLoadListener(worker);
+			this.listener = (this.listener == null) ? progress :
+					GtfsLoadListener.combine(this.listener, progress);
+		}
+		if ((worker != null) || (options.getCancellationToken() != null) ||
+				(options.getProgressSink() != null)) {
+			this.control = new LoadControl(options.getCancellationToken(), 
+					(worker == null) ? null : worker::isCancelled, 
+					options.getProgressSink(), options.getCheckInterval());
 		}
+		boolean zipped = !new File(path).isDirectory();
 
 		/*
 		 * The following files are required, so if IOException is raised it
-		 * will be passed along to caller
+		 * will be passed along to caller. Only transfers.txt refers to 
+		 * another table while it is being read.
 		 */
-		try {
-			this.loadAgencies();
-			this.loadStops();
-			this.loadRoutes();
-			this.loadTrips();
-			
-			this.serviceCalendar = new ServiceCalendar(this);
-			this.loadStopTimes();
-		} catch (MissingRequiredFieldException ex) {
+		TableLoadGraph graph = new TableLoadGraph();
+		this.addStep(graph, Phase.PARSE, FILENAME_AGENCY, this::loadAgencies);
+		this.addStep(graph, Phase.PARSE, FILENAME_STOPS, this::loadStops);
+		this.addStep(graph, Phase.PARSE, FILENAME_ROUTES, this::loadRoutes);
+		this.addStep(graph, Phase.PARSE, FILENAME_TRIPS, this::loadTrips);
+		
+		Path snapshotPath = null;
+		GtfsSnapshot.Reader snapshot = null;
+		if (options.getSnapshotPath() != null) {
+			snapshotPath = Paths.get(options.getSnapshotPath());
+			this.fingerprint = GtfsSnapshot.fingerprint(path);
+			try {
+				snapshot = GtfsSnapshot.open(snapshotPath, this.fingerprint);
+			} catch (IOException ex) {
+				/*
+				 * An unreadable snapshot is no worse than a missing one; it
+				 * is replaced once loading finishes
+				 */
+				snapshot = null;
+			}
+		}
+		
+		if (snapshot != null) {
 			/*
-			 * If a required field is missing, the file is invalid. Pass along
-			 * the exception for now, although later it may be desirable to
-			 * allow processing to continue because the missing fields in this
-			 * file don't necessarily preclude the useful processing of the
-			 * feed.
+			 * The sections of the snapshot must be read in order, so the
+			 * calendar and shapes come with the stop times
 			 */
-			throw ex;
+			final GtfsSnapshot.Reader reader = snapshot;
+			final Path rewritePath = snapshotPath;
+			this.addStep(graph, Phase.PARSE, FILENAME_STOP_TIMES, () -> {
+				if (this.readSnapshot(reader, options)) {
+					return;
+				}
+				/*
+				 * The snapshot passed its checks but could not be read after
+				 * all, so parse the tables it holds, and replace it once
+				 * loading finishes
+				 */
+				this.serviceCalendar = new ServiceCalendar(this);
+				this.serviceCalendar.shareIdentifiers(this.identifiers);
+				this.loadStopTimes();
+				this.stopTimes.getTable().shareIdentifiers(this.identifiers);
+				try {
+					this.loadShapes();
+				} catch (CancellationException ex) {
+					throw ex;
+				} catch (Exception ex) {
+					/*
+					 * Optional, as when there is no snapshot
+					 */
+				}
+				this.pendingSnapshotPath = rewritePath;
+			});
+			this.addStep(graph, Phase.PARSE, FILENAME_CALENDAR, () -> { }, 
+					FILENAME_STOP_TIMES);
+		}
+		else {
+			this.addStep(graph, Phase.PARSE, FILENAME_CALENDAR, () -> {
+				this.serviceCalendar = new ServiceCalendar(this);
+				this.serviceCalendar.shareIdentifiers(this.identifiers);
+			});
+			this.addStep(graph, Phase.PARSE, FILENAME_STOP_TIMES, () -> {
+				this.loadStopTimes();
+				this.stopTimes.getTable().shareIdentifiers(this.identifiers);
+			});
 		}
 		
 		/*
 		 * The following files are optional.
 		 */
+		this.addStep(graph, Phase.PARSE, FILENAME_TRANSFERS, () -> {
+			try {
+				this.loadTransfers();
+			} catch (IOException| MissingRequiredFieldException | 
+					InvalidDataException ex) {
+				/*
+				 * Since the file is optional, do nothing for now, but maybe
+				 * log it or something later 
+				 */
+			}
+		}, FILENAME_STOPS);
+		if (snapshot == null) {
+			this.addStep(graph, Phase.PARSE, FILENAME_SHAPES, () -> {
+				try {
+					this.loadShapes();
+				} catch (CancellationException ex) {
+					throw ex;
+				} catch (Exception ex) {
+					/*
+					 * Since the file is optional, do nothing for now, but 
+					 * maybe log it or something later 
+					 */
+				}
+			});
+		}
+		else {
+			this.addStep(graph, Phase.PARSE, FILENAME_SHAPES, () -> { }, 
+					FILENAME_STOP_TIMES);
+		}
+		
+		/*
+		 * The following steps work on tables which have been loaded.
+		 */
+		this.addStep(graph, Phase.INDEX, STAGE_CLOCK, () -> {
+			this.zoneId = ZoneId.of(this.getTimezone());
+			this.buildNoonOffsets();
+		}, FILENAME_AGENCY, FILENAME_CALENDAR);
+		if (options.isInterpolateStopTimes()) {
+			this.addStep(graph, Phase.INDEX, STAGE_INTERPOLATION, () -> {
+				this.stopTimes.getTable().interpolateTimes(this.stops);
+			}, FILENAME_STOPS, FILENAME_STOP_TIMES);
+			this.addStep(graph, Phase.INDEX, STAGE_SERVICE_INDEX, 
+					() -> this.stopTimes.prepareServiceIndex(), 
+					FILENAME_TRIPS, FILENAME_CALENDAR, STAGE_INTERPOLATION);
+		}
+		else {
+			this.addStep(graph, Phase.INDEX, STAGE_SERVICE_INDEX, 
+					() -> this.stopTimes.prepareServiceIndex(), 
+					FILENAME_TRIPS, FILENAME_CALENDAR, FILENAME_STOP_TIMES);
+		}
+		
+		if ((snapshotPath != null) && (snapshot == null)) {
+			this.pendingSnapshotPath = snapshotPath;
+		}
+		
+		this.loadStartNanos = System.nanoTime();
+		if (this.listener != null) {
+			this.listener.loadStarted(path, 
+					graph.getStepCount() + (zipped ? 1 : 0));
+		}
+		if (zipped) {
+			ZipWrapper.LoadMode mode = options.isExtractToTemp() ? 
+					ZipWrapper.LoadMode.EXTRACT : ZipWrapper.LoadMode.STREAM;
+			LoadMeter meter = this.beginPhase(Phase.EXTRACT, path);
+			Throwable failure = null;
+			try {
+				ZipWrapper zip = new ZipWrapper(path, mode, 
+						(this.control == null) ? null : 
+						this.control::isCancelled);
+				this.source = zip;
+				if (meter != null) {
+					meter.addRows(zip.getEntries().size());
+					meter.addBytes(zip.getExtractedByteCount());
+				}
+			} catch (Throwable ex) {
+				failure = ex;
+				throw ex;
+			} finally {
+				this.endPhase(meter, Phase.EXTRACT, path, failure);
+			}
+		}
+		else {
+			this.source = new DirectoryWrapper(path);
+		}
+		if (this.control != null) {
+			if (this.control.isCancelled()) {
+				this.source.close();
+				throw new InterruptedException();
+			}
+			this.control.setTotalBytes(this.measureTables(snapshot != null));
+		}
+		
+		if (options.isLazyLoading()) {
+			this.lazyLoads = graph;
+			return;
+		}
+		
+		boolean loaded = false;
 		try {
-			this.loadTransfers();
-		} catch (IOException| MissingRequiredFieldException | 
-				InvalidDataException ex) {
+			graph.run(options.getLoadExecutor());
+			loaded = true;
+		} catch (CancellationException ex) {
+			InterruptedException interrupted = new InterruptedException();
+			interrupted.initCause(ex);
+			throw interrupted;
+		} catch (IOException | InterruptedException | 
+				MissingRequiredFieldException | DatasetUniquenessException | 
+				InvalidDataException | ParentStationNotStationException | 
+				TerminalTimepointException | RuntimeException ex) {
 			/*
-			 * Since the file is optional, do nothing for now, but maybe
-			 * log it or something later 
+			 * If a required field is missing, the file is invalid. Pass along
+			 * the exception for now, although later it may be desirable to
+			 * allow processing to continue because the missing fields in this
+			 * file don't necessarily preclude the useful processing of the
+			 * feed.
 			 */
-		}
-		try {
-			this.loadShapes();
+			throw ex;
 		} catch (Exception ex) {
 			/*
-			 * Since the file is optional, do nothing for now, but maybe
-			 * log it or something later 
+			 * The steps above throw nothing else
 			 */
+			throw new IllegalStateException(ex);
+		} finally {
+			if (!loaded) {
+				/*
+				 * Remove any extracted files along with the half-loaded
+				 * feed. A failure to close is not worth hiding the failure
+				 * to load behind.
+				 */
+				try {
+					this.source.close();
+				} catch (IOException ex) {
+					/*
+					 * Nothing more can be done
+					 */
+				}
+			}
+		}
+		this.finishLoading();
+	}
+	
+	/**
+	 * Reads the stop times, shapes and calendar from a snapshot. Nothing is
+	 * kept unless every section is read.
+	 * @param reader snapshot positioned at the stop times section
+	 * @param options
+	 * @return whether the snapshot was read
+	 */
+	private boolean readSnapshot(GtfsSnapshot.Reader reader, 
+			GtfsLoadOptions options) {
+		int start = reader.getPosition();
+		StopTimeTable table;
+		TransitShapeCollection shapes;
+		ServiceCalendar calendar;
+		try {
+			table = reader.readStopTimes(this);
+			shapes = reader.readShapes(this.identifiers);
+			calendar = reader.readCalendar(this);
+		} catch (IOException ex) {
+			return false;
+		}
+		
+		if (!options.isInterpolateStopTimes()) {
+			table.clearInterpolatedTimes();
+		}
+		table.shareIdentifiers(this.identifiers);
+		this.stopTimes = new StopTimeCollection(this, table);
+		this.shapes = shapes;
+		this.serviceCalendar = calendar;
+		this.serviceCalendar.shareIdentifiers(this.identifiers);
+		LoadMeter meter = LoadMeter.current();
+		if (meter != null) {
+			meter.addRows(table.size);
+			meter.addBytes(reader.getPosition() - start);
 		}
+		return true;
+	}
+	
+	/**
+	 * Measures the tables which will be parsed, for reports of progress.
+	 * @param fromSnapshot whether the tables in the snapshot will be read
+	 * from it rather than parsed
+	 * @return the total uncompressed size of the tables, or -1 if the size
+	 * of any of them is not known
+	 */
+	private long measureTables(boolean fromSnapshot) {
+		List<String> tables = new ArrayList<>(Arrays.asList(FILENAME_AGENCY,
+				FILENAME_STOPS, FILENAME_ROUTES, FILENAME_TRIPS, 
+				FILENAME_TRANSFERS));
+		if (!fromSnapshot) {
+			tables.addAll(Arrays.asList(FILENAME_CALENDAR, 
+					FILENAME_CALENDAR_OVERRIDES, FILENAME_SHAPES, 
+					FILENAME_STOP_TIMES));
+		}
+		
+		long ret = 0;
+		for (String table : tables) {
+			if (!this.source.hasEntry(table)) {
+				continue;
+			}
+			long size = this.source.getEntrySize(table);
+			if (size < 0) {
+				return -1;
+			}
+			ret += size;
+		}
+		return ret;
+	}
+	
+	/**
+	 * Adds a step to a load graph, checking for cancellation before it 
+	 * runs and reporting it to the listener if there is one.
+	 * @param graph
+	 * @param phase kind of work the step does
+	 * @param name name of the step
+	 * @param step
+	 * @param dependencies names of the steps it depends on
+	 */
+	private void addStep(TableLoadGraph graph, Phase phase, String name, 
+			TableLoadGraph.Step step, String... dependencies) {
+		if ((this.listener == null) && (this.control == null)) {
+			graph.add(name, step, dependencies);
+			return;
+		}
+		graph.add(name, () -> {
+			if (this.control != null) {
+				this.control.checkCancelled();
+			}
+			LoadMeter meter = this.beginPhase(phase, name);
+			Throwable failure = null;
+			try {
+				step.run();
+			} catch (Throwable ex) {
+				failure = ex;
+				throw ex;
+			} finally {
+				this.endPhase(meter, phase, name, failure);
+			}
+		}, dependencies);
+	}
+	
+	/**
+	 * Starts a phase of loading on the calling thread.
+	 * @return the meter measuring the phase, or {@code null} if there is no
+	 * listener to report it to
+	 */
+	private LoadMeter beginPhase(Phase phase, String name) {
+		if (this.listener == null) {
+			return null;
+		}
+		this.listener.phaseStarted(phase, name);
+		return LoadMeter.start();
+	}
+	
+	/**
+	 * Finishes a phase of loading started by 
+	 * {@link #beginPhase(Phase, String)}, and reports it.
+	 * @param meter meter returned by beginPhase
+	 * @param failure what made the phase fail, or {@code null}
+	 */
+	private void endPhase(LoadMeter meter, Phase phase, String name, 
+			Throwable failure) {
+		if (meter != null) {
+			this.listener.phaseFinished(meter.finish(phase, name, failure));
+		}
+	}
+	
+	/**
+	 * Completes loading once every table has been loaded.
+	 */
+	private void finishLoading() {
+		this.identifiers.freeze();
+		if (this.listener != null) {
+			this.listener.loadFinished(
+					System.nanoTime() - this.loadStartNanos);
+		}
+		
+		if (this.pendingSnapshotPath != null) {
+			try {
+				GtfsSnapshot.write(this, this.fingerprint, 
+						this.pendingSnapshotPath);
+			} catch (IOException ex) {
+				/*
+				 * The snapshot only speeds up the next load, so do nothing 
+				 * for now, but maybe log it or something later 
+				 */
+			}
+			this.pendingSnapshotPath = null;
+		}
+	}
+	
+	/**
+	 * When loading lazily, makes sure that a step of loading has been run.
+	 * Otherwise, every step was run by the constructor, so does nothing.
+	 * @param step name of the step, usually the name of a table
+	 * @throws TableLoadException if the step, or a step it depends on, 
+	 * failed
+	 */
+	private void require(String step) {
+		TableLoadGraph graph = this.lazyLoads;
+		if (graph == null) {
+			return;
+		}
+		
+		graph.load(step);
+		if (graph.isComplete()) {
+			synchronized (graph) {
+				if (this.lazyLoads == graph) {
+					/*
+					 * Writing the snapshot goes through the accessors
+					 */
+					this.lazyLoads = null;
+					this.finishLoading();
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Writes a binary snapshot of this file, which can be used to speed up
+	 * later loads of the same feed through 
+	 * {@link GtfsLoadOptions#setSnapshotPath(String)}.
+	 * @param snapshotPath destination of the snapshot
+	 * @throws IOException if the snapshot cannot be written, or if the feed
+	 * this file was loaded from can no longer be read
+	 */
+	public void writeSnapshot(String snapshotPath) throws IOException {
+		GtfsSnapshot.write(this, GtfsSnapshot.fingerprint(this.path), 
+				Paths.get(snapshotPath));
+	}
+	
+	/**
+	 * Opens one of the tables in this file for reading.
+	 * @param filename name of the table, such as {@value #FILENAME_STOPS}
+	 * @return a stream over the table, or {@code null} if the table is not
+	 * present. The caller must close the stream.
+	 * @throws IOException if the table cannot be opened
+	 */
+	InputStream openTable(String filename) throws IOException {
+		InputStream ret = this.source.openEntry(filename);
+		LoadMeter meter = LoadMeter.current();
+		if ((ret != null) && (meter != null)) {
+			ret = meter.track(ret);
+		}
+		return ret;
+	}
+	
+	/**
+	 * Opens one of the tables in this file for streaming record by record.
+	 * Tables which can be memory-mapped are tokenized in place; all others 
+	 * are decoded from a stream.
+	 * @param filename name of the table, such as {@value #FILENAME_STOPS}
+	 * @return a tokenizer positioned before the first record, or 
+	 * {@code null} if the table is not present. The caller must close the
+	 * tokenizer.
+	 * @throws IOException if the table cannot be opened
+	 */
+	CsvTokenizer openTableTokenizer(String filename) throws IOException {
+		LoadMeter meter = LoadMeter.current();
+		ByteBuffer mapped = this.source.mapEntry(filename);
+		CsvTokenizer ret;
+		if (mapped != null) {
+			if (meter != null) {
+				meter.addBytes(mapped.remaining());
+			}
+			ret = CsvTokenizer.open(mapped);
+		}
+		else {
+			InputStream is = this.openTable(filename);
+			if (is == null) {
+				return null;
+			}
+			if (this.control != null) {
+				CountingInputStream counted = new CountingInputStream(is);
+				ret = this.control.monitor(CsvTokenizer.open(counted), 
+						counted);
+				return (meter == null) ? ret : meter.track(ret);
+			}
+			ret = CsvTokenizer.open(is);
+		}
+		ret = this.monitor(ret);
+		return (meter == null) ? ret : meter.track(ret);
+	}
+	
+	/**
+	 * Has a tokenizer over part of a table check for cancellation and
+	 * report progress as it reads, if this file is being loaded with
+	 * either.
+	 * @param tokenizer a tokenizer which reports its own byte position
+	 * @return tokenizer
+	 */
+	CsvTokenizer monitor(CsvTokenizer tokenizer) {
+		if (this.control != null) {
+			this.control.monitor(tokenizer, null);
+		}
+		return tokenizer;
+	}
+	
+	private CsvTokenizer openRequiredTableTokenizer(String filename) 
+			throws IOException {
+		CsvTokenizer ret = this.openTableTokenizer(filename);
+		if (ret == null) {
+			throw new FileNotFoundException(filename);
+		}
+		return ret;
 	}
 	
 	private void loadStopTimes() 
-			throws IOException, MissingRequiredFieldException, 
-			InvalidDataException, TerminalTimepointException {
-		File stopTimesFile = this.zipFile.getEntry(FILENAME_STOP_TIMES);
-		this.stopTimes = new StopTimeCollection(this, stopTimesFile);
+			throws IOException, InterruptedException, 
+			MissingRequiredFieldException, InvalidDataException, 
+			TerminalTimepointException {
+		int parallelism = this.options.getStopTimesParallelism();
+		if (parallelism > 1) {
+			ByteBuffer mapped = this.source.mapEntry(FILENAME_STOP_TIMES);
+			if (mapped != null) {
+				ForkJoinPool pool = new ForkJoinPool(parallelism);
+				try {
+					this.stopTimes = new StopTimeCollection(this, mapped, pool);
+				} finally {
+					pool.shutdownNow();
+				}
+				LoadMeter meter = LoadMeter.current();
+				if (meter != null) {
+					meter.addRows(this.stopTimes.getTable().size);
+					meter.addBytes(mapped.limit());
+				}
+				return;
+			}
+		}
+		
+		try (CsvTokenizer table = 
+				this.openRequiredTableTokenizer(FILENAME_STOP_TIMES)) {
+			this.stopTimes = new StopTimeCollection(this, table);
+		}
 	}
 
 	private void loadTrips() 
 			throws IOException, MissingRequiredFieldException, 
 					InvalidDataException, DatasetUniquenessException {
-		File tripsFile = this.zipFile.getEntry(FILENAME_TRIPS);
-		this.trips = new TripCollection(tripsFile);
+		try (CsvTokenizer table = 
+				this.openRequiredTableTokenizer(FILENAME_TRIPS)) {
+			this.trips = new TripCollection(table, this.identifiers);
+		}
 	}
 
 	private void loadShapes() 
 			throws IOException, MissingRequiredFieldException, 
 					InvalidDataException {
-		File shapesFile = this.zipFile.getEntry(FILENAME_SHAPES);
-		if (!shapesFile.exists()) {
-			return;
+		try (CsvTokenizer table = this.openTableTokenizer(FILENAME_SHAPES)) {
+			if (table == null) {
+				return;
+			}
+			
+			this.shapes = new TransitShapeCollection(table, this.identifiers);
 		}
-		
-		this.shapes = new TransitShapeCollection(shapesFile);
 	}
 
 	private void loadRoutes() 
 			throws IOException, MissingRequiredFieldException, 
 					InvalidDataException {
-		File routesFile = this.zipFile.getEntry(FILENAME_ROUTES);
-		this.routes = new RouteCollection(routesFile);
+		try (CsvTokenizer table = 
+				this.openRequiredTableTokenizer(FILENAME_ROUTES)) {
+			this.routes = new RouteCollection(table, this.identifiers);
+		}
 	}
 
 	private void loadTransfers() 
 			throws IOException, MissingRequiredFieldException, 
 				InvalidDataException {
-		File transfersFile = this.zipFile.getEntry(FILENAME_TRANSFERS);
-		if (transfersFile == null) {
-			return;
-		}
-		if (!transfersFile.exists()) {
-			return;
-		}
-		
-		try(FileInputStream fis = new FileInputStream(transfersFile)) {
-			CsvFile table = new CsvFile(fis);
+		try (CsvTokenizer tokenizer = 
+				this.openTableTokenizer(FILENAME_TRANSFERS)) {
+			if (tokenizer == null) {
+				return;
+			}
+			
+			CsvFile table = new CsvFile(tokenizer);
 			for (int i = 1; i <= table.getRecordCount(); i++) {
 				TransferRule rule = new TransferRule(table, i);
 				this.stops.registerTransferRule(rule);
@@ -213,22 +819,26 @@ public class GtfsFile implements AutoCloseable {
 	private void loadAgencies() 
 			throws IOException, MissingRequiredFieldException, 
 					DatasetUniquenessException {
-		File agencyFile = this.zipFile.getEntry(FILENAME_AGENCY);
-		this.transitAgencies = new AgencyCollection(agencyFile);
+		try (CsvTokenizer table = 
+				this.openRequiredTableTokenizer(FILENAME_AGENCY)) {
+			this.transitAgencies = new AgencyCollection(table);
+		}
 	}
 	
 	private void loadStops() 
 			throws IOException, InvalidDataException, 
 			MissingRequiredFieldException, DatasetUniquenessException, 
 			ParentStationNotStationException {
-		File stopsFile = this.zipFile.getEntry(FILENAME_STOPS);
-		this.stops = new StopCollection(this, stopsFile);
+		try (CsvTokenizer table = 
+				this.openRequiredTableTokenizer(FILENAME_STOPS)) {
+			this.stops = new StopCollection(this, table);
+		}
 	}
 
 	@Override
 	public void close() throws IOException {
-		if (this.zipFile != null) {
-			this.zipFile.close();
+		if (this.source != null) {
+			this.source.close();
 		}
 	}
 
@@ -238,11 +848,12 @@ public class GtfsFile implements AutoCloseable {
 	 * @return the transitAgencies
 	 */
 	public AgencyCollection getTransitAgencies() {
+		this.require(FILENAME_AGENCY);
 		return this.transitAgencies;
 	}
 	
 	boolean isFilePresent(String filename) {
-		return this.zipFile.getEntry(filename) != null;
+		return this.source.hasEntry(filename);
 	}
 	
 	/**
@@ -250,6 +861,7 @@ public class GtfsFile implements AutoCloseable {
 	 * @return
 	 */
 	public StopCollection getStops() {
+		this.require(FILENAME_TRANSFERS);
 		return this.stops;
 	}
 	
@@ -258,17 +870,107 @@ public class GtfsFile implements AutoCloseable {
 	 * @return
 	 */
 	public String getTimezone() {
+		this.require(FILENAME_AGENCY);
 		Iterator<Agency> it = this.transitAgencies.iterator();
 		Agency agency = it.next();
 		
 		return agency.getTimeZone();
 	}
 	
+	/**
+	 * Gets the time zone used in this file. Unlike {@link #getTimezone()},
+	 * this does not look up the agency or parse the zone name on each call.
+	 * @return
+	 */
+	public ZoneId getZoneId() {
+		this.require(STAGE_CLOCK);
+		return this.zoneId;
+	}
+	
+	/**
+	 * Gets the instant of noon on a service date, in this file's time zone. 
+	 * GTFS times are measured from this instant (less twelve hours), so the
+	 * epoch second of a time on a date is this value plus the time's offset
+	 * from noon. Dates within the service calendar are answered from the
+	 * offsets found at load time, without allocating.
+	 * @param date service date
+	 * @return seconds since 1970-01-01T00:00:00Z
+	 */
+	public long getNoonEpochSecond(LocalDate date) {
+		this.require(STAGE_CLOCK);
+		int day = this.serviceCalendar.getDayIndex(date);
+		if (day != -1) {
+			int i = Arrays.binarySearch(this.offsetChangeDays, day);
+			if (i < 0) {
+				i = -i - 2;
+			}
+			return date.toEpochDay() * SECONDS_PER_DAY + NOON_SECONDS -
+					this.noonOffsets[i];
+		}
+		return this.computeNoon(date);
+	}
+	
+	/**
+	 * Finds the days of the service calendar on which the UTC offset at noon
+	 * differs from the day before, from the transitions of the time zone.
+	 * There are only a few for each year, however far the calendar extends.
+	 */
+	private void buildNoonOffsets() {
+		LocalDate first = this.serviceCalendar.getFirstDate();
+		if (first == null) {
+			return;
+		}
+		long firstDay = first.toEpochDay();
+		int dayCount = this.serviceCalendar.getDayCount();
+		ZoneRules rules = this.zoneId.getRules();
+		List<Integer> days = new ArrayList<>();
+		List<Integer> offsets = new ArrayList<>();
+		Instant noon = Instant.ofEpochSecond(this.computeNoon(first));
+		days.add(0);
+		offsets.add(rules.getOffset(noon).getTotalSeconds());
+		ZoneOffsetTransition transition = rules.nextTransition(noon);
+		while (transition != null) {
+			long instant = transition.toEpochSecond();
+			int offset = transition.getOffsetAfter().getTotalSeconds();
+			long date = Math.floorDiv(instant + offset, SECONDS_PER_DAY);
+			if (date * SECONDS_PER_DAY + NOON_SECONDS - offset < instant) {
+				date++;
+			}
+			long day = date - firstDay;
+			if (day >= dayCount) {
+				break;
+			}
+			int last = days.size() - 1;
+			if (days.get(last) == day) {
+				offsets.set(last, offset);
+			} else if (offsets.get(last) != offset) {
+				days.add((int)day);
+				offsets.add(offset);
+			}
+			transition = rules.nextTransition(transition.getInstant());
+		}
+		int[] changeDays = new int[days.size()];
+		int[] noonOffsets = new int[days.size()];
+		for (int i = 0; i < changeDays.length; i++) {
+			changeDays[i] = days.get(i);
+			noonOffsets[i] = offsets.get(i);
+		}
+		this.offsetChangeDays = changeDays;
+		this.noonOffsets = noonOffsets;
+	}
+	
+	private long computeNoon(LocalDate date) {
+		return date.atStartOfDay(this.zoneId)
+				.withHour(12).withMinute(0).withSecond(0)
+				.toEpochSecond();
+	}
+	
 	/**
 	 * Gets the routes listed in this file
 	 * @return
 	 */
 	public RouteCollection getRoutes() {
+		this.require(FILENAME_ROUTES);
 		return this.routes;
 	}
 
@@ -278,6 +980,7 @@ public class GtfsFile implements AutoCloseable {
 	 * @return
 	 */
 	public TransitShapeCollection getShapes() {
+		this.require(FILENAME_SHAPES);
 		return this.shapes;
 	}
 	
@@ -299,14 +1002,19 @@ public class GtfsFile implements AutoCloseable {
 		}
 	}
 
-	ZipWrapper getZipFile() {
-		return this.zipFile;
+	/**
+	 * Gets the dictionary of identifiers shared by the tables of this file.
+	 * @return
+	 */
+	IdentifierDictionary getIdentifiers() {
+		return this.identifiers;
 	}
 
 	/**
 	 * @return the serviceCalendar
 	 */
 	public ServiceCalendar getServiceCalendar() {
+		this.require(FILENAME_CALENDAR);
 		return this.serviceCalendar;
 	}
 
@@ -314,6 +1022,7 @@ public class GtfsFile implements AutoCloseable {
 	 * @return the trips
 	 */
 	public TripCollection getTrips() {
+		this.require(FILENAME_TRIPS);
 		return this.trips;
 	}
 	
@@ -322,6 +1031,7 @@ public class GtfsFile implements AutoCloseable {
 	 * @return
 	 */
 	public StopTimeCollection getAllTimetables() {
+		this.require(STAGE_SERVICE_INDEX);
 		return this.stopTimes;
 	}
 }
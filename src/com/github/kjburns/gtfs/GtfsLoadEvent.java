@@ -0,0 +1,131 @@
+/*
+ * GtfsLoadEvent.java
+ * General Transit Feed Specification
+ *
+ * Copyright 2016 Kevin J. Burns
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Revision Log:
+ *   2026-10-16  Basic functionality
+ *   2026-10-16  Count allocation by threads a phase hands work to
+ */
+package com.github.kjburns.gtfs;
+
+import java.util.Locale;
+
+import com.github.kjburns.gtfs.GtfsLoadListener.Phase;
+
+/**
+ * What one phase of loading a {@link GtfsFile} did and what it cost, as
+ * reported to {@link GtfsLoadListener#phaseFinished(GtfsLoadEvent)}.
+ * @author Kevin J. Burns
+ *
+ */
+public class GtfsLoadEvent {
+	private final Phase phase;
+	private final String name;
+	private final long elapsedNanos;
+	private final long rowCount;
+	private final long bytesRead;
+	private final long allocatedBytes;
+	private final Throwable failure;
+
+	GtfsLoadEvent(Phase phase, String name, long elapsedNanos, long rowCount,
+			long bytesRead, long allocatedBytes, Throwable failure) {
+		this.phase = phase;
+		this.name = name;
+		this.elapsedNanos = elapsedNanos;
+		this.rowCount = rowCount;
+		this.bytesRead = bytesRead;
+		this.allocatedBytes = allocatedBytes;
+		this.failure = failure;
+	}
+
+	/**
+	 * @return the kind of work done
+	 */
+	public Phase getPhase() {
+		return this.phase;
+	}
+
+	/**
+	 * @return the name of the phase, such as the name of the table parsed,
+	 * or the path of the zip file extracted
+	 */
+	public String getName() {
+		return this.name;
+	}
+
+	/**
+	 * @return wall-clock time taken by the phase, in nanoseconds
+	 */
+	public long getElapsedNanos() {
+		return this.elapsedNanos;
+	}
+
+	/**
+	 * Gets the number of records read by the phase. For a
+	 * {@link Phase#EXTRACT} phase, this is the number of entries in the zip
+	 * file.
+	 * @return
+	 */
+	public long getRowCount() {
+		return this.rowCount;
+	}
+
+	/**
+	 * Gets the number of uncompressed bytes the phase read from the feed,
+	 * or from the snapshot if it was read from one. For a
+	 * {@link Phase#EXTRACT} phase, this is the number of bytes copied to
+	 * the temporary folder, which is 0 unless extraction was requested.
+	 * @return
+	 */
+	public long getBytesRead() {
+		return this.bytesRead;
+	}
+
+	/**
+	 * Gets the number of bytes of heap allocated by the phase: by the
+	 * thread which ran it while it ran, and by the threads it handed work
+	 * to, such as those parsing stop_times.txt in parallel.
+	 * @return the number of bytes, or -1 if the virtual machine cannot
+	 * measure it
+	 */
+	public long getAllocatedBytes() {
+		return this.allocatedBytes;
+	}
+
+	/**
+	 * @return what made the phase fail, or {@code null} if it succeeded
+	 */
+	public Throwable getFailure() {
+		return this.failure;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append(this.phase).append(' ').append(this.name)
+			.append(String.format(Locale.ROOT, ": %.1f ms, %d rows, %d bytes",
+					this.elapsedNanos / 1e6, this.rowCount, this.bytesRead));
+		if (this.allocatedBytes >= 0) {
+			sb.append(", ").append(this.allocatedBytes)
+				.append(" bytes allocated");
+		}
+		if (this.failure != null) {
+			sb.append(", failed: ").append(this.failure);
+		}
+		return sb.toString();
+	}
+}
@@ -0,0 +1,124 @@
+/*
+ * GtfsLoadListener.java
+ * General Transit Feed Specification
+ *
+ * Copyright 2016 Kevin J. Burns
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Revision Log:
+ *   2026-10-16  Basic functionality
+ */
+package com.github.kjburns.gtfs;
+
+/**
+ * Receives reports on the progress of loading a {@link GtfsFile}, one
+ * phase at a time, such as the parsing of one table. Set one through
+ * {@link GtfsLoadOptions#setLoadListener(GtfsLoadListener)}.
+ * <p>
+ * When tables are loaded on an executor, phases which do not depend on
+ * each other run at the same time, so a listener may be called from
+ * several threads at once. When tables are loaded lazily, each phase is
+ * reported by the thread which first needs it, and the load only finishes
+ * once every table has been loaded. Every method does nothing by default.
+ * </p>
+ * @see SwingWorkerLoadListener
+ * @see LoggingLoadListener
+ * @author Kevin J. Burns
+ *
+ */
+public interface GtfsLoadListener {
+	/**
+	 * Kinds of work done while loading.
+	 */
+	enum Phase {
+		/**
+		 * Opening the zip file, and copying its entries to a temporary
+		 * folder if that was requested
+		 */
+		EXTRACT,
+		/**
+		 * Parsing a table, named by the phase
+		 */
+		PARSE,
+		/**
+		 * Building an index or cache over tables already parsed
+		 */
+		INDEX;
+	}
+
+	/**
+	 * Called once, before any phase starts.
+	 * @param path path of the feed being loaded
+	 * @param phaseCount number of phases which will be reported
+	 */
+	default void loadStarted(String path, int phaseCount) {
+	}
+
+	/**
+	 * Called when a phase starts.
+	 * @param phase kind of work
+	 * @param name name of the phase, such as the name of the table
+	 */
+	default void phaseStarted(Phase phase, String name) {
+	}
+
+	/**
+	 * Called when a phase finishes, whether or not it succeeded.
+	 * @param event what the phase did and what it cost
+	 */
+	default void phaseFinished(GtfsLoadEvent event) {
+	}
+
+	/**
+	 * Called once every phase has finished successfully.
+	 * @param elapsedNanos time since the load started
+	 */
+	default void loadFinished(long elapsedNanos) {
+	}
+
+	/**
+	 * Combines two listeners into one which reports to both, in order.
+	 * @param first
+	 * @param second
+	 * @return
+	 */
+	static GtfsLoadListener combine(GtfsLoadListener first,
+			GtfsLoadListener second) {
+		return new GtfsLoadListener() {
+			@Override
+			public void loadStarted(String path, int phaseCount) {
+				first.loadStarted(path, phaseCount);
+				second.loadStarted(path, phaseCount);
+			}
+
+			@Override
+			public void phaseStarted(Phase phase, String name) {
+				first.phaseStarted(phase, name);
+				second.phaseStarted(phase, name);
+			}
+
+			@Override
+			public void phaseFinished(GtfsLoadEvent event) {
+				first.phaseFinished(event);
+				second.phaseFinished(event);
+			}
+
+			@Override
+			public void loadFinished(long elapsedNanos) {
+				first.loadFinished(elapsedNanos);
+				second.loadFinished(elapsedNanos);
+			}
+		};
+	}
+}
@@ -0,0 +1,280 @@
+/*
+ * GtfsLoadOptions.java
+ * General Transit Feed Specification
+ *
+ * Copyright 2016 Kevin J. Burns
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Revision Log:
+ *   2026-10-16  Basic functionality: choice between streaming and
+ *               extracting the zip file
+ *   2026-10-16  Optional executor for loading tables in parallel
+ *   2026-10-16  Number of threads for parsing stop_times.txt
+ *   2026-10-16  Location of a binary snapshot for fast startup
+ *   2026-10-16  Lazy loading of tables
+ *   2026-10-16  Listener for reports on each phase of loading
+ *   2026-10-16  Cancellation token, progress sink and check interval
+ */
+package com.github.kjburns.gtfs;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Settings which control how a {@link GtfsFile} is loaded. A new instance
+ * holds the default settings, which are the ones used by
+ * {@link GtfsFile#GtfsFile(String, javax.swing.SwingWorker)}.
+ * @author Kevin J. Burns
+ *
+ */
+public class GtfsLoadOptions {
+	private boolean extractToTemp = false;
+	private Executor loadExecutor = null;
+	private int stopTimesParallelism = 1;
+	private String snapshotPath = null;
+	private boolean interpolateStopTimes = false;
+	private boolean lazyLoading = false;
+	private GtfsLoadListener loadListener = null;
+	private CancellationToken cancellationToken = null;
+	private LoadProgressSink progressSink = null;
+	private int checkInterval = 1000;
+
+	/**
+	 * Determines whether the entries of the zip file are copied to a
+	 * temporary folder before they are parsed.
+	 * @return the extractToTemp
+	 */
+	public boolean isExtractToTemp() {
+		return this.extractToTemp;
+	}
+
+	/**
+	 * Sets whether the entries of the zip file are copied to a temporary
+	 * folder before they are parsed. By default, each table is read straight
+	 * from the zip file, which avoids writing the uncompressed feed to disk.
+	 * @param extractToTemp the extractToTemp to set
+	 */
+	public void setExtractToTemp(boolean extractToTemp) {
+		this.extractToTemp = extractToTemp;
+	}
+
+	/**
+	 * Gets the executor on which tables are parsed.
+	 * @return the loadExecutor, or {@code null} if tables are parsed one
+	 * after another on the loading thread.
+	 */
+	public Executor getLoadExecutor() {
+		return this.loadExecutor;
+	}
+
+	/**
+	 * Sets the executor on which tables are parsed. Tables which do not
+	 * depend on each other are then parsed at the same time; for example,
+	 * shapes.txt and stop_times.txt. The loading thread waits for all of them
+	 * to finish. By default, tables are parsed one after another on the
+	 * loading thread.
+	 * @param loadExecutor the loadExecutor to set, or {@code null} to parse
+	 * tables on the loading thread
+	 */
+	public void setLoadExecutor(Executor loadExecutor) {
+		this.loadExecutor = loadExecutor;
+	}
+
+	/**
+	 * Gets the number of threads used to parse stop_times.txt.
+	 * @return the stopTimesParallelism
+	 */
+	public int getStopTimesParallelism() {
+		return this.stopTimesParallelism;
+	}
+
+	/**
+	 * Sets the number of threads used to parse stop_times.txt, which is
+	 * usually by far the largest table. With more than one thread, the table
+	 * is split into ranges of whole records which are parsed at the same 
+	 * time and then merged. This only applies when the table can be 
+	 * memory-mapped, which is the case for a folder or an extracted zip file;
+	 * otherwise the table is parsed on a single thread.
+	 * @param stopTimesParallelism the stopTimesParallelism to set; 1, the 
+	 * default, parses the table on the loading thread.
+	 * @throws IllegalArgumentException if the value is less than 1
+	 */
+	public void setStopTimesParallelism(int stopTimesParallelism) {
+		if (stopTimesParallelism < 1) {
+			throw new IllegalArgumentException();
+		}
+		this.stopTimesParallelism = stopTimesParallelism;
+	}
+
+	/**
+	 * Gets the location of the binary snapshot used to speed up loading.
+	 * @return the snapshotPath, or {@code null} if no snapshot is used.
+	 */
+	public String getSnapshotPath() {
+		return this.snapshotPath;
+	}
+
+	/**
+	 * Sets the location of a binary snapshot used to speed up loading. If a
+	 * snapshot of the same feed exists there, stop_times.txt and shapes.txt
+	 * are read from it instead of being parsed. Otherwise, the feed is 
+	 * parsed as usual and a snapshot is written there afterwards, on a best-
+	 * effort basis. A snapshot written from a different feed or by a 
+	 * different version of this library is ignored and replaced.
+	 * @param snapshotPath the snapshotPath to set, or {@code null}, the 
+	 * default, to always parse the feed
+	 */
+	public void setSnapshotPath(String snapshotPath) {
+		this.snapshotPath = snapshotPath;
+	}
+
+	/**
+	 * Determines whether missing stop times are interpolated while loading.
+	 * @return the interpolateStopTimes
+	 */
+	public boolean isInterpolateStopTimes() {
+		return this.interpolateStopTimes;
+	}
+
+	/**
+	 * Sets whether missing stop times are interpolated while loading. If so,
+	 * stop times which have neither an arrival nor a departure time are 
+	 * given times between those of the stop times around them on the same 
+	 * trip, in proportion to the distance travelled; see
+	 * {@link StopTime#isTimeInterpolated()}. By default, such stop times are
+	 * left without times.
+	 * @param interpolateStopTimes the interpolateStopTimes to set
+	 */
+	public void setInterpolateStopTimes(boolean interpolateStopTimes) {
+		this.interpolateStopTimes = interpolateStopTimes;
+	}
+
+	/**
+	 * Determines whether tables are loaded when they are first needed
+	 * rather than when the file is opened.
+	 * @return the lazyLoading
+	 */
+	public boolean isLazyLoading() {
+		return this.lazyLoading;
+	}
+
+	/**
+	 * Sets whether tables are loaded when they are first needed rather than
+	 * when the file is opened. If so, the constructor of {@link GtfsFile} 
+	 * only opens the file, and each table is parsed, along with any tables
+	 * it needs, by the first call to the accessor which returns it, such as
+	 * {@link GtfsFile#getShapes()}; a program which only uses stops and 
+	 * routes never parses stop_times.txt. Accessors may be called from 
+	 * several threads at once; each table is still parsed only once. 
+	 * Tables are parsed on the thread which first needs them, so the load
+	 * executor is not used. Since accessors cannot throw checked exceptions,
+	 * a table which fails to load throws a {@link TableLoadException} from
+	 * each accessor which needs it. The file must be kept open until the
+	 * last table needed has been loaded. If a snapshot is to be written
+	 * (see {@link #setSnapshotPath(String)}), it is written once every table
+	 * has been loaded. By default, every table is parsed by the constructor.
+	 * @param lazyLoading the lazyLoading to set
+	 */
+	public void setLazyLoading(boolean lazyLoading) {
+		this.lazyLoading = lazyLoading;
+	}
+
+	/**
+	 * Gets the listener which receives reports on each phase of loading.
+	 * @return the loadListener, or {@code null} if there is none
+	 */
+	public GtfsLoadListener getLoadListener() {
+		return this.loadListener;
+	}
+
+	/**
+	 * Sets the listener which receives reports on each phase of loading:
+	 * opening the zip file, parsing each table and building each index,
+	 * with the time taken, the rows and bytes read and the memory 
+	 * allocated. See {@link LoggingLoadListener} for a listener which 
+	 * writes them to a log. If a worker thread is also passed to 
+	 * {@link GtfsFile}, both receive reports.
+	 * @param loadListener the loadListener to set, or {@code null}, the
+	 * default, for none
+	 */
+	public void setLoadListener(GtfsLoadListener loadListener) {
+		this.loadListener = loadListener;
+	}
+
+	/**
+	 * Gets the token which cancels loading.
+	 * @return the cancellationToken, or {@code null} if there is none
+	 */
+	public CancellationToken getCancellationToken() {
+		return this.cancellationToken;
+	}
+
+	/**
+	 * Sets a token which cancels loading, for programs which load without
+	 * a worker thread. Each table checks the token every few records, as 
+	 * set by {@link #setCheckInterval(int)}, and between tables, so loading
+	 * stops soon after the token is cancelled, even in the middle of a large
+	 * table: the constructor of {@link GtfsFile} then throws 
+	 * {@link InterruptedException}. With lazy loading, the accessor which 
+	 * is loading a table throws {@link java.util.concurrent.CancellationException}
+	 * instead, and so does every later accessor which needs that table. If a
+	 * worker thread is also passed to {@link GtfsFile}, cancelling either 
+	 * one stops loading.
+	 * @param cancellationToken the cancellationToken to set, or 
+	 * {@code null}, the default, for none
+	 */
+	public void setCancellationToken(CancellationToken cancellationToken) {
+		this.cancellationToken = cancellationToken;
+	}
+
+	/**
+	 * Gets the sink which receives the progress of parsing, in bytes.
+	 * @return the progressSink, or {@code null} if there is none
+	 */
+	public LoadProgressSink getProgressSink() {
+		return this.progressSink;
+	}
+
+	/**
+	 * Sets a sink which receives the progress of parsing, in bytes, every
+	 * few records of each table, as set by {@link #setCheckInterval(int)}.
+	 * @param progressSink the progressSink to set, or {@code null}, the
+	 * default, for none
+	 */
+	public void setProgressSink(LoadProgressSink progressSink) {
+		this.progressSink = progressSink;
+	}
+
+	/**
+	 * Gets the number of records parsed between checks for cancellation and
+	 * reports of progress.
+	 * @return the checkInterval
+	 */
+	public int getCheckInterval() {
+		return this.checkInterval;
+	}
+
+	/**
+	 * Sets the number of records parsed between checks for cancellation and
+	 * reports of progress. Smaller values stop loading sooner after it is
+	 * cancelled, at a small cost in speed. The default is 1000.
+	 * @param checkInterval the checkInterval to set
+	 * @throws IllegalArgumentException if the value is less than 1
+	 */
+	public void setCheckInterval(int checkInterval) {
+		if (checkInterval < 1) {
+			throw new IllegalArgumentException();
+		}
+		this.checkInterval = checkInterval;
+	}
+}
@@ -0,0 +1,656 @@
+/*
+ * GtfsSnapshot.java
+ * General Transit Feed Specification
+ *
+ * Copyright 2016 Kevin J. Burns
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Revision Log:
+ *   2026-10-16  Basic functionality: stop times and shapes
+ *   2026-10-16  Active services of each calendar date
+ *   2026-10-16  Departure times of the per-stop index
+ *   2026-10-16  Governing timepoint of each stop time
+ *   2026-10-16  Interpolated stop times
+ *   2026-10-16  Fixed-point shape coordinates
+ *   2026-10-16  Position of the reader, for load reports
+ *   2026-10-16  Length and CRC-32 of the body in the header; check every
+ *               array length against the bytes left
+ *   2026-10-16  Interpolated stop times govern their own departures
+ *   2026-10-16  Calendar as services of each weekday of each period, and
+ *               of each calendar_dates day
+ *   2026-10-16  Write the header only once the body is complete, to a
+ *               temporary file of a unique name which is removed on failure
+ */
+package com.github.kjburns.gtfs;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Reads and writes the binary snapshot of a loaded {@link GtfsFile}.
+ * <p>
+ * A snapshot holds the tables which are expensive to parse, in the form in
+ * which they are kept in memory: the columns and indexes of stop_times.txt,
+ * the points of shapes.txt and the set of active services on each date of
+ * the calendar. The remaining tables are small and are parsed from the feed
+ * as usual. Every snapshot starts with a header: a magic number, a format
+ * version, a fingerprint of the feed it was written from, and the length
+ * and CRC-32 of the body which follows. A snapshot whose header does not
+ * match, or whose body is not intact, is ignored.
+ * </p>
+ * <p>
+ * Numbers are stored big-endian. Arrays are stored as a length followed by
+ * the elements, so that they can be copied out of the mapped file in bulk;
+ * strings are stored as a byte length followed by UTF-8 bytes.
+ * </p>
+ * @author Kevin J. Burns
+ *
+ */
+class GtfsSnapshot {
+	private static final long MAGIC = 0x47544653534e4150L;
+	/**
+	 * Increment whenever the layout changes.
+	 */
+	static final int VERSION = 9;
+	/**
+	 * Bytes before the body: magic number, version, fingerprint, length of
+	 * the body and its CRC-32
+	 */
+	private static final int HEADER_SIZE = 8 + 4 + 8 + 8 + 8;
+
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	private GtfsSnapshot() {
+	}
+
+	/**
+	 * Computes a fingerprint of a feed from its directory listing, without
+	 * reading the contents of the tables. For a zip file, this uses the name,
+	 * size and CRC of every entry; for a folder, the name, size and
+	 * modification time of every file.
+	 * @param path path to a zip file or a folder
+	 * @return
+	 * @throws IOException if the feed cannot be read
+	 */
+	static long fingerprint(String path) throws IOException {
+		CRC32 crc = new CRC32();
+		long totalSize = 0;
+		File f = new File(path);
+		if (f.isDirectory()) {
+			File[] files = f.listFiles();
+			if (files == null) {
+				throw new IOException(path);
+			}
+			Arrays.sort(files);
+			for (File file : files) {
+				update(crc, file.getName());
+				update(crc, file.length());
+				update(crc, file.lastModified());
+				totalSize += file.length();
+			}
+		}
+		else {
+			try (ZipFile zf = new ZipFile(f)) {
+				Enumeration<? extends ZipEntry> entries = zf.entries();
+				while (entries.hasMoreElements()) {
+					ZipEntry ze = entries.nextElement();
+					update(crc, ze.getName());
+					update(crc, ze.getSize());
+					update(crc, ze.getCrc());
+					totalSize += ze.getSize();
+				}
+			}
+		}
+		return (totalSize << 32) ^ crc.getValue();
+	}
+
+	private static void update(CRC32 crc, String value) {
+		crc.update(value.getBytes(StandardCharsets.UTF_8));
+		crc.update(0);
+	}
+
+	private static void update(CRC32 crc, long value) {
+		for (int i = 0; i < 8; i++) {
+			crc.update((int)(value >>> (i * 8)));
+		}
+	}
+
+	/**
+	 * Writes a snapshot of a loaded file. The snapshot is written to a
+	 * temporary file of a unique name next to the destination, which then
+	 * replaces the destination, so that readers never see a partial
+	 * snapshot and processes writing the same snapshot do not collide. If
+	 * anything fails, the temporary file is removed and the destination is
+	 * left as it was.
+	 * @param gtfs loaded file
+	 * @param fingerprint fingerprint of the feed which gtfs was loaded from
+	 * @param path destination
+	 * @throws IOException if the snapshot cannot be written
+	 */
+	static void write(GtfsFile gtfs, long fingerprint, Path path)
+			throws IOException {
+		Path folder = path.toAbsolutePath().getParent();
+		Path temp = Files.createTempFile(folder,
+				path.getFileName().toString(), ".tmp");
+		try {
+			try (Writer out = new Writer(temp, fingerprint)) {
+				writeStopTimes(out, gtfs.getAllTimetables().getTable());
+				writeShapes(out, gtfs.getShapes());
+				writeCalendar(out, gtfs.getServiceCalendar());
+				out.finish();
+			}
+			try {
+				Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING,
+						StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException ex) {
+				Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} catch (Throwable ex) {
+			try {
+				Files.deleteIfExists(temp);
+			} catch (IOException deleteEx) {
+				ex.addSuppressed(deleteEx);
+			}
+			throw ex;
+		}
+	}
+
+	private static void writeStopTimes(Writer out, StopTimeTable table)
+			throws IOException {
+		writeIdentifiers(out, table.tripIds);
+		writeIdentifiers(out, table.stopIds);
+		writeIdentifiers(out, table.headsigns);
+
+		int n = table.size;
+		out.putInts(table.trip, n);
+		out.putInts(table.stop, n);
+		out.putInts(table.arrival, n);
+		out.putInts(table.departure, n);
+		out.putInts(table.stopSequence, n);
+		out.putInts(table.headsign, n);
+		out.putBytes(table.pickupType, n);
+		out.putBytes(table.dropoffType, n);
+		out.putBytes(table.timepoint, n);
+		out.putFloats(table.shapeDistance, n);
+		if (table.interpolated == null) {
+			out.putBytes(new byte[0], 0);
+		}
+		else {
+			out.putBytes(table.interpolated, n);
+		}
+		out.putInts(table.tripStart, table.tripStart.length);
+		out.putInts(table.governingTimepoint, n);
+		out.putInts(table.stopStart, table.stopStart.length);
+		out.putInts(table.stopRows, table.stopRows.length);
+		out.putInts(table.stopDeparture, table.stopDeparture.length);
+	}
+
+	private static void writeIdentifiers(Writer out, IdentifierTable ids)
+			throws IOException {
+		out.putInt(ids.size());
+		for (int i = 0; i < ids.size(); i++) {
+			out.putString(ids.get(i));
+		}
+	}
+
+	private static void writeShapes(Writer out,
+			TransitShapeCollection shapes) throws IOException {
+		if (shapes == null) {
+			out.putInt(-1);
+			return;
+		}
+
+		out.putInt(shapes.getShapeCount());
+		Iterator<TransitShape> it = shapes.getShapeIterator();
+		while (it.hasNext()) {
+			TransitShape shape = it.next();
+			int n = shape.getPointCount();
+			int[] coordinates = new int[n * 2];
+			shape.getFixedPointCoordinates(0, n, coordinates, 0);
+			int[] sequence = new int[n];
+			for (int i = 0; i < n; i++) {
+				sequence[i] = shape.getSequence(i);
+			}
+			double[] distance = new double[n];
+			shape.getDistancesTraveled(0, n, distance, 0);
+
+			/*
+			 * Distances are left out when the shape has none
+			 */
+			out.putString(shape.getShapeId());
+			out.putInts(coordinates, n * 2);
+			out.putInts(sequence, n);
+			out.putDoubles(distance, shape.hasDistanceTraveled() ? n : 0);
+		}
+	}
+
+	private static void writeCalendar(Writer out, ServiceCalendar calendar)
+			throws IOException {
+		int serviceCount = calendar.getServiceCount();
+		out.putInt(serviceCount);
+		for (int i = 0; i < serviceCount; i++) {
+			out.putString(calendar.getServiceId(i));
+		}
+
+		out.putLong(calendar.firstDay);
+		out.putInt(calendar.dayCount);
+		out.putInts(calendar.periodStart, calendar.periodStart.length);
+		putBitSets(out, calendar.weekdayServices);
+		out.putInts(calendar.exceptionDays, calendar.exceptionDays.length);
+		putBitSets(out, calendar.exceptionServices);
+	}
+
+	private static void putBitSets(Writer out, BitSet[] sets)
+			throws IOException {
+		out.putInt(sets.length);
+		for (BitSet set : sets) {
+			long[] words = set.toLongArray();
+			out.putLongs(words, words.length);
+		}
+	}
+
+	/**
+	 * Opens a snapshot for reading, if it belongs to the feed.
+	 * @param path location of the snapshot
+	 * @param fingerprint fingerprint of the feed being loaded
+	 * @return the snapshot, or {@code null} if there is no snapshot at that
+	 * location, it was written by a different format version or from a
+	 * different feed, or its body is truncated or corrupt.
+	 * @throws IOException if the snapshot exists but cannot be read
+	 */
+	static GtfsSnapshot.Reader open(Path path, long fingerprint)
+			throws IOException {
+		if (!Files.isRegularFile(path)) {
+			return null;
+		}
+
+		ByteBuffer buf;
+		try (FileChannel channel =
+				FileChannel.open(path, StandardOpenOption.READ)) {
+			if (channel.size() > Integer.MAX_VALUE) {
+				return null;
+			}
+			buf = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+					channel.size());
+		}
+
+		if ((buf.remaining() < HEADER_SIZE) || (buf.getLong() != MAGIC) ||
+				(buf.getInt() != VERSION) ||
+				(buf.getLong() != fingerprint) ||
+				(buf.getLong() != buf.limit() - HEADER_SIZE)) {
+			return null;
+		}
+		long crc = buf.getLong();
+		CRC32 body = new CRC32();
+		body.update(buf.duplicate());
+		if (body.getValue() != crc) {
+			return null;
+		}
+		return new Reader(buf);
+	}
+
+	/**
+	 * The sections of a snapshot, which must be read in order. Every length
+	 * read is checked against the bytes left, so that a snapshot which is
+	 * corrupt in spite of its checksum fails with an IOException rather
+	 * than a huge allocation.
+	 */
+	static class Reader {
+		private final ByteBuffer buf;
+
+		private Reader(ByteBuffer buf) {
+			this.buf = buf;
+		}
+
+		/**
+		 * @return the number of bytes of the snapshot read so far
+		 */
+		int getPosition() {
+			return this.buf.position();
+		}
+
+		/**
+		 * Reads the stop times section.
+		 * @param gtfs the file being loaded
+		 * @return a finished table
+		 * @throws IOException if the snapshot is truncated
+		 */
+		StopTimeTable readStopTimes(GtfsFile gtfs) throws IOException {
+			try {
+				StopTimeTable table = new StopTimeTable(gtfs);
+				this.readIdentifiers(table.tripIds);
+				this.readIdentifiers(table.stopIds);
+				this.readIdentifiers(table.headsigns);
+
+				table.trip = this.getInts();
+				table.size = table.trip.length;
+				table.stop = this.getInts();
+				table.arrival = this.getInts();
+				table.departure = this.getInts();
+				table.stopSequence = this.getInts();
+				table.headsign = this.getInts();
+				table.pickupType = this.getBytes();
+				table.dropoffType = this.getBytes();
+				table.timepoint = this.getBytes();
+				table.shapeDistance = this.getFloats();
+				byte[] interpolated = this.getBytes();
+				table.interpolated = (interpolated.length == 0) ? 
+						null : interpolated;
+				table.tripStart = this.getInts();
+				table.governingTimepoint = this.getInts();
+				table.stopStart = this.getInts();
+				table.stopRows = this.getInts();
+				table.stopDeparture = this.getInts();
+				return table;
+			} catch (RuntimeException ex) {
+				throw new IOException("Corrupt snapshot", ex);
+			}
+		}
+
+		private void readIdentifiers(IdentifierTable ids) {
+			int n = this.getLength(4);
+			for (int i = 0; i < n; i++) {
+				ids.intern(this.getString());
+			}
+		}
+
+		/**
+		 * Reads the shapes section.
+		 * @param ids dictionary of the feed's identifiers
+		 * @return the shapes, or {@code null} if the feed has no shapes.txt
+		 * @throws IOException if the snapshot is truncated
+		 */
+		TransitShapeCollection readShapes(IdentifierDictionary ids) 
+				throws IOException {
+			try {
+				int count = this.buf.getInt();
+				if (count == -1) {
+					return null;
+				}
+
+				if ((count < 0) || (count > this.buf.remaining())) {
+					throw new BufferUnderflowException();
+				}
+				List<TransitShape> shapes = new ArrayList<>(count);
+				for (int s = 0; s < count; s++) {
+					String id = ids.share(IdentifierDictionary.Kind.SHAPE, 
+							this.getString());
+					int[] coordinates = this.getInts();
+					int[] sequence = this.getInts();
+					double[] distance = this.getDoubles();
+
+					int n = sequence.length;
+					int[] lat = new int[n];
+					int[] lon = new int[n];
+					for (int i = 0; i < n; i++) {
+						lat[i] = coordinates[i * 2];
+						lon[i] = coordinates[i * 2 + 1];
+					}
+					shapes.add(new TransitShape(id, lat, lon, sequence,
+							(distance.length == 0) ? null : distance));
+				}
+				return new TransitShapeCollection(shapes, ids);
+			} catch (RuntimeException ex) {
+				throw new IOException("Corrupt snapshot", ex);
+			}
+		}
+
+		/**
+		 * Reads the calendar section.
+		 * @param gtfs the file being loaded
+		 * @return
+		 * @throws IOException if the snapshot is truncated
+		 */
+		ServiceCalendar readCalendar(GtfsFile gtfs) throws IOException {
+			try {
+				int serviceCount = this.getLength(4);
+				List<String> serviceIds = new ArrayList<>(serviceCount);
+				for (int i = 0; i < serviceCount; i++) {
+					serviceIds.add(this.getString());
+				}
+
+				long firstDay = this.buf.getLong();
+				int dayCount = this.buf.getInt();
+				int[] periodStart = this.getInts();
+				BitSet[] weekdayServices = this.getBitSets();
+				int[] exceptionDays = this.getInts();
+				BitSet[] exceptionServices = this.getBitSets();
+				return new ServiceCalendar(gtfs, serviceIds, firstDay, 
+						dayCount, periodStart, weekdayServices, 
+						exceptionDays, exceptionServices);
+			} catch (RuntimeException ex) {
+				throw new IOException("Corrupt snapshot", ex);
+			}
+		}
+
+		/**
+		 * Reads the length of an array, checking that the snapshot holds
+		 * that many elements.
+		 * @param size bytes per element
+		 * @return
+		 * @throws BufferUnderflowException if the length is negative or
+		 * too large
+		 */
+		private int getLength(int size) {
+			int ret = this.buf.getInt();
+			if ((ret < 0) || ((long)ret * size > this.buf.remaining())) {
+				throw new BufferUnderflowException();
+			}
+			return ret;
+		}
+
+		private String getString() {
+			int length = this.getLength(1);
+			byte[] bytes = new byte[length];
+			this.buf.get(bytes);
+			return new String(bytes, StandardCharsets.UTF_8);
+		}
+
+		private int[] getInts() {
+			int[] ret = new int[this.getLength(4)];
+			this.buf.asIntBuffer().get(ret);
+			this.skip(ret.length * 4L);
+			return ret;
+		}
+
+		private byte[] getBytes() {
+			byte[] ret = new byte[this.getLength(1)];
+			this.buf.get(ret);
+			return ret;
+		}
+
+		private float[] getFloats() {
+			float[] ret = new float[this.getLength(4)];
+			this.buf.asFloatBuffer().get(ret);
+			this.skip(ret.length * 4L);
+			return ret;
+		}
+
+		private double[] getDoubles() {
+			double[] ret = new double[this.getLength(8)];
+			this.buf.asDoubleBuffer().get(ret);
+			this.skip(ret.length * 8L);
+			return ret;
+		}
+
+		private long[] getLongs() {
+			long[] ret = new long[this.getLength(8)];
+			this.buf.asLongBuffer().get(ret);
+			this.skip(ret.length * 8L);
+			return ret;
+		}
+
+		private BitSet[] getBitSets() {
+			BitSet[] ret = new BitSet[this.getLength(4)];
+			for (int i = 0; i < ret.length; i++) {
+				ret[i] = BitSet.valueOf(this.getLongs());
+			}
+			return ret;
+		}
+
+		private void skip(long bytes) {
+			this.buf.position((int)(this.buf.position() + bytes));
+		}
+	}
+
+	/**
+	 * Writes numbers and arrays through a reusable buffer. The header is
+	 * written last, by {@link #finish()}, once the length and checksum of
+	 * the body are known; a file closed without finishing has no header,
+	 * so it can never be mistaken for a snapshot.
+	 */
+	private static class Writer implements AutoCloseable {
+		private final FileChannel channel;
+		private final ByteBuffer buf = ByteBuffer.allocateDirect(BUFFER_SIZE);
+		private final long fingerprint;
+		private final CRC32 crc = new CRC32();
+		private long length = 0;
+
+		Writer(Path path, long fingerprint) throws IOException {
+			this.channel = FileChannel.open(path, StandardOpenOption.WRITE,
+					StandardOpenOption.CREATE,
+					StandardOpenOption.TRUNCATE_EXISTING);
+			this.channel.position(HEADER_SIZE);
+			this.fingerprint = fingerprint;
+		}
+
+		private void ensure(int bytes) throws IOException {
+			if (this.buf.remaining() < bytes) {
+				this.flush();
+			}
+		}
+
+		private void flush() throws IOException {
+			this.buf.flip();
+			this.crc.update(this.buf.duplicate());
+			this.length += this.buf.remaining();
+			while (this.buf.hasRemaining()) {
+				this.channel.write(this.buf);
+			}
+			this.buf.clear();
+		}
+
+		void putInt(int value) throws IOException {
+			this.ensure(4);
+			this.buf.putInt(value);
+		}
+
+		void putLong(long value) throws IOException {
+			this.ensure(8);
+			this.buf.putLong(value);
+		}
+
+		void putString(String value) throws IOException {
+			byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+			this.putBytes(bytes, bytes.length);
+		}
+
+		void putBytes(byte[] values, int n) throws IOException {
+			this.putInt(n);
+			for (int i = 0; i < n; ) {
+				this.ensure(1);
+				int count = Math.min(n - i, this.buf.remaining());
+				this.buf.put(values, i, count);
+				i += count;
+			}
+		}
+
+		void putInts(int[] values, int n) throws IOException {
+			this.putInt(n);
+			for (int i = 0; i < n; ) {
+				this.ensure(4);
+				int count = Math.min(n - i, this.buf.remaining() / 4);
+				this.buf.asIntBuffer().put(values, i, count);
+				this.buf.position(this.buf.position() + count * 4);
+				i += count;
+			}
+		}
+
+		void putFloats(float[] values, int n) throws IOException {
+			this.putInt(n);
+			for (int i = 0; i < n; ) {
+				this.ensure(4);
+				int count = Math.min(n - i, this.buf.remaining() / 4);
+				this.buf.asFloatBuffer().put(values, i, count);
+				this.buf.position(this.buf.position() + count * 4);
+				i += count;
+			}
+		}
+
+		void putLongs(long[] values, int n) throws IOException {
+			this.putInt(n);
+			for (int i = 0; i < n; ) {
+				this.ensure(8);
+				int count = Math.min(n - i, this.buf.remaining() / 8);
+				this.buf.asLongBuffer().put(values, i, count);
+				this.buf.position(this.buf.position() + count * 8);
+				i += count;
+			}
+		}
+
+		void putDoubles(double[] values, int n) throws IOException {
+			this.putInt(n);
+			for (int i = 0; i < n; ) {
+				this.ensure(8);
+				int count = Math.min(n - i, this.buf.remaining() / 8);
+				this.buf.asDoubleBuffer().put(values, i, count);
+				this.buf.position(this.buf.position() + count * 8);
+				i += count;
+			}
+		}
+
+		/**
+		 * Writes what is left of the body, then the header before it. To be
+		 * called once the whole body has been put.
+		 * @throws IOException
+		 */
+		void finish() throws IOException {
+			this.flush();
+			this.buf.putLong(MAGIC);
+			this.buf.putInt(VERSION);
+			this.buf.putLong(this.fingerprint);
+			this.buf.putLong(this.length);
+			this.buf.putLong(this.crc.getValue());
+			this.buf.flip();
+			long position = 0;
+			while (this.buf.hasRemaining()) {
+				position += this.channel.write(this.buf, position);
+			}
+			this.buf.clear();
+		}
+
+		@Override
+		public void close() throws IOException {
+			this.channel.close();
+		}
+	}
+}
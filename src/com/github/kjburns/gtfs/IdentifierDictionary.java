@@ -0,0 +1,194 @@
+/*
+ * IdentifierDictionary.java
+ * General Transit Feed Specification
+ *
+ * Copyright 2016 Kevin J. Burns
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Revision Log:
+ *   2026-10-16  Basic functionality
+ */
+package com.github.kjburns.gtfs;
+
+import com.github.kjburns.gtfs.misc.CsvTokenizer;
+
+/**
+ * The identifiers of a feed, shared by all of its tables. Each kind of
+ * identifier has its own {@link IdentifierTable}, so every distinct
+ * identifier of a kind is held in one {@link String} and has one dense
+ * integer index, wherever it appears in the feed.
+ * <p>
+ * Tables may be loaded on several threads at once, so while the feed is
+ * loading, every access is synchronized on the table of the kind involved.
+ * Once the feed has loaded, the dictionary is frozen: nothing more can be
+ * added, and lookups are made without locking.
+ * </p>
+ * @author Kevin J. Burns
+ *
+ */
+class IdentifierDictionary {
+	/**
+	 * Kinds of identifier held in the dictionary.
+	 */
+	enum Kind {
+		STOP,
+		ROUTE,
+		TRIP,
+		SERVICE,
+		SHAPE,
+		BLOCK
+	}
+
+	private final IdentifierTable[] tables =
+			new IdentifierTable[Kind.values().length];
+	private volatile boolean frozen = false;
+
+	IdentifierDictionary() {
+		for (int i = 0; i < this.tables.length; i++) {
+			this.tables[i] = new IdentifierTable();
+		}
+	}
+
+	/**
+	 * Gets the index of an identifier, adding it if necessary.
+	 * @param kind kind of identifier
+	 * @param id identifier
+	 * @return
+	 * @throws IllegalStateException if the dictionary has been frozen
+	 */
+	int intern(Kind kind, String id) {
+		IdentifierTable table = this.tables[kind.ordinal()];
+		synchronized (table) {
+			this.checkNotFrozen();
+			return table.intern(id);
+		}
+	}
+
+	/**
+	 * Gets the shared instance of an identifier, adding it if necessary.
+	 * @param kind kind of identifier
+	 * @param id identifier, or {@code null}
+	 * @return a string equal to id, or {@code null} if id is {@code null}.
+	 * @throws IllegalStateException if the dictionary has been frozen
+	 */
+	String share(Kind kind, String id) {
+		if (id == null) {
+			return null;
+		}
+		IdentifierTable table = this.tables[kind.ordinal()];
+		synchronized (table) {
+			this.checkNotFrozen();
+			return table.get(table.intern(id));
+		}
+	}
+
+	/**
+	 * Gets the shared instance of the identifier held in a field of the
+	 * current record of a tokenizer, adding it if necessary.
+	 * @param kind kind of identifier
+	 * @param tokenizer tokenizer positioned at a record
+	 * @param col column holding the identifier
+	 * @return
+	 * @throws IllegalStateException if the dictionary has been frozen
+	 */
+	String share(Kind kind, CsvTokenizer tokenizer, int col) {
+		IdentifierTable table = this.tables[kind.ordinal()];
+		synchronized (table) {
+			this.checkNotFrozen();
+			return table.get(table.intern(tokenizer, col));
+		}
+	}
+
+	/**
+	 * Finds the index of an identifier without adding it.
+	 * @param kind kind of identifier
+	 * @param id identifier to look up
+	 * @return the index of the identifier, or -1 if it is not in the
+	 * dictionary.
+	 */
+	int indexOf(Kind kind, String id) {
+		IdentifierTable table = this.tables[kind.ordinal()];
+		if (this.frozen) {
+			return table.indexOf(id);
+		}
+		synchronized (table) {
+			return table.indexOf(id);
+		}
+	}
+
+	/**
+	 * Gets the identifier with the supplied index.
+	 * @param kind kind of identifier
+	 * @param index index returned by {@link #intern(Kind, String)}
+	 * @return
+	 * @throws IndexOutOfBoundsException if there is no such index
+	 */
+	String get(Kind kind, int index) {
+		IdentifierTable table = this.tables[kind.ordinal()];
+		if (this.frozen) {
+			return table.get(index);
+		}
+		synchronized (table) {
+			return table.get(index);
+		}
+	}
+
+	/**
+	 * Gets the number of distinct identifiers of a kind.
+	 * @param kind kind of identifier
+	 * @return
+	 */
+	int size(Kind kind) {
+		IdentifierTable table = this.tables[kind.ordinal()];
+		if (this.frozen) {
+			return table.size();
+		}
+		synchronized (table) {
+			return table.size();
+		}
+	}
+
+	/**
+	 * Replaces the identifiers of a table with their shared instances. The
+	 * indices of the table are unchanged.
+	 * @param kind kind of the identifiers in ids
+	 * @param ids table private to one part of the feed
+	 */
+	void share(Kind kind, IdentifierTable ids) {
+		for (int i = 0; i < ids.size(); i++) {
+			ids.replace(i, this.share(kind, ids.get(i)));
+		}
+	}
+
+	/**
+	 * Prevents any more identifiers from being added, after which lookups
+	 * no longer need to lock. Called once the feed has loaded.
+	 */
+	void freeze() {
+		for (IdentifierTable table : this.tables) {
+			/*
+			 * Wait for any writer still holding the lock
+			 */
+			synchronized (table) {
+				this.frozen = true;
+			}
+		}
+	}
+
+	private void checkNotFrozen() {
+		if (this.frozen) {
+			throw new IllegalStateException();
+		}
+	}
+}
@@ -0,0 +1,204 @@
+/*
+ * IdentifierTable.java
+ * General Transit Feed Specification
+ *
+ * Copyright 2016 Kevin J. Burns
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Revision Log:
+ *   2026-10-16  Basic functionality
+ *   2026-10-16  Replace identifiers by shared instances
+ */
+package com.github.kjburns.gtfs;
+
+import java.util.Arrays;
+
+import com.github.kjburns.gtfs.misc.CsvTokenizer;
+
+/**
+ * A table of distinct strings, each of which is assigned a dense integer
+ * index in the order in which it is first seen.
+ * <p>
+ * Identifiers can be looked up directly from a field of a
+ * {@link CsvTokenizer}, in which case a {@link String} is only created the
+ * first time a given identifier is encountered.
+ * </p>
+ * @author Kevin J. Burns
+ *
+ */
+class IdentifierTable {
+	private String[] values = new String[16];
+	private int[] hashes = new int[16];
+	private int size = 0;
+
+	/**
+	 * Open-addressed hash slots holding index + 1; 0 marks an empty slot.
+	 */
+	private int[] slots = new int[32];
+
+	/**
+	 * Gets the number of distinct identifiers in this table.
+	 * @return
+	 */
+	int size() {
+		return this.size;
+	}
+
+	/**
+	 * Gets the identifier with the supplied index.
+	 * @param index index returned by one of the intern methods
+	 * @return
+	 * @throws IndexOutOfBoundsException if there is no such index
+	 */
+	String get(int index) {
+		if ((index < 0) || (index >= this.size)) {
+			throw new IndexOutOfBoundsException();
+		}
+		return this.values[index];
+	}
+
+	/**
+	 * Replaces the identifier with the supplied index by an equal string,
+	 * such as a shared instance of it.
+	 * @param index index returned by one of the intern methods
+	 * @param id string equal to the identifier
+	 * @throws IllegalArgumentException if id is not equal to the identifier
+	 */
+	void replace(int index, String id) {
+		if (!this.get(index).equals(id)) {
+			throw new IllegalArgumentException(id);
+		}
+		this.values[index] = id;
+	}
+
+	/**
+	 * Finds the index of an identifier without adding it.
+	 * @param id identifier to look up
+	 * @return the index of the identifier, or -1 if it is not in this table.
+	 */
+	int indexOf(String id) {
+		if (id == null) {
+			return -1;
+		}
+		int hash = id.hashCode();
+		int mask = this.slots.length - 1;
+		for (int slot = mix(hash) & mask; ; slot = (slot + 1) & mask) {
+			int entry = this.slots[slot];
+			if (entry == 0) {
+				return -1;
+			}
+			if ((this.hashes[entry - 1] == hash) &&
+					this.values[entry - 1].equals(id)) {
+				return entry - 1;
+			}
+		}
+	}
+
+	/**
+	 * Gets the index of an identifier, adding it if necessary.
+	 * @param id identifier
+	 * @return
+	 */
+	int intern(String id) {
+		int hash = id.hashCode();
+		int mask = this.slots.length - 1;
+		int slot = mix(hash) & mask;
+		for (; ; slot = (slot + 1) & mask) {
+			int entry = this.slots[slot];
+			if (entry == 0) {
+				break;
+			}
+			if ((this.hashes[entry - 1] == hash) &&
+					this.values[entry - 1].equals(id)) {
+				return entry - 1;
+			}
+		}
+		return this.add(id, hash, slot);
+	}
+
+	/**
+	 * Gets the index of the identifier held in a field of the current
+	 * record of a tokenizer, adding it if necessary. The field is only
+	 * decoded into a string if it has not been seen before.
+	 * @param table tokenizer positioned at a record
+	 * @param col column holding the identifier
+	 * @return
+	 */
+	int intern(CsvTokenizer table, int col) {
+		int length = table.getFieldLength(col);
+		int hash = 0;
+		for (int i = 0; i < length; i++) {
+			char ch = table.charAt(col, i);
+			if (ch > 0x7f) {
+				/*
+				 * Code units of a byte source are not chars; only ASCII can
+				 * be compared without decoding.
+				 */
+				return this.intern(table.getData(col));
+			}
+			hash = 31 * hash + ch;
+		}
+
+		int mask = this.slots.length - 1;
+		int slot = mix(hash) & mask;
+		for (; ; slot = (slot + 1) & mask) {
+			int entry = this.slots[slot];
+			if (entry == 0) {
+				break;
+			}
+			if ((this.hashes[entry - 1] == hash) &&
+					table.fieldEquals(col, this.values[entry - 1])) {
+				return entry - 1;
+			}
+		}
+		return this.add(table.getData(col), hash, slot);
+	}
+
+	private int add(String id, int hash, int slot) {
+		if (this.size == this.values.length) {
+			this.values = Arrays.copyOf(this.values, this.size * 2);
+			this.hashes = Arrays.copyOf(this.hashes, this.size * 2);
+		}
+		int index = this.size++;
+		this.values[index] = id;
+		this.hashes[index] = hash;
+		this.slots[slot] = index + 1;
+
+		if (this.size * 2 > this.slots.length) {
+			this.rehash();
+		}
+		return index;
+	}
+
+	private void rehash() {
+		this.slots = new int[this.slots.length * 2];
+		int mask = this.slots.length - 1;
+		for (int i = 0; i < this.size; i++) {
+			int slot = mix(this.hashes[i]) & mask;
+			while (this.slots[slot] != 0) {
+				slot = (slot + 1) & mask;
+			}
+			this.slots[slot] = i + 1;
+		}
+	}
+
+	private static int mix(int hash) {
+		/*
+		 * String hashes of short, similar identifiers cluster badly in the
+		 * low bits.
+		 */
+		hash *= 0x9e3779b9;
+		return hash ^ (hash >>> 16);
+	}
+}
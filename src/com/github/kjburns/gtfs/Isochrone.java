@@ -0,0 +1,62 @@
+/*
+ * Isochrone.java
+ * General Transit Feed Specification
+ *
+ * Copyright 2016 Kevin J. Burns
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Revision Log:
+ *   2026-10-16  Basic functionality
+ */
+package com.github.kjburns.gtfs;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The area which can be reached from an origin within a travel time, by
+ * transit and walking, as found by {@link ReachabilityAnalyzer}. The area
+ * is made of cells of a grid, and its outline follows their edges.
+ * <p>
+ * Each ring of the outline is an array of alternating latitudes and
+ * longitudes, in degrees, whose last point repeats its first. Outer rings
+ * run counterclockwise, and holes in them clockwise, as seen on a map with
+ * north up.
+ * </p>
+ * @author Kevin J. Burns
+ *
+ */
+public class Isochrone {
+	private final int cutoffSeconds;
+	private final List<double[]> rings;
+
+	Isochrone(int cutoffSeconds, List<double[]> rings) {
+		this.cutoffSeconds = cutoffSeconds;
+		this.rings = Collections.unmodifiableList(rings);
+	}
+
+	/**
+	 * @return the travel time which bounds the area, in seconds
+	 */
+	public int getCutoffSeconds() {
+		return this.cutoffSeconds;
+	}
+
+	/**
+	 * @return the rings of the outline, in no particular order
+	 */
+	public List<double[]> getRings() {
+		return this.rings;
+	}
+}
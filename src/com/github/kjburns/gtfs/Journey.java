@@ -0,0 +1,84 @@
+/*
+ * Journey.java
+ * General Transit Feed Specification
+ *
+ * Copyright 2016 Kevin J. Burns
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Revision Log:
+ *   2026-10-16  Basic functionality
+ */
+package com.github.kjburns.gtfs;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A way to travel from one stop to another, as found by
+ * {@link RaptorRouter}: a sequence of rides on trips, with walks between
+ * them where transfers require them.
+ * @author Kevin J. Burns
+ *
+ */
+public class Journey {
+	private final long departureEpochSecond;
+	private final List<JourneyLeg> legs;
+
+	Journey(long departureEpochSecond, List<JourneyLeg> legs) {
+		this.departureEpochSecond = departureEpochSecond;
+		this.legs = Collections.unmodifiableList(legs);
+	}
+
+	/**
+	 * Gets the time at which the journey was asked to start. The first leg
+	 * may start later.
+	 * @return seconds since 1970-01-01T00:00:00Z
+	 */
+	public long getDepartureEpochSecond() {
+		return this.departureEpochSecond;
+	}
+
+	/**
+	 * Gets the time at which the journey reaches its destination.
+	 * @return seconds since 1970-01-01T00:00:00Z
+	 */
+	public long getArrivalEpochSecond() {
+		if (this.legs.isEmpty()) {
+			return this.departureEpochSecond;
+		}
+		return this.legs.get(this.legs.size() - 1).getArrivalEpochSecond();
+	}
+
+	/**
+	 * Gets the number of times the journey changes from one trip to
+	 * another.
+	 * @return one less than the number of rides, or 0 if there are none
+	 */
+	public int getTransferCount() {
+		int rides = 0;
+		for (JourneyLeg leg : this.legs) {
+			if (!leg.isWalk()) {
+				rides++;
+			}
+		}
+		return Math.max(0, rides - 1);
+	}
+
+	/**
+	 * @return the legs of the journey, in order
+	 */
+	public List<JourneyLeg> getLegs() {
+		return this.legs;
+	}
+}
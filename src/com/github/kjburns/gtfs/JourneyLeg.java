@@ -0,0 +1,141 @@
+/*
+ * JourneyLeg.java
+ * General Transit Feed Specification
+ *
+ * Copyright 2016 Kevin J. Burns
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Revision Log:
+ *   2026-10-16  Basic functionality
+ */
+package com.github.kjburns.gtfs;
+
+import java.time.LocalDate;
+
+/**
+ * One leg of a {@link Journey}: either a ride on one trip, from the stop
+ * time at which it is boarded to the one at which it is left, or a walk
+ * between two stops along a transfer rule.
+ * @author Kevin J. Burns
+ *
+ */
+public class JourneyLeg {
+	private final String fromStopId;
+	private final String toStopId;
+	private final long departureEpochSecond;
+	private final long arrivalEpochSecond;
+	private final StopTime board;
+	private final StopTime alight;
+	private final LocalDate serviceDate;
+
+	/**
+	 * Creates a ride.
+	 */
+	JourneyLeg(StopTime board, StopTime alight, LocalDate serviceDate,
+			long departureEpochSecond, long arrivalEpochSecond) {
+		this.fromStopId = board.getStopId();
+		this.toStopId = alight.getStopId();
+		this.departureEpochSecond = departureEpochSecond;
+		this.arrivalEpochSecond = arrivalEpochSecond;
+		this.board = board;
+		this.alight = alight;
+		this.serviceDate = serviceDate;
+	}
+
+	/**
+	 * Creates a walk.
+	 */
+	JourneyLeg(String fromStopId, String toStopId,
+			long departureEpochSecond, long arrivalEpochSecond) {
+		this.fromStopId = fromStopId;
+		this.toStopId = toStopId;
+		this.departureEpochSecond = departureEpochSecond;
+		this.arrivalEpochSecond = arrivalEpochSecond;
+		this.board = null;
+		this.alight = null;
+		this.serviceDate = null;
+	}
+
+	/**
+	 * Determines whether this leg is a walk rather than a ride.
+	 * @return
+	 */
+	public boolean isWalk() {
+		return this.board == null;
+	}
+
+	/**
+	 * @return the stop_id of the stop at which this leg starts
+	 */
+	public String getFromStopId() {
+		return this.fromStopId;
+	}
+
+	/**
+	 * @return the stop_id of the stop at which this leg ends
+	 */
+	public String getToStopId() {
+		return this.toStopId;
+	}
+
+	/**
+	 * Gets the time at which this leg starts: the departure of the trip
+	 * from the stop at which it is boarded, or the start of the walk.
+	 * @return seconds since 1970-01-01T00:00:00Z
+	 */
+	public long getDepartureEpochSecond() {
+		return this.departureEpochSecond;
+	}
+
+	/**
+	 * Gets the time at which this leg ends: the arrival of the trip at the
+	 * stop at which it is left, or the end of the walk.
+	 * @return seconds since 1970-01-01T00:00:00Z
+	 */
+	public long getArrivalEpochSecond() {
+		return this.arrivalEpochSecond;
+	}
+
+	/**
+	 * @return the trip_id of the trip ridden, or {@code null} for a walk
+	 */
+	public String getTripId() {
+		return (this.board == null) ? null : this.board.getTripId();
+	}
+
+	/**
+	 * @return the stop time at which the trip is boarded, or {@code null}
+	 * for a walk
+	 */
+	public StopTime getBoardStopTime() {
+		return this.board;
+	}
+
+	/**
+	 * @return the stop time at which the trip is left, or {@code null} for
+	 * a walk
+	 */
+	public StopTime getAlightStopTime() {
+		return this.alight;
+	}
+
+	/**
+	 * Gets the service date on which the trip runs. For trips running past
+	 * midnight, this is the day before the calendar date of the ride.
+	 * @return the serviceDate, or {@code null} for a walk
+	 */
+	public LocalDate getServiceDate() {
+		return this.serviceDate;
+	}
+}
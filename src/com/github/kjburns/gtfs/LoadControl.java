@@ -0,0 +1,131 @@
+/*
+ * LoadControl.java
+ * General Transit Feed Specification
+ *
+ * Copyright 2016 Kevin J. Burns
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Revision Log:
+ *   2026-10-16  Basic functionality
+ */
+package com.github.kjburns.gtfs;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+import com.github.kjburns.gtfs.misc.CsvTokenizer;
+import com.github.kjburns.gtfs.misc.RecordMonitor;
+
+/**
+ * Checks for cancellation and reports progress while a {@link GtfsFile}
+ * loads. Each tokenizer opened for loading is given a monitor which, every
+ * few records, stops the load if it has been cancelled and adds the bytes
+ * read since its last call to the progress of the whole load.
+ * @author Kevin J. Burns
+ *
+ */
+class LoadControl {
+	private final CancellationToken token;
+	private final BooleanSupplier workerCancelled;
+	private final LoadProgressSink sink;
+	private final int interval;
+	private final AtomicLong bytesRead = new AtomicLong();
+	private volatile long totalBytes = -1;
+
+	/**
+	 * @param token token to check, or {@code null}
+	 * @param workerCancelled another check for cancellation, such as that
+	 * of a worker thread, or {@code null}
+	 * @param sink sink to report progress to, or {@code null}
+	 * @param interval number of records between checks
+	 */
+	LoadControl(CancellationToken token, BooleanSupplier workerCancelled,
+			LoadProgressSink sink, int interval) {
+		this.token = token;
+		this.workerCancelled = workerCancelled;
+		this.sink = sink;
+		this.interval = interval;
+	}
+
+	/**
+	 * @param totalBytes size of every table which will be parsed, or -1 if
+	 * it is not known
+	 */
+	void setTotalBytes(long totalBytes) {
+		this.totalBytes = totalBytes;
+	}
+
+	/**
+	 * @return whether the load has been cancelled
+	 */
+	boolean isCancelled() {
+		if ((this.token != null) && this.token.isCancelled()) {
+			return true;
+		}
+		return (this.workerCancelled != null) &&
+				this.workerCancelled.getAsBoolean();
+	}
+
+	/**
+	 * @throws CancellationException if the load has been cancelled
+	 */
+	void checkCancelled() {
+		if (this.isCancelled()) {
+			throw new CancellationException("Loading was cancelled");
+		}
+	}
+
+	/**
+	 * Gives a tokenizer a monitor which checks for cancellation and
+	 * reports progress as it reads.
+	 * @param tokenizer
+	 * @param stream the stream the tokenizer reads from, if it reads from
+	 * a stream; otherwise {@code null}
+	 * @return tokenizer
+	 */
+	CsvTokenizer monitor(CsvTokenizer tokenizer, CountingInputStream stream) {
+		tokenizer.setMonitor(new TableMonitor(stream), this.interval);
+		return tokenizer;
+	}
+
+	private class TableMonitor implements RecordMonitor {
+		private final CountingInputStream stream;
+		/**
+		 * Bytes of the table already added to the progress of the load
+		 */
+		private long reported = 0;
+
+		TableMonitor(CountingInputStream stream) {
+			this.stream = stream;
+		}
+
+		@Override
+		public void recordsRead(CsvTokenizer tokenizer) {
+			LoadControl.this.checkCancelled();
+			if (LoadControl.this.sink == null) {
+				return;
+			}
+
+			long position = tokenizer.getBytePosition();
+			if (position < 0) {
+				position = (this.stream == null) ? 0 : this.stream.getCount();
+			}
+			long read = LoadControl.this.bytesRead.addAndGet(
+					position - this.reported);
+			this.reported = position;
+			LoadControl.this.sink.progress(read, LoadControl.this.totalBytes);
+		}
+	}
+}
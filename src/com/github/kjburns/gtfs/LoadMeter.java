@@ -0,0 +1,196 @@
+/*
+ * LoadMeter.java
+ * General Transit Feed Specification
+ *
+ * Copyright 2016 Kevin J. Burns
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Revision Log:
+ *   2026-10-16  Basic functionality
+ *   2026-10-16  Count streams with the shared CountingInputStream
+ *   2026-10-16  Count allocation by work handed to other threads
+ */
+package com.github.kjburns.gtfs;
+
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.github.kjburns.gtfs.GtfsLoadListener.Phase;
+import com.github.kjburns.gtfs.misc.CsvTokenizer;
+
+/**
+ * Measures one phase of loading, for a {@link GtfsLoadListener}. The meter
+ * of the phase running on a thread is found through {@link #current()}, so
+ * that the tables opened by the phase can be counted without passing the
+ * meter down to the code which reads them.
+ * @author Kevin J. Burns
+ *
+ */
+class LoadMeter {
+	private static final ThreadLocal<LoadMeter> CURRENT = new ThreadLocal<>();
+	/**
+	 * Source of per-thread allocation counts, or {@code null} if the
+	 * virtual machine does not provide them
+	 */
+	private static final ThreadMXBean ALLOCATIONS = findAllocationCounter();
+
+	private final LoadMeter previous;
+	private final long startNanos;
+	private final long startAllocated;
+	private final List<CsvTokenizer> tokenizers = new ArrayList<>();
+	private final List<CountingInputStream> streams = new ArrayList<>();
+	/**
+	 * Bytes allocated by work the phase handed to other threads
+	 */
+	private final AtomicLong handedOffAllocated = new AtomicLong();
+	private long rows = 0;
+	private long bytes = 0;
+
+	private LoadMeter(LoadMeter previous) {
+		this.previous = previous;
+		this.startAllocated = allocatedBytes();
+		this.startNanos = System.nanoTime();
+	}
+
+	private static ThreadMXBean findAllocationCounter() {
+		try {
+			ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+			if (bean instanceof com.sun.management.ThreadMXBean) {
+				com.sun.management.ThreadMXBean counter =
+						(com.sun.management.ThreadMXBean)bean;
+				if (counter.isThreadAllocatedMemorySupported() &&
+						counter.isThreadAllocatedMemoryEnabled()) {
+					return counter;
+				}
+			}
+		} catch (LinkageError ex) {
+			/*
+			 * Not a virtual machine which counts allocations
+			 */
+		}
+		return null;
+	}
+
+	private static long allocatedBytes() {
+		if (ALLOCATIONS == null) {
+			return -1;
+		}
+		return ((com.sun.management.ThreadMXBean)ALLOCATIONS)
+				.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+	/**
+	 * Starts measuring a phase on the calling thread. The phase must be
+	 * finished on the same thread.
+	 * @return
+	 */
+	static LoadMeter start() {
+		LoadMeter ret = new LoadMeter(CURRENT.get());
+		CURRENT.set(ret);
+		return ret;
+	}
+
+	/**
+	 * @return the meter of the phase running on the calling thread, or
+	 * {@code null} if no phase is being measured
+	 */
+	static LoadMeter current() {
+		return CURRENT.get();
+	}
+
+	/**
+	 * Counts the records read by a tokenizer, once the phase finishes.
+	 * @param tokenizer
+	 * @return tokenizer
+	 */
+	CsvTokenizer track(CsvTokenizer tokenizer) {
+		this.tokenizers.add(tokenizer);
+		return tokenizer;
+	}
+
+	/**
+	 * Counts the bytes read from a stream.
+	 * @param is
+	 * @return a stream which reads from is
+	 */
+	InputStream track(InputStream is) {
+		CountingInputStream ret = new CountingInputStream(is);
+		this.streams.add(ret);
+		return ret;
+	}
+
+	/**
+	 * Counts the bytes allocated by work which the phase hands to another
+	 * thread, such as a range of stop_times.txt parsed in parallel. The
+	 * work must be done before the phase finishes.
+	 * @param work
+	 * @return work which runs work, on whichever thread it is run
+	 */
+	Runnable track(Runnable work) {
+		return () -> {
+			long start = allocatedBytes();
+			try {
+				work.run();
+			} finally {
+				if (start >= 0) {
+					this.handedOffAllocated.addAndGet(
+							allocatedBytes() - start);
+				}
+			}
+		};
+	}
+
+	void addRows(long count) {
+		this.rows += count;
+	}
+
+	void addBytes(long count) {
+		this.bytes += count;
+	}
+
+	/**
+	 * Stops measuring the phase.
+	 * @param phase kind of work
+	 * @param name name of the phase
+	 * @param failure what made the phase fail, or {@code null}
+	 * @return
+	 */
+	GtfsLoadEvent finish(Phase phase, String name, Throwable failure) {
+		long elapsed = System.nanoTime() - this.startNanos;
+		long allocated = (this.startAllocated < 0) ? -1 :
+				allocatedBytes() - this.startAllocated +
+						this.handedOffAllocated.get();
+		if (this.previous == null) {
+			CURRENT.remove();
+		}
+		else {
+			CURRENT.set(this.previous);
+		}
+
+		long rows = this.rows;
+		for (CsvTokenizer tokenizer : this.tokenizers) {
+			rows += tokenizer.getRecordNumber();
+		}
+		long bytes = this.bytes;
+		for (CountingInputStream stream : this.streams) {
+			bytes += stream.getCount();
+		}
+		return new GtfsLoadEvent(phase, name, elapsed, rows, bytes,
+				allocated, failure);
+	}
+}
@@ -0,0 +1,47 @@
+/*
+ * LoadProgressSink.java
+ * General Transit Feed Specification
+ *
+ * Copyright 2016 Kevin J. Burns
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Revision Log:
+ *   2026-10-16  Basic functionality
+ */
+package com.github.kjburns.gtfs;
+
+/**
+ * Receives the progress of loading a {@link GtfsFile}, in bytes of the
+ * tables parsed, while the tables are being parsed. Set one through
+ * {@link GtfsLoadOptions#setProgressSink(LoadProgressSink)}.
+ * <p>
+ * Progress is reported every few records of each table, as set by
+ * {@link GtfsLoadOptions#setCheckInterval(int)}. Tables parsed at the same
+ * time report from their own threads, so the sink may be called from
+ * several threads at once, and calls from different threads may arrive
+ * slightly out of order.
+ * </p>
+ * @author Kevin J. Burns
+ *
+ */
+public interface LoadProgressSink {
+	/**
+	 * Called as the tables of the feed are parsed.
+	 * @param bytesRead uncompressed bytes parsed so far, over every table
+	 * @param totalBytes uncompressed size of every table which will be
+	 * parsed, or -1 if it is not known. Tables read from a snapshot are
+	 * not counted.
+	 */
+	void progress(long bytesRead, long totalBytes);
+}
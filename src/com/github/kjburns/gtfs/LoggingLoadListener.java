@@ -0,0 +1,83 @@
+/*
+ * LoggingLoadListener.java
+ * General Transit Feed Specification
+ *
+ * Copyright 2016 Kevin J. Burns
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Revision Log:
+ *   2026-10-16  Basic functionality
+ */
+package com.github.kjburns.gtfs;
+
+import java.util.Locale;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Writes a line to a {@link Logger} for each phase of a load, and one for
+ * the whole load, so that slow phases can be found in the logs of a
+ * program without a user interface. Phases which fail are logged at
+ * {@link Level#WARNING}.
+ * @author Kevin J. Burns
+ *
+ */
+public class LoggingLoadListener implements GtfsLoadListener {
+	private final Logger logger;
+	private final Level level;
+	private volatile String path = null;
+
+	/**
+	 * Creates a listener which logs to the logger of this package at
+	 * {@link Level#INFO}.
+	 */
+	public LoggingLoadListener() {
+		this(Logger.getLogger(GtfsFile.class.getPackage().getName()),
+				Level.INFO);
+	}
+
+	/**
+	 * Creates a listener which logs to the logger you specify.
+	 * @param logger logger to write to
+	 * @param level level of the lines written for phases which succeed
+	 */
+	public LoggingLoadListener(Logger logger, Level level) {
+		this.logger = logger;
+		this.level = level;
+	}
+
+	@Override
+	public void loadStarted(String path, int phaseCount) {
+		this.path = path;
+		this.logger.log(this.level, "Loading {0} in {1} phases",
+				new Object[] { path, phaseCount });
+	}
+
+	@Override
+	public void phaseFinished(GtfsLoadEvent event) {
+		Level level = (event.getFailure() == null) ?
+				this.level : Level.WARNING;
+		if (this.logger.isLoggable(level)) {
+			this.logger.log(level, event.toString());
+		}
+	}
+
+	@Override
+	public void loadFinished(long elapsedNanos) {
+		if (this.logger.isLoggable(this.level)) {
+			this.logger.log(this.level, String.format(Locale.ROOT,
+					"Loaded %s in %.1f ms", this.path, elapsedNanos / 1e6));
+		}
+	}
+}
@@ -0,0 +1,848 @@
+/*
+ * RaptorRouter.java
+ * General Transit Feed Specification
+ *
+ * Copyright 2016 Kevin J. Burns
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Revision Log:
+ *   2026-10-16  Basic functionality
+ *   2026-10-16  Share routing times and stop lookup with 
+ *               ConnectionScanner
+ *   2026-10-16  Build route patterns from the feed's trip patterns
+ *   2026-10-16  Search one more round, so that journeys with as many
+ *               transfers as allowed are found
+ */
+package com.github.kjburns.gtfs;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Plans journeys between stops with RAPTOR, the round-based public transit
+ * routing algorithm of Delling, Pajor and Werneck. Each round rides one
+ * more trip than the last, so the journeys found are those which arrive
+ * earliest for each number of transfers: a journey with more transfers is
+ * only returned if it arrives strictly earlier than every journey with
+ * fewer.
+ * <p>
+ * The router is built once per feed. It splits the trip patterns of the
+ * feed (see {@link StopTimeCollection#getTripPatterns()}) into route
+ * patterns, whose trips can be boarded and left at the same stops and
+ * never overtake each other, and holds their times in primitive arrays,
+ * trip after trip. Walks and the time needed to
+ * change vehicles come from the transfer rules of the stops; see
+ * {@link Stop#getOutgoingTransfers()}. Stop times without a time, unless
+ * times were interpolated while loading, cannot be boarded or left.
+ * </p>
+ * <p>
+ * Queries may be made from several threads at once. Each thread keeps the
+ * working arrays of its queries and reuses them, so a query allocates
+ * little besides the journeys it returns.
+ * </p>
+ * @author Kevin J. Burns
+ *
+ */
+public class RaptorRouter {
+	/**
+	 * Largest number of transfers in a journey, unless changed through
+	 * {@link #setMaxTransfers(int)}.
+	 */
+	public static final int DEFAULT_MAX_TRANSFERS = 5;
+
+	/**
+	 * Arrival time of a stop which has not been reached
+	 */
+	private static final int UNREACHED = Integer.MAX_VALUE;
+	private static final byte CAN_BOARD = RoutingTimes.CAN_BOARD;
+	private static final byte CAN_ALIGHT = RoutingTimes.CAN_ALIGHT;
+	/**
+	 * How each stop was reached in a round
+	 */
+	private static final byte REACHED_AT_ORIGIN = 1;
+	private static final byte REACHED_BY_RIDE = 2;
+	private static final byte REACHED_BY_WALK = 3;
+	/**
+	 * Service dates searched by each query: the day before the date of
+	 * departure, for trips running past midnight, the date itself, and the
+	 * day after, for journeys running past midnight.
+	 */
+	private static final int DAYS = 3;
+
+	private final GtfsFile gtfs;
+	private final StopTimeTable table;
+	private final ServiceCalendar calendar;
+	private final Footpaths footpaths;
+	private final int stopCount;
+
+	/**
+	 * Offsets into {@link #patternStops} for each pattern. The extra last
+	 * element holds the length of patternStops.
+	 */
+	private int[] patternStart;
+	/**
+	 * Stops of each pattern, in order
+	 */
+	private int[] patternStops;
+	/**
+	 * {@link #CAN_BOARD} and {@link #CAN_ALIGHT} for each element of
+	 * patternStops
+	 */
+	private byte[] patternFlags;
+	/**
+	 * Offsets into the trip arrays for each pattern. The extra last element
+	 * holds the number of trips.
+	 */
+	private int[] patternTripStart;
+	/**
+	 * Table trip index of each trip, grouped by pattern and in order of
+	 * departure within each pattern
+	 */
+	private int[] trips;
+	/**
+	 * Service index of each trip
+	 */
+	private int[] tripService;
+	/**
+	 * Offset of the times of each trip into {@link #arrivals} and
+	 * {@link #departures}. The times of a trip are contiguous, one for each
+	 * stop of its pattern.
+	 */
+	private int[] tripTimeStart;
+	/**
+	 * Seconds after noon on the service date. Times which are not given in
+	 * the table are filled in from the times next to them, so that they
+	 * keep the order of trips, but cannot be boarded or left.
+	 */
+	private int[] arrivals;
+	private int[] departures;
+	/**
+	 * Offsets into {@link #stopPatterns} for each stop. The extra last
+	 * element holds the length of stopPatterns.
+	 */
+	private int[] stopPatternStart;
+	/**
+	 * Patterns serving each stop, and the position of the stop in each
+	 */
+	private int[] stopPatterns;
+	private int[] stopPatternPositions;
+
+	private volatile int maxTransfers = DEFAULT_MAX_TRANSFERS;
+	/**
+	 * Working arrays of the queries made on each thread. The state does
+	 * not refer back to the router, so it is released along with the
+	 * router.
+	 */
+	private final ThreadLocal<State> states;
+
+	/**
+	 * Builds a router over the trips of a feed. Every table the router
+	 * needs is loaded first, if the feed is loading lazily.
+	 * @param gtfs feed to route over
+	 */
+	public RaptorRouter(GtfsFile gtfs) {
+		this.gtfs = gtfs;
+		StopTimeCollection stopTimes = gtfs.getAllTimetables();
+		this.table = stopTimes.getTable();
+		this.calendar = gtfs.getServiceCalendar();
+		this.footpaths = new Footpaths(this.table, gtfs.getStops());
+		this.stopCount = this.table.stopIds.size();
+		this.buildPatterns(stopTimes.getPatterns(),
+				stopTimes.getTripServices());
+
+		int stops = this.stopCount;
+		int patterns = this.patternTripStart.length - 1;
+		this.states = ThreadLocal.withInitial(
+				() -> new State(stops, patterns));
+	}
+
+	/**
+	 * Splits the trip patterns into route patterns and lays out their
+	 * times.
+	 * @param shared trip patterns of the table
+	 * @param services service index of each table trip index
+	 */
+	private void buildPatterns(TripPatterns shared, int[] services) {
+		StopTimeTable table = this.table;
+
+		RoutingTimes times = new RoutingTimes(table);
+		int[] arrival = times.arrival;
+		int[] departure = times.departure;
+		byte[] flags = times.flags;
+
+		/*
+		 * Split each trip pattern by flags, which also depend on which
+		 * stop times have times
+		 */
+		Map<PatternKey, List<Integer>> groups = new LinkedHashMap<>();
+		for (int p = 0; p < shared.getPatternCount(); p++) {
+			for (int i = shared.tripStart[p]; i < shared.tripStart[p + 1];
+					i++) {
+				int t = shared.trips[i];
+				if ((services[t] == -1) || !times.isRoutable(table, t)) {
+					continue;
+				}
+				PatternKey key = new PatternKey(p, Arrays.copyOfRange(flags,
+						table.tripStart[t], table.tripStart[t + 1]));
+				groups.computeIfAbsent(key, k -> new ArrayList<>()).add(t);
+			}
+		}
+
+		/*
+		 * Split each group so that no trip overtakes another
+		 */
+		List<PatternKey> keys = new ArrayList<>();
+		List<List<Integer>> patterns = new ArrayList<>();
+		for (Map.Entry<PatternKey, List<Integer>> group : groups.entrySet()) {
+			List<Integer> members = group.getValue();
+			members.sort((a, b) -> {
+				int c = Integer.compare(departure[table.tripStart[a]],
+						departure[table.tripStart[b]]);
+				return (c != 0) ? c : Integer.compare(a, b);
+			});
+
+			int length = group.getKey().flags.length;
+			List<List<Integer>> split = new ArrayList<>();
+			for (int t : members) {
+				List<Integer> target = null;
+				for (List<Integer> candidate : split) {
+					int last = candidate.get(candidate.size() - 1);
+					if (!overtakes(table.tripStart[t],
+							table.tripStart[last], length,
+							arrival, departure)) {
+						target = candidate;
+						break;
+					}
+				}
+				if (target == null) {
+					target = new ArrayList<>();
+					split.add(target);
+				}
+				target.add(t);
+			}
+			for (List<Integer> pattern : split) {
+				keys.add(group.getKey());
+				patterns.add(pattern);
+			}
+		}
+
+		/*
+		 * Lay out the patterns
+		 */
+		int patternCount = patterns.size();
+		int stopTotal = 0;
+		int tripTotal = 0;
+		int timeTotal = 0;
+		for (int p = 0; p < patternCount; p++) {
+			int length = keys.get(p).flags.length;
+			stopTotal += length;
+			tripTotal += patterns.get(p).size();
+			timeTotal += length * patterns.get(p).size();
+		}
+		this.patternStart = new int[patternCount + 1];
+		this.patternStops = new int[stopTotal];
+		this.patternFlags = new byte[stopTotal];
+		this.patternTripStart = new int[patternCount + 1];
+		this.trips = new int[tripTotal];
+		this.tripService = new int[tripTotal];
+		this.tripTimeStart = new int[tripTotal];
+		this.arrivals = new int[timeTotal];
+		this.departures = new int[timeTotal];
+		int[] servedBy = new int[this.stopCount + 1];
+		int s = 0;
+		int tr = 0;
+		int time = 0;
+		for (int p = 0; p < patternCount; p++) {
+			PatternKey key = keys.get(p);
+			int length = key.flags.length;
+			this.patternStart[p] = s;
+			System.arraycopy(shared.stops, shared.stopStart[key.pattern],
+					this.patternStops, s, length);
+			System.arraycopy(key.flags, 0, this.patternFlags, s, length);
+			for (int i = s; i < s + length; i++) {
+				servedBy[this.patternStops[i] + 1]++;
+			}
+			s += length;
+
+			this.patternTripStart[p] = tr;
+			for (int t : patterns.get(p)) {
+				int row = table.tripStart[t];
+				this.trips[tr] = t;
+				this.tripService[tr] = services[t];
+				this.tripTimeStart[tr] = time;
+				System.arraycopy(arrival, row, this.arrivals, time, length);
+				System.arraycopy(departure, row, this.departures, time,
+						length);
+				time += length;
+				tr++;
+			}
+		}
+		this.patternStart[patternCount] = s;
+		this.patternTripStart[patternCount] = tr;
+
+		/*
+		 * Index the patterns by stop
+		 */
+		for (int i = 0; i < this.stopCount; i++) {
+			servedBy[i + 1] += servedBy[i];
+		}
+		this.stopPatternStart = Arrays.copyOf(servedBy, servedBy.length);
+		this.stopPatterns = new int[stopTotal];
+		this.stopPatternPositions = new int[stopTotal];
+		for (int p = 0; p < patternCount; p++) {
+			for (int i = this.patternStart[p]; i < this.patternStart[p + 1];
+					i++) {
+				int slot = servedBy[this.patternStops[i]]++;
+				this.stopPatterns[slot] = p;
+				this.stopPatternPositions[slot] = i - this.patternStart[p];
+			}
+		}
+	}
+
+	/**
+	 * Determines whether a trip arrives or departs earlier than another at
+	 * any stop of their pattern.
+	 * @param row first row of the trip
+	 * @param otherRow first row of the other trip
+	 */
+	private static boolean overtakes(int row, int otherRow, int length,
+			int[] arrival, int[] departure) {
+		for (int i = 0; i < length; i++) {
+			if ((arrival[row + i] < arrival[otherRow + i]) ||
+					(departure[row + i] < departure[otherRow + i])) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Gets the largest number of transfers in a journey.
+	 * @return the maxTransfers
+	 */
+	public int getMaxTransfers() {
+		return this.maxTransfers;
+	}
+
+	/**
+	 * Sets the largest number of transfers in a journey. Each transfer
+	 * adds a round to every query. The default is
+	 * {@value #DEFAULT_MAX_TRANSFERS}.
+	 * @param maxTransfers the maxTransfers to set
+	 * @throws IllegalArgumentException if the value is negative
+	 */
+	public void setMaxTransfers(int maxTransfers) {
+		if (maxTransfers < 0) {
+			throw new IllegalArgumentException();
+		}
+		this.maxTransfers = maxTransfers;
+	}
+
+	/**
+	 * Gets the number of route patterns the trips were grouped into.
+	 * @return
+	 */
+	public int getPatternCount() {
+		return this.patternTripStart.length - 1;
+	}
+
+	/**
+	 * Plans journeys from one stop to another. See
+	 * {@link #route(String, String, long)}.
+	 * @param fromStopId stop_id of the origin
+	 * @param toStopId stop_id of the destination
+	 * @param departure earliest time of departure
+	 * @return
+	 */
+	public List<Journey> route(String fromStopId, String toStopId,
+			ZonedDateTime departure) {
+		return this.route(fromStopId, toStopId, departure.toEpochSecond());
+	}
+
+	/**
+	 * Plans journeys from one stop to another. Either stop may be a
+	 * station, in which case the journeys may start or end at any of its
+	 * stops. Trips of the service dates before, of and after the date of
+	 * departure are considered.
+	 * @param fromStopId stop_id of the origin
+	 * @param toStopId stop_id of the destination
+	 * @param epochSecond earliest time of departure, in seconds since
+	 * 1970-01-01T00:00:00Z
+	 * @return the journeys which arrive earliest for each number of
+	 * transfers, in order of increasing transfers and so of decreasing
+	 * arrival time. A journey which needs no trip at all, because the
+	 * origin is the destination or a walk away from it, comes first.
+	 * Empty if the destination cannot be reached, or if either stop is
+	 * unknown or has no stop times.
+	 */
+	public List<Journey> route(String fromStopId, String toStopId,
+			long epochSecond) {
+		StopCollection stops = this.gtfs.getStops();
+		int[] origins = this.table.indicesOf(stops.getStopById(fromStopId));
+		int[] targets = this.table.indicesOf(stops.getStopById(toStopId));
+		if ((origins.length == 0) || (targets.length == 0)) {
+			return Collections.emptyList();
+		}
+
+		/*
+		 * Times are held as seconds after noon on the date of departure
+		 */
+		LocalDate today = Instant.ofEpochSecond(epochSecond)
+				.atZone(this.gtfs.getZoneId()).toLocalDate();
+		long base = this.gtfs.getNoonEpochSecond(today);
+		LocalDate[] dates = new LocalDate[DAYS];
+		int[] shift = new int[DAYS];
+		BitSet[] active = new BitSet[DAYS];
+		for (int k = 0; k < DAYS; k++) {
+			dates[k] = today.plusDays(k - 1);
+			shift[k] = (int)(this.gtfs.getNoonEpochSecond(dates[k]) - base);
+			int day = this.calendar.getDayIndex(dates[k]);
+			active[k] = (day == -1) ? null :
+					this.calendar.getActiveServices(day);
+		}
+
+		/*
+		 * Round 0 reaches the origins and round k rides k trips, so a
+		 * journey with maxTransfers transfers is found in the last round
+		 */
+		int rounds = this.maxTransfers + 2;
+		State state = this.states.get();
+		state.prepare(rounds);
+		try {
+			return this.search(state, origins, targets,
+					(int)(epochSecond - base), rounds, base, dates, shift,
+					active, epochSecond);
+		} finally {
+			state.clearTargets(targets);
+		}
+	}
+
+	/**
+	 * Runs the rounds of a query.
+	 * @param start time of departure, in seconds after base
+	 * @param base noon on the date of departure, as an epoch second
+	 */
+	private List<Journey> search(State state, int[] origins, int[] targets,
+			int start, int rounds, long base, LocalDate[] dates,
+			int[] shift, BitSet[] active, long epochSecond) {
+		for (int t : targets) {
+			state.isTarget[t] = true;
+		}
+		List<Journey> ret = new ArrayList<>();
+
+		/*
+		 * Round 0: the origins, and the stops a walk away from them
+		 */
+		int[] arrival = state.arrival[0];
+		Arrays.fill(arrival, UNREACHED);
+		for (int o : origins) {
+			arrival[o] = start;
+			state.best[o] = start;
+			state.how[0][o] = REACHED_AT_ORIGIN;
+			state.mark(o);
+		}
+		for (int o : origins) {
+			this.walk(state, 0, o);
+		}
+		int targetBest = state.targetBest;
+		if (targetBest != UNREACHED) {
+			ret.add(this.journey(state, 0, targets, base, dates, shift,
+					epochSecond));
+		}
+
+		for (int k = 1; k < rounds; k++) {
+			/*
+			 * Collect the patterns serving the stops reached in the last
+			 * round, from the first such stop of each
+			 */
+			int queued = 0;
+			for (int i = 0; i < state.markedCount; i++) {
+				int stop = state.marked[i];
+				state.isMarked[stop] = false;
+				for (int j = this.stopPatternStart[stop];
+						j < this.stopPatternStart[stop + 1]; j++) {
+					int p = this.stopPatterns[j];
+					int position = this.stopPatternPositions[j];
+					if (state.queue[p] == -1) {
+						state.queued[queued++] = p;
+						state.queue[p] = position;
+					}
+					else if (position < state.queue[p]) {
+						state.queue[p] = position;
+					}
+				}
+			}
+			state.markedCount = 0;
+			if (queued == 0) {
+				break;
+			}
+
+			Arrays.fill(state.arrival[k], UNREACHED);
+			state.riddenCount = 0;
+			for (int i = 0; i < queued; i++) {
+				int p = state.queued[i];
+				this.scanPattern(state, k, p, state.queue[p], shift, active);
+				state.queue[p] = -1;
+			}
+			for (int i = 0; i < state.riddenCount; i++) {
+				int stop = state.ridden[i];
+				state.isRidden[stop] = false;
+				if (state.how[k][stop] == REACHED_BY_RIDE) {
+					this.walk(state, k, stop);
+				}
+			}
+
+			int best = state.targetBest;
+			if (best < targetBest) {
+				targetBest = best;
+				ret.add(this.journey(state, k, targets, base, dates, shift,
+						epochSecond));
+			}
+		}
+
+		for (int i = 0; i < state.markedCount; i++) {
+			state.isMarked[state.marked[i]] = false;
+		}
+		state.markedCount = 0;
+		return ret;
+	}
+
+	/**
+	 * Rides the trips of a pattern in one round.
+	 * @param k round
+	 * @param p pattern
+	 * @param first first position at which the pattern may be boarded
+	 */
+	private void scanPattern(State state, int k, int p, int first,
+			int[] shift, BitSet[] active) {
+		int stopBase = this.patternStart[p];
+		int length = this.patternStart[p + 1] - stopBase;
+		int[] previous = state.arrival[k - 1];
+		byte[] previousHow = state.how[k - 1];
+
+		int trip = -1;
+		int day = -1;
+		int times = 0;
+		int boarded = -1;
+		for (int position = first; position < length; position++) {
+			int stop = this.patternStops[stopBase + position];
+			byte flags = this.patternFlags[stopBase + position];
+
+			if ((trip != -1) && ((flags & CAN_ALIGHT) != 0)) {
+				int time = this.arrivals[times + position] + shift[day];
+				if ((time < state.best[stop]) &&
+						(time < state.targetBest)) {
+					state.arrival[k][stop] = time;
+					state.best[stop] = time;
+					state.how[k][stop] = REACHED_BY_RIDE;
+					state.trip[k][stop] = trip;
+					state.day[k][stop] = (byte)day;
+					state.boarded[k][stop] = boarded;
+					state.alighted[k][stop] = position;
+					state.mark(stop);
+					state.ridden(stop);
+				}
+			}
+
+			if (((flags & CAN_BOARD) != 0) && (previous[stop] != UNREACHED)) {
+				int ready = previous[stop];
+				if (previousHow[stop] == REACHED_BY_RIDE) {
+					ready += this.footpaths.changeTime[stop];
+				}
+				if ((trip == -1) || (ready <=
+						this.departures[times + position] + shift[day])) {
+					long found = this.earliestTrip(p, position, ready, shift,
+							active);
+					if (found != -1) {
+						int foundTrip = (int)(found >>> 8);
+						int foundDay = (int)(found & 0xff);
+						int foundTimes = this.tripTimeStart[foundTrip];
+						if ((trip == -1) ||
+								(this.departures[foundTimes + position] +
+								shift[foundDay] < this.departures[
+								times + position] + shift[day])) {
+							trip = foundTrip;
+							day = foundDay;
+							times = foundTimes;
+							boarded = position;
+						}
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Finds the earliest trip of a pattern which can be boarded at one of
+	 * its stops.
+	 * @param p pattern
+	 * @param position position of the stop in the pattern
+	 * @param ready earliest time of boarding, in seconds after noon on the
+	 * date of departure
+	 * @return the trip, shifted left eight bits, and the day it runs, or -1
+	 * if there is none
+	 */
+	private long earliestTrip(int p, int position, int ready, int[] shift,
+			BitSet[] active) {
+		int from = this.patternTripStart[p];
+		int to = this.patternTripStart[p + 1];
+		long ret = -1;
+		long bestTime = Long.MAX_VALUE;
+		for (int k = 0; k < DAYS; k++) {
+			if (active[k] == null) {
+				continue;
+			}
+
+			/*
+			 * Trips of a pattern depart in order at every stop
+			 */
+			int threshold = ready - shift[k];
+			int lo = from;
+			int hi = to;
+			while (lo < hi) {
+				int mid = (lo + hi) >>> 1;
+				if (this.departures[this.tripTimeStart[mid] + position] <
+						threshold) {
+					lo = mid + 1;
+				}
+				else {
+					hi = mid;
+				}
+			}
+			for (int t = lo; t < to; t++) {
+				long time = (long)this.departures[this.tripTimeStart[t] +
+						position] + shift[k];
+				if (time >= bestTime) {
+					break;
+				}
+				if (active[k].get(this.tripService[t])) {
+					ret = ((long)t << 8) | k;
+					bestTime = time;
+					break;
+				}
+			}
+		}
+		return ret;
+	}
+
+	/**
+	 * Walks from a stop reached in a round along its transfers.
+	 */
+	private void walk(State state, int k, int stop) {
+		int from = state.arrival[k][stop];
+		for (int i = this.footpaths.start[stop];
+				i < this.footpaths.start[stop + 1]; i++) {
+			int to = this.footpaths.to[i];
+			int time = from + this.footpaths.duration[i];
+			if ((time < state.best[to]) && (time < state.targetBest)) {
+				state.arrival[k][to] = time;
+				state.best[to] = time;
+				state.how[k][to] = REACHED_BY_WALK;
+				state.walkedFrom[k][to] = stop;
+				state.mark(to);
+			}
+		}
+	}
+
+	/**
+	 * Traces back the journey to the earliest reached target of a round.
+	 */
+	private Journey journey(State state, int k, int[] targets, long base,
+			LocalDate[] dates, int[] shift, long epochSecond) {
+		int stop = -1;
+		for (int t : targets) {
+			if ((state.arrival[k][t] != UNREACHED) && ((stop == -1) ||
+					(state.arrival[k][t] < state.arrival[k][stop]))) {
+				stop = t;
+			}
+		}
+
+		List<JourneyLeg> legs = new ArrayList<>();
+		int round = k;
+		while (state.how[round][stop] != REACHED_AT_ORIGIN) {
+			if (state.how[round][stop] == REACHED_BY_WALK) {
+				int from = state.walkedFrom[round][stop];
+				legs.add(new JourneyLeg(this.table.stopIds.get(from),
+						this.table.stopIds.get(stop),
+						base + state.arrival[round][from],
+						base + state.arrival[round][stop]));
+				stop = from;
+				continue;
+			}
+
+			int trip = state.trip[round][stop];
+			int day = state.day[round][stop];
+			int times = this.tripTimeStart[trip];
+			int row = this.table.tripStart[this.trips[trip]];
+			int boarded = state.boarded[round][stop];
+			int alighted = state.alighted[round][stop];
+			legs.add(new JourneyLeg(
+					new StopTime(this.table, row + boarded),
+					new StopTime(this.table, row + alighted), dates[day],
+					base + this.departures[times + boarded] + shift[day],
+					base + this.arrivals[times + alighted] + shift[day]));
+			stop = this.table.stop[row + boarded];
+			round--;
+		}
+		Collections.reverse(legs);
+		return new Journey(epochSecond, legs);
+	}
+
+	/**
+	 * Trip pattern and flags shared by the trips of one or more patterns.
+	 */
+	private static final class PatternKey {
+		final int pattern;
+		final byte[] flags;
+		private final int hash;
+
+		PatternKey(int pattern, byte[] flags) {
+			this.pattern = pattern;
+			this.flags = flags;
+			this.hash = 31 * pattern + Arrays.hashCode(flags);
+		}
+
+		@Override
+		public int hashCode() {
+			return this.hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof PatternKey)) {
+				return false;
+			}
+			PatternKey other = (PatternKey)obj;
+			return (this.hash == other.hash) &&
+					(this.pattern == other.pattern) &&
+					Arrays.equals(this.flags, other.flags);
+		}
+	}
+
+	/**
+	 * Working arrays of the queries made on one thread.
+	 */
+	private static final class State {
+		/**
+		 * Earliest arrival at each stop over every round so far
+		 */
+		final int[] best;
+		final boolean[] isTarget;
+		/**
+		 * Earliest arrival at any target over every round so far
+		 */
+		int targetBest;
+		/**
+		 * Stops reached in the current round, to be scanned in the next
+		 */
+		final int[] marked;
+		final boolean[] isMarked;
+		int markedCount = 0;
+		/**
+		 * Stops reached by a ride in the current round, to walk on from
+		 */
+		final int[] ridden;
+		final boolean[] isRidden;
+		int riddenCount = 0;
+		/**
+		 * First position to scan in each pattern, or -1 if the pattern is
+		 * not queued
+		 */
+		final int[] queue;
+		final int[] queued;
+
+		/*
+		 * Indexed by round, then by stop
+		 */
+		int[][] arrival = new int[0][];
+		byte[][] how = new byte[0][];
+		int[][] trip = new int[0][];
+		byte[][] day = new byte[0][];
+		int[][] boarded = new int[0][];
+		int[][] alighted = new int[0][];
+		int[][] walkedFrom = new int[0][];
+
+		State(int stops, int patterns) {
+			this.best = new int[stops];
+			this.isTarget = new boolean[stops];
+			this.marked = new int[stops];
+			this.isMarked = new boolean[stops];
+			this.ridden = new int[stops];
+			this.isRidden = new boolean[stops];
+			this.queue = new int[patterns];
+			this.queued = new int[patterns];
+			Arrays.fill(this.queue, -1);
+		}
+
+		/**
+		 * Readies the state for a query.
+		 * @param rounds number of rounds the query may run
+		 */
+		void prepare(int rounds) {
+			if (this.arrival.length < rounds) {
+				int stops = this.best.length;
+				int from = this.arrival.length;
+				this.arrival = Arrays.copyOf(this.arrival, rounds);
+				this.how = Arrays.copyOf(this.how, rounds);
+				this.trip = Arrays.copyOf(this.trip, rounds);
+				this.day = Arrays.copyOf(this.day, rounds);
+				this.boarded = Arrays.copyOf(this.boarded, rounds);
+				this.alighted = Arrays.copyOf(this.alighted, rounds);
+				this.walkedFrom = Arrays.copyOf(this.walkedFrom, rounds);
+				for (int k = from; k < rounds; k++) {
+					this.arrival[k] = new int[stops];
+					this.how[k] = new byte[stops];
+					this.trip[k] = new int[stops];
+					this.day[k] = new byte[stops];
+					this.boarded[k] = new int[stops];
+					this.alighted[k] = new int[stops];
+					this.walkedFrom[k] = new int[stops];
+				}
+			}
+			Arrays.fill(this.best, UNREACHED);
+			this.targetBest = UNREACHED;
+		}
+
+		void mark(int stop) {
+			if (!this.isMarked[stop]) {
+				this.isMarked[stop] = true;
+				this.marked[this.markedCount++] = stop;
+			}
+			if (this.isTarget[stop] && (this.best[stop] < this.targetBest)) {
+				this.targetBest = this.best[stop];
+			}
+		}
+
+		void ridden(int stop) {
+			if (!this.isRidden[stop]) {
+				this.isRidden[stop] = true;
+				this.ridden[this.riddenCount++] = stop;
+			}
+		}
+
+		void clearTargets(int[] targets) {
+			for (int t : targets) {
+				this.isTarget[t] = false;
+			}
+		}
+	}
+}
@@ -0,0 +1,103 @@
+/*
+ * Reachability.java
+ * General Transit Feed Specification
+ *
+ * Copyright 2016 Kevin J. Burns
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Revision Log:
+ *   2026-10-16  Basic functionality
+ */
+package com.github.kjburns.gtfs;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The travel times from one origin to every stop, over a window of
+ * departures, as found by {@link ReachabilityAnalyzer}. A travel time runs
+ * from a departure from the origin, and includes the walk to the first stop
+ * and any waiting. The arrays are indexed by the stops of the
+ * {@link ConnectionScanner} used; see
+ * {@link ConnectionScanner#getStopIndex(String)}.
+ * @author Kevin J. Burns
+ *
+ */
+public class Reachability {
+	/**
+	 * Travel time to a stop which cannot be reached within the longest
+	 * travel time of interest
+	 */
+	public static final int UNREACHABLE = Integer.MAX_VALUE;
+
+	private final double latitude;
+	private final double longitude;
+	private final int[] bestTravelTimes;
+	private final int[] medianTravelTimes;
+	private final List<Isochrone> isochrones;
+
+	Reachability(double latitude, double longitude, int[] bestTravelTimes,
+			int[] medianTravelTimes, List<Isochrone> isochrones) {
+		this.latitude = latitude;
+		this.longitude = longitude;
+		this.bestTravelTimes = bestTravelTimes;
+		this.medianTravelTimes = medianTravelTimes;
+		this.isochrones = Collections.unmodifiableList(isochrones);
+	}
+
+	/**
+	 * @return the latitude of the origin, in degrees
+	 */
+	public double getLatitude() {
+		return this.latitude;
+	}
+
+	/**
+	 * @return the longitude of the origin, in degrees
+	 */
+	public double getLongitude() {
+		return this.longitude;
+	}
+
+	/**
+	 * Gets the shortest travel time to each stop, over every departure in
+	 * the window. The array is not copied.
+	 * @return seconds, or {@link #UNREACHABLE}
+	 */
+	public int[] getBestTravelTimes() {
+		return this.bestTravelTimes;
+	}
+
+	/**
+	 * Gets the median travel time to each stop, over every departure in
+	 * the window; with an even number of departures, the later of the two
+	 * middle values. A stop which cannot be reached from half of the
+	 * departures or more is unreachable. The array is not copied.
+	 * @return seconds, or {@link #UNREACHABLE}
+	 */
+	public int[] getMedianTravelTimes() {
+		return this.medianTravelTimes;
+	}
+
+	/**
+	 * Gets the isochrones of the median travel times, one for each cutoff
+	 * asked for.
+	 * @return the isochrones, in the order of
+	 * {@link ReachabilityOptions#getIsochroneCutoffs()}; empty if none were
+	 * asked for
+	 */
+	public List<Isochrone> getIsochrones() {
+		return this.isochrones;
+	}
+}
@@ -0,0 +1,324 @@
+/*
+ * ReachabilityAnalyzer.java
+ * General Transit Feed Specification
+ *
+ * Copyright 2016 Kevin J. Burns
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Revision Log:
+ *   2026-10-16  Basic functionality
+ *   2026-10-16  Reuse the travel times array of each thread; reject
+ *               windows too long for it
+ */
+package com.github.kjburns.gtfs;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Finds what can be reached by transit from points anywhere in the area of
+ * a feed, such as the points of a grid laid over a city. From each point,
+ * the stops within walking distance are found with
+ * {@link StopCollection#getStopsWithinRadius(double, double, double)}, and
+ * the earliest arrival at every stop is found with a
+ * {@link ConnectionScanner} for each departure in a window of time. The
+ * travel times over the window are summed up for each stop, and may be
+ * drawn as isochrones.
+ * <p>
+ * Analyses may be made from several threads at once. Many origins are best
+ * analyzed with {@link #analyze(double[], double[], LocalDate,
+ * ReachabilityOptions, ForkJoinPool)}, which spreads them over a pool.
+ * </p>
+ * @author Kevin J. Burns
+ *
+ */
+public class ReachabilityAnalyzer {
+	/**
+	 * Most travel times kept for one origin, one for each stop and
+	 * departure
+	 */
+	private static final long MAX_TIMES = Integer.MAX_VALUE - 8;
+
+	private final ConnectionScanner scanner;
+	private final GtfsFile gtfs;
+	/**
+	 * Working arrays of the analyses made on each thread, reused from one
+	 * origin to the next
+	 */
+	private final ThreadLocal<Buffers> buffers =
+			ThreadLocal.withInitial(Buffers::new);
+
+	/**
+	 * Creates an analyzer which searches with a scanner.
+	 * @param scanner scanner over the feed to analyze
+	 */
+	public ReachabilityAnalyzer(ConnectionScanner scanner) {
+		this.scanner = scanner;
+		this.gtfs = scanner.getGtfs();
+	}
+
+	/**
+	 * Finds the travel times from a point to every stop.
+	 * @param latitude latitude of the origin, in degrees
+	 * @param longitude longitude of the origin, in degrees
+	 * @param date date of the departures
+	 * @param options window of departures, limits and isochrones
+	 * @return
+	 * @throws IllegalArgumentException if an isochrone cutoff is more than
+	 * the longest travel time of interest, or there are too many
+	 * departures in the window to keep a travel time to every stop for
+	 * each
+	 */
+	public Reachability analyze(double latitude, double longitude,
+			LocalDate date, ReachabilityOptions options) {
+		checkCutoffs(options);
+		return this.analyzePoint(latitude, longitude,
+				this.departures(date, options), options);
+	}
+
+	/**
+	 * Finds the travel times from each of several points to every stop,
+	 * with the points analyzed at the same time on a pool.
+	 * @param latitudes latitude of each origin, in degrees
+	 * @param longitudes longitude of each origin, in degrees
+	 * @param date date of the departures
+	 * @param options window of departures, limits and isochrones
+	 * @param pool pool to analyze on
+	 * @return the travel times from each origin, in the order given
+	 * @throws InterruptedException if the calling thread is interrupted
+	 * while waiting for the analyses
+	 * @throws IllegalArgumentException if the arrays are of different
+	 * lengths, an isochrone cutoff is more than the longest travel time
+	 * of interest, or there are too many departures in the window to keep
+	 * a travel time to every stop for each
+	 */
+	public List<Reachability> analyze(double[] latitudes,
+			double[] longitudes, LocalDate date, ReachabilityOptions options,
+			ForkJoinPool pool) throws InterruptedException {
+		if (latitudes.length != longitudes.length) {
+			throw new IllegalArgumentException();
+		}
+		checkCutoffs(options);
+		long[] departures = this.departures(date, options);
+		/*
+		 * Build the connections once, before the analyses need them
+		 */
+		this.scanner.query(departures[0]);
+
+		List<ForkJoinTask<Reachability>> tasks = new ArrayList<>();
+		for (int i = 0; i < latitudes.length; i++) {
+			double latitude = latitudes[i];
+			double longitude = longitudes[i];
+			tasks.add(pool.submit(() -> this.analyzePoint(
+					latitude, longitude, departures, options)));
+		}
+
+		List<Reachability> ret = new ArrayList<>(tasks.size());
+		try {
+			for (ForkJoinTask<Reachability> task : tasks) {
+				ret.add(task.get());
+			}
+		} catch (ExecutionException ex) {
+			Throwable cause = ex.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException)cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error)cause;
+			}
+			throw new IllegalStateException(cause);
+		} finally {
+			for (ForkJoinTask<?> task : tasks) {
+				task.cancel(false);
+			}
+		}
+		return ret;
+	}
+
+	private static void checkCutoffs(ReachabilityOptions options) {
+		for (int cutoff : options.getIsochroneCutoffs()) {
+			if (cutoff > options.getMaxTravelSeconds()) {
+				throw new IllegalArgumentException("Isochrone cutoff " +
+						cutoff + " is more than the longest travel time");
+			}
+		}
+	}
+
+	/**
+	 * Lists the departures in the window.
+	 * @return epoch seconds
+	 * @throws IllegalArgumentException if there are too many departures to
+	 * keep a travel time to every stop for each
+	 */
+	private long[] departures(LocalDate date, ReachabilityOptions options) {
+		ZoneId zone = this.gtfs.getZoneId();
+		long first = date.atTime(options.getWindowStart())
+				.atZone(zone).toEpochSecond();
+		long end = date.atTime(options.getWindowEnd())
+				.atZone(zone).toEpochSecond();
+		int interval = options.getDepartureInterval();
+		int count = (int)Math.max(1, (end - first + interval - 1) / interval);
+		if ((long)count * this.scanner.getStopCount() > MAX_TIMES) {
+			throw new IllegalArgumentException(count +
+					" departures are too many to analyze");
+		}
+		long[] ret = new long[count];
+		for (int i = 0; i < count; i++) {
+			ret[i] = first + (long)i * interval;
+		}
+		return ret;
+	}
+
+	private Reachability analyzePoint(double latitude, double longitude,
+			long[] departures, ReachabilityOptions options) {
+		int maxSeconds = options.getMaxTravelSeconds();
+
+		/*
+		 * Stops within walking distance, and the time taken to walk to
+		 * them. Stations are left out; their stops are found themselves.
+		 */
+		List<Stop> near = this.gtfs.getStops().getStopsWithinRadius(
+				latitude, longitude, options.getWalkRadius());
+		int[] origins = new int[near.size()];
+		int[] offsets = new int[near.size()];
+		int count = 0;
+		for (Stop stop : near) {
+			int index = this.scanner.getStopIndex(stop.getStopId());
+			if ((stop instanceof Station) || (index == -1)) {
+				continue;
+			}
+			origins[count] = index;
+			offsets[count] = (int)Math.ceil(GreatCircle.distance(
+					latitude, longitude,
+					stop.getLatitude(), stop.getLongitude()) /
+					Footpaths.WALKING_SPEED);
+			count++;
+		}
+		origins = Arrays.copyOf(origins, count);
+		offsets = Arrays.copyOf(offsets, count);
+
+		int stops = this.scanner.getStopCount();
+		int[] best = new int[stops];
+		int[] median = new int[stops];
+		if (count == 0) {
+			Arrays.fill(best, Reachability.UNREACHABLE);
+			Arrays.fill(median, Reachability.UNREACHABLE);
+		}
+		else {
+			this.summarize(origins, offsets, departures, maxSeconds, best,
+					median);
+		}
+
+		List<Isochrone> isochrones = new ArrayList<>();
+		int[] cutoffs = options.getIsochroneCutoffs();
+		if (cutoffs.length > 0) {
+			TravelTimeGrid grid = this.grid(latitude, longitude, median,
+					options);
+			for (int cutoff : cutoffs) {
+				isochrones.add(grid.outline(cutoff));
+			}
+		}
+		return new Reachability(latitude, longitude, best, median,
+				isochrones);
+	}
+
+	/**
+	 * Finds the best and median travel times to every stop over the
+	 * departures. The travel times are gathered by stop, each stop's
+	 * departures next to each other, in an array kept by the calling
+	 * thread.
+	 */
+	private void summarize(int[] origins, int[] offsets, long[] departures,
+			int maxSeconds, int[] best, int[] median) {
+		int stops = best.length;
+		int n = departures.length;
+		Buffers buffers = this.buffers.get();
+		if (buffers.times.length < n * stops) {
+			buffers.times = new int[n * stops];
+		}
+		if (buffers.row.length != stops) {
+			buffers.row = new int[stops];
+		}
+		int[] times = buffers.times;
+		int[] row = buffers.row;
+
+		for (int d = 0; d < n; d++) {
+			this.scanner.travelTimes(origins, offsets, departures[d],
+					maxSeconds, row);
+			for (int s = 0, i = d; s < stops; s++, i += n) {
+				times[i] = row[s];
+			}
+		}
+		for (int s = 0, from = 0; s < stops; s++, from += n) {
+			Arrays.sort(times, from, from + n);
+			best[s] = times[from];
+			median[s] = times[from + n / 2];
+		}
+	}
+
+	/**
+	 * Fills a grid from the origin and the stops reached.
+	 */
+	private TravelTimeGrid grid(double latitude, double longitude,
+			int[] median, ReachabilityOptions options) {
+		int maxCutoff = 0;
+		for (int cutoff : options.getIsochroneCutoffs()) {
+			maxCutoff = Math.max(maxCutoff, cutoff);
+		}
+
+		double[] latitudes = new double[median.length + 1];
+		double[] longitudes = new double[median.length + 1];
+		int[] times = new int[median.length + 1];
+		latitudes[0] = latitude;
+		longitudes[0] = longitude;
+		int count = 1;
+		StopCollection stops = this.gtfs.getStops();
+		for (int s = 0; s < median.length; s++) {
+			if (median[s] > maxCutoff) {
+				continue;
+			}
+			Stop stop = stops.getStopById(this.scanner.getStopId(s));
+			if (stop == null) {
+				continue;
+			}
+			latitudes[count] = stop.getLatitude();
+			longitudes[count] = stop.getLongitude();
+			times[count] = median[s];
+			count++;
+		}
+		return new TravelTimeGrid(latitude, latitudes, longitudes, times,
+				count, options.getCellSize(), options.getWalkRadius(),
+				maxCutoff);
+	}
+
+	/**
+	 * Working arrays of one thread
+	 */
+	private static class Buffers {
+		/**
+		 * Travel times to each stop, for each departure
+		 */
+		int[] times = new int[0];
+		/**
+		 * Travel times to every stop from one departure
+		 */
+		int[] row = new int[0];
+	}
+}
@@ -0,0 +1,191 @@
+/*
+ * ReachabilityOptions.java
+ * General Transit Feed Specification
+ *
+ * Copyright 2016 Kevin J. Burns
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Revision Log:
+ *   2026-10-16  Basic functionality
+ */
+package com.github.kjburns.gtfs;
+
+import java.time.LocalTime;
+
+/**
+ * Settings which control a {@link ReachabilityAnalyzer}: the window of
+ * departures, how far a journey may go, how far may be walked at either
+ * end, and which isochrones to draw. A new instance holds the default
+ * settings.
+ * @author Kevin J. Burns
+ *
+ */
+public class ReachabilityOptions {
+	private LocalTime windowStart = LocalTime.of(7, 0);
+	private LocalTime windowEnd = LocalTime.of(8, 0);
+	private int departureInterval = 60;
+	private int maxTravelSeconds = 45 * 60;
+	private double walkRadius = 800;
+	private int[] isochroneCutoffs = new int[0];
+	private double cellSize = 100;
+
+	/**
+	 * Gets the time of the first departure.
+	 * @return the windowStart
+	 */
+	public LocalTime getWindowStart() {
+		return this.windowStart;
+	}
+
+	/**
+	 * Gets the time after the last departure.
+	 * @return the windowEnd
+	 */
+	public LocalTime getWindowEnd() {
+		return this.windowEnd;
+	}
+
+	/**
+	 * Sets the window of departures. A search is made for each departure
+	 * from the start of the window, at intervals of
+	 * {@link #getDepartureInterval()}, until its end. The default is from
+	 * 07:00 until 08:00.
+	 * @param windowStart time of the first departure
+	 * @param windowEnd time after the last departure, on the same day
+	 * @throws IllegalArgumentException if the window does not end after it
+	 * starts
+	 */
+	public void setWindow(LocalTime windowStart, LocalTime windowEnd) {
+		if (!windowEnd.isAfter(windowStart)) {
+			throw new IllegalArgumentException();
+		}
+		this.windowStart = windowStart;
+		this.windowEnd = windowEnd;
+	}
+
+	/**
+	 * Gets the time between departures within the window.
+	 * @return the departureInterval, in seconds
+	 */
+	public int getDepartureInterval() {
+		return this.departureInterval;
+	}
+
+	/**
+	 * Sets the time between departures within the window. Shorter
+	 * intervals capture more of the variation in waiting times, at the cost
+	 * of a search for each departure. The default is 60 seconds.
+	 * @param departureInterval the departureInterval to set, in seconds
+	 * @throws IllegalArgumentException if the value is less than 1
+	 */
+	public void setDepartureInterval(int departureInterval) {
+		if (departureInterval < 1) {
+			throw new IllegalArgumentException();
+		}
+		this.departureInterval = departureInterval;
+	}
+
+	/**
+	 * Gets the longest travel time of interest.
+	 * @return the maxTravelSeconds
+	 */
+	public int getMaxTravelSeconds() {
+		return this.maxTravelSeconds;
+	}
+
+	/**
+	 * Sets the longest travel time of interest. Stops which take longer
+	 * to reach are left unreachable, and the searches end there. The
+	 * default is 45 minutes.
+	 * @param maxTravelSeconds the maxTravelSeconds to set
+	 * @throws IllegalArgumentException if the value is less than 1
+	 */
+	public void setMaxTravelSeconds(int maxTravelSeconds) {
+		if (maxTravelSeconds < 1) {
+			throw new IllegalArgumentException();
+		}
+		this.maxTravelSeconds = maxTravelSeconds;
+	}
+
+	/**
+	 * Gets the furthest distance walked from the origin to the first stop,
+	 * and from a stop to a point of an isochrone.
+	 * @return the walkRadius, in meters
+	 */
+	public double getWalkRadius() {
+		return this.walkRadius;
+	}
+
+	/**
+	 * Sets the furthest distance walked from the origin to the first stop,
+	 * and from a stop to a point of an isochrone. Walks are taken in a
+	 * straight line at {@link Footpaths#WALKING_SPEED}. The default is 800
+	 * meters.
+	 * @param walkRadius the walkRadius to set, in meters
+	 * @throws IllegalArgumentException if the value is negative
+	 */
+	public void setWalkRadius(double walkRadius) {
+		if (!(walkRadius >= 0)) {
+			throw new IllegalArgumentException();
+		}
+		this.walkRadius = walkRadius;
+	}
+
+	/**
+	 * Gets the travel times for which isochrones are drawn.
+	 * @return a copy of the isochroneCutoffs, in seconds
+	 */
+	public int[] getIsochroneCutoffs() {
+		return this.isochroneCutoffs.clone();
+	}
+
+	/**
+	 * Sets the travel times for which isochrones are drawn. By default,
+	 * there are none, and only travel times to stops are computed.
+	 * @param isochroneCutoffs the isochroneCutoffs to set, in seconds
+	 * @throws IllegalArgumentException if a cutoff is less than 1 or more
+	 * than {@link #getMaxTravelSeconds()} at the time of analysis
+	 */
+	public void setIsochroneCutoffs(int... isochroneCutoffs) {
+		for (int cutoff : isochroneCutoffs) {
+			if (cutoff < 1) {
+				throw new IllegalArgumentException();
+			}
+		}
+		this.isochroneCutoffs = isochroneCutoffs.clone();
+	}
+
+	/**
+	 * Gets the size of the cells isochrones are drawn on.
+	 * @return the cellSize, in meters
+	 */
+	public double getCellSize() {
+		return this.cellSize;
+	}
+
+	/**
+	 * Sets the size of the cells isochrones are drawn on. The edges of an
+	 * isochrone follow the edges of the cells, so smaller cells give finer
+	 * outlines, at the cost of more cells to fill. The default is 100
+	 * meters.
+	 * @param cellSize the cellSize to set, in meters
+	 * @throws IllegalArgumentException if the value is not positive
+	 */
+	public void setCellSize(double cellSize) {
+		if (!(cellSize > 0)) {
+			throw new IllegalArgumentException();
+		}
+		this.cellSize = cellSize;
+	}
+}
@@ -18,12 +18,14 @@
  *  
  * Revision Log:
  *   2016-05-07  Basic functionality
+ *   2026-10-16  Share route_id through the feed's dictionary
  */
 package com.github.kjburns.gtfs;
 
 import java.util.HashMap;
 import java.util.regex.Pattern;
 
+import com.github.kjburns.gtfs.IdentifierDictionary.Kind;
 import com.github.kjburns.gtfs.misc.CsvFile;
 import com.github.kjburns.gtfs.misc.CsvFile.FieldNotFoundException;
 import com.github.kjburns.gtfs.misc.CsvFile.ReadPastEndOfTableException;
@@ -132,10 +134,12 @@ public class Route {
 	 * Constructor. Reads a route from the specified table record.
 	 * @param table table to read from
 	 * @param record record number to read, where record #1 is the first.
+	 * @param ids dictionary of the feed's identifiers
 	 * @throws MissingRequiredFieldException if any required fields are missing
 	 * @throws InvalidDataException if any data is invalid according to spec
 	 */
-	Route(CsvFile table, int record) throws MissingRequiredFieldException, InvalidDataException {
+	Route(CsvFile table, int record, IdentifierDictionary ids) 
+			throws MissingRequiredFieldException, InvalidDataException {
 		/*
 		 * Read required fields 
 		 */
@@ -172,6 +176,9 @@ public class Route {
 				assert(false);
 			}
 		}
+		this.dataFromTable.put(FIELD_NAME_ROUTE_ID, ids.share(Kind.ROUTE, 
+				this.dataFromTable.get(FIELD_NAME_ROUTE_ID)));
+		
 		/*
 		 * Interpret route type
 		 */
@@ -19,16 +19,20 @@
  * Revision Log:
  *   2016-05-07  Basic functionality
  *   2016-05-30  getRouteCount() & iterator()
+ *   2026-10-16  Read routes.txt from a tokenizer supplied by GtfsFile
+ *   2026-10-16  Key routes by their index in the feed's dictionary
  */
 package com.github.kjburns.gtfs;
 
-import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Iterator;
 
+import com.github.kjburns.gtfs.IdentifierDictionary.Kind;
 import com.github.kjburns.gtfs.misc.CsvFile;
+import com.github.kjburns.gtfs.misc.CsvTokenizer;
 
 /**
  * A collection of Routes.
@@ -36,25 +40,48 @@ import com.github.kjburns.gtfs.misc.CsvFile;
  *
  */
 public class RouteCollection {
-	private HashMap<String, Route> routes = new HashMap<>();
+	private final IdentifierDictionary ids;
+	/**
+	 * Routes in the order of routes.txt
+	 */
+	private ArrayList<Route> routes = new ArrayList<>();
+	/**
+	 * Routes indexed by the dictionary index of their route_id
+	 */
+	private Route[] byIndex = new Route[16];
 	
 	/**
 	 * Constructor. Reads routes from routes.txt
-	 * @param f File referencing routes.txt in the gtfs file
+	 * @param tokenizer tokenizer positioned at the start of routes.txt
+	 * @param ids dictionary of the feed's identifiers
 	 * @throws IOException if the file cannot be read for some reason 
 	 * @throws InvalidDataException If invalid data exist in the table
 	 * @throws MissingRequiredFieldException if required fields are missing
 	 */
-	RouteCollection(File f) 
+	RouteCollection(CsvTokenizer tokenizer, IdentifierDictionary ids) 
 			throws IOException, MissingRequiredFieldException, 
 				InvalidDataException {
-		try(FileInputStream fis = new FileInputStream(f)) {
-			CsvFile table = new CsvFile(fis);
-			int recordCount = table.getRecordCount();
-			for (int record = 1; record <= recordCount; record++) {
-				Route rt = new Route(table, record);
-				this.routes.put(rt.getRouteId(), rt);
+		this.ids = ids;
+		CsvFile table = new CsvFile(tokenizer);
+		int recordCount = table.getRecordCount();
+		for (int record = 1; record <= recordCount; record++) {
+			Route rt = new Route(table, record, ids);
+			int index = ids.indexOf(Kind.ROUTE, rt.getRouteId());
+			if (index >= this.byIndex.length) {
+				this.byIndex = Arrays.copyOf(this.byIndex, 
+						Math.max(index + 1, this.byIndex.length * 2));
 			}
+			
+			/*
+			 * A later record with the same route_id replaces the earlier one
+			 */
+			if (this.byIndex[index] != null) {
+				this.routes.set(this.routes.indexOf(this.byIndex[index]), rt);
+			}
+			else {
+				this.routes.add(rt);
+			}
+			this.byIndex[index] = rt;
 		}
 	}
 	
@@ -64,7 +91,11 @@ public class RouteCollection {
 	 * @return Route, if it exists; otherwise {@code null}.
 	 */
 	public Route getRouteById(String id) {
-		return this.routes.get(id);
+		int index = this.ids.indexOf(Kind.ROUTE, id);
+		if ((index < 0) || (index >= this.byIndex.length)) {
+			return null;
+		}
+		return this.byIndex[index];
 	}
 	
 	/**
@@ -76,10 +107,11 @@ public class RouteCollection {
 	}
 	
 	/**
-	 * Gets an iterator for the routes in this collection.
+	 * Gets an iterator for the routes in this collection, in the order of
+	 * routes.txt.
 	 * @return
 	 */
 	public Iterator<Route> iterator() {
-		return this.routes.values().iterator();
+		return Collections.unmodifiableList(this.routes).iterator();
 	}
 }
@@ -0,0 +1,96 @@
+/*
+ * RoutingTimes.java
+ * General Transit Feed Specification
+ *
+ * Copyright 2016 Kevin J. Burns
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Revision Log:
+ *   2026-10-16  Basic functionality, moved out of RaptorRouter
+ */
+package com.github.kjburns.gtfs;
+
+/**
+ * The times of every row of a {@link StopTimeTable}, as used for routing.
+ * A row missing one of its times takes the other. A row missing both takes
+ * the departure time of the row before it on the same trip, so that the
+ * times of each trip never decrease, but it cannot be boarded or left.
+ * Rows also cannot be boarded where there is no pickup or at the end of a
+ * trip, nor left where there is no dropoff or at the start of a trip.
+ * @author Kevin J. Burns
+ *
+ */
+class RoutingTimes {
+	static final byte CAN_BOARD = 1;
+	static final byte CAN_ALIGHT = 2;
+
+	/**
+	 * Seconds after noon on the service date, for each row
+	 */
+	final int[] arrival;
+	final int[] departure;
+	/**
+	 * {@link #CAN_BOARD} and {@link #CAN_ALIGHT} for each row
+	 */
+	final byte[] flags;
+
+	RoutingTimes(StopTimeTable table) {
+		this.arrival = new int[table.size];
+		this.departure = new int[table.size];
+		this.flags = new byte[table.size];
+		byte none = (byte)PickupDropoffTypeEnum.NONE_AVAILABLE.ordinal();
+		for (int t = 0; t < table.getTripCount(); t++) {
+			int from = table.tripStart[t];
+			int to = table.tripStart[t + 1];
+			int previous = StopTimeTable.UNDEFINED_TIME;
+			for (int row = from; row < to; row++) {
+				int a = table.arrival[row];
+				int d = table.departure[row];
+				if (a == StopTimeTable.UNDEFINED_TIME) {
+					a = d;
+				}
+				if (d == StopTimeTable.UNDEFINED_TIME) {
+					d = a;
+				}
+				if (a == StopTimeTable.UNDEFINED_TIME) {
+					a = d = previous;
+				}
+				else {
+					if ((row > from) && (table.dropoffType[row] != none)) {
+						this.flags[row] |= CAN_ALIGHT;
+					}
+					if ((row < to - 1) && (table.pickupType[row] != none)) {
+						this.flags[row] |= CAN_BOARD;
+					}
+					previous = d;
+				}
+				this.arrival[row] = a;
+				this.departure[row] = d;
+			}
+		}
+	}
+
+	/**
+	 * Determines whether a trip can be routed over: it has at least two
+	 * rows, and its first row has a time.
+	 * @param table
+	 * @param trip trip index
+	 * @return
+	 */
+	boolean isRoutable(StopTimeTable table, int trip) {
+		int from = table.tripStart[trip];
+		return (table.tripStart[trip + 1] - from >= 2) &&
+				(this.arrival[from] != StopTimeTable.UNDEFINED_TIME);
+	}
+}
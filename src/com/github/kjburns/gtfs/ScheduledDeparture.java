@@ -0,0 +1,70 @@
+/*
+ * ScheduledDeparture.java
+ * General Transit Feed Specification
+ *
+ * Copyright 2016 Kevin J. Burns
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Revision Log:
+ *   2026-10-16  Basic functionality
+ */
+package com.github.kjburns.gtfs;
+
+import java.time.LocalDate;
+
+/**
+ * A stop time on a particular service date, as returned by
+ * {@link StopTimeCollection#getNextDepartures(String, long, int)}.
+ * @author Kevin J. Burns
+ *
+ */
+public class ScheduledDeparture {
+	private final StopTime stopTime;
+	private final LocalDate serviceDate;
+	private final long epochSecond;
+
+	ScheduledDeparture(StopTime stopTime, LocalDate serviceDate,
+			long epochSecond) {
+		this.stopTime = stopTime;
+		this.serviceDate = serviceDate;
+		this.epochSecond = epochSecond;
+	}
+
+	/**
+	 * Gets the stop time which departs.
+	 * @return the stopTime
+	 */
+	public StopTime getStopTime() {
+		return this.stopTime;
+	}
+
+	/**
+	 * Gets the service date on which the trip runs. For trips running past
+	 * midnight, this is the day before the calendar date of the departure.
+	 * @return the serviceDate
+	 */
+	public LocalDate getServiceDate() {
+		return this.serviceDate;
+	}
+
+	/**
+	 * Gets the earliest time at which the stop time departs. See
+	 * {@link StopTimeCollection#getEarliestDepartureEpochSecond(StopTime,
+	 * LocalDate)}.
+	 * @return seconds since 1970-01-01T00:00:00Z
+	 */
+	public long getEpochSecond() {
+		return this.epochSecond;
+	}
+}
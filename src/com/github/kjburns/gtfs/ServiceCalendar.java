@@ -19,22 +19,42 @@
  * Revision Log:
  *   2016-05-15  Basic functionality
  *   2016-06-02  Replace GregorianCalendar functionality with java.time
+ *   2026-10-16  Open tables through GtfsFile so that missing optional
+ *               tables are skipped in every load mode
+ *   2026-10-16  Precompute the set of active services for every date
+ *   2026-10-16  Share service ids through the feed's dictionary
+ *   2026-10-16  Keep the services of each weekday of each date range and
+ *               of each calendar_dates day, instead of a set for every day
  */
 package com.github.kjburns.gtfs;
 
-import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.List;
+import java.util.TreeMap;
+import java.util.TreeSet;
 import com.github.kjburns.gtfs.misc.CsvFile;
+import com.github.kjburns.gtfs.misc.CsvTokenizer;
 
 /**
  * An aggregation of the contents of calendar.txt and calendar_dates.txt
+ * <p>
+ * Each service id is assigned a dense index, in the order in which it first
+ * appears in calendar.txt and then calendar_dates.txt. Once both tables are
+ * read, the sets of active services are precomputed. The start and end
+ * dates of calendar.txt split the calendar into periods in which the same
+ * entries are in force, and each period has one set for each day of the
+ * week; each date of calendar_dates.txt has a set of its own. Looking up
+ * the services of a date finds its period by binary search over the few
+ * periods and its exception by hashing, so feeds with open-ended dates,
+ * such as an end_date of 20991231, take no more memory than any other.
+ * </p>
  * @author Kevin J. Burns
  *
  */
@@ -44,6 +64,47 @@ public class ServiceCalendar {
 	private HashMap<String, HashMap<LocalDate, CalendarOverride>> overrides =
 			new HashMap<>();
 	
+	private static final int DAYS_PER_WEEK = 7;
+	/**
+	 * Services of days on which none are active. Must not be modified.
+	 */
+	private static final BitSet NONE = new BitSet();
+
+	private IdentifierTable serviceIds = new IdentifierTable();
+	/**
+	 * Epoch day of the first date of the calendar; day indices are counted
+	 * from it
+	 */
+	long firstDay = 0;
+	/**
+	 * Number of days from the first date to the last date, inclusive
+	 */
+	int dayCount = 0;
+	/**
+	 * Day index of the start of each period of calendar.txt, in increasing
+	 * order. The extra last element is the day after the last period.
+	 */
+	int[] periodStart = new int[0];
+	/**
+	 * Services active on each day of the week of each period, indexed by
+	 * period times seven plus the day of the week, from Monday
+	 */
+	BitSet[] weekdayServices = new BitSet[0];
+	/**
+	 * Day index of each date of calendar_dates.txt, in increasing order
+	 */
+	int[] exceptionDays = new int[0];
+	/**
+	 * Services active on each date of exceptionDays, with the exceptions
+	 * applied
+	 */
+	BitSet[] exceptionServices = new BitSet[0];
+	/**
+	 * Open-addressed table of exceptionDays: each slot holds an index into
+	 * exceptionDays plus one, or 0 if it is empty
+	 */
+	private int[] exceptionSlots = new int[1];
+	
 	/**
 	 * Constructor. Reads calendar.txt and calendar_dates.txt to get service
 	 * dates.
@@ -61,19 +122,60 @@ public class ServiceCalendar {
 
 		this.readBasics();
 		this.readOverrides();
+		this.buildActiveServices();
+		
+		/*
+		 * Everything needed to answer queries is now in the service sets
+		 */
+		this.entries = null;
+		this.overrides = null;
+	}
+	
+	/**
+	 * Constructor. Creates a calendar from precomputed service sets, such as
+	 * those read from a snapshot.
+	 * @param gtfs The GTFS file that this will be part of
+	 * @param serviceIds service ids, in index order
+	 * @param firstDay epoch day of the first date
+	 * @param dayCount number of days in the calendar
+	 * @param periodStart see {@link #periodStart}
+	 * @param weekdayServices see {@link #weekdayServices}
+	 * @param exceptionDays see {@link #exceptionDays}
+	 * @param exceptionServices see {@link #exceptionServices}
+	 * @throws IllegalArgumentException if the arrays do not fit together
+	 */
+	ServiceCalendar(GtfsFile gtfs, List<String> serviceIds, long firstDay, 
+			int dayCount, int[] periodStart, BitSet[] weekdayServices,
+			int[] exceptionDays, BitSet[] exceptionServices) {
+		int periods = Math.max(0, periodStart.length - 1);
+		if ((dayCount < 0) ||
+				(weekdayServices.length != periods * DAYS_PER_WEEK) ||
+				(exceptionDays.length != exceptionServices.length)) {
+			throw new IllegalArgumentException();
+		}
+		this.gtfs = gtfs;
+		for (String id : serviceIds) {
+			this.serviceIds.intern(id);
+		}
+		this.firstDay = firstDay;
+		this.dayCount = dayCount;
+		this.periodStart = periodStart;
+		this.weekdayServices = weekdayServices;
+		this.exceptionDays = exceptionDays;
+		this.exceptionServices = exceptionServices;
+		this.buildExceptionSlots();
 	}
 
 	private void readBasics() 
 			throws MissingRequiredFieldException, InvalidDataException, 
 				IOException, DatasetUniquenessException {
-		File basicFile = 
-				gtfs.getZipFile().getEntry(GtfsFile.FILENAME_CALENDAR);
-		if (!basicFile.exists()) {
-			return;
-		}
-		
-		try(FileInputStream fis = new FileInputStream(basicFile)) {
-			CsvFile table = new CsvFile(fis);
+		try(CsvTokenizer tokenizer = 
+				gtfs.openTableTokenizer(GtfsFile.FILENAME_CALENDAR)) {
+			if (tokenizer == null) {
+				return;
+			}
+			
+			CsvFile table = new CsvFile(tokenizer);
 			for (int record = 1; record <= table.getRecordCount(); record++) {
 				CalendarEntry entry = new CalendarEntry(gtfs, table, record);
 				String key = entry.getServiceId();
@@ -85,26 +187,21 @@ public class ServiceCalendar {
 							key);
 				}
 				this.entries.put(key, entry);
+				this.serviceIds.intern(key);
 			}
-		} catch (FileNotFoundException ex) {
-			/*
-			 * This has already been checked; should never happen
-			 */
-			assert(false);
 		}
 	}
 
 	private void readOverrides() 
 			throws IOException, MissingRequiredFieldException, 
 				InvalidDataException, DatasetUniquenessException {
-		File overridesFile = gtfs.getZipFile().getEntry(
-				GtfsFile.FILENAME_CALENDAR_OVERRIDES);
-		if (!overridesFile.exists()) {
-			return;
-		}
-		
-		try(FileInputStream fis = new FileInputStream(overridesFile)) {
-			CsvFile table = new CsvFile(fis);
+		try(CsvTokenizer tokenizer = gtfs.openTableTokenizer(
+				GtfsFile.FILENAME_CALENDAR_OVERRIDES)) {
+			if (tokenizer == null) {
+				return;
+			}
+			
+			CsvFile table = new CsvFile(tokenizer);
 			
 			for (int record = 1; record <= table.getRecordCount(); record++) {
 				CalendarOverride co = 
@@ -132,67 +229,85 @@ public class ServiceCalendar {
 							serviceId + "+" + key.format(df));
 				}
 				overrideMapForService.put(key, co);
+				this.serviceIds.intern(serviceId);
 			}
-		} catch (FileNotFoundException ex) {
-			/*
-			 * This has already been checked; should never happen
-			 */
-			assert(false);
 		}
 	}
 	
-	/**
-	 * Gets a list of available service ids.
-	 * @return
-	 */
-	public List<String> getServiceIds() {
-		List<String> ret = new ArrayList<>();
-		
-		ret.addAll(this.entries.keySet());
-		
-		for (String serviceId : this.overrides.keySet()) {
-			if (!ret.contains(serviceId)) {
-				ret.add(serviceId);
+	private void buildActiveServices() {
+		/*
+		 * Periods start on every start date and on the day after every end
+		 * date
+		 */
+		TreeSet<Long> boundaries = new TreeSet<>();
+		for (CalendarEntry entry : this.entries.values()) {
+			boundaries.add(entry.getStartDate().toEpochDay());
+			boundaries.add(entry.getEndDate().toEpochDay() + 1);
+		}
+		long first = boundaries.isEmpty() ? 
+				Long.MAX_VALUE : boundaries.first();
+		long last = boundaries.isEmpty() ? 
+				Long.MIN_VALUE : boundaries.last() - 1;
+		for (HashMap<LocalDate, CalendarOverride> map : 
+				this.overrides.values()) {
+			for (LocalDate date : map.keySet()) {
+				first = Math.min(first, date.toEpochDay());
+				last = Math.max(last, date.toEpochDay());
 			}
 		}
+		if (first > last) {
+			return;
+		}
+		this.firstDay = first;
+		this.dayCount = (int)(last - first + 1);
 		
-		return ret;
-	}
-	
-	/**
-	 * Determines whether a particular service id is available on a date. 
-	 * @param serviceId service_id to query
-	 * @param date date to query
-	 * @return {@code true} if service is defined on that date; {@code false}
-	 * otherwise.
-	 */
-	public boolean isServiceDefinedOn(String serviceId, LocalDate date) {
-		boolean available = false;
-		
-		CalendarEntry entry = this.entries.get(serviceId);
-		if (entry != null) {
-			if (date.isBefore(entry.getStartDate()) || 
-					date.isAfter(entry.getEndDate())) {
-				available = false;
-			}
-			else {
-				if (entry.getHasServiceOn(date.getDayOfWeek())) {
-					available = true;
+		this.periodStart = new int[boundaries.size()];
+		int p = 0;
+		for (long day : boundaries) {
+			this.periodStart[p++] = (int)(day - first);
+		}
+		int periods = Math.max(0, this.periodStart.length - 1);
+		int serviceCount = this.serviceIds.size();
+		this.weekdayServices = new BitSet[periods * DAYS_PER_WEEK];
+		for (int i = 0; i < this.weekdayServices.length; i++) {
+			this.weekdayServices[i] = new BitSet(serviceCount);
+		}
+		for (CalendarEntry entry : this.entries.values()) {
+			int service = this.serviceIds.indexOf(entry.getServiceId());
+			int from = this.getPeriod(
+					(int)(entry.getStartDate().toEpochDay() - first));
+			int to = this.getPeriod(
+					(int)(entry.getEndDate().toEpochDay() - first));
+			for (int w = 0; w < DAYS_PER_WEEK; w++) {
+				if (!entry.getHasServiceOn(DayOfWeek.of(w + 1))) {
+					continue;
+				}
+				for (p = from; p <= to; p++) {
+					this.weekdayServices[p * DAYS_PER_WEEK + w].set(service);
 				}
 			}
 		}
 		
-		HashMap<LocalDate, CalendarOverride> serviceOverride = 
-				this.overrides.get(serviceId);
-		if (serviceOverride != null) {
-			CalendarOverride exc = serviceOverride.get(date);
-			if (exc != null) {
-				switch(exc.getOverrideType()) {
+		/*
+		 * Each date with exceptions starts from the services of its weekday
+		 */
+		TreeMap<Integer, BitSet> exceptions = new TreeMap<>();
+		for (HashMap<LocalDate, CalendarOverride> map : 
+				this.overrides.values()) {
+			for (CalendarOverride co : map.values()) {
+				int day = (int)(co.getDate().toEpochDay() - first);
+				BitSet active = exceptions.get(day);
+				if (active == null) {
+					active = (BitSet)this.getWeekdayServices(day).clone();
+					exceptions.put(day, active);
+				}
+				int service = this.serviceIds.indexOf(co.getServiceId());
+				switch(co.getOverrideType()) {
 				case SERVICE_ADDED:
-					available = true;
+					active.set(service);
 					break;
 				case SERVICE_REMOVED:
-					available = false;
+					active.clear(service);
 					break;
 				default:
 					/*
@@ -203,7 +318,223 @@ public class ServiceCalendar {
 				}
 			}
 		}
+		this.exceptionDays = new int[exceptions.size()];
+		this.exceptionServices = new BitSet[exceptions.size()];
+		int i = 0;
+		for (Integer day : exceptions.keySet()) {
+			this.exceptionDays[i] = day;
+			this.exceptionServices[i] = exceptions.get(day);
+			i++;
+		}
+		this.buildExceptionSlots();
+	}
+	
+	private void buildExceptionSlots() {
+		int capacity = Integer.highestOneBit(
+				Math.max(1, this.exceptionDays.length * 2 - 1)) << 1;
+		int mask = capacity - 1;
+		this.exceptionSlots = new int[capacity];
+		for (int i = 0; i < this.exceptionDays.length; i++) {
+			int slot = mix(this.exceptionDays[i]) & mask;
+			while (this.exceptionSlots[slot] != 0) {
+				slot = (slot + 1) & mask;
+			}
+			this.exceptionSlots[slot] = i + 1;
+		}
+	}
+	
+	private static int mix(int day) {
+		day *= 0x9e3779b9;
+		return day ^ (day >>> 16);
+	}
+	
+	/**
+	 * Finds the period of calendar.txt which holds a day.
+	 * @param day day index
+	 * @return index of the period, or -1 if no period holds the day
+	 */
+	private int getPeriod(int day) {
+		int periods = this.periodStart.length - 1;
+		if ((periods < 1) || (day < this.periodStart[0]) || 
+				(day >= this.periodStart[periods])) {
+			return -1;
+		}
+		int index = Arrays.binarySearch(this.periodStart, 0, periods, day);
+		return (index >= 0) ? index : -index - 2;
+	}
+	
+	/**
+	 * Gets the services of a day from calendar.txt alone.
+	 */
+	private BitSet getWeekdayServices(int day) {
+		int period = this.getPeriod(day);
+		if (period == -1) {
+			return NONE;
+		}
+		/*
+		 * Epoch day 0 was a Thursday
+		 */
+		int weekday = (int)Math.floorMod(this.firstDay + day + 3, 
+				(long)DAYS_PER_WEEK);
+		return this.weekdayServices[period * DAYS_PER_WEEK + weekday];
+	}
+	
+	/**
+	 * Gets a list of available service ids.
+	 * @return
+	 */
+	public List<String> getServiceIds() {
+		List<String> ret = new ArrayList<>();
+		
+		for (int i = 0; i < this.serviceIds.size(); i++) {
+			ret.add(this.serviceIds.get(i));
+		}
 		
-		return available;
+		return ret;
+	}
+	
+	/**
+	 * Gets the number of service ids defined in this calendar.
+	 * @return
+	 */
+	public int getServiceCount() {
+		return this.serviceIds.size();
+	}
+	
+	/**
+	 * Replaces the service ids of this calendar with the instances shared
+	 * through the feed's dictionary. Service indices are unchanged.
+	 * @param ids dictionary of the feed's identifiers
+	 */
+	void shareIdentifiers(IdentifierDictionary ids) {
+		ids.share(IdentifierDictionary.Kind.SERVICE, this.serviceIds);
+	}
+	
+	/**
+	 * Gets the index assigned to a service id. Indices run from 0 to 
+	 * {@link #getServiceCount()} - 1 and are the bit positions used by
+	 * {@link #getActiveServices(LocalDate)}.
+	 * @param serviceId service_id to look up
+	 * @return the index, or -1 if the service id is not defined in this
+	 * calendar.
+	 */
+	public int getServiceIndex(String serviceId) {
+		return this.serviceIds.indexOf(serviceId);
+	}
+	
+	/**
+	 * Gets the service id with the supplied index.
+	 * @param index service index
+	 * @return
+	 * @throws IndexOutOfBoundsException if there is no such index
+	 */
+	public String getServiceId(int index) {
+		return this.serviceIds.get(index);
+	}
+	
+	/**
+	 * Gets the first date for which any service is defined.
+	 * @return the first date, or {@code null} if the calendar is empty
+	 */
+	public LocalDate getFirstDate() {
+		if (this.dayCount == 0) {
+			return null;
+		}
+		return LocalDate.ofEpochDay(this.firstDay);
+	}
+	
+	/**
+	 * Gets the last date for which any service is defined.
+	 * @return the last date, or {@code null} if the calendar is empty
+	 */
+	public LocalDate getLastDate() {
+		if (this.dayCount == 0) {
+			return null;
+		}
+		return LocalDate.ofEpochDay(this.firstDay + this.dayCount - 1);
+	}
+	
+	/**
+	 * Gets the number of days from the first date to the last date of the
+	 * calendar, inclusive.
+	 * @return
+	 */
+	int getDayCount() {
+		return this.dayCount;
+	}
+	
+	/**
+	 * Gets the position of a date within the calendar. 
+	 * @param date date to query
+	 * @return the number of days after {@link #getFirstDate()}, or -1 if
+	 * the date is outside of the calendar.
+	 */
+	public int getDayIndex(LocalDate date) {
+		long day = date.toEpochDay() - this.firstDay;
+		if ((day < 0) || (day >= this.dayCount)) {
+			return -1;
+		}
+		return (int)day;
+	}
+	
+	/**
+	 * Gets the set of services which are active on a date.
+	 * @param date date to query
+	 * @return a new set holding the indices of the active services; see 
+	 * {@link #getServiceIndex(String)}. The set is empty for dates outside
+	 * of the calendar.
+	 */
+	public BitSet getActiveServices(LocalDate date) {
+		int day = this.getDayIndex(date);
+		if (day == -1) {
+			return new BitSet();
+		}
+		return (BitSet)this.getActiveServices(day).clone();
+	}
+	
+	/**
+	 * Gets the set of services active on a day, without copying it. 
+	 * @param day index of the day; see {@link #getDayIndex(LocalDate)}
+	 * @return the set, which must not be modified
+	 */
+	BitSet getActiveServices(int day) {
+		int mask = this.exceptionSlots.length - 1;
+		for (int slot = mix(day) & mask; ; slot = (slot + 1) & mask) {
+			int entry = this.exceptionSlots[slot];
+			if (entry == 0) {
+				break;
+			}
+			if (this.exceptionDays[entry - 1] == day) {
+				return this.exceptionServices[entry - 1];
+			}
+		}
+		return this.getWeekdayServices(day);
+	}
+	
+	/**
+	 * Determines whether a service is active on a day, without allocating.
+	 * @param serviceIndex index of the service; see 
+	 * {@link #getServiceIndex(String)}
+	 * @param day index of the day; see {@link #getDayIndex(LocalDate)}
+	 * @return {@code true} if service is defined on that day; {@code false}
+	 * otherwise, including when either index is -1.
+	 */
+	public boolean isServiceActive(int serviceIndex, int day) {
+		if ((serviceIndex < 0) || (day < 0) || (day >= this.dayCount)) {
+			return false;
+		}
+		return this.getActiveServices(day).get(serviceIndex);
+	}
+	
+	/**
+	 * Determines whether a particular service id is available on a date. 
+	 * @param serviceId service_id to query
+	 * @param date date to query
+	 * @return {@code true} if service is defined on that date; {@code false}
+	 * otherwise.
+	 */
+	public boolean isServiceDefinedOn(String serviceId, LocalDate date) {
+		return this.isServiceActive(
+				this.serviceIds.indexOf(serviceId), this.getDayIndex(date));
 	}
 }
@@ -0,0 +1,86 @@
+/*
+ * ShapeLocation.java
+ * General Transit Feed Specification
+ *
+ * Copyright 2016 Kevin J. Burns
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Revision Log:
+ *   2026-10-16  Basic functionality
+ */
+package com.github.kjburns.gtfs;
+
+/**
+ * A position at some distance along a {@link TransitShape}, as returned by
+ * {@link TransitShape#getLocationAt(double)}.
+ * @author Kevin J. Burns
+ *
+ */
+public class ShapeLocation {
+	private final double latitude;
+	private final double longitude;
+	private final double heading;
+	private final double distance;
+	private final int segment;
+
+	ShapeLocation(double latitude, double longitude, double heading,
+			double distance, int segment) {
+		this.latitude = latitude;
+		this.longitude = longitude;
+		this.heading = heading;
+		this.distance = distance;
+		this.segment = segment;
+	}
+
+	/**
+	 * @return the latitude of this location, in degrees
+	 */
+	public double getLatitude() {
+		return this.latitude;
+	}
+
+	/**
+	 * @return the longitude of this location, in degrees
+	 */
+	public double getLongitude() {
+		return this.longitude;
+	}
+
+	/**
+	 * Gets the direction of travel along the shape at this location.
+	 * @return degrees clockwise from north, or {@link Double#NaN} if the
+	 * shape does not go anywhere
+	 */
+	public double getHeading() {
+		return this.heading;
+	}
+
+	/**
+	 * Gets the distance of this location along the shape. This is the 
+	 * distance asked for, unless that was beyond either end of the shape.
+	 * @return
+	 */
+	public double getDistance() {
+		return this.distance;
+	}
+
+	/**
+	 * Gets the segment of the shape on which this location falls. Segment
+	 * i runs from point i to point i + 1.
+	 * @return the segment, or -1 if the shape has only one point
+	 */
+	public int getSegment() {
+		return this.segment;
+	}
+}
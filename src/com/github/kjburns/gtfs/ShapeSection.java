@@ -0,0 +1,159 @@
+/*
+ * ShapeSection.java
+ * General Transit Feed Specification
+ *
+ * Copyright 2016 Kevin J. Burns
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Revision Log:
+ *   2026-10-16  Basic functionality
+ */
+package com.github.kjburns.gtfs;
+
+/**
+ * The part of a {@link TransitShape} between two distances along it, as
+ * returned by {@link TransitShape#getSection(double, double)}.
+ * <p>
+ * A section is a view of its shape: its first and last points are the 
+ * locations at which it starts and ends, and the points between are those
+ * of the shape, which are not copied.
+ * </p>
+ * @author Kevin J. Burns
+ *
+ */
+public class ShapeSection {
+	private final TransitShape shape;
+	private final ShapeLocation start;
+	private final ShapeLocation end;
+	/**
+	 * Position in the shape of the first point between the ends
+	 */
+	private final int first;
+	/**
+	 * Position in the shape after the last point between the ends
+	 */
+	private final int last;
+
+	ShapeSection(TransitShape shape, ShapeLocation start, ShapeLocation end,
+			int first, int last) {
+		this.shape = shape;
+		this.start = start;
+		this.end = end;
+		this.first = first;
+		this.last = last;
+	}
+
+	/**
+	 * @return the shape of which this is a section
+	 */
+	public TransitShape getShape() {
+		return this.shape;
+	}
+
+	/**
+	 * @return the location at which this section starts
+	 */
+	public ShapeLocation getStart() {
+		return this.start;
+	}
+
+	/**
+	 * @return the location at which this section ends
+	 */
+	public ShapeLocation getEnd() {
+		return this.end;
+	}
+
+	/**
+	 * Gets the number of points in this section, including both ends.
+	 * @return
+	 */
+	public int getPointCount() {
+		return this.last - this.first + 2;
+	}
+
+	/**
+	 * Gets the latitude of a point of this section.
+	 * @param index position of the point in the section, from 0
+	 * @return latitude in degrees
+	 * @throws IndexOutOfBoundsException if there is no such point
+	 */
+	public double getLatitude(int index) {
+		if (index == 0) {
+			return this.start.getLatitude();
+		}
+		if (index == this.getPointCount() - 1) {
+			return this.end.getLatitude();
+		}
+		return this.shape.getLatitude(this.toShape(index));
+	}
+
+	/**
+	 * Gets the longitude of a point of this section.
+	 * @param index position of the point in the section, from 0
+	 * @return longitude in degrees
+	 * @throws IndexOutOfBoundsException if there is no such point
+	 */
+	public double getLongitude(int index) {
+		if (index == 0) {
+			return this.start.getLongitude();
+		}
+		if (index == this.getPointCount() - 1) {
+			return this.end.getLongitude();
+		}
+		return this.shape.getLongitude(this.toShape(index));
+	}
+
+	/**
+	 * Gets the distance along the shape of a point of this section.
+	 * @param index position of the point in the section, from 0
+	 * @return
+	 * @throws IndexOutOfBoundsException if there is no such point
+	 */
+	public double getMeasure(int index) {
+		if (index == 0) {
+			return this.start.getDistance();
+		}
+		if (index == this.getPointCount() - 1) {
+			return this.end.getDistance();
+		}
+		return this.shape.getMeasure(this.toShape(index));
+	}
+
+	private int toShape(int index) {
+		if ((index < 0) || (index >= this.getPointCount())) {
+			throw new IndexOutOfBoundsException(Integer.toString(index));
+		}
+		return this.first + index - 1;
+	}
+
+	/**
+	 * Copies the coordinates of every point of this section into an array,
+	 * as pairs of latitude and longitude in degrees.
+	 * @param dest array to copy into
+	 * @param destPos position in dest of the latitude of the first point
+	 * @throws IndexOutOfBoundsException if dest is too short
+	 */
+	public void getCoordinates(double[] dest, int destPos) {
+		int n = this.getPointCount();
+		if ((destPos < 0) || ((long)destPos + n * 2L > dest.length)) {
+			throw new IndexOutOfBoundsException();
+		}
+		dest[destPos] = this.start.getLatitude();
+		dest[destPos + 1] = this.start.getLongitude();
+		this.shape.getCoordinates(this.first, this.last, dest, destPos + 2);
+		dest[destPos + n * 2 - 2] = this.end.getLatitude();
+		dest[destPos + n * 2 - 1] = this.end.getLongitude();
+	}
+}
@@ -19,6 +19,8 @@
  * Revision Log:
  *   2016-05-02  Basic functionality
  *   2016-05-06  Add transfer rules from transfer.txt
+ *   2026-10-16  Share stop_id and parent_station through the feed's 
+ *               dictionary
  */
 package com.github.kjburns.gtfs;
 
@@ -26,6 +28,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 
+import com.github.kjburns.gtfs.IdentifierDictionary.Kind;
 import com.github.kjburns.gtfs.misc.CsvFile;
 import com.github.kjburns.gtfs.misc.CsvFile.FieldNotFoundException;
 import com.github.kjburns.gtfs.misc.CsvFile.ReadPastEndOfTableException;
@@ -175,6 +178,15 @@ public class Stop {
 			}
 		}
 		
+		IdentifierDictionary ids = collection.getGtfs().getIdentifiers();
+		this.dataFromTable.put(FIELD_NAME_STOP_ID, ids.share(Kind.STOP, 
+				this.dataFromTable.get(FIELD_NAME_STOP_ID)));
+		String psid = this.dataFromTable.get(FIELD_NAME_PARENT_STATION);
+		if ((psid != null) && !"".equals(psid.trim())) {
+			this.dataFromTable.put(
+					FIELD_NAME_PARENT_STATION, ids.share(Kind.STOP, psid));
+		}
+		
 		if (this.isZoneIdRequired()) {
 			if (!table.fieldExists(FIELD_NAME_ZONE_ID)) {
 				throw new MissingRequiredFieldException(
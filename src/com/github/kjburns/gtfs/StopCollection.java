@@ -22,16 +22,22 @@
  *   2016-05-11  Replace a todo with thrown exception when a stop's parent
  *               station is not really a station
  *   2016-05-30  getStopCount() & iterator()
+ *   2026-10-16  Read stops.txt from a tokenizer supplied by GtfsFile
+ *   2026-10-16  Key stops by their index in the feed's dictionary
+ *   2026-10-16  Spatial index for nearest-stop, radius and box queries
  */
 package com.github.kjburns.gtfs;
 
-import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
 
+import com.github.kjburns.gtfs.IdentifierDictionary.Kind;
 import com.github.kjburns.gtfs.misc.CsvFile;
+import com.github.kjburns.gtfs.misc.CsvTokenizer;
 
 /**
  * A collection of stops.
@@ -40,12 +46,20 @@ import com.github.kjburns.gtfs.misc.CsvFile;
  */
 public class StopCollection {
 	private GtfsFile gtfs;
-	private HashMap<String, Stop> stops = new HashMap<>();
+	/**
+	 * Stops in the order of stops.txt
+	 */
+	private ArrayList<Stop> stops = new ArrayList<>();
+	/**
+	 * Stops indexed by the dictionary index of their stop_id
+	 */
+	private Stop[] byIndex = new Stop[16];
+	private StopGrid grid;
 
 	/**
 	 * Creates a stop collection from stops.txt in a gtfs file
 	 * @param gtfs gtfs object that will contain this collection
-	 * @param stopsFile file to read from
+	 * @param tokenizer tokenizer positioned at the start of stops.txt
 	 * @throws IOException If there is a problem opening the file
 	 * @throws InvalidDataException If any invalid data is contained in the
 	 * file
@@ -56,17 +70,22 @@ public class StopCollection {
 	 * @throws ParentStationNotStationException if a stop lists a parent
 	 * station that is not, in fact, a station. 
 	 */
-	StopCollection(GtfsFile gtfs, File stopsFile) 
+	StopCollection(GtfsFile gtfs, CsvTokenizer tokenizer) 
 			throws IOException, InvalidDataException, 
 					MissingRequiredFieldException, DatasetUniquenessException, 
 					ParentStationNotStationException {
 		this.gtfs = gtfs;
-		try (FileInputStream fis = new FileInputStream(stopsFile)) {
-			CsvFile table = new CsvFile(fis);
+		try {
+			CsvFile table = new CsvFile(tokenizer);
 			for (int record = 1; record <= table.getRecordCount(); record++) {
 				Stop stop = Stop.createStopFromTableRow(this, table, record);
 				String sid = stop.getStopId();
-				if (this.stops.containsKey(sid)) {
+				int index = gtfs.getIdentifiers().indexOf(Kind.STOP, sid);
+				if (index >= this.byIndex.length) {
+					this.byIndex = Arrays.copyOf(this.byIndex, 
+							Math.max(index + 1, this.byIndex.length * 2));
+				}
+				if (this.byIndex[index] != null) {
 					/*
 					 * Stop ID is supposed to be dataset-unique, but it's
 					 * already in the dictionary.
@@ -76,7 +95,8 @@ public class StopCollection {
 							Stop.FIELD_NAME_STOP_ID, 
 							sid);
 				}
-				this.stops.put(sid, stop);
+				this.byIndex[index] = stop;
+				this.stops.add(stop);
 			}
 		} catch (InvalidDataException ex) {
 			/*
@@ -89,11 +109,12 @@ public class StopCollection {
 		}
 		
 		this.establishStopToStationRelations();
+		this.grid = new StopGrid(this.stops);
 	}
 
 	private void establishStopToStationRelations() 
 			throws ParentStationNotStationException {
-		for (Stop stop : this.stops.values()) {
+		for (Stop stop : this.stops) {
 			if (stop instanceof Station) {
 				/*
 				 * Stations can't have parent stations
@@ -101,12 +122,12 @@ public class StopCollection {
 				continue;
 			}
 			
-			Stop parentStop = this.stops.get(stop.getParentStationId());
+			Stop parentStop = this.getStopById(stop.getParentStationId());
 			if (parentStop == null) {
 				/*
 				 * TODO should this be an error?
 				 */
-				return;
+				continue;
 			}
 			if (!(parentStop instanceof Station)) {
 				throw new ParentStationNotStationException(
@@ -129,7 +150,52 @@ public class StopCollection {
 	 * @return the stop with the given id if it exists; otherwise {@code null}.
 	 */
 	public Stop getStopById(String id) {
-		return this.stops.get(id);
+		int index = this.gtfs.getIdentifiers().indexOf(Kind.STOP, id);
+		if ((index < 0) || (index >= this.byIndex.length)) {
+			return null;
+		}
+		return this.byIndex[index];
+	}
+
+	/**
+	 * Finds the stops nearest to a point. Stations are included.
+	 * @param latitude latitude of the point, in degrees
+	 * @param longitude longitude of the point, in degrees
+	 * @param count maximum number of stops to return
+	 * @return the count stops nearest to the point, or every stop if there
+	 * are fewer, ordered by great-circle distance from the point
+	 */
+	public List<Stop> getNearestStops(double latitude, double longitude, 
+			int count) {
+		return this.grid.nearest(latitude, longitude, count);
+	}
+
+	/**
+	 * Finds the stops within a given distance of a point. Stations are
+	 * included.
+	 * @param latitude latitude of the point, in degrees
+	 * @param longitude longitude of the point, in degrees
+	 * @param radius great-circle distance from the point, in meters
+	 * @return the stops, ordered by distance from the point
+	 */
+	public List<Stop> getStopsWithinRadius(double latitude, double longitude,
+			double radius) {
+		return this.grid.withinRadius(latitude, longitude, radius);
+	}
+
+	/**
+	 * Finds the stops inside a box. Stations are included.
+	 * @param minLatitude southern edge, in degrees
+	 * @param minLongitude western edge, in degrees
+	 * @param maxLatitude northern edge, in degrees
+	 * @param maxLongitude eastern edge, in degrees. If this is less than 
+	 * minLongitude, the box crosses the 180th meridian.
+	 * @return the stops, in no particular order
+	 */
+	public List<Stop> getStopsInBox(double minLatitude, double minLongitude,
+			double maxLatitude, double maxLongitude) {
+		return this.grid.inBox(
+				minLatitude, minLongitude, maxLatitude, maxLongitude);
 	}
 
 	/**
@@ -153,11 +219,12 @@ public class StopCollection {
 	}
 
 	/**
-	 * Gets an iterator for the stops in this collection.
+	 * Gets an iterator for the stops in this collection, in the order of
+	 * stops.txt.
 	 * @return
 	 */
 	public Iterator<Stop> iterator() {
-		return this.stops.values().iterator();
+		return Collections.unmodifiableList(this.stops).iterator();
 	}
 	
 	/**
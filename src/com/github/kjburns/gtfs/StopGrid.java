@@ -0,0 +1,299 @@
+/*
+ * StopGrid.java
+ * General Transit Feed Specification
+ *
+ * Copyright 2016 Kevin J. Burns
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Revision Log:
+ *   2026-10-16  Basic functionality
+ */
+package com.github.kjburns.gtfs;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A uniform grid over the coordinates of a set of stops, used to find the
+ * stops near a point without looking at every stop.
+ * <p>
+ * The grid covers the bounding box of the stops, with cells of roughly
+ * equal width and height on the ground, sized to hold a few stops each. The
+ * stops are stored in cell order, with their coordinates in parallel
+ * arrays, so a query only reads the cells which overlap it.
+ * </p>
+ * @author Kevin J. Burns
+ *
+ */
+class StopGrid {
+	/**
+	 * Average number of stops per cell to aim for
+	 */
+	private static final int STOPS_PER_CELL = 4;
+	private static final int MAX_CELLS = 1 << 22;
+
+	private final Stop[] stops;
+	private final double[] lat;
+	private final double[] lon;
+
+	private final double minLat;
+	private final double minLon;
+	private final double cellLat;
+	private final double cellLon;
+	private final int rows;
+	private final int cols;
+	/**
+	 * Offset of the first stop of each cell, with cells numbered row by
+	 * row. The extra last element holds the number of stops.
+	 */
+	private final int[] cellStart;
+
+	/**
+	 * Builds a grid over some stops.
+	 * @param stops
+	 */
+	StopGrid(List<Stop> stops) {
+		int n = stops.size();
+		double minLat = Double.POSITIVE_INFINITY;
+		double maxLat = Double.NEGATIVE_INFINITY;
+		double minLon = Double.POSITIVE_INFINITY;
+		double maxLon = Double.NEGATIVE_INFINITY;
+		for (Stop stop : stops) {
+			minLat = Math.min(minLat, stop.getLatitude());
+			maxLat = Math.max(maxLat, stop.getLatitude());
+			minLon = Math.min(minLon, stop.getLongitude());
+			maxLon = Math.max(maxLon, stop.getLongitude());
+		}
+		if (n == 0) {
+			minLat = maxLat = minLon = maxLon = 0;
+		}
+
+		/*
+		 * Choose rows and columns so that cells are about as wide as they
+		 * are tall at the middle latitude
+		 */
+		double cells = Math.min(
+				Math.max(1, n / STOPS_PER_CELL), MAX_CELLS);
+		double height = maxLat - minLat;
+		double width = (maxLon - minLon) *
+				Math.cos(Math.toRadians((minLat + maxLat) / 2));
+		int rows;
+		int cols;
+		if ((height <= 0) || (width <= 0)) {
+			rows = (height > 0) ? (int)cells : 1;
+			cols = (width > 0) ? (int)cells : 1;
+		}
+		else {
+			rows = (int)Math.ceil(Math.sqrt(cells * height / width));
+			cols = (int)Math.ceil(cells / rows);
+		}
+		this.rows = Math.max(1, Math.min(rows, MAX_CELLS));
+		this.cols = Math.max(1, Math.min(cols, MAX_CELLS / this.rows));
+		this.minLat = minLat;
+		this.minLon = minLon;
+		this.cellLat = Math.max(height, Double.MIN_NORMAL) / this.rows;
+		this.cellLon = Math.max(maxLon - minLon, Double.MIN_NORMAL) /
+				this.cols;
+
+		/*
+		 * Counting sort of the stops by cell
+		 */
+		int[] cellOf = new int[n];
+		this.cellStart = new int[this.rows * this.cols + 1];
+		for (int i = 0; i < n; i++) {
+			Stop stop = stops.get(i);
+			cellOf[i] = this.row(stop.getLatitude()) * this.cols +
+					this.col(stop.getLongitude());
+			this.cellStart[cellOf[i] + 1]++;
+		}
+		for (int c = 1; c < this.cellStart.length; c++) {
+			this.cellStart[c] += this.cellStart[c - 1];
+		}
+		int[] fill = Arrays.copyOf(this.cellStart, this.cellStart.length - 1);
+		this.stops = new Stop[n];
+		this.lat = new double[n];
+		this.lon = new double[n];
+		for (int i = 0; i < n; i++) {
+			Stop stop = stops.get(i);
+			int pos = fill[cellOf[i]]++;
+			this.stops[pos] = stop;
+			this.lat[pos] = stop.getLatitude();
+			this.lon[pos] = stop.getLongitude();
+		}
+	}
+
+	private int row(double latitude) {
+		int ret = (int)Math.floor((latitude - this.minLat) / this.cellLat);
+		return Math.max(0, Math.min(ret, this.rows - 1));
+	}
+
+	private int col(double longitude) {
+		int ret = (int)Math.floor((longitude - this.minLon) / this.cellLon);
+		return Math.max(0, Math.min(ret, this.cols - 1));
+	}
+
+	/**
+	 * Finds the stops inside a box. A box which crosses the 180th meridian
+	 * is given with minLon greater than maxLon.
+	 * @return the stops, in no particular order
+	 */
+	List<Stop> inBox(double minLat, double minLon,
+			double maxLat, double maxLon) {
+		List<Stop> ret = new ArrayList<>();
+		if (minLon > maxLon) {
+			this.collect(minLat, minLon, maxLat, 180, ret);
+			this.collect(minLat, -180, maxLat, maxLon, ret);
+		}
+		else {
+			this.collect(minLat, minLon, maxLat, maxLon, ret);
+		}
+		return ret;
+	}
+
+	private void collect(double minLat, double minLon,
+			double maxLat, double maxLon, List<Stop> out) {
+		if ((minLat > maxLat) || (this.stops.length == 0)) {
+			return;
+		}
+		int lastRow = this.row(maxLat);
+		int firstCol = this.col(minLon);
+		int lastCol = this.col(maxLon);
+		for (int r = this.row(minLat); r <= lastRow; r++) {
+			int from = this.cellStart[r * this.cols + firstCol];
+			int to = this.cellStart[r * this.cols + lastCol + 1];
+			for (int i = from; i < to; i++) {
+				if ((this.lat[i] >= minLat) && (this.lat[i] <= maxLat) &&
+						(this.lon[i] >= minLon) && (this.lon[i] <= maxLon)) {
+					out.add(this.stops[i]);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Finds the stops within a distance of a point.
+	 * @param latitude latitude of the point, in degrees
+	 * @param longitude longitude of the point, in degrees
+	 * @param radius distance in meters
+	 * @return the stops, nearest first
+	 */
+	List<Stop> withinRadius(double latitude, double longitude,
+			double radius) {
+		/*
+		 * Search the box around the circle, then measure each stop in it
+		 */
+		double dLat = GreatCircle.toDegrees(radius);
+		double minLat = latitude - dLat;
+		double maxLat = latitude + dLat;
+		double minLon = -180;
+		double maxLon = 180;
+		if ((minLat > -90) && (maxLat < 90)) {
+			/*
+			 * Otherwise the circle takes in a pole, and so every longitude
+			 */
+			double dLon = Math.toDegrees(Math.asin(
+					Math.sin(Math.toRadians(dLat)) /
+					Math.cos(Math.toRadians(latitude))));
+			minLon = longitude - dLon;
+			maxLon = longitude + dLon;
+		}
+
+		List<Stop> candidates = new ArrayList<>();
+		if (maxLon - minLon >= 360) {
+			this.collect(minLat, -180, maxLat, 180, candidates);
+		}
+		else if (minLon < -180) {
+			this.collect(minLat, minLon + 360, maxLat, 180, candidates);
+			this.collect(minLat, -180, maxLat, maxLon, candidates);
+		}
+		else if (maxLon > 180) {
+			this.collect(minLat, minLon, maxLat, 180, candidates);
+			this.collect(minLat, -180, maxLat, maxLon - 360, candidates);
+		}
+		else {
+			this.collect(minLat, minLon, maxLat, maxLon, candidates);
+		}
+
+		/*
+		 * Sort by distance, packed with the candidate's position. The bits of
+		 * a non-negative float sort in the same order as its value, and
+		 * rounding to float keeps distances in order except among those
+		 * which round to the same float; an insertion pass over the exact
+		 * distances settles those.
+		 */
+		double[] distance = new double[candidates.size()];
+		long[] keys = new long[candidates.size()];
+		int count = 0;
+		for (int i = 0; i < candidates.size(); i++) {
+			Stop stop = candidates.get(i);
+			distance[i] = GreatCircle.distance(latitude, longitude,
+					stop.getLatitude(), stop.getLongitude());
+			if (distance[i] <= radius) {
+				keys[count++] =
+						((long)Float.floatToIntBits((float)distance[i]) << 32) |
+						i;
+			}
+		}
+		Arrays.sort(keys, 0, count);
+		int[] order = new int[count];
+		for (int i = 0; i < count; i++) {
+			int c = (int)keys[i];
+			int j = i;
+			while ((j > 0) && (distance[order[j - 1]] > distance[c])) {
+				order[j] = order[j - 1];
+				j--;
+			}
+			order[j] = c;
+		}
+
+		List<Stop> ret = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			ret.add(candidates.get(order[i]));
+		}
+		return ret;
+	}
+
+	/**
+	 * Finds the stops nearest to a point.
+	 * @param latitude latitude of the point, in degrees
+	 * @param longitude longitude of the point, in degrees
+	 * @param count number of stops to find
+	 * @return up to count stops, nearest first
+	 */
+	List<Stop> nearest(double latitude, double longitude, int count) {
+		if ((count <= 0) || (this.stops.length == 0)) {
+			return Collections.emptyList();
+		}
+
+		/*
+		 * Widen the search until it holds enough stops; the nearest stops
+		 * are then the first of them.
+		 */
+		double radius = GreatCircle.EARTH_RADIUS *
+				Math.toRadians(Math.max(this.cellLat,
+						this.cellLon * Math.cos(Math.toRadians(latitude))));
+		radius = Math.max(radius, 1);
+		double limit = Math.PI * GreatCircle.EARTH_RADIUS;
+		while (true) {
+			List<Stop> found = this.withinRadius(latitude, longitude, radius);
+			if ((found.size() >= count) || (radius >= limit)) {
+				return (found.size() > count) ?
+						new ArrayList<>(found.subList(0, count)) : found;
+			}
+			radius = Math.min(radius * 2, limit);
+		}
+	}
+}
@@ -21,209 +21,64 @@
  *   2016-05-30  Bug fix: getNoonOnDate() was using 12-hour hour instead of
  *               24-hour hour 
  *   2016-06-02  Replace GregorianCalendar functionality with java.time
+ *   2026-10-16  Read records from a streaming CsvTokenizer
+ *   2026-10-16  Become a view onto a row of the columnar StopTimeTable
+ *   2026-10-16  Primitive accessors for times as offsets from noon and as
+ *               epoch seconds
+ *   2026-10-16  Flag interpolated times
  */
 package com.github.kjburns.gtfs;
 
+import java.time.Instant;
 import java.time.LocalDate;
-import java.time.ZoneId;
 import java.time.ZonedDateTime;
-import java.util.HashMap;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
-import com.github.kjburns.gtfs.misc.CsvFile;
-import com.github.kjburns.gtfs.misc.CsvFile.FieldNotFoundException;
-import com.github.kjburns.gtfs.misc.CsvFile.ReadPastEndOfTableException;
 
 /**
  * An instance of a particular bus turning up at a particular stop at a 
  * particular time.
+ * <p>
+ * The data are held by the {@link StopTimeCollection} in columnar form;
+ * a stop time only remembers which row of the collection it refers to.
+ * </p>
  * @author Kevin J. Burns
  *
  */
 public class StopTime {
-	private static final String FIELD_NAME_TRIP_ID = "trip_id";
-	private static final String FIELD_NAME_ARRIVAL_TIME = "arrival_time";
-	private static final String FIELD_NAME_DEPARTURE_TIME = "departure_time";
-	private static final String FIELD_NAME_STOP_ID = "stop_id";
-	private static final String FIELD_NAME_STOP_SEQUENCE = "stop_sequence";
-	private static final String FIELD_NAME_STOP_HEADSIGN = "stop_headsign";
-	private static final String FIELD_NAME_PICKUP_TYPE = "pickup_type";
-	private static final String FIELD_NAME_DROPOFF_TYPE = "drop_off_type";
-	private static final String FIELD_NAME_SHAPE_DIST_TRAVELED =
-			"shape_dist_traveled";
-	private static final String FIELD_NAME_TIMEPOINT = "timepoint";
-	
-	private static final Pattern timePattern = 
-			Pattern.compile("^(\\d{1,2}):(\\d{2}):(\\d{2})$");
-	
-	private final String[] requiredFields = {
-		StopTime.FIELD_NAME_TRIP_ID,
-		StopTime.FIELD_NAME_ARRIVAL_TIME,
-		StopTime.FIELD_NAME_DEPARTURE_TIME,
-		StopTime.FIELD_NAME_STOP_ID,
-		StopTime.FIELD_NAME_STOP_SEQUENCE
-	};
-	private final String[] optionalFields = {
-		StopTime.FIELD_NAME_STOP_HEADSIGN,
-		StopTime.FIELD_NAME_PICKUP_TYPE,
-		StopTime.FIELD_NAME_DROPOFF_TYPE,
-		StopTime.FIELD_NAME_SHAPE_DIST_TRAVELED,
-		StopTime.FIELD_NAME_TIMEPOINT
-	};
+	/**
+	 * Returned by the offset accessors when a time is not defined.
+	 */
+	public static final int UNDEFINED_TIME = Integer.MIN_VALUE;
+	/**
+	 * Returned by the epoch second accessors when a time is not defined.
+	 */
+	public static final long UNDEFINED_EPOCH_SECOND = Long.MIN_VALUE;
 	
-	private HashMap<String, String> tableData = new HashMap<>();
-	private int recordNumber;
+	static final String FIELD_NAME_TRIP_ID = "trip_id";
+	static final String FIELD_NAME_ARRIVAL_TIME = "arrival_time";
+	static final String FIELD_NAME_DEPARTURE_TIME = "departure_time";
+	static final String FIELD_NAME_STOP_ID = "stop_id";
+	static final String FIELD_NAME_STOP_SEQUENCE = "stop_sequence";
+	static final String FIELD_NAME_STOP_HEADSIGN = "stop_headsign";
+	static final String FIELD_NAME_PICKUP_TYPE = "pickup_type";
+	static final String FIELD_NAME_DROPOFF_TYPE = "drop_off_type";
+	static final String FIELD_NAME_SHAPE_DIST_TRAVELED =
+			"shape_dist_traveled";
+	static final String FIELD_NAME_TIMEPOINT = "timepoint";
 	
-	private int arrivalTimeOffset = Integer.MIN_VALUE;
-	private int departureTimeOffset = Integer.MIN_VALUE;
-	private int stopSequence;
-	private PickupDropoffTypeEnum pickupType;
-	private PickupDropoffTypeEnum dropoffType;
-	private double shapeDistanceTraveled = Double.NaN;
-	private boolean timepoint = true;
-	private GtfsFile gtfs;
+	private final StopTimeTable table;
+	private final int row;
 	
-	StopTime(GtfsFile gtfs, CsvFile table, int record) throws 
-			MissingRequiredFieldException, InvalidDataException {
-		this.recordNumber = record;
-		this.gtfs = gtfs;
-		
-		for (int i = 0; i < this.requiredFields.length; i++) {
-			String key = this.requiredFields[i];
-			try {
-				String value = table.getData(key, record);
-				this.tableData.put(key, value);
-			} catch (ReadPastEndOfTableException ex) {
-				throw new IndexOutOfBoundsException();
-			} catch (FieldNotFoundException ex) {
-				throw new MissingRequiredFieldException(
-						GtfsFile.FILENAME_STOP_TIMES, key);
-			}
-		}
-		
-		for (int i = 0; i < this.optionalFields.length; i++) {
-			String key = this.optionalFields[i];
-			try {
-				String value = table.getData(key, record);
-				this.tableData.put(key, value);
-			} catch (ReadPastEndOfTableException ex) {
-				/*
-				 * should have been caught previously
-				 */
-				assert(false);
-			} catch (FieldNotFoundException ex) {
-				/*
-				 * No problem; the field is optional
-				 */
-			}
-		}
-		
-		this.parseTextualData();
-	}
-
-	private void parseTextualData() throws InvalidDataException {
-		if (this.tableData.containsKey(FIELD_NAME_TIMEPOINT)) {
-			String value = tableData.get(FIELD_NAME_TIMEPOINT);
-			if ("".equals(value) || "1".equals(value)) {
-				this.timepoint = true;
-			}
-			else if ("0".equals(value)) {
-				this.timepoint = false;
-			}
-			else {
-				throw new InvalidDataException(
-						GtfsFile.FILENAME_STOP_TIMES, 
-						StopTime.FIELD_NAME_TIMEPOINT, 
-						this.recordNumber, 
-						value);
-			}
-		}
-
-		this.arrivalTimeOffset = 
-				this.parseOffsetFromTime(FIELD_NAME_ARRIVAL_TIME);
-		this.departureTimeOffset = 
-				this.parseOffsetFromTime(FIELD_NAME_DEPARTURE_TIME);
-		
-		this.pickupType = this.parsePickupDropoffType(FIELD_NAME_PICKUP_TYPE);
-		this.dropoffType = this.parsePickupDropoffType(FIELD_NAME_DROPOFF_TYPE);
-		
-		String key = FIELD_NAME_SHAPE_DIST_TRAVELED;
-		if (this.tableData.containsKey(key)) {
-			String value = this.tableData.get(key);
-			try {
-				this.shapeDistanceTraveled = Double.valueOf(value);
-			} catch (NumberFormatException ex1) {
-				throw new InvalidDataException(
-						GtfsFile.FILENAME_STOP_TIMES, 
-						key, this.recordNumber, value);
-			}
-		}
-		
-		key = FIELD_NAME_STOP_SEQUENCE;
-		String value = this.tableData.get(key);
-		try {
-			this.stopSequence = Integer.valueOf(value);
-		} catch (NumberFormatException ex1) {
-			throw new InvalidDataException(
-					GtfsFile.FILENAME_STOP_TIMES, 
-					key, this.recordNumber, value);
-		}
+	StopTime(StopTimeTable table, int row) {
+		this.table = table;
+		this.row = row;
 	}
 	
-	private PickupDropoffTypeEnum parsePickupDropoffType(String key)
-			throws InvalidDataException {
-		String value = this.tableData.get(key);
-		
-		if ((value == null) || "".equals(value)) {
-			return PickupDropoffTypeEnum.REGULARLY_SCHEDULED;
-		}
-		
-		InvalidDataException ex = new InvalidDataException(
-				GtfsFile.FILENAME_STOP_TIMES, key, this.recordNumber, value);
-		try {
-			int intValue = Integer.valueOf(value);
-			if ((intValue < 0) || 
-					(intValue > PickupDropoffTypeEnum.values().length)) {
-				throw ex;
-			}
-			return PickupDropoffTypeEnum.values()[intValue];
-		} catch (NumberFormatException ex1) {
-			throw ex;
-		}
-	}
-
-	private int parseOffsetFromTime(String key) 
-			throws InvalidDataException {
-		String value = this.tableData.get(key);
-		InvalidDataException ex = new InvalidDataException(
-				GtfsFile.FILENAME_STOP_TIMES,
-				key,
-				this.recordNumber,
-				value);
-		
-		if (value.equals("")) {
-			return Integer.MIN_VALUE;
-		}
-		
-		Matcher m = timePattern.matcher(value);
-		if (!m.matches()) {
-			throw ex;
-		}
-		int hr = Integer.valueOf(m.group(1));
-		int min = Integer.valueOf(m.group(2));
-		int sec = Integer.valueOf(m.group(3));
-		
-		if (min > 59) {
-			throw ex;
-		}
-		if (sec > 59) {
-			/*
-			 * ignore leap seconds
-			 */
-			throw ex;
-		}
-		return hr * 3600 + min * 60 + sec - 43200;
+	/**
+	 * Gets the row of the stop time table which this stop time refers to.
+	 * @return
+	 */
+	int getRow() {
+		return this.row;
 	}
 
 	/**
@@ -231,7 +86,7 @@ public class StopTime {
 	 * @return the stopSequence
 	 */
 	public int getStopSequence() {
-		return this.stopSequence;
+		return this.table.stopSequence[this.row];
 	}
 
 	/**
@@ -240,7 +95,8 @@ public class StopTime {
 	 * @return the pickupType
 	 */
 	public PickupDropoffTypeEnum getPickupType() {
-		return this.pickupType;
+		return StopTimeTable.PICKUP_DROPOFF_TYPES[
+				this.table.pickupType[this.row]];
 	}
 
 	/**
@@ -249,7 +105,8 @@ public class StopTime {
 	 * @return the dropoffType
 	 */
 	public PickupDropoffTypeEnum getDropoffType() {
-		return this.dropoffType;
+		return StopTimeTable.PICKUP_DROPOFF_TYPES[
+				this.table.dropoffType[this.row]];
 	}
 
 	/**
@@ -258,7 +115,7 @@ public class StopTime {
 	 * returns {@link Double#NaN}.
 	 */
 	public double getShapeDistanceTraveled() {
-		return this.shapeDistanceTraveled;
+		return this.table.shapeDistance[this.row];
 	}
 
 	/**
@@ -268,7 +125,18 @@ public class StopTime {
 	 * {@code false} otherwise.
 	 */
 	public boolean isTimepoint() {
-		return this.timepoint;
+		return this.table.timepoint[this.row] != 0;
+	}
+
+	/**
+	 * Determines whether the arrival and departure times of this stop time
+	 * were interpolated while loading, rather than given in the feed. See
+	 * {@link GtfsLoadOptions#setInterpolateStopTimes(boolean)}.
+	 * @return
+	 */
+	public boolean isTimeInterpolated() {
+		return (this.table.interpolated != null) && 
+				(this.table.interpolated[this.row] != 0);
 	}
 
 	/**
@@ -276,7 +144,7 @@ public class StopTime {
 	 * @return
 	 */
 	public String getTripId() {
-		return this.tableData.get(FIELD_NAME_TRIP_ID);
+		return this.table.tripIds.get(this.table.trip[this.row]);
 	}
 	
 	/**
@@ -284,7 +152,7 @@ public class StopTime {
 	 * @return
 	 */
 	public String getStopId() {
-		return this.tableData.get(FIELD_NAME_STOP_ID);
+		return this.table.stopIds.get(this.table.stop[this.row]);
 	}
 	
 	/**
@@ -294,42 +162,107 @@ public class StopTime {
 	 * {@code null}.
 	 */
 	public String getStopHeadsign() {
-		return this.tableData.get(FIELD_NAME_STOP_HEADSIGN);
+		int headsign = this.table.headsign[this.row];
+		if (headsign == StopTimeTable.NO_HEADSIGN) {
+			return null;
+		}
+		return this.table.headsigns.get(headsign);
+	}
+	
+	/**
+	 * Gets the arrival time as an offset from noon on the service day. 
+	 * Times before noon are negative, and times after midnight exceed 
+	 * 43200.
+	 * @return seconds after noon, or {@link #UNDEFINED_TIME} if the arrival
+	 * time is not defined.
+	 */
+	public int getArrivalSecondsFromNoon() {
+		return this.table.arrival[this.row];
+	}
+	
+	/**
+	 * Gets the departure time as an offset from noon on the service day. 
+	 * Times before noon are negative, and times after midnight exceed 
+	 * 43200.
+	 * @return seconds after noon, or {@link #UNDEFINED_TIME} if the 
+	 * departure time is not defined.
+	 */
+	public int getDepartureSecondsFromNoon() {
+		return this.table.departure[this.row];
+	}
+	
+	/**
+	 * Gets the arrival time on a service date as an epoch second, without 
+	 * allocating.
+	 * @param date service date
+	 * @return seconds since 1970-01-01T00:00:00Z, or 
+	 * {@link #UNDEFINED_EPOCH_SECOND} if the arrival time is not defined.
+	 */
+	public long getArrivalEpochSecond(LocalDate date) {
+		return this.epochSecondOnDate(this.table.arrival[this.row], date);
+	}
+	
+	/**
+	 * Gets the departure time on a service date as an epoch second, without
+	 * allocating.
+	 * @param date service date
+	 * @return seconds since 1970-01-01T00:00:00Z, or 
+	 * {@link #UNDEFINED_EPOCH_SECOND} if the departure time is not defined.
+	 */
+	public long getDepartureEpochSecond(LocalDate date) {
+		return this.epochSecondOnDate(this.table.departure[this.row], date);
+	}
+	
+	private long epochSecondOnDate(int offset, LocalDate date) {
+		if (offset == UNDEFINED_TIME) {
+			return UNDEFINED_EPOCH_SECOND;
+		}
+		return this.table.gtfs.getNoonEpochSecond(date) + offset;
 	}
 	
 	/**
 	 * Gets the arrival time, if it is defined. In general, it is only
-	 * defined if the stop is a timepoint.
+	 * defined if the stop is a timepoint, or if missing times were
+	 * interpolated while loading.
 	 * @param date The date to use as a seed for the return value.
 	 * @return The arrival time, if it is defined; otherwise, {@code null}.
 	 */
 	public ZonedDateTime getArrivalTime(LocalDate date) {
-		if (this.arrivalTimeOffset == Integer.MIN_VALUE) {
-			return null;
-		}
-		
-		ZonedDateTime ret = date.atStartOfDay(
-				ZoneId.of(this.gtfs.getTimezone()));
-		ret = ret.withHour(12).withMinute(0).withSecond(0);
-		ret = ret.plusSeconds(arrivalTimeOffset);
-		return ret;
+		return this.timeOnDate(this.table.arrival[this.row], date);
 	}
 
 	/**
 	 * Gets the departure time, if it is defined. In general, it is only
-	 * defined if the stop is a timepoint.
+	 * defined if the stop is a timepoint, or if missing times were
+	 * interpolated while loading.
 	 * @param date The date to use as a seed for the return value
 	 * @return The departure time, if it is defined; otherwise, {@code null}.
 	 */
 	public ZonedDateTime getDepartureTime(LocalDate date) {
-		if (this.departureTimeOffset == Integer.MIN_VALUE) {
+		return this.timeOnDate(this.table.departure[this.row], date);
+	}
+	
+	private ZonedDateTime timeOnDate(int offset, LocalDate date) {
+		if (offset == UNDEFINED_TIME) {
 			return null;
 		}
 		
-		ZonedDateTime ret = date.atStartOfDay(
-				ZoneId.of(this.gtfs.getTimezone()));
-		ret = ret.withHour(12).withMinute(0).withSecond(0);
-		ret = ret.plusSeconds(departureTimeOffset);
-		return ret;
+		return ZonedDateTime.ofInstant(
+				Instant.ofEpochSecond(this.epochSecondOnDate(offset, date)), 
+				this.table.gtfs.getZoneId());
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (!(obj instanceof StopTime)) {
+			return false;
+		}
+		StopTime other = (StopTime)obj;
+		return (this.table == other.table) && (this.row == other.row);
+	}
+
+	@Override
+	public int hashCode() {
+		return this.row;
 	}
 }
@@ -21,37 +21,64 @@
  *   2016-05-30  Make getEarliestDepartureTime() public
  *   2016-06-02  Replace GregorianCalendar functionality with java.time
  *   2016-06-02  Generate timepoint-only schedule for a trip
+ *   2026-10-16  Stream stop_times.txt through CsvTokenizer
+ *   2026-10-16  Hold stop times in columnar primitive arrays
+ *   2026-10-16  Parse memory-mapped stop_times.txt across several threads
+ *   2026-10-16  Construct from a table read from a snapshot
+ *   2026-10-16  Check service through the precomputed calendar bitsets
+ *   2026-10-16  Sort by primitive departure offsets instead of 
+ *               ZonedDateTime
+ *   2026-10-16  Per-stop departure index and next departures query
+ *   2026-10-16  Look up governing timepoints in constant time
+ *   2026-10-16  Group trips into patterns sharing their stops
+ *   2026-10-16  Use interpolated times for departures from their rows
  */
 package com.github.kjburns.gtfs;
 
-import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.Instant;
 import java.time.LocalDate;
-import java.time.ZoneId;
 import java.time.ZonedDateTime;
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.RandomAccess;
+import java.util.concurrent.ForkJoinPool;
 
-import com.github.kjburns.gtfs.misc.CsvFile;
+import com.github.kjburns.gtfs.misc.CsvTokenizer;
 
 /**
- * A collection of stop times. Internally, this object keeps stop times
- * mapped by stop id and by trip id.
+ * A collection of stop times. Internally, this object keeps the stop times
+ * in a {@link StopTimeTable}, grouped by trip and indexed by stop, so that
+ * no object is kept per stop time.
  * @author Kevin J. Burns
  *
  */
 public class StopTimeCollection {
-	private HashMap<String, ArrayList<StopTime>> byTrip = new HashMap<>();
-	private HashMap<String, ArrayList<StopTime>> byStop = new HashMap<>();
+	private StopTimeTable table;
 	private GtfsFile gtfs;
+	/**
+	 * Service index of each trip index, or -1 where the trip or its service
+	 * is unknown. Built on first use, since trips.txt and the calendar may 
+	 * be loaded after this collection.
+	 */
+	private volatile int[] tripServices = null;
+	/**
+	 * Service index of each element of the table's stop index. Built 
+	 * together with tripServices.
+	 */
+	private volatile int[] stopServices = null;
+	/**
+	 * Trips grouped by their stops. Built on first use.
+	 */
+	private volatile TripPatterns patterns = null;
 	
 	/**
 	 * Constructor. Reads the collection from stop_times.txt
-	 * @param f Pointer to stop_times.txt
+	 * @param table tokenizer positioned at the start of stop_times.txt
 	 * @param gtfs GTFS file that this collection is part of
 	 * @throws IOException If there is any problem opening or reading the
 	 * file
@@ -60,47 +87,56 @@ public class StopTimeCollection {
 	 * @throws TerminalTimepointException if any trip does not both begin
 	 * and end with a timepoint
 	 */
-	StopTimeCollection(GtfsFile gtfs, File f) 
+	StopTimeCollection(GtfsFile gtfs, CsvTokenizer table) 
 			throws IOException, MissingRequiredFieldException, 
 				InvalidDataException, TerminalTimepointException {
 		this.gtfs = gtfs;
-		
-		try(FileInputStream fis = new FileInputStream(f)) {
-			CsvFile table = new CsvFile(fis);
-			
-			for (int record = 1; record <= table.getRecordCount(); record++) {
-				StopTime st = new StopTime(this.gtfs, table, record);
-				
-				ArrayList<StopTime> list;
-				
-				list = this.byTrip.get(st.getTripId());
-				if (list == null) {
-					list = new ArrayList<StopTime>();
-					this.byTrip.put(st.getTripId(), list);
-				}
-				list.add(st);
-				
-				list = this.byStop.get(st.getStopId());
-				if (list == null) {
-					list = new ArrayList<StopTime>();
-					this.byStop.put(st.getStopId(), list);
-				}
-				list.add(st);
-			}
-		}
-		
-		for (ArrayList<StopTime> stopList : this.byTrip.values()) {
-			Collections.sort(stopList, (x, y) -> {
-				return Integer.compare(
-						x.getStopSequence(), y.getStopSequence());
-			});
-			
-			if (!stopList.get(0).isTimepoint() || 
-					!stopList.get(stopList.size() - 1).isTimepoint()) {
-				throw new TerminalTimepointException(
-						stopList.get(0).getTripId());
-			}
-		}
+		this.table = new StopTimeTable(gtfs);
+		this.table.readAll(table);
+		this.table.finish();
+	}
+	
+	/**
+	 * Constructor. Reads the collection from stop_times.txt, parsing ranges 
+	 * of records on several threads at the same time.
+	 * @param gtfs GTFS file that this collection is part of
+	 * @param table the whole of stop_times.txt
+	 * @param pool pool to parse the table on
+	 * @throws IOException If there is any problem reading the file
+	 * @throws InterruptedException if the calling thread is interrupted while
+	 * waiting for the table to be parsed
+	 * @throws MissingRequiredFieldException if any required fields are missing
+	 * @throws InvalidDataException if any invalid data are found in the table
+	 * @throws TerminalTimepointException if any trip does not both begin
+	 * and end with a timepoint
+	 */
+	StopTimeCollection(GtfsFile gtfs, ByteBuffer table, ForkJoinPool pool) 
+			throws IOException, InterruptedException, 
+				MissingRequiredFieldException, InvalidDataException, 
+				TerminalTimepointException {
+		this.gtfs = gtfs;
+		this.table = new StopTimeTable(gtfs);
+		this.table.readAll(table, pool);
+		this.table.finish();
+	}
+	
+	/**
+	 * Constructor. Wraps a table which has already been read and finished,
+	 * such as one read from a snapshot.
+	 * @param gtfs GTFS file that this collection is part of
+	 * @param table finished table
+	 */
+	StopTimeCollection(GtfsFile gtfs, StopTimeTable table) {
+		this.gtfs = gtfs;
+		this.table = table;
+	}
+	
+	/**
+	 * Gets the table holding the stop times.
+	 * @return
+	 */
+	StopTimeTable getTable() {
+		return this.table;
 	}
 	
 	/**
@@ -110,11 +146,13 @@ public class StopTimeCollection {
 	 * {@code null}.
 	 */
 	public List<StopTime> getTripSchedule(String tripId) {
-		if (!this.byTrip.containsKey(tripId)) {
+		int trip = this.table.tripIds.indexOf(tripId);
+		if (trip == -1) {
 			return null;
 		}
 		
-		return Collections.unmodifiableList(this.byTrip.get(tripId));
+		return new RowList(this.table.tripStart[trip],
+				this.table.tripStart[trip + 1]);
 	}
 	
 	/**
@@ -124,20 +162,21 @@ public class StopTimeCollection {
 	 * {@code null}.
 	 */
 	public List<StopTime> getTripScheduleTimepointsOnly(String tripId) {
-		if (!this.byTrip.containsKey(tripId)) {
+		int trip = this.table.tripIds.indexOf(tripId);
+		if (trip == -1) {
 			return null;
 		}
 		
-		final LocalDate date = LocalDate.now(ZoneId.of(gtfs.getTimezone()));
-		return this.byTrip.get(tripId).stream()
-				.filter((test) -> {
-					return test.isTimepoint();
-				})
-				.sorted((x, y) -> {
-					return x.getDepartureTime(date).compareTo(
-							y.getDepartureTime(date));
-				})
-				.collect(Collectors.toList());
+		int from = this.table.tripStart[trip];
+		int to = this.table.tripStart[trip + 1];
+		long[] keys = new long[to - from];
+		int count = 0;
+		for (int row = from; row < to; row++) {
+			if (this.table.timepoint[row] != 0) {
+				keys[count++] = sortKey(this.table.departure[row], row);
+			}
+		}
+		return this.toStopTimes(keys, count);
 	}
 	
 	/**
@@ -147,37 +186,339 @@ public class StopTimeCollection {
 	 * @return A list of stop times, sorted by earliest departure time.
 	 */
 	public List<StopTime> getTimetable(String stopId, LocalDate date) {
-		return this.byStop.get(stopId).stream()
-				.filter((test) -> {
-					Trip trip = gtfs.getTrips().getTripById(test.getTripId());
-					String serviceId = trip.getServiceId();
-					return this.gtfs.getServiceCalendar().isServiceDefinedOn(
-							serviceId, date);
-				})
-				.sorted((x, y) -> {
-					return this.getEarliestDepartureTime(x, date).compareTo(
-							this.getEarliestDepartureTime(y, date));
-				})
-				.collect(Collectors.toList());
+		int stop = this.table.stopIds.indexOf(stopId);
+		if (stop == -1) {
+			return Collections.emptyList();
+		}
+		
+		/*
+		 * The stop index is already in order of earliest departure
+		 */
+		ServiceCalendar calendar = this.gtfs.getServiceCalendar();
+		int day = calendar.getDayIndex(date);
+		int[] services = this.getStopServices();
+		List<StopTime> ret = new ArrayList<>();
+		for (int i = this.table.stopStart[stop]; 
+				i < this.table.stopStart[stop + 1]; i++) {
+			if (calendar.isServiceActive(services[i], day)) {
+				ret.add(new StopTime(this.table, this.table.stopRows[i]));
+			}
+		}
+		return ret;
 	}
 	
-	public ZonedDateTime getEarliestDepartureTime(StopTime st, LocalDate date) {
-		if (st.isTimepoint()) {
-			return st.getDepartureTime(date);
+	/**
+	 * Gets the next departures from a stop at or after a given instant.
+	 * Trips of the previous, the current and the following service date 
+	 * are considered, so trips running past midnight are found.
+	 * @param stopId stop_id to query
+	 * @param after earliest instant of interest
+	 * @param count maximum number of departures to return
+	 * @return departures in order of earliest departure time, which are 
+	 * fewer than count if the following service date runs out. Empty if the
+	 * stop has no stop times.
+	 */
+	public List<ScheduledDeparture> getNextDepartures(String stopId, 
+			ZonedDateTime after, int count) {
+		return this.getNextDepartures(stopId, after.toEpochSecond(), count);
+	}
+	
+	/**
+	 * Gets the next departures from a stop at or after a given instant.
+	 * Trips of the previous, the current and the following service date 
+	 * are considered, so trips running past midnight are found.
+	 * <p>
+	 * The search for the first departure of each service date is a binary 
+	 * search of the stop's departures, and each departure returned costs
+	 * one bit test against the service calendar.
+	 * </p>
+	 * @param stopId stop_id to query
+	 * @param epochSecond earliest instant of interest, in seconds since 
+	 * 1970-01-01T00:00:00Z
+	 * @param count maximum number of departures to return
+	 * @return departures in order of earliest departure time, which are 
+	 * fewer than count if the following service date runs out. Empty if the
+	 * stop has no stop times.
+	 */
+	public List<ScheduledDeparture> getNextDepartures(String stopId, 
+			long epochSecond, int count) {
+		int stop = this.table.stopIds.indexOf(stopId);
+		if ((stop == -1) || (count <= 0)) {
+			return Collections.emptyList();
 		}
-		else {
-			String tripId = st.getTripId();
-			int index = this.byTrip.get(tripId).indexOf(st);
+		
+		ServiceCalendar calendar = this.gtfs.getServiceCalendar();
+		int[] services = this.getStopServices();
+		int[] times = this.table.stopDeparture;
+		int from = this.table.stopStart[stop];
+		int to = this.table.stopStart[stop + 1];
+		
+		LocalDate today = Instant.ofEpochSecond(epochSecond)
+				.atZone(this.gtfs.getZoneId()).toLocalDate();
+		LocalDate[] dates = new LocalDate[3];
+		long[] noon = new long[3];
+		int[] day = new int[3];
+		int[] cursor = new int[3];
+		for (int k = 0; k < 3; k++) {
+			dates[k] = today.plusDays(k - 1);
+			noon[k] = this.gtfs.getNoonEpochSecond(dates[k]);
+			day[k] = calendar.getDayIndex(dates[k]);
 			
-			for (int i = index - 1; ; i--) {
-				if (index < 0) {
-					throw new IndexOutOfBoundsException();
+			/*
+			 * Undefined times are Integer.MIN_VALUE, so a threshold above it
+			 * skips them
+			 */
+			long threshold = Math.max(epochSecond - noon[k], 
+					Integer.MIN_VALUE + 1L);
+			cursor[k] = (threshold > Integer.MAX_VALUE) ? to : 
+					lowerBound(times, from, to, (int)threshold);
+		}
+		
+		List<ScheduledDeparture> ret = new ArrayList<>(count);
+		while (ret.size() < count) {
+			int best = -1;
+			long bestTime = Long.MAX_VALUE;
+			for (int k = 0; k < 3; k++) {
+				while ((cursor[k] < to) && 
+						!calendar.isServiceActive(services[cursor[k]], day[k])) {
+					cursor[k]++;
 				}
-				StopTime previousStop = this.byTrip.get(tripId).get(i);
-				if (previousStop.isTimepoint()) {
-					return previousStop.getDepartureTime(date);
+				if (cursor[k] < to) {
+					long time = noon[k] + times[cursor[k]];
+					if (time < bestTime) {
+						best = k;
+						bestTime = time;
+					}
 				}
 			}
+			if (best == -1) {
+				break;
+			}
+			
+			StopTime st = new StopTime(
+					this.table, this.table.stopRows[cursor[best]]);
+			ret.add(new ScheduledDeparture(st, dates[best], bestTime));
+			cursor[best]++;
+		}
+		return ret;
+	}
+	
+	/**
+	 * Finds the first position in a sorted range holding a value of at least
+	 * key.
+	 */
+	private static int lowerBound(int[] values, int from, int to, int key) {
+		int lo = from;
+		int hi = to;
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if (values[mid] < key) {
+				lo = mid + 1;
+			}
+			else {
+				hi = mid;
+			}
+		}
+		return lo;
+	}
+	
+	/**
+	 * Packs a time and a row so that sorting the packed values orders rows
+	 * by time, and rows with equal times by row.
+	 */
+	private static long sortKey(int time, int row) {
+		return ((long)time << 32) | (row & 0xffffffffL);
+	}
+	
+	private List<StopTime> toStopTimes(long[] keys, int count) {
+		Arrays.sort(keys, 0, count);
+		List<StopTime> ret = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			ret.add(new StopTime(this.table, (int)keys[i]));
+		}
+		return ret;
+	}
+	
+	/**
+	 * Gets the service index of each trip index.
+	 * @return
+	 */
+	int[] getTripServices() {
+		this.prepareServiceIndex();
+		return this.tripServices;
+	}
+	
+	/**
+	 * Gets the service index of each element of the stop index.
+	 * @return
+	 */
+	private int[] getStopServices() {
+		this.prepareServiceIndex();
+		return this.stopServices;
+	}
+	
+	/**
+	 * Attaches service indices to the trips and to the stop index. This
+	 * needs trips.txt and the calendar, which may be loaded after this
+	 * collection; it is done when loading finishes, or on first use.
+	 */
+	void prepareServiceIndex() {
+		if (this.stopServices != null) {
+			return;
+		}
+		
+		TripCollection trips = this.gtfs.getTrips();
+		ServiceCalendar calendar = this.gtfs.getServiceCalendar();
+		int[] byTrip = new int[this.table.getTripCount()];
+		for (int i = 0; i < byTrip.length; i++) {
+			Trip trip = trips.getTripById(this.table.tripIds.get(i));
+			byTrip[i] = (trip == null) ? -1 : 
+					calendar.getServiceIndex(trip.getServiceId());
+		}
+		
+		int[] byStop = new int[this.table.size];
+		for (int i = 0; i < byStop.length; i++) {
+			byStop[i] = byTrip[this.table.trip[this.table.stopRows[i]]];
+		}
+		
+		this.tripServices = byTrip;
+		this.stopServices = byStop;
+	}
+	
+	public ZonedDateTime getEarliestDepartureTime(StopTime st, LocalDate date) {
+		int row = this.getGoverningTimepoint(st.getRow());
+		return new StopTime(this.table, row).getDepartureTime(date);
+	}
+	
+	/**
+	 * Gets the earliest time at which a stop time may depart, as an epoch
+	 * second, without allocating. This is the departure time of the stop 
+	 * time itself if it is a timepoint or its times were interpolated,
+	 * otherwise that of the previous timepoint on the trip.
+	 * @param st stop time to query
+	 * @param date service date
+	 * @return seconds since 1970-01-01T00:00:00Z, or 
+	 * {@link StopTime#UNDEFINED_EPOCH_SECOND} if the governing timepoint has
+	 * no departure time.
+	 */
+	public long getEarliestDepartureEpochSecond(StopTime st, LocalDate date) {
+		int row = this.getGoverningTimepoint(st.getRow());
+		return new StopTime(this.table, row).getDepartureEpochSecond(date);
+	}
+	
+	/**
+	 * Gets the position of a stop time within the schedule of its trip, as 
+	 * returned by {@link #getTripSchedule(String)}.
+	 * @param st stop time to query
+	 * @return the index of the stop time in its trip's schedule
+	 */
+	public int getPositionInTrip(StopTime st) {
+		return this.table.getPositionInTrip(st.getRow());
+	}
+	
+	/**
+	 * Gets the trips grouped into patterns, building them if this is the
+	 * first use.
+	 * @return
+	 */
+	TripPatterns getPatterns() {
+		TripPatterns ret = this.patterns;
+		if (ret == null) {
+			ret = new TripPatterns(this.table);
+			this.patterns = ret;
+		}
+		return ret;
+	}
+	
+	/**
+	 * Gets the trip patterns of the feed: groups of trips which serve the 
+	 * same stops in the same order, with the same pickup and dropoff types.
+	 * Each pattern holds its stops once, with the times of its trips lined
+	 * up against them. The patterns are grouped when first asked for.
+	 * @return the patterns, in the order their first trips appear in 
+	 * stop_times.txt
+	 */
+	public List<TripPattern> getTripPatterns() {
+		return new PatternList(this.getPatterns());
+	}
+	
+	/**
+	 * Gets the trip pattern of a particular trip.
+	 * @param tripId trip_id to query
+	 * @return the pattern of the trip if it has stop times; otherwise,
+	 * {@code null}.
+	 */
+	public TripPattern getTripPattern(String tripId) {
+		int trip = this.table.tripIds.indexOf(tripId);
+		if (trip == -1) {
+			return null;
+		}
+		
+		TripPatterns patterns = this.getPatterns();
+		return new TripPattern(this.table, patterns, 
+				patterns.patternOf[trip]);
+	}
+	
+	/**
+	 * Finds the timepoint whose departure governs a row: the row itself if 
+	 * it is a timepoint or its times were interpolated, otherwise the
+	 * nearest timepoint before it.
+	 */
+	private int getGoverningTimepoint(int row) {
+		return this.table.governingTimepoint[row];
+	}
+	
+	/**
+	 * Read-only view of a contiguous range of rows.
+	 */
+	private class RowList extends AbstractList<StopTime>
+			implements RandomAccess {
+		private final int from;
+		private final int to;
+		
+		RowList(int from, int to) {
+			this.from = from;
+			this.to = to;
+		}
+		
+		@Override
+		public StopTime get(int index) {
+			if ((index < 0) || (index >= this.size())) {
+				throw new IndexOutOfBoundsException();
+			}
+			return new StopTime(StopTimeCollection.this.table,
+					this.from + index);
+		}
+		
+		@Override
+		public int size() {
+			return this.to - this.from;
+		}
+	}
+	
+	/**
+	 * Read-only view of the patterns.
+	 */
+	private class PatternList extends AbstractList<TripPattern>
+			implements RandomAccess {
+		private final TripPatterns patterns;
+		
+		PatternList(TripPatterns patterns) {
+			this.patterns = patterns;
+		}
+		
+		@Override
+		public TripPattern get(int index) {
+			if ((index < 0) || (index >= this.size())) {
+				throw new IndexOutOfBoundsException();
+			}
+			return new TripPattern(StopTimeCollection.this.table,
+					this.patterns, index);
+		}
+		
+		@Override
+		public int size() {
+			return this.patterns.getPatternCount();
 		}
 	}
 }
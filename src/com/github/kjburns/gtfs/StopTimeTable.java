@@ -0,0 +1,819 @@
+/*
+ * StopTimeTable.java
+ * General Transit Feed Specification
+ *
+ * Copyright 2016 Kevin J. Burns
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Revision Log:
+ *   2026-10-16  Basic functionality
+ *   2026-10-16  Parse memory-mapped tables in parallel ranges
+ *   2026-10-16  Order the rows of each stop by departure time
+ *   2026-10-16  Precompute the governing timepoint of each row
+ *   2026-10-16  Optionally interpolate missing times
+ *   2026-10-16  Share trip and stop ids through the feed's dictionary
+ *   2026-10-16  Check for cancellation and report progress in each range
+ *   2026-10-16  Look up the stop indices of a stop or station, for routing
+ *   2026-10-16  Check the header for required columns without parsing
+ *   2026-10-16  Count allocation by the parallel ranges with the phase
+ *   2026-10-16  Let interpolated rows govern their own departures
+ */
+package com.github.kjburns.gtfs;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import com.github.kjburns.gtfs.misc.CsvSplitter;
+import com.github.kjburns.gtfs.misc.CsvTokenizer;
+
+/**
+ * Columnar storage for the contents of stop_times.txt. Each record occupies
+ * one row, which is the same position in every column array.
+ * <p>
+ * Once {@link #finish()} has been called, the rows of each trip are
+ * contiguous and ordered by stop_sequence, and the rows serving each stop
+ * are indexed in {@link #stopRows}.
+ * </p>
+ * @author Kevin J. Burns
+ *
+ */
+class StopTimeTable {
+	/**
+	 * Marks a time which is not given in the table.
+	 */
+	static final int UNDEFINED_TIME = StopTime.UNDEFINED_TIME;
+	/**
+	 * Marks a headsign column which is not present in the table.
+	 */
+	static final int NO_HEADSIGN = -1;
+
+	static final PickupDropoffTypeEnum[] PICKUP_DROPOFF_TYPES =
+			PickupDropoffTypeEnum.values();
+
+	/**
+	 * Columns which stop_times.txt must have
+	 */
+	private static final String[] REQUIRED_FIELDS = {
+			StopTime.FIELD_NAME_TRIP_ID, StopTime.FIELD_NAME_ARRIVAL_TIME,
+			StopTime.FIELD_NAME_DEPARTURE_TIME, StopTime.FIELD_NAME_STOP_ID,
+			StopTime.FIELD_NAME_STOP_SEQUENCE };
+	private static final int INITIAL_CAPACITY = 1024;
+	/**
+	 * Smallest range worth handing to a separate thread, in bytes.
+	 */
+	private static final int MIN_RANGE_SIZE = 1 << 20;
+	/**
+	 * Ranges per thread, so that threads which finish early can take on
+	 * more work.
+	 */
+	private static final int RANGES_PER_THREAD = 4;
+
+	final GtfsFile gtfs;
+	final IdentifierTable tripIds = new IdentifierTable();
+	final IdentifierTable stopIds = new IdentifierTable();
+	final IdentifierTable headsigns = new IdentifierTable();
+
+	int size = 0;
+	int[] trip = new int[INITIAL_CAPACITY];
+	int[] stop = new int[INITIAL_CAPACITY];
+	/**
+	 * Seconds after noon minus twelve hours on the service day; see
+	 * {@link StopTime#getArrivalTime(java.time.LocalDate)}.
+	 */
+	int[] arrival = new int[INITIAL_CAPACITY];
+	int[] departure = new int[INITIAL_CAPACITY];
+	int[] stopSequence = new int[INITIAL_CAPACITY];
+	int[] headsign = new int[INITIAL_CAPACITY];
+	byte[] pickupType = new byte[INITIAL_CAPACITY];
+	byte[] dropoffType = new byte[INITIAL_CAPACITY];
+	byte[] timepoint = new byte[INITIAL_CAPACITY];
+	float[] shapeDistance = new float[INITIAL_CAPACITY];
+	/**
+	 * Nonzero for each row whose times were filled in by
+	 * {@link #interpolateTimes(StopCollection)}, or {@code null} if times
+	 * have not been interpolated.
+	 */
+	byte[] interpolated = null;
+
+	/**
+	 * First row of each trip, indexed by trip index. The extra last element
+	 * holds the number of rows.
+	 */
+	int[] tripStart;
+	/**
+	 * Row of the timepoint whose departure governs each row: the row itself
+	 * if it is a timepoint or its times were interpolated, otherwise the
+	 * nearest timepoint before it on the same trip.
+	 */
+	int[] governingTimepoint;
+	/**
+	 * Offsets into {@link #stopRows} for each stop index. The extra last
+	 * element holds the number of rows.
+	 */
+	int[] stopStart;
+	/**
+	 * Rows grouped by stop index, and ordered by earliest departure time 
+	 * within each stop.
+	 */
+	int[] stopRows;
+	/**
+	 * Earliest departure time of each element of {@link #stopRows}: the
+	 * departure time of the row, or of the previous timepoint of its trip 
+	 * if the row is not a timepoint.
+	 */
+	int[] stopDeparture;
+
+	StopTimeTable(GtfsFile gtfs) {
+		this.gtfs = gtfs;
+	}
+
+	/**
+	 * Reads every remaining record of stop_times.txt.
+	 * @param table tokenizer positioned at the start of stop_times.txt
+	 * @throws IOException if the table cannot be read
+	 * @throws MissingRequiredFieldException if any required fields are missing
+	 * @throws InvalidDataException if any invalid data are found in the table
+	 */
+	void readAll(CsvTokenizer table)
+			throws IOException, MissingRequiredFieldException,
+				InvalidDataException {
+		checkHeader(table.getHeader());
+		int colTripId = requireColumn(table, StopTime.FIELD_NAME_TRIP_ID);
+		int colArrival =
+				requireColumn(table, StopTime.FIELD_NAME_ARRIVAL_TIME);
+		int colDeparture =
+				requireColumn(table, StopTime.FIELD_NAME_DEPARTURE_TIME);
+		int colStopId = requireColumn(table, StopTime.FIELD_NAME_STOP_ID);
+		int colSequence =
+				requireColumn(table, StopTime.FIELD_NAME_STOP_SEQUENCE);
+		int colHeadsign =
+				table.getColumnIndex(StopTime.FIELD_NAME_STOP_HEADSIGN);
+		int colPickup = table.getColumnIndex(StopTime.FIELD_NAME_PICKUP_TYPE);
+		int colDropoff =
+				table.getColumnIndex(StopTime.FIELD_NAME_DROPOFF_TYPE);
+		int colDistance = table.getColumnIndex(
+				StopTime.FIELD_NAME_SHAPE_DIST_TRAVELED);
+		int colTimepoint =
+				table.getColumnIndex(StopTime.FIELD_NAME_TIMEPOINT);
+
+		while (table.next()) {
+			if (this.size == this.trip.length) {
+				this.resize(this.size * 2);
+			}
+			int row = this.size;
+
+			this.trip[row] = this.tripIds.intern(table, colTripId);
+			this.stop[row] = this.stopIds.intern(table, colStopId);
+			this.timepoint[row] = parseTimepoint(table, colTimepoint);
+			this.arrival[row] = parseTime(
+					table, colArrival, StopTime.FIELD_NAME_ARRIVAL_TIME);
+			this.departure[row] = parseTime(
+					table, colDeparture, StopTime.FIELD_NAME_DEPARTURE_TIME);
+			this.pickupType[row] = parsePickupDropoffType(
+					table, colPickup, StopTime.FIELD_NAME_PICKUP_TYPE);
+			this.dropoffType[row] = parsePickupDropoffType(
+					table, colDropoff, StopTime.FIELD_NAME_DROPOFF_TYPE);
+			this.shapeDistance[row] = parseDistance(table, colDistance);
+			this.stopSequence[row] = parseSequence(table, colSequence);
+			this.headsign[row] = (colHeadsign == -1) ? NO_HEADSIGN :
+					this.headsigns.intern(table, colHeadsign);
+
+			this.size++;
+		}
+	}
+
+	/**
+	 * Reads the whole of stop_times.txt by splitting it into ranges of
+	 * records and parsing the ranges at the same time. The result is the
+	 * same as reading the table from start to finish with
+	 * {@link #readAll(CsvTokenizer)}.
+	 * @param buffer the whole of stop_times.txt
+	 * @param pool pool to parse the ranges on
+	 * @throws IOException if the table cannot be read
+	 * @throws InterruptedException if the calling thread is interrupted while
+	 * waiting for the ranges to be parsed
+	 * @throws MissingRequiredFieldException if any required fields are missing
+	 * @throws InvalidDataException if any invalid data are found in the table
+	 */
+	void readAll(ByteBuffer buffer, ForkJoinPool pool)
+			throws IOException, InterruptedException, 
+				MissingRequiredFieldException, InvalidDataException {
+		String[] header;
+		try (CsvTokenizer table = CsvTokenizer.open(buffer)) {
+			header = table.getHeader();
+		}
+		/*
+		 * Report missing columns once, before any work is split up
+		 */
+		checkHeader(header);
+
+		int ranges = Math.max(1, Math.min(
+				pool.getParallelism() * RANGES_PER_THREAD,
+				buffer.remaining() / MIN_RANGE_SIZE));
+		ByteBuffer[] slices = pool.submit(
+				() -> CsvSplitter.split(buffer, ranges)).join();
+
+		StopTimeTable[] parts = new StopTimeTable[slices.length];
+		Exception[] failures = new Exception[slices.length];
+		List<ForkJoinTask<?>> tasks = new ArrayList<>();
+		LoadMeter meter = LoadMeter.current();
+		for (int i = 0; i < slices.length; i++) {
+			final int index = i;
+			parts[index] = new StopTimeTable(this.gtfs);
+			Runnable parse = () -> {
+				try {
+					parts[index].readAll(this.gtfs.monitor(
+							CsvTokenizer.open(slices[index], header)));
+				} catch (IOException | MissingRequiredFieldException | 
+						InvalidDataException ex) {
+					failures[index] = ex;
+				}
+			};
+			tasks.add(pool.submit(
+					(meter == null) ? parse : meter.track(parse)));
+		}
+
+		/*
+		 * Merge in file order, so that record numbers and the order of
+		 * identifiers come out as if the table had been read in one go.
+		 */
+		int recordOffset = 0;
+		try {
+			for (int i = 0; i < parts.length; i++) {
+				tasks.get(i).get();
+				if (failures[i] instanceof InvalidDataException) {
+					InvalidDataException ex = 
+							(InvalidDataException)failures[i];
+					ex.record += recordOffset;
+					throw ex;
+				}
+				if (failures[i] instanceof MissingRequiredFieldException) {
+					throw (MissingRequiredFieldException)failures[i];
+				}
+				if (failures[i] instanceof IOException) {
+					throw (IOException)failures[i];
+				}
+				this.append(parts[i]);
+				recordOffset += parts[i].size;
+				parts[i] = null;
+			}
+		} catch (ExecutionException ex) {
+			Throwable cause = ex.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException)cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error)cause;
+			}
+			throw new IllegalStateException(cause);
+		} finally {
+			for (ForkJoinTask<?> task : tasks) {
+				task.cancel(false);
+			}
+		}
+	}
+
+	/**
+	 * Adds the rows of another table after the rows of this one.
+	 * @param part table which has not been finished
+	 */
+	private void append(StopTimeTable part) {
+		int n = part.size;
+		if (this.size + n > this.trip.length) {
+			this.resize(Math.max(this.size + n, this.trip.length * 2));
+		}
+
+		int[] tripMap = remap(part.tripIds, this.tripIds);
+		int[] stopMap = remap(part.stopIds, this.stopIds);
+		int[] headsignMap = remap(part.headsigns, this.headsigns);
+		for (int i = 0; i < n; i++) {
+			int row = this.size + i;
+			this.trip[row] = tripMap[part.trip[i]];
+			this.stop[row] = stopMap[part.stop[i]];
+			this.headsign[row] = (part.headsign[i] == NO_HEADSIGN) ? 
+					NO_HEADSIGN : headsignMap[part.headsign[i]];
+		}
+		System.arraycopy(part.arrival, 0, this.arrival, this.size, n);
+		System.arraycopy(part.departure, 0, this.departure, this.size, n);
+		System.arraycopy(
+				part.stopSequence, 0, this.stopSequence, this.size, n);
+		System.arraycopy(part.pickupType, 0, this.pickupType, this.size, n);
+		System.arraycopy(
+				part.dropoffType, 0, this.dropoffType, this.size, n);
+		System.arraycopy(part.timepoint, 0, this.timepoint, this.size, n);
+		System.arraycopy(
+				part.shapeDistance, 0, this.shapeDistance, this.size, n);
+		this.size += n;
+	}
+
+	private static int[] remap(IdentifierTable from, IdentifierTable to) {
+		int[] ret = new int[from.size()];
+		for (int i = 0; i < ret.length; i++) {
+			ret[i] = to.intern(from.get(i));
+		}
+		return ret;
+	}
+
+	/**
+	 * Checks that the header of stop_times.txt has every required column.
+	 * @param header names of the columns, trimmed
+	 * @throws MissingRequiredFieldException naming the first required
+	 * column which is missing
+	 */
+	static void checkHeader(String[] header)
+			throws MissingRequiredFieldException {
+		for (String key : REQUIRED_FIELDS) {
+			if (!Arrays.asList(header).contains(key)) {
+				throw new MissingRequiredFieldException(
+						GtfsFile.FILENAME_STOP_TIMES, key);
+			}
+		}
+	}
+
+	private static int requireColumn(CsvTokenizer table, String key)
+			throws MissingRequiredFieldException {
+		int ret = table.getColumnIndex(key);
+		if (ret == -1) {
+			throw new MissingRequiredFieldException(
+					GtfsFile.FILENAME_STOP_TIMES, key);
+		}
+		return ret;
+	}
+
+	private static InvalidDataException invalid(
+			CsvTokenizer table, int col, String key) {
+		return new InvalidDataException(GtfsFile.FILENAME_STOP_TIMES, key,
+				table.getRecordNumber(), table.getData(col));
+	}
+
+	private static byte parseTimepoint(CsvTokenizer table, int col)
+			throws InvalidDataException {
+		if ((col == -1) || table.isFieldEmpty(col) ||
+				table.fieldEquals(col, "1")) {
+			return 1;
+		}
+		if (table.fieldEquals(col, "0")) {
+			return 0;
+		}
+		throw invalid(table, col, StopTime.FIELD_NAME_TIMEPOINT);
+	}
+
+	/**
+	 * Parses a time of the form H:MM:SS or HH:MM:SS.
+	 * @return seconds after noon minus twelve hours, or
+	 * {@link #UNDEFINED_TIME} if the field is empty.
+	 */
+	private static int parseTime(CsvTokenizer table, int col, String key)
+			throws InvalidDataException {
+		int length = table.getFieldLength(col);
+		if (length == 0) {
+			return UNDEFINED_TIME;
+		}
+		if ((length != 7) && (length != 8)) {
+			throw invalid(table, col, key);
+		}
+
+		int hourDigits = length - 6;
+		int hr = 0;
+		for (int i = 0; i < hourDigits; i++) {
+			hr = hr * 10 + digit(table, col, i, key);
+		}
+		if ((table.charAt(col, hourDigits) != ':') ||
+				(table.charAt(col, hourDigits + 3) != ':')) {
+			throw invalid(table, col, key);
+		}
+		int min = digit(table, col, hourDigits + 1, key) * 10 +
+				digit(table, col, hourDigits + 2, key);
+		int sec = digit(table, col, hourDigits + 4, key) * 10 +
+				digit(table, col, hourDigits + 5, key);
+
+		if (min > 59) {
+			throw invalid(table, col, key);
+		}
+		if (sec > 59) {
+			/*
+			 * ignore leap seconds
+			 */
+			throw invalid(table, col, key);
+		}
+		return hr * 3600 + min * 60 + sec - 43200;
+	}
+
+	private static int digit(CsvTokenizer table, int col, int index,
+			String key) throws InvalidDataException {
+		char ch = table.charAt(col, index);
+		if ((ch < '0') || (ch > '9')) {
+			throw invalid(table, col, key);
+		}
+		return ch - '0';
+	}
+
+	private static byte parsePickupDropoffType(CsvTokenizer table, int col,
+			String key) throws InvalidDataException {
+		if ((col == -1) || table.isFieldEmpty(col)) {
+			return (byte)PickupDropoffTypeEnum.REGULARLY_SCHEDULED.ordinal();
+		}
+
+		try {
+			int intValue = table.parseInt(col);
+			if ((intValue < 0) ||
+					(intValue >= PICKUP_DROPOFF_TYPES.length)) {
+				throw invalid(table, col, key);
+			}
+			return (byte)intValue;
+		} catch (NumberFormatException ex) {
+			throw invalid(table, col, key);
+		}
+	}
+
+	private static float parseDistance(CsvTokenizer table, int col)
+			throws InvalidDataException {
+		if ((col == -1) || table.isFieldBlank(col)) {
+			return Float.NaN;
+		}
+		try {
+			return (float)table.parseDouble(col);
+		} catch (NumberFormatException ex) {
+			throw invalid(table, col, StopTime.FIELD_NAME_SHAPE_DIST_TRAVELED);
+		}
+	}
+
+	private static int parseSequence(CsvTokenizer table, int col)
+			throws InvalidDataException {
+		try {
+			return table.parseInt(col);
+		} catch (NumberFormatException ex) {
+			throw invalid(table, col, StopTime.FIELD_NAME_STOP_SEQUENCE);
+		}
+	}
+
+	private void resize(int capacity) {
+		this.trip = Arrays.copyOf(this.trip, capacity);
+		this.stop = Arrays.copyOf(this.stop, capacity);
+		this.arrival = Arrays.copyOf(this.arrival, capacity);
+		this.departure = Arrays.copyOf(this.departure, capacity);
+		this.stopSequence = Arrays.copyOf(this.stopSequence, capacity);
+		this.headsign = Arrays.copyOf(this.headsign, capacity);
+		this.pickupType = Arrays.copyOf(this.pickupType, capacity);
+		this.dropoffType = Arrays.copyOf(this.dropoffType, capacity);
+		this.timepoint = Arrays.copyOf(this.timepoint, capacity);
+		this.shapeDistance = Arrays.copyOf(this.shapeDistance, capacity);
+	}
+
+	/**
+	 * Arranges the rows so that each trip's stop times are contiguous and
+	 * ordered by stop_sequence, trims the columns to size and builds the
+	 * per-stop index.
+	 * @throws TerminalTimepointException if any trip does not both begin
+	 * and end with a timepoint
+	 */
+	void finish() throws TerminalTimepointException {
+		int tripCount = this.tripIds.size();
+
+		/*
+		 * Stable counting sort by trip, keeping file order within a trip
+		 */
+		this.tripStart = new int[tripCount + 1];
+		for (int row = 0; row < this.size; row++) {
+			this.tripStart[this.trip[row] + 1]++;
+		}
+		for (int t = 0; t < tripCount; t++) {
+			this.tripStart[t + 1] += this.tripStart[t];
+		}
+		int[] fill = Arrays.copyOf(this.tripStart, tripCount);
+		int[] order = new int[this.size];
+		for (int row = 0; row < this.size; row++) {
+			order[fill[this.trip[row]]++] = row;
+		}
+
+		for (int t = 0; t < tripCount; t++) {
+			this.sortBySequence(
+					order, this.tripStart[t], this.tripStart[t + 1]);
+		}
+
+		this.permute(order);
+
+		for (int t = 0; t < tripCount; t++) {
+			int first = this.tripStart[t];
+			int last = this.tripStart[t + 1] - 1;
+			if ((this.timepoint[first] == 0) || (this.timepoint[last] == 0)) {
+				throw new TerminalTimepointException(this.tripIds.get(t));
+			}
+		}
+
+		this.buildGoverningTimepoints();
+		this.buildStopIndex();
+	}
+
+	private void sortBySequence(int[] order, int from, int to) {
+		boolean sorted = true;
+		for (int i = from + 1; i < to; i++) {
+			if (this.stopSequence[order[i - 1]] >
+					this.stopSequence[order[i]]) {
+				sorted = false;
+				break;
+			}
+		}
+		if (sorted) {
+			return;
+		}
+
+		/*
+		 * The row number in the low half keeps the sort stable.
+		 */
+		long[] keys = new long[to - from];
+		for (int i = from; i < to; i++) {
+			keys[i - from] = ((long)this.stopSequence[order[i]] << 32) |
+					(order[i] & 0xffffffffL);
+		}
+		Arrays.sort(keys);
+		for (int i = from; i < to; i++) {
+			order[i] = (int)keys[i - from];
+		}
+	}
+
+	private void permute(int[] order) {
+		int n = this.size;
+		this.trip = permute(this.trip, order, n);
+		this.stop = permute(this.stop, order, n);
+		this.arrival = permute(this.arrival, order, n);
+		this.departure = permute(this.departure, order, n);
+		this.stopSequence = permute(this.stopSequence, order, n);
+		this.headsign = permute(this.headsign, order, n);
+
+		byte[] bytes = new byte[n];
+		for (int i = 0; i < n; i++) bytes[i] = this.pickupType[order[i]];
+		this.pickupType = bytes;
+		bytes = new byte[n];
+		for (int i = 0; i < n; i++) bytes[i] = this.dropoffType[order[i]];
+		this.dropoffType = bytes;
+		bytes = new byte[n];
+		for (int i = 0; i < n; i++) bytes[i] = this.timepoint[order[i]];
+		this.timepoint = bytes;
+
+		float[] floats = new float[n];
+		for (int i = 0; i < n; i++) floats[i] = this.shapeDistance[order[i]];
+		this.shapeDistance = floats;
+	}
+
+	private static int[] permute(int[] column, int[] order, int n) {
+		int[] ret = new int[n];
+		for (int i = 0; i < n; i++) {
+			ret[i] = column[order[i]];
+		}
+		return ret;
+	}
+
+	/**
+	 * Finds the governing timepoint of each row. Every trip begins with a
+	 * timepoint, so a row which is not a timepoint is governed by the same
+	 * timepoint as the row before it.
+	 */
+	private void buildGoverningTimepoints() {
+		this.governingTimepoint = new int[this.size];
+		for (int row = 0; row < this.size; row++) {
+			boolean firstOfTrip = (row == 0) ||
+					(this.trip[row] != this.trip[row - 1]);
+			this.governingTimepoint[row] =
+					((this.timepoint[row] != 0) || firstOfTrip) ?
+					row : this.governingTimepoint[row - 1];
+		}
+	}
+
+	/**
+	 * Groups the rows by stop, ordering the rows of each stop by their
+	 * earliest departure time and then by row.
+	 */
+	private void buildStopIndex() {
+		int stopCount = this.stopIds.size();
+		this.stopStart = new int[stopCount + 1];
+		for (int row = 0; row < this.size; row++) {
+			this.stopStart[this.stop[row] + 1]++;
+		}
+		for (int s = 0; s < stopCount; s++) {
+			this.stopStart[s + 1] += this.stopStart[s];
+		}
+
+		long[] keys = new long[this.size];
+		int[] fill = Arrays.copyOf(this.stopStart, stopCount);
+		for (int row = 0; row < this.size; row++) {
+			keys[fill[this.stop[row]]++] =
+					((long)this.departure[this.governingTimepoint[row]] << 32) |
+					(row & 0xffffffffL);
+		}
+		this.stopRows = new int[this.size];
+		this.stopDeparture = new int[this.size];
+		for (int s = 0; s < stopCount; s++) {
+			Arrays.sort(keys, this.stopStart[s], this.stopStart[s + 1]);
+		}
+		for (int i = 0; i < this.size; i++) {
+			this.stopRows[i] = (int)keys[i];
+			this.stopDeparture[i] = (int)(keys[i] >> 32);
+		}
+	}
+
+	/**
+	 * Fills in the times of rows which have neither an arrival nor a 
+	 * departure time. The times between the nearest rows of the same trip
+	 * which do have times are shared out in proportion to the distance 
+	 * travelled, which is taken from shape_dist_traveled if every row in 
+	 * between has it, and otherwise from the great-circle distances between 
+	 * the stops. Where neither gives a distance, the stops are spaced evenly
+	 * in time. Each row filled in governs its own departure, so that
+	 * queries use its interpolated time rather than that of the timepoint
+	 * before it. Does nothing if times have already been interpolated.
+	 * @param stops stops of the feed
+	 */
+	void interpolateTimes(StopCollection stops) {
+		if (this.interpolated != null) {
+			return;
+		}
+
+		int stopCount = this.stopIds.size();
+		double[] lat = new double[stopCount];
+		double[] lon = new double[stopCount];
+		for (int s = 0; s < stopCount; s++) {
+			Stop st = stops.getStopById(this.stopIds.get(s));
+			lat[s] = (st == null) ? Double.NaN : st.getLatitude();
+			lon[s] = (st == null) ? Double.NaN : st.getLongitude();
+		}
+
+		byte[] flags = new byte[this.size];
+		for (int t = 0; t < this.getTripCount(); t++) {
+			int previous = -1;
+			for (int row = this.tripStart[t]; 
+					row < this.tripStart[t + 1]; row++) {
+				if ((this.arrival[row] == UNDEFINED_TIME) && 
+						(this.departure[row] == UNDEFINED_TIME)) {
+					continue;
+				}
+				if ((previous != -1) && (row > previous + 1)) {
+					this.interpolateGap(previous, row, lat, lon, flags);
+				}
+				previous = row;
+			}
+		}
+
+		for (int row = 0; row < this.size; row++) {
+			if (flags[row] != 0) {
+				this.governingTimepoint[row] = row;
+			}
+		}
+		this.interpolated = flags;
+		this.buildStopIndex();
+	}
+
+	/**
+	 * Interpolates the times of the rows strictly between two rows of the 
+	 * same trip which have times.
+	 */
+	private void interpolateGap(int from, int to, double[] lat, double[] lon,
+			byte[] flags) {
+		int start = (this.departure[from] != UNDEFINED_TIME) ? 
+				this.departure[from] : this.arrival[from];
+		int end = (this.arrival[to] != UNDEFINED_TIME) ? 
+				this.arrival[to] : this.departure[to];
+
+		/*
+		 * Cumulative distance from the first row
+		 */
+		double[] distance = new double[to - from + 1];
+		boolean useShape = true;
+		for (int row = from; row <= to; row++) {
+			if (Float.isNaN(this.shapeDistance[row]) || ((row > from) &&
+					(this.shapeDistance[row] < this.shapeDistance[row - 1]))) {
+				useShape = false;
+				break;
+			}
+		}
+		for (int row = from + 1; row <= to; row++) {
+			double leg;
+			if (useShape) {
+				leg = this.shapeDistance[row] - this.shapeDistance[row - 1];
+			}
+			else {
+				int a = this.stop[row - 1];
+				int b = this.stop[row];
+				leg = GreatCircle.distance(lat[a], lon[a], lat[b], lon[b]);
+			}
+			distance[row - from] = distance[row - from - 1] + leg;
+		}
+
+		double total = distance[to - from];
+		boolean even = Double.isNaN(total) || (total <= 0);
+		for (int row = from + 1; row < to; row++) {
+			double fraction = even ? 
+					(double)(row - from) / (to - from) : 
+					distance[row - from] / total;
+			int time = start + (int)Math.round((end - start) * fraction);
+			this.arrival[row] = time;
+			this.departure[row] = time;
+			flags[row] = 1;
+		}
+	}
+
+	/**
+	 * Removes the times filled in by {@link #interpolateTimes(StopCollection)},
+	 * if any, and lets the timepoints govern those rows again.
+	 */
+	void clearInterpolatedTimes() {
+		if (this.interpolated == null) {
+			return;
+		}
+
+		for (int row = 0; row < this.size; row++) {
+			if (this.interpolated[row] != 0) {
+				this.arrival[row] = UNDEFINED_TIME;
+				this.departure[row] = UNDEFINED_TIME;
+			}
+		}
+		this.interpolated = null;
+		this.buildGoverningTimepoints();
+		this.buildStopIndex();
+	}
+
+	/**
+	 * Replaces the trip and stop ids of this table with the instances shared
+	 * through the feed's dictionary. The table keeps its own dense indices,
+	 * which are those of the trips and stops that have stop times.
+	 * @param ids dictionary of the feed's identifiers
+	 */
+	void shareIdentifiers(IdentifierDictionary ids) {
+		ids.share(IdentifierDictionary.Kind.TRIP, this.tripIds);
+		ids.share(IdentifierDictionary.Kind.STOP, this.stopIds);
+	}
+
+	/**
+	 * Finds the stop indices of a stop, or of a station and the stops in
+	 * it, leaving out any which have no stop times.
+	 * @param stop stop or station, or {@code null}
+	 * @return the indices, which are empty if stop is {@code null}
+	 */
+	int[] indicesOf(Stop stop) {
+		if (stop == null) {
+			return new int[0];
+		}
+
+		List<Stop> stops = new ArrayList<>();
+		stops.add(stop);
+		if (stop instanceof Station) {
+			Iterator<Stop> it = ((Station)stop).getStopIterator();
+			while (it.hasNext()) {
+				stops.add(it.next());
+			}
+		}
+		int[] ret = new int[stops.size()];
+		int count = 0;
+		for (Stop candidate : stops) {
+			int index = this.stopIds.indexOf(candidate.getStopId());
+			if (index != -1) {
+				ret[count++] = index;
+			}
+		}
+		return Arrays.copyOf(ret, count);
+	}
+
+	/**
+	 * Gets the number of trips which have stop times.
+	 * @return
+	 */
+	int getTripCount() {
+		return this.tripIds.size();
+	}
+
+	/**
+	 * Gets the position of a row within its trip, counting from zero.
+	 * @param row
+	 * @return
+	 */
+	int getPositionInTrip(int row) {
+		return row - this.tripStart[this.trip[row]];
+	}
+
+	/**
+	 * Gets the trip index which owns a row.
+	 * @param row
+	 * @return
+	 */
+	int getTripOf(int row) {
+		return this.trip[row];
+	}
+}
@@ -0,0 +1,89 @@
+/*
+ * SwingWorkerLoadListener.java
+ * General Transit Feed Specification
+ *
+ * Copyright 2016 Kevin J. Burns
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Revision Log:
+ *   2026-10-16  Basic functionality
+ */
+package com.github.kjburns.gtfs;
+
+import javax.swing.SwingWorker;
+
+/**
+ * Reports the progress of a load to a {@link SwingWorker}, through its
+ * "progress" property, as the share of phases finished. This is the
+ * listener used for the worker passed to
+ * {@link GtfsFile#GtfsFile(String, SwingWorker, GtfsLoadOptions)}.
+ * @author Kevin J. Burns
+ *
+ */
+public class SwingWorkerLoadListener implements GtfsLoadListener {
+	private final SwingWorker<?, ?> worker;
+	private final int minProgress;
+	private final int maxProgress;
+	private int phaseCount = 1;
+	private int finished = 0;
+	private int progress;
+
+	/**
+	 * Creates a listener which reports progress from 0 to 100.
+	 * @param worker worker thread to report to
+	 */
+	public SwingWorkerLoadListener(SwingWorker<?, ?> worker) {
+		this(worker, 0, 100);
+	}
+
+	/**
+	 * Creates a listener which reports progress within the range you
+	 * specify.
+	 * @param worker worker thread to report to
+	 * @param minProgress progress reported when the load starts
+	 * @param maxProgress progress reported when the load finishes
+	 */
+	public SwingWorkerLoadListener(SwingWorker<?, ?> worker,
+			int minProgress, int maxProgress) {
+		this.worker = worker;
+		this.minProgress = minProgress;
+		this.maxProgress = maxProgress;
+		this.progress = minProgress;
+	}
+
+	@Override
+	public synchronized void loadStarted(String path, int phaseCount) {
+		this.phaseCount = Math.max(1, phaseCount);
+		this.finished = 0;
+		this.report(this.minProgress);
+	}
+
+	@Override
+	public synchronized void phaseFinished(GtfsLoadEvent event) {
+		this.finished = Math.min(this.finished + 1, this.phaseCount);
+		this.report(this.minProgress + this.finished *
+				(this.maxProgress - this.minProgress) / this.phaseCount);
+	}
+
+	@Override
+	public synchronized void loadFinished(long elapsedNanos) {
+		this.report(this.maxProgress);
+	}
+
+	private void report(int newProgress) {
+		int oldProgress = this.progress;
+		this.progress = newProgress;
+		this.worker.firePropertyChange("progress", oldProgress, newProgress);
+	}
+}
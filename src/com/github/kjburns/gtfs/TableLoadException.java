@@ -0,0 +1,50 @@
+/*
+ * TableLoadException.java
+ * General Transit Feed Specification
+ *
+ * Copyright 2016 Kevin J. Burns
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Revision Log:
+ *   2026-10-16  Basic functionality
+ */
+package com.github.kjburns.gtfs;
+
+/**
+ * Thrown by the accessors of a {@link GtfsFile} loaded lazily (see
+ * {@link GtfsLoadOptions#setLazyLoading(boolean)}) when a table they need
+ * cannot be loaded. The cause is the exception which the constructor of
+ * {@link GtfsFile} would have thrown had the table been loaded eagerly.
+ * @author Kevin J. Burns
+ *
+ */
+public class TableLoadException extends RuntimeException {
+	private static final long serialVersionUID = -3270745165418915094L;
+
+	/**
+	 * the table, or other step of loading, which failed. This may be a 
+	 * table needed by the one which was asked for.
+	 */
+	public String filename;
+
+	TableLoadException(String filename, Throwable cause) {
+		super(cause);
+		this.filename = filename;
+	}
+
+	@Override
+	public String toString() {
+		return "Loading " + filename + ": " + this.getCause();
+	}
+}
@@ -0,0 +1,302 @@
+/*
+ * TableLoadGraph.java
+ * General Transit Feed Specification
+ *
+ * Copyright 2016 Kevin J. Burns
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Revision Log:
+ *   2026-10-16  Basic functionality
+ *   2026-10-16  Run single steps on demand
+ *   2026-10-16  Number of steps
+ *   2026-10-16  Stop queued steps and wait for running ones when the
+ *               caller is interrupted
+ */
+package com.github.kjburns.gtfs;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+
+/**
+ * A set of table-loading steps and the dependencies between them. Steps
+ * with no path between them in the graph may run at the same time.
+ * <p>
+ * When any steps fail, the failure of the step which was added first is
+ * thrown, and the failures of the others are attached to it as suppressed
+ * exceptions. Steps which depend on a failed step are not run.
+ * </p>
+ * <p>
+ * Alternatively, steps may be run one at a time, when they are needed,
+ * through {@link #load(String)}.
+ * </p>
+ * @author Kevin J. Burns
+ *
+ */
+class TableLoadGraph {
+	/**
+	 * A unit of loading work, typically the parsing of one table.
+	 */
+	interface Step {
+		void run() throws Exception;
+	}
+
+	private class Node {
+		private final String name;
+		private final Step step;
+		private final List<Node> dependencies = new ArrayList<>();
+		private volatile Throwable failure = null;
+		private CompletableFuture<Void> future = null;
+		private volatile boolean done = false;
+		/**
+		 * Whether the step is being run by {@link #load()}; guarded by the
+		 * node's lock
+		 */
+		private boolean running = false;
+
+		Node(String name, Step step) {
+			this.name = name;
+			this.step = step;
+		}
+
+		void execute() {
+			if (TableLoadGraph.this.abandoned) {
+				throw new StepFailedException(this.name);
+			}
+			try {
+				this.step.run();
+			} catch (Throwable ex) {
+				this.failure = ex;
+				throw new StepFailedException(this.name);
+			}
+		}
+
+		void load() {
+			if (this.done) {
+				return;
+			}
+			for (Node dependency : this.dependencies) {
+				dependency.load();
+			}
+			synchronized (this) {
+				if (this.running) {
+					/*
+					 * The step has asked for itself
+					 */
+					throw new IllegalStateException(this.name);
+				}
+				if (!this.done && (this.failure == null)) {
+					this.running = true;
+					try {
+						this.step.run();
+						this.done = true;
+					} catch (Throwable ex) {
+						this.failure = ex;
+					} finally {
+						this.running = false;
+					}
+				}
+			}
+
+			Throwable failure = this.failure;
+			if (failure instanceof RuntimeException) {
+				throw (RuntimeException)failure;
+			}
+			if (failure instanceof Error) {
+				throw (Error)failure;
+			}
+			if (failure != null) {
+				throw new TableLoadException(this.name, failure);
+			}
+		}
+	}
+
+	/**
+	 * Marks the completion of a step which failed; the actual failure is
+	 * kept by the node.
+	 */
+	private static class StepFailedException extends RuntimeException {
+		private static final long serialVersionUID = 1L;
+
+		StepFailedException(String name) {
+			super(name);
+		}
+	}
+
+	private final List<Node> nodes = new ArrayList<>();
+	/**
+	 * Set when {@link #run(Executor)} is interrupted, so that steps which
+	 * have not started yet are not run
+	 */
+	private volatile boolean abandoned = false;
+	private final HashMap<String, Node> nodesByName = new HashMap<>();
+
+	/**
+	 * Adds a step to the graph. Since dependencies must already have been
+	 * added, the order in which steps are added is always a valid
+	 * sequential order.
+	 * @param name unique name of the step, usually the table name
+	 * @param step work to perform
+	 * @param dependencies names of steps which must finish successfully
+	 * before this one starts
+	 * @throws IllegalArgumentException if the name is already used or a
+	 * dependency is unknown
+	 */
+	void add(String name, Step step, String... dependencies) {
+		if (this.nodesByName.containsKey(name)) {
+			throw new IllegalArgumentException(name);
+		}
+		Node node = new Node(name, step);
+		for (String dependency : dependencies) {
+			Node other = this.nodesByName.get(dependency);
+			if (other == null) {
+				throw new IllegalArgumentException(dependency);
+			}
+			node.dependencies.add(other);
+		}
+		this.nodes.add(node);
+		this.nodesByName.put(name, node);
+	}
+
+	/**
+	 * Runs a step, after its dependencies, unless it has already run. Steps
+	 * may be asked for by several threads at once: each step runs only once,
+	 * and a thread which asks for a step while another thread is running it
+	 * waits for it to finish. A step which failed is not run again; each 
+	 * later request fails in the same way.
+	 * @param name name of the step
+	 * @throws TableLoadException if the step or one of its dependencies 
+	 * failed with a checked exception, which is given as the cause. Other
+	 * failures are thrown as they are.
+	 * @throws IllegalArgumentException if there is no such step
+	 */
+	void load(String name) {
+		Node node = this.nodesByName.get(name);
+		if (node == null) {
+			throw new IllegalArgumentException(name);
+		}
+		node.load();
+	}
+
+	/**
+	 * @return the number of steps in the graph
+	 */
+	int getStepCount() {
+		return this.nodes.size();
+	}
+
+	/**
+	 * Determines whether every step has been run by {@link #load(String)}.
+	 * @return
+	 */
+	boolean isComplete() {
+		for (Node node : this.nodes) {
+			if (!node.done) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Runs every step.
+	 * @param executor executor to run the steps on, or {@code null} to run
+	 * them one after another on the calling thread
+	 * @throws InterruptedException if the calling thread is interrupted while
+	 * waiting for the steps to finish. Steps which have not started are
+	 * then not run, and the steps already running are waited for, so that
+	 * none is still running when this method returns.
+	 * @throws Exception the failure of the earliest-added step that failed
+	 */
+	void run(Executor executor) throws Exception {
+		if (executor == null) {
+			for (Node node : this.nodes) {
+				node.step.run();
+			}
+			return;
+		}
+
+		for (Node node : this.nodes) {
+			CompletableFuture<?>[] prerequisites =
+					new CompletableFuture<?>[node.dependencies.size()];
+			for (int i = 0; i < prerequisites.length; i++) {
+				prerequisites[i] = node.dependencies.get(i).future;
+			}
+			node.future = CompletableFuture.allOf(prerequisites)
+					.thenRunAsync(node::execute, executor);
+		}
+
+		try {
+			CompletableFuture.allOf(this.nodes.stream()
+					.map((node) -> node.future)
+					.toArray(CompletableFuture<?>[]::new))
+				.get();
+		} catch (ExecutionException ex) {
+			/*
+			 * The individual failures are collected below
+			 */
+		} catch (InterruptedException ex) {
+			this.abandoned = true;
+			this.awaitAll();
+			throw ex;
+		}
+
+		Throwable first = null;
+		for (Node node : this.nodes) {
+			Throwable failure = node.failure;
+			if (failure == null) {
+				continue;
+			}
+			if (first == null) {
+				first = failure;
+			}
+			else {
+				first.addSuppressed(failure);
+			}
+		}
+
+		if (first instanceof Exception) {
+			throw (Exception)first;
+		}
+		if (first instanceof Error) {
+			throw (Error)first;
+		}
+	}
+
+	/**
+	 * Waits for every step started by {@link #run(Executor)} to finish,
+	 * ignoring interrupts and failures. Steps which have not started fail
+	 * at once, since the graph has been abandoned.
+	 */
+	private void awaitAll() {
+		for (Node node : this.nodes) {
+			while (true) {
+				try {
+					node.future.get();
+					break;
+				} catch (InterruptedException ex) {
+					/*
+					 * Keep waiting; the caller is already being interrupted
+					 */
+				} catch (ExecutionException | CancellationException ex) {
+					break;
+				}
+			}
+		}
+	}
+}
@@ -18,61 +18,127 @@
  *  
  * Revision Log:
  *   2016-05-11  Basic functionality
+ *   2026-10-16  Store points in packed fixed-point arrays; bulk accessors
+ *   2026-10-16  Linear referencing by distance along the shape
  */
 package com.github.kjburns.gtfs;
 
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.Iterator;
-import java.util.List;
+import java.util.NoSuchElementException;
 
 /**
  * A shape as described in shapes.txt. So named to avoid ambiguity with
  * java.awt.shape.
  * <p>
- * Because shape points are required to have sequencing markers, this class
- * puts points in their proper sequence as they are added.
+ * Because shape points are required to have sequencing markers, the points
+ * of a shape are put in their proper sequence when the shape is built, in
+ * the order of {@link TransitShapePoint#defaultSorter}. Points with equal
+ * sequence numbers keep the order in which they were read.
+ * </p>
+ * <p>
+ * Points are not kept as objects. Their coordinates are held in arrays of
+ * fixed-point integers, in units of {@link #COORDINATE_SCALE}<sup>-1</sup>
+ * degrees (about a centimeter), alongside arrays of sequence numbers and 
+ * distances traveled. {@link #getIterator()} creates a 
+ * {@link TransitShapePoint} for each point as it goes; code which reads 
+ * many points, such as for drawing, should use the indexed and bulk 
+ * accessors instead.
+ * </p>
+ * <p>
+ * Each point also has a measure: its distance along the shape. When every
+ * point has a shape_dist_traveled, the measure is shape_dist_traveled, in
+ * the units of the feed, so that it can be compared with 
+ * {@link StopTime#getShapeDistanceTraveled()}. Otherwise the measure is 
+ * the great-circle distance in meters from the first point. Measures are
+ * computed when the shape is built, and positions along the shape are 
+ * found from them by binary search.
  * </p>
  * 
  * @author Kevin J. Burns
  *
  */
 public class TransitShape {
-	private List<TransitShapePoint> points = new ArrayList<>();
+	/**
+	 * Number of fixed-point units per degree of latitude or longitude.
+	 */
+	public static final double COORDINATE_SCALE = 1e7;
+	
 	private String shapeId;
+	private int[] lat;
+	private int[] lon;
+	private int[] sequence;
+	/**
+	 * shape_dist_traveled of each point, or {@code null} if no point of this 
+	 * shape has one
+	 */
+	private double[] distance;
+	/**
+	 * Distance along the shape of each point, never decreasing
+	 */
+	private double[] measure;
+	private boolean measuredByDistance;
 	
 	/**
 	 * Constructor.
 	 * @param id shape_id for this shape
+	 * @param lat fixed-point latitudes, in sequence
+	 * @param lon fixed-point longitudes, in sequence
+	 * @param sequence sequence numbers, in ascending order
+	 * @param distance distances traveled, with {@link Double#NaN} where not
+	 * defined, or {@code null} if none are defined
 	 */
-	TransitShape(String id) {
+	TransitShape(String id, int[] lat, int[] lon, int[] sequence, 
+			double[] distance) {
 		this.shapeId = id;
+		this.lat = lat;
+		this.lon = lon;
+		this.sequence = sequence;
+		this.distance = distance;
+		this.measure = this.computeMeasures();
 	}
 	
-	/**
-	 * Adds a single point to this shape.
-	 * @param pt point to add
-	 */
-	void add(TransitShapePoint pt) {
-		this.points.add(pt);
+	private double[] computeMeasures() {
+		int n = this.getPointCount();
+		boolean complete = (this.distance != null);
+		for (int i = 0; complete && (i < n); i++) {
+			complete = !Double.isNaN(this.distance[i]);
+		}
+		
+		this.measuredByDistance = complete;
+		if (complete) {
+			/*
+			 * Distances which go backwards are not valid, but are held at
+			 * the greatest distance so far to keep the search working
+			 */
+			double[] ret = this.distance;
+			for (int i = 1; i < n; i++) {
+				if (ret[i] < ret[i - 1]) {
+					if (ret == this.distance) {
+						ret = this.distance.clone();
+					}
+					ret[i] = ret[i - 1];
+				}
+			}
+			return ret;
+		}
 		
-		Collections.sort(this.points, TransitShapePoint.defaultSorter);
+		double[] ret = new double[n];
+		for (int i = 1; i < n; i++) {
+			ret[i] = ret[i - 1] + GreatCircle.distance(
+					this.getLatitude(i - 1), this.getLongitude(i - 1), 
+					this.getLatitude(i), this.getLongitude(i));
+		}
+		return ret;
 	}
 	
 	/**
-	 * Adds a collection of points to this shape.
-	 * <p>
-	 * Calling this method (rather than calling {@link #add(TransitShapePoint)}
-	 * repetitively) is preferable so that the list of points is only sorted
-	 * once.
-	 * </p>
-	 * @param pts
+	 * Converts degrees of latitude or longitude to fixed-point units.
+	 * @param degrees
+	 * @return
 	 */
-	void addAll(Collection<TransitShapePoint> pts) {
-		this.points.addAll(pts);
-		
-		Collections.sort(this.points, TransitShapePoint.defaultSorter);
+	static int toFixedPoint(double degrees) {
+		return (int)Math.round(degrees * COORDINATE_SCALE);
 	}
 	
 	/**
@@ -80,7 +146,7 @@ public class TransitShape {
 	 * @return
 	 */
 	public int getPointCount() {
-		return this.points.size();
+		return this.lat.length;
 	}
 	
 	/**
@@ -88,7 +154,343 @@ public class TransitShape {
 	 * @return
 	 */
 	public Iterator<TransitShapePoint> getIterator() {
-		return this.points.iterator();
+		return new Iterator<TransitShapePoint>() {
+			private int next = 0;
+			
+			@Override
+			public boolean hasNext() {
+				return this.next < TransitShape.this.getPointCount();
+			}
+
+			@Override
+			public TransitShapePoint next() {
+				if (!this.hasNext()) {
+					throw new NoSuchElementException();
+				}
+				return TransitShape.this.getPoint(this.next++);
+			}
+		};
+	}
+	
+	/**
+	 * Gets a point of this shape.
+	 * @param index position of the point in the shape, from 0
+	 * @return a new object describing the point
+	 * @throws IndexOutOfBoundsException if there is no such point
+	 */
+	public TransitShapePoint getPoint(int index) {
+		return new TransitShapePoint(this.shapeId, this.getLatitude(index), 
+				this.getLongitude(index), this.sequence[index], 
+				this.getDistanceTraveled(index));
+	}
+	
+	/**
+	 * Gets the latitude of a point of this shape.
+	 * @param index position of the point in the shape, from 0
+	 * @return latitude in degrees
+	 * @throws IndexOutOfBoundsException if there is no such point
+	 */
+	public double getLatitude(int index) {
+		return this.lat[index] / COORDINATE_SCALE;
+	}
+	
+	/**
+	 * Gets the longitude of a point of this shape.
+	 * @param index position of the point in the shape, from 0
+	 * @return longitude in degrees
+	 * @throws IndexOutOfBoundsException if there is no such point
+	 */
+	public double getLongitude(int index) {
+		return this.lon[index] / COORDINATE_SCALE;
+	}
+	
+	/**
+	 * Gets the shape_pt_sequence of a point of this shape.
+	 * @param index position of the point in the shape, from 0
+	 * @return
+	 * @throws IndexOutOfBoundsException if there is no such point
+	 */
+	public int getSequence(int index) {
+		return this.sequence[index];
+	}
+	
+	/**
+	 * Gets the shape_dist_traveled of a point of this shape.
+	 * @param index position of the point in the shape, from 0
+	 * @return the distance, or {@link Double#NaN} if not defined
+	 * @throws IndexOutOfBoundsException if there is no such point
+	 */
+	public double getDistanceTraveled(int index) {
+		if (this.distance == null) {
+			if ((index < 0) || (index >= this.getPointCount())) {
+				throw new IndexOutOfBoundsException(Integer.toString(index));
+			}
+			return Double.NaN;
+		}
+		return this.distance[index];
+	}
+	
+	/**
+	 * Determines whether any point of this shape has a shape_dist_traveled.
+	 * @return
+	 */
+	public boolean hasDistanceTraveled() {
+		return this.distance != null;
+	}
+	
+	/**
+	 * Determines whether the measures of this shape are its 
+	 * shape_dist_traveled values, rather than distances in meters.
+	 * @return
+	 */
+	public boolean isMeasuredByDistanceTraveled() {
+		return this.measuredByDistance;
+	}
+	
+	/**
+	 * Gets the distance of a point along this shape. See the class 
+	 * description for its units.
+	 * @param index position of the point in the shape, from 0
+	 * @return
+	 * @throws IndexOutOfBoundsException if there is no such point
+	 */
+	public double getMeasure(int index) {
+		return this.measure[index];
+	}
+	
+	/**
+	 * Gets the measure of the last point of this shape.
+	 * @return
+	 */
+	public double getEndMeasure() {
+		return this.measure[this.measure.length - 1];
+	}
+	
+	/**
+	 * Finds the segment of this shape on which a distance falls. Segment i
+	 * runs from point i to point i + 1.
+	 * @param distance distance along the shape
+	 * @return the last segment starting at or before the distance, or 0 if
+	 * there is none; -1 if this shape has only one point
+	 */
+	public int getSegmentAt(double distance) {
+		int n = this.getPointCount();
+		if (n < 2) {
+			return -1;
+		}
+		/*
+		 * First point beyond the distance
+		 */
+		int lo = 0;
+		int hi = n;
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if (this.measure[mid] <= distance) {
+				lo = mid + 1;
+			}
+			else {
+				hi = mid;
+			}
+		}
+		return Math.max(0, Math.min(lo - 1, n - 2));
+	}
+	
+	/**
+	 * Finds the position and heading at a distance along this shape, such 
+	 * as a vehicle's position from {@link StopTime#getShapeDistanceTraveled()}.
+	 * Distances before the start or past the end of the shape are taken as
+	 * the start or end.
+	 * @param distance distance along the shape
+	 * @return
+	 * @throws IllegalArgumentException if distance is {@link Double#NaN}
+	 */
+	public ShapeLocation getLocationAt(double distance) {
+		if (Double.isNaN(distance)) {
+			throw new IllegalArgumentException();
+		}
+		distance = Math.max(this.measure[0], 
+				Math.min(distance, this.getEndMeasure()));
+		int segment = this.getSegmentAt(distance);
+		if (segment < 0) {
+			return new ShapeLocation(this.getLatitude(0), 
+					this.getLongitude(0), Double.NaN, distance, segment);
+		}
+		
+		double span = this.measure[segment + 1] - this.measure[segment];
+		double t = (span > 0) ? (distance - this.measure[segment]) / span : 0;
+		double lat0 = this.getLatitude(segment);
+		double lon0 = this.getLongitude(segment);
+		double lat = lat0 + t * (this.getLatitude(segment + 1) - lat0);
+		/*
+		 * Go the short way around if the segment crosses the 180th meridian
+		 */
+		double dLon = this.getLongitude(segment + 1) - lon0;
+		if (dLon > 180) {
+			dLon -= 360;
+		}
+		else if (dLon < -180) {
+			dLon += 360;
+		}
+		double lon = lon0 + t * dLon;
+		if (lon > 180) {
+			lon -= 360;
+		}
+		else if (lon < -180) {
+			lon += 360;
+		}
+		return new ShapeLocation(lat, lon, this.getHeading(segment), 
+				distance, segment);
+	}
+	
+	/**
+	 * Gets the heading of a segment. A segment whose points coincide takes
+	 * the heading of the nearest segment after it, or failing that, before
+	 * it, whose points do not.
+	 * @param segment
+	 * @return degrees clockwise from north, or {@link Double#NaN} if every
+	 * point of the shape is in the same place
+	 */
+	private double getHeading(int segment) {
+		int n = this.getPointCount();
+		for (int i = segment; i < n - 1; i++) {
+			if (!this.coincide(i)) {
+				return this.bearing(i);
+			}
+		}
+		for (int i = segment - 1; i >= 0; i--) {
+			if (!this.coincide(i)) {
+				return this.bearing(i);
+			}
+		}
+		return Double.NaN;
+	}
+	
+	private boolean coincide(int segment) {
+		return (this.lat[segment] == this.lat[segment + 1]) && 
+				(this.lon[segment] == this.lon[segment + 1]);
+	}
+	
+	private double bearing(int segment) {
+		return GreatCircle.bearing(
+				this.getLatitude(segment), this.getLongitude(segment), 
+				this.getLatitude(segment + 1), this.getLongitude(segment + 1));
+	}
+	
+	/**
+	 * Gets the part of this shape between two distances along it, such as
+	 * between the {@link StopTime#getShapeDistanceTraveled()} of two stops.
+	 * The section shares the points of this shape rather than copying them.
+	 * Distances before the start or past the end of the shape are taken as
+	 * the start or end.
+	 * @param from distance at which the section starts
+	 * @param to distance at which the section ends
+	 * @return
+	 * @throws IllegalArgumentException if from is greater than to, or 
+	 * either is {@link Double#NaN}
+	 */
+	public ShapeSection getSection(double from, double to) {
+		if (!(from <= to)) {
+			throw new IllegalArgumentException(from + " > " + to);
+		}
+		ShapeLocation start = this.getLocationAt(from);
+		ShapeLocation end = this.getLocationAt(to);
+		
+		/*
+		 * Points strictly between the two ends
+		 */
+		int first = start.getSegment() + 1;
+		while ((first < this.getPointCount()) && 
+				(this.measure[first] <= start.getDistance())) {
+			first++;
+		}
+		int last = end.getSegment();
+		while ((last >= 0) && (this.measure[last] >= end.getDistance())) {
+			last--;
+		}
+		return new ShapeSection(this, start, end, first, 
+				Math.max(first, last + 1));
+	}
+	
+	/**
+	 * Copies the measures of a run of points into an array.
+	 * @param from position of the first point to copy
+	 * @param to position after the last point to copy
+	 * @param dest array to copy into
+	 * @param destPos position in dest of the first point's measure
+	 * @throws IndexOutOfBoundsException if the points do not exist or dest
+	 * is too short to hold them
+	 */
+	public void getMeasures(int from, int to, double[] dest, int destPos) {
+		this.checkRange(from, to, dest.length, destPos, 1);
+		System.arraycopy(this.measure, from, dest, destPos, to - from);
+	}
+	
+	/**
+	 * Copies the coordinates of a run of points into an array, as pairs of
+	 * latitude and longitude in degrees.
+	 * @param from position of the first point to copy
+	 * @param to position after the last point to copy
+	 * @param dest array to copy into
+	 * @param destPos position in dest of the latitude of the first point
+	 * @throws IndexOutOfBoundsException if the points do not exist or dest
+	 * is too short to hold them
+	 */
+	public void getCoordinates(int from, int to, double[] dest, int destPos) {
+		this.checkRange(from, to, dest.length, destPos, 2);
+		for (int i = from, j = destPos; i < to; i++, j += 2) {
+			dest[j] = this.lat[i] / COORDINATE_SCALE;
+			dest[j + 1] = this.lon[i] / COORDINATE_SCALE;
+		}
+	}
+	
+	/**
+	 * Copies the coordinates of a run of points into an array, as pairs of
+	 * fixed-point latitude and longitude, without converting them. Divide 
+	 * by {@link #COORDINATE_SCALE} to get degrees.
+	 * @param from position of the first point to copy
+	 * @param to position after the last point to copy
+	 * @param dest array to copy into
+	 * @param destPos position in dest of the latitude of the first point
+	 * @throws IndexOutOfBoundsException if the points do not exist or dest
+	 * is too short to hold them
+	 */
+	public void getFixedPointCoordinates(int from, int to, int[] dest, 
+			int destPos) {
+		this.checkRange(from, to, dest.length, destPos, 2);
+		for (int i = from, j = destPos; i < to; i++, j += 2) {
+			dest[j] = this.lat[i];
+			dest[j + 1] = this.lon[i];
+		}
+	}
+	
+	/**
+	 * Copies the shape_dist_traveled of a run of points into an array.
+	 * @param from position of the first point to copy
+	 * @param to position after the last point to copy
+	 * @param dest array to copy into; {@link Double#NaN} is copied for 
+	 * points with no distance
+	 * @param destPos position in dest of the first point's distance
+	 * @throws IndexOutOfBoundsException if the points do not exist or dest
+	 * is too short to hold them
+	 */
+	public void getDistancesTraveled(int from, int to, double[] dest, 
+			int destPos) {
+		this.checkRange(from, to, dest.length, destPos, 1);
+		if (this.distance == null) {
+			Arrays.fill(dest, destPos, destPos + to - from, Double.NaN);
+		}
+		else {
+			System.arraycopy(this.distance, from, dest, destPos, to - from);
+		}
+	}
+	
+	private void checkRange(int from, int to, int destLength, int destPos, 
+			int width) {
+		if ((from < 0) || (to > this.getPointCount()) || (from > to) ||
+				(destPos < 0) || 
+				((long)destPos + (long)(to - from) * width > destLength)) {
+			throw new IndexOutOfBoundsException();
+		}
 	}
 
 	/**
@@ -97,4 +499,102 @@ public class TransitShape {
 	public String getShapeId() {
 		return this.shapeId;
 	}
+	
+	/**
+	 * Gathers the points of a shape in any order, then builds the shape.
+	 * @author Kevin J. Burns
+	 *
+	 */
+	static class Builder {
+		private final String shapeId;
+		private int count = 0;
+		private int[] lat = new int[16];
+		private int[] lon = new int[16];
+		private int[] sequence = new int[16];
+		private double[] distance = null;
+		
+		/**
+		 * Constructor.
+		 * @param shapeId shape_id for the shape
+		 */
+		Builder(String shapeId) {
+			this.shapeId = shapeId;
+		}
+		
+		/**
+		 * Adds a point.
+		 * @param pt
+		 */
+		void add(TransitShapePoint pt) {
+			this.add(pt.getLat(), pt.getLon(), pt.getSequence(), 
+					pt.getDistanceTraveled());
+		}
+		
+		/**
+		 * Adds a point.
+		 * @param lat latitude in degrees
+		 * @param lon longitude in degrees
+		 * @param sequence shape_pt_sequence
+		 * @param distance shape_dist_traveled, or {@link Double#NaN} if not 
+		 * defined
+		 */
+		void add(double lat, double lon, int sequence, double distance) {
+			if (this.count == this.lat.length) {
+				int capacity = this.count * 2;
+				this.lat = Arrays.copyOf(this.lat, capacity);
+				this.lon = Arrays.copyOf(this.lon, capacity);
+				this.sequence = Arrays.copyOf(this.sequence, capacity);
+				if (this.distance != null) {
+					this.distance = Arrays.copyOf(this.distance, capacity);
+				}
+			}
+			if ((this.distance == null) && !Double.isNaN(distance)) {
+				this.distance = new double[this.lat.length];
+				Arrays.fill(this.distance, 0, this.count, Double.NaN);
+			}
+			this.lat[this.count] = toFixedPoint(lat);
+			this.lon[this.count] = toFixedPoint(lon);
+			this.sequence[this.count] = sequence;
+			if (this.distance != null) {
+				this.distance[this.count] = distance;
+			}
+			this.count++;
+		}
+		
+		/**
+		 * Puts the points in sequence and builds the shape.
+		 * @return
+		 */
+		TransitShape build() {
+			/*
+			 * Sequence numbers are never negative, so sorting them packed 
+			 * with the position at which they were added gives a stable sort
+			 */
+			long[] keys = new long[this.count];
+			boolean sorted = true;
+			for (int i = 0; i < this.count; i++) {
+				keys[i] = ((long)this.sequence[i] << 32) | i;
+				sorted &= (i == 0) || (keys[i - 1] <= keys[i]);
+			}
+			if (!sorted) {
+				Arrays.sort(keys);
+			}
+			
+			int[] lat = new int[this.count];
+			int[] lon = new int[this.count];
+			int[] sequence = new int[this.count];
+			double[] distance = 
+					(this.distance == null) ? null : new double[this.count];
+			for (int i = 0; i < this.count; i++) {
+				int from = (int)keys[i];
+				lat[i] = this.lat[from];
+				lon[i] = this.lon[from];
+				sequence[i] = this.sequence[from];
+				if (distance != null) {
+					distance[i] = this.distance[from];
+				}
+			}
+			return new TransitShape(this.shapeId, lat, lon, sequence, distance);
+		}
+	}
 }
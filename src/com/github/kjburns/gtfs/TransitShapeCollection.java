@@ -18,17 +18,23 @@
  *  
  * Revision Log:
  *   2016-05-11  Basic functionality
+ *   2026-10-16  Stream shapes.txt through CsvTokenizer
+ *   2026-10-16  Construct from shapes read from a snapshot
+ *   2026-10-16  Key shapes by their index in the feed's dictionary
+ *   2026-10-16  Gather points into packed shapes as they are read
  */
 package com.github.kjburns.gtfs;
 
-import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
 
-import com.github.kjburns.gtfs.misc.CsvFile;
+import com.github.kjburns.gtfs.IdentifierDictionary.Kind;
+import com.github.kjburns.gtfs.misc.CsvTokenizer;
 
 /**
  * A collection of {@link TransitShape} objects.
@@ -36,52 +42,86 @@ import com.github.kjburns.gtfs.misc.CsvFile;
  *
  */
 public class TransitShapeCollection {
-	private HashMap<String, TransitShape> shapes = new HashMap<>();
+	private final IdentifierDictionary ids;
+	/**
+	 * Shapes in the order in which they first appear
+	 */
+	private ArrayList<TransitShape> shapes = new ArrayList<>();
+	/**
+	 * Shapes indexed by the dictionary index of their shape_id
+	 */
+	private TransitShape[] byIndex = new TransitShape[16];
 	
 	/**
 	 * Constructor. Creates a shape collection.
-	 * @param f File object which describes the shapes.txt object in the
-	 * gtfs zip file.
+	 * @param table tokenizer positioned at the start of shapes.txt
+	 * @param ids dictionary of the feed's identifiers
 	 * @throws IOException If the file cannot be opened or read for any reason
 	 * @throws InvalidDataException if any data in the table is invalid
 	 * according to the spec 
 	 * @throws MissingRequiredFieldException if any required fields are missing 
 	 */
-	TransitShapeCollection(File f) 
+	TransitShapeCollection(CsvTokenizer table, IdentifierDictionary ids) 
 			throws IOException, MissingRequiredFieldException, 
 					InvalidDataException {
-		HashMap<String, ArrayList<TransitShapePoint>> tempStorage = 
-				new HashMap<>();
+		this.ids = ids;
 		
-		try(FileInputStream fis = new FileInputStream(f)) {
-			CsvFile table = new CsvFile(fis);
-			
-			int recordCount = table.getRecordCount();
-			for (int record = 1; record <= recordCount; record++) {
-				TransitShapePoint pt = new TransitShapePoint(table, record);
-				
-				ArrayList<TransitShapePoint> ptList;
-				String shapeId = pt.getShapeId();
-				if (!tempStorage.containsKey(shapeId)) {
-					ptList = new ArrayList<TransitShapePoint>();
-					tempStorage.put(shapeId, ptList);
-				}
-				else {
-					ptList = tempStorage.get(shapeId);
-				}
-				
-				ptList.add(pt);
+		/*
+		 * Identifiers are first gathered without locking the dictionary, 
+		 * which may be in use by other tables at the same time
+		 */
+		int colShapeId = 
+				table.getColumnIndex(TransitShapePoint.FIELD_NAME_SHAPE_ID);
+		IdentifierTable localIds = new IdentifierTable();
+		List<String> sharedIds = new ArrayList<>();
+		List<TransitShape.Builder> builders = new ArrayList<>();
+		
+		while (table.next()) {
+			if (colShapeId == -1) {
+				throw new MissingRequiredFieldException(
+						GtfsFile.FILENAME_SHAPES, 
+						TransitShapePoint.FIELD_NAME_SHAPE_ID);
+			}
+			int local = localIds.intern(table, colShapeId);
+			if (local == builders.size()) {
+				sharedIds.add(ids.share(Kind.SHAPE, localIds.get(local)));
+				builders.add(new TransitShape.Builder(sharedIds.get(local)));
 			}
+			
+			builders.get(local).add(
+					new TransitShapePoint(table, sharedIds.get(local)));
 		}
 		
-		for (String id : tempStorage.keySet()) {
-			TransitShape shape = new TransitShape(id);
-			
-			shape.addAll(tempStorage.get(id));
-			this.shapes.put(id, shape);
+		for (int i = 0; i < builders.size(); i++) {
+			this.add(builders.get(i).build());
+			builders.set(i, null);
 		}
 	}
 	
+	/**
+	 * Constructor. Creates a collection of shapes which have already been
+	 * built, such as those read from a snapshot.
+	 * @param shapes
+	 * @param ids dictionary of the feed's identifiers
+	 */
+	TransitShapeCollection(Collection<TransitShape> shapes, 
+			IdentifierDictionary ids) {
+		this.ids = ids;
+		for (TransitShape shape : shapes) {
+			this.add(shape);
+		}
+	}
+	
+	private void add(TransitShape shape) {
+		int index = this.ids.indexOf(Kind.SHAPE, shape.getShapeId());
+		if (index >= this.byIndex.length) {
+			this.byIndex = Arrays.copyOf(this.byIndex, 
+					Math.max(index + 1, this.byIndex.length * 2));
+		}
+		this.byIndex[index] = shape;
+		this.shapes.add(shape);
+	}
+	
 	/**
 	 * Gets a shape based on the supplied id.
 	 * @param id identifier of shape to fetch
@@ -89,7 +129,11 @@ public class TransitShapeCollection {
 	 * {@code null}.
 	 */
 	public TransitShape getShapeById(String id) {
-		return this.shapes.get(id);
+		int index = this.ids.indexOf(Kind.SHAPE, id);
+		if ((index < 0) || (index >= this.byIndex.length)) {
+			return null;
+		}
+		return this.byIndex[index];
 	}
 	
 	/**
@@ -101,14 +145,11 @@ public class TransitShapeCollection {
 	}
 	
 	/**
-	 * Gets an iterator for iterating over the stored shapes.
-	 * <p>
-	 * Internally, shapes are stored in a Map, so order of the iterator is 
-	 * never guaranteed.
-	 * </p>
+	 * Gets an iterator for iterating over the stored shapes, in the order in
+	 * which they first appear in shapes.txt.
 	 * @return
 	 */
 	public Iterator<TransitShape> getShapeIterator() {
-		return this.shapes.values().iterator();
+		return Collections.unmodifiableList(this.shapes).iterator();
 	}
 }
@@ -18,17 +18,24 @@
  *  
  * Revision Log:
  *   2016-05-11  Basic functionality
+ *   2026-10-16  Read records from a streaming CsvTokenizer
+ *   2026-10-16  Construct from values read from a snapshot
+ *   2026-10-16  Take the shared shape_id from the collection
+ *   2026-10-16  Only create exceptions for data which are invalid
  */
 package com.github.kjburns.gtfs;
 
 import java.util.Comparator;
 
-import com.github.kjburns.gtfs.misc.CsvFile;
+import com.github.kjburns.gtfs.misc.CsvTokenizer;
 import com.github.kjburns.gtfs.misc.CsvFile.FieldNotFoundException;
-import com.github.kjburns.gtfs.misc.CsvFile.ReadPastEndOfTableException;
 
 /**
  * A point along a shape, as defined by shapes.txt
+ * <p>
+ * A {@link TransitShape} does not keep its points as objects; points are
+ * created as they are asked for.
+ * </p>
  * @author Kevin J. Burns
  *
  */
@@ -37,7 +44,7 @@ public class TransitShapePoint {
 		return Integer.compare(x.sequence, y.sequence);
 	};
 	
-	private static final String FIELD_NAME_SHAPE_ID = "shape_id";
+	static final String FIELD_NAME_SHAPE_ID = "shape_id";
 	private static final String FIELD_NAME_LAT = "shape_pt_lat";
 	private static final String FIELD_NAME_LON = "shape_pt_lon";
 	private static final String FIELD_NAME_SHAPE_SEQ = "shape_pt_sequence";
@@ -51,14 +58,18 @@ public class TransitShapePoint {
 	private String shapeId;
 
 	/**
-	 * Constructor. Reads a record from shapes.txt
-	 * @param table table read from shapes.txt
-	 * @param record Record number to read from
+	 * Constructor. Reads the current record from shapes.txt
+	 * @param table table read from shapes.txt, positioned at the record to
+	 * read
+	 * @param shapeId shape_id of the record, which the collection has 
+	 * already read
 	 * @throws MissingRequiredFieldException If any required fields are missing
 	 * @throws InvalidDataException If any data are not compliant with the spec
 	 */
-	TransitShapePoint(CsvFile table, int record) 
+	TransitShapePoint(CsvTokenizer table, String shapeId) 
 			throws MissingRequiredFieldException, InvalidDataException {
+		int record = table.getRecordNumber();
+		this.shapeId = shapeId;
 		String key = null;
 		String strValue = null;
 		
@@ -67,81 +78,89 @@ public class TransitShapePoint {
 			 * read latitude
 			 */
 			key = FIELD_NAME_LAT;
-			strValue = table.getData(key, record);
-			InvalidDataException badLatExc = new InvalidDataException(
-					GtfsFile.FILENAME_SHAPES, key, record, strValue);
+			strValue = table.getData(key);
 			try {
 				this.lat = Double.valueOf(strValue);
 			} catch (NumberFormatException ex) {
-				throw badLatExc;
+				throw invalid(key, record, strValue);
 			}
 			if ((lat > 90.) || (lat < -90.)) {
-				throw badLatExc;
+				throw invalid(key, record, strValue);
 			}
 			
 			/*
 			 * read longitude
 			 */
 			key = FIELD_NAME_LON;
-			strValue = table.getData(key, record);
-			InvalidDataException badLonExc = new InvalidDataException(
-					GtfsFile.FILENAME_SHAPES, key, record, strValue);
+			strValue = table.getData(key);
 			try {
 				this.lon = Double.valueOf(strValue);
 			} catch (NumberFormatException ex) {
-				throw badLonExc;
+				throw invalid(key, record, strValue);
 			}
 			if ((lon > 180.) || (lon < -180.)) {
-				throw badLonExc;
+				throw invalid(key, record, strValue);
 			}
 			
 			/*
 			 * read sequence
 			 */
 			key = FIELD_NAME_SHAPE_SEQ;
-			strValue = table.getData(key, record);
-			InvalidDataException badSeqExc = new InvalidDataException(
-					GtfsFile.FILENAME_SHAPES, key, record, strValue);
+			strValue = table.getData(key);
 			try {
 				this.sequence = Integer.valueOf(strValue);
 			} catch (NumberFormatException ex) {
-				throw badSeqExc;
+				throw invalid(key, record, strValue);
 			}
 			if (this.sequence < 0) {
-				throw badSeqExc;
+				throw invalid(key, record, strValue);
 			}
 			
-			/*
-			 * read shape id
-			 */
-			key = FIELD_NAME_SHAPE_ID;
-			this.shapeId = table.getData(key, record);
-			
 			/*
 			 * read distance traveled
 			 */
 			key = FIELD_NAME_DIST_TRAVELED;
 			if (table.fieldExists(key)) {
-				strValue = table.getData(key, record);
-				InvalidDataException badDistExc = new InvalidDataException(
-						GtfsFile.FILENAME_SHAPES, key, record, strValue);
+				strValue = table.getData(key);
 				try {
 					this.distanceTraveled = Double.valueOf(strValue);
 				} catch (NumberFormatException ex) {
-					throw badDistExc;
+					throw invalid(key, record, strValue);
 				}
 				if (this.distanceTraveled < 0) {
-					throw badDistExc;
+					throw invalid(key, record, strValue);
 				} 
 			}
-		} catch (ReadPastEndOfTableException ex) {
-			throw new IndexOutOfBoundsException();
 		} catch (FieldNotFoundException ex) {
 			throw new MissingRequiredFieldException(
 					GtfsFile.FILENAME_SHAPES, key);
 		}
 	}
 
+	private static InvalidDataException invalid(String key, int record, 
+			String value) {
+		return new InvalidDataException(
+				GtfsFile.FILENAME_SHAPES, key, record, value);
+	}
+
+	/**
+	 * Constructor. Creates a point from values which have already been
+	 * validated, such as those read from a snapshot.
+	 * @param shapeId
+	 * @param lat
+	 * @param lon
+	 * @param sequence
+	 * @param distanceTraveled distance, or {@link Double#NaN} if not defined
+	 */
+	TransitShapePoint(String shapeId, double lat, double lon, int sequence,
+			double distanceTraveled) {
+		this.shapeId = shapeId;
+		this.lat = lat;
+		this.lon = lon;
+		this.sequence = sequence;
+		this.distanceTraveled = distanceTraveled;
+	}
+
 	/**
 	 * Gets the shape ID of the shape that this point belongs to
 	 * @return
@@ -0,0 +1,280 @@
+/*
+ * TravelTimeGrid.java
+ * General Transit Feed Specification
+ *
+ * Copyright 2016 Kevin J. Burns
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Revision Log:
+ *   2026-10-16  Basic functionality
+ */
+package com.github.kjburns.gtfs;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Travel times over a grid of cells around an origin, from which
+ * isochrones are drawn. Each cell takes the earliest time at which it can
+ * be reached by walking in a straight line from any of a set of points,
+ * each reached at a given time, within a given distance. Distances are
+ * measured on a plane tangent to the earth at the origin, which is close
+ * enough over the length of a walk.
+ * @author Kevin J. Burns
+ *
+ */
+class TravelTimeGrid {
+	private static final int EAST = 0;
+	private static final int NORTH = 1;
+	private static final int WEST = 2;
+	private static final int SOUTH = 3;
+	/**
+	 * Change of row and column in each direction
+	 */
+	private static final int[] ROW_STEP = { 0, 1, 0, -1 };
+	private static final int[] COLUMN_STEP = { 1, 0, -1, 0 };
+	/**
+	 * Turns to try at a corner, in order: left, straight on, right
+	 */
+	private static final int[] TURNS = { 1, 0, 3 };
+	/**
+	 * Most cells in a grid
+	 */
+	private static final long MAX_CELLS = 1 << 26;
+
+	private final double south;
+	private final double west;
+	/**
+	 * Size of a cell, in degrees
+	 */
+	private final double cellLatitude;
+	private final double cellLongitude;
+	private final int rows;
+	private final int columns;
+	/**
+	 * Travel time of each cell, row by row from the south west
+	 */
+	private final int[] time;
+
+	/**
+	 * Fills a grid with travel times.
+	 * @param latitude latitude of the origin, in degrees
+	 * @param latitudes latitude of each point
+	 * @param longitudes longitude of each point
+	 * @param times time at which each point is reached, in seconds
+	 * @param count number of points
+	 * @param cellSize size of a cell, in meters
+	 * @param walkRadius furthest distance walked from a point, in meters
+	 * @param maxSeconds latest time of interest; cells reached later are
+	 * left unreached
+	 * @throws IllegalArgumentException if the grid would have too many
+	 * cells
+	 */
+	TravelTimeGrid(double latitude, double[] latitudes, double[] longitudes,
+			int[] times, int count, double cellSize, double walkRadius,
+			int maxSeconds) {
+		double metersPerLatitude = Math.toRadians(GreatCircle.EARTH_RADIUS);
+		double metersPerLongitude = metersPerLatitude *
+				Math.max(0.01, Math.cos(Math.toRadians(latitude)));
+		this.cellLatitude = cellSize / metersPerLatitude;
+		this.cellLongitude = cellSize / metersPerLongitude;
+
+		/*
+		 * The box around every point, as far as may be walked from it
+		 */
+		double[] radius = new double[count];
+		double south = Double.POSITIVE_INFINITY;
+		double west = Double.POSITIVE_INFINITY;
+		double north = Double.NEGATIVE_INFINITY;
+		double east = Double.NEGATIVE_INFINITY;
+		for (int i = 0; i < count; i++) {
+			radius[i] = Math.min(walkRadius,
+					(maxSeconds - times[i]) * Footpaths.WALKING_SPEED);
+			if (radius[i] < 0) {
+				continue;
+			}
+			south = Math.min(south,
+					latitudes[i] - radius[i] / metersPerLatitude);
+			north = Math.max(north,
+					latitudes[i] + radius[i] / metersPerLatitude);
+			west = Math.min(west,
+					longitudes[i] - radius[i] / metersPerLongitude);
+			east = Math.max(east,
+					longitudes[i] + radius[i] / metersPerLongitude);
+		}
+		if (south > north) {
+			this.south = latitude;
+			this.west = 0;
+			this.rows = 0;
+			this.columns = 0;
+			this.time = new int[0];
+			return;
+		}
+
+		this.south = south;
+		this.west = west;
+		long rows = (long)Math.ceil((north - south) / this.cellLatitude) + 1;
+		long columns = (long)Math.ceil((east - west) / this.cellLongitude) +
+				1;
+		if (rows * columns > MAX_CELLS) {
+			throw new IllegalArgumentException("Too many cells: " +
+					rows + " by " + columns);
+		}
+		this.rows = (int)rows;
+		this.columns = (int)columns;
+		this.time = new int[this.rows * this.columns];
+		Arrays.fill(this.time, Reachability.UNREACHABLE);
+
+		for (int i = 0; i < count; i++) {
+			if (radius[i] < 0) {
+				continue;
+			}
+			int r0 = this.row(latitudes[i] - radius[i] / metersPerLatitude);
+			int r1 = this.row(latitudes[i] + radius[i] / metersPerLatitude);
+			int c0 = this.column(
+					longitudes[i] - radius[i] / metersPerLongitude);
+			int c1 = this.column(
+					longitudes[i] + radius[i] / metersPerLongitude);
+			for (int r = r0; r <= r1; r++) {
+				double dy = (this.south + (r + 0.5) * this.cellLatitude -
+						latitudes[i]) * metersPerLatitude;
+				for (int c = c0; c <= c1; c++) {
+					double dx = (this.west + (c + 0.5) * this.cellLongitude -
+							longitudes[i]) * metersPerLongitude;
+					double distance = Math.sqrt(dx * dx + dy * dy);
+					if (distance > radius[i]) {
+						continue;
+					}
+					int t = times[i] +
+							(int)Math.ceil(distance / Footpaths.WALKING_SPEED);
+					int cell = r * this.columns + c;
+					if (t < this.time[cell]) {
+						this.time[cell] = t;
+					}
+				}
+			}
+		}
+	}
+
+	private int row(double latitude) {
+		int ret = (int)Math.floor((latitude - this.south) / this.cellLatitude);
+		return Math.max(0, Math.min(this.rows - 1, ret));
+	}
+
+	private int column(double longitude) {
+		int ret = (int)Math.floor((longitude - this.west) / this.cellLongitude);
+		return Math.max(0, Math.min(this.columns - 1, ret));
+	}
+
+	private boolean isInside(int row, int column, int cutoff) {
+		if ((row < 0) || (row >= this.rows) ||
+				(column < 0) || (column >= this.columns)) {
+			return false;
+		}
+		return this.time[row * this.columns + column] <= cutoff;
+	}
+
+	/**
+	 * Draws the outline of the cells reached within a travel time.
+	 * @param cutoff travel time, in seconds
+	 * @return
+	 */
+	Isochrone outline(int cutoff) {
+		/*
+		 * Each edge between a cell inside and one outside, directed so that
+		 * the inside is on its left, leaves from one corner of the grid.
+		 */
+		int width = this.columns + 1;
+		byte[] edges = new byte[(this.rows + 1) * width];
+		for (int r = 0; r < this.rows; r++) {
+			for (int c = 0; c < this.columns; c++) {
+				if (!this.isInside(r, c, cutoff)) {
+					continue;
+				}
+				int corner = r * width + c;
+				if (!this.isInside(r - 1, c, cutoff)) {
+					edges[corner] |= 1 << EAST;
+				}
+				if (!this.isInside(r, c + 1, cutoff)) {
+					edges[corner + 1] |= 1 << NORTH;
+				}
+				if (!this.isInside(r + 1, c, cutoff)) {
+					edges[corner + width + 1] |= 1 << WEST;
+				}
+				if (!this.isInside(r, c - 1, cutoff)) {
+					edges[corner + width] |= 1 << SOUTH;
+				}
+			}
+		}
+
+		List<double[]> rings = new ArrayList<>();
+		for (int corner = 0; corner < edges.length; corner++) {
+			while (edges[corner] != 0) {
+				rings.add(this.trace(edges, width, corner));
+			}
+		}
+		return new Isochrone(cutoff, rings);
+	}
+
+	/**
+	 * Follows edges from a corner until it is reached again, removing
+	 * them. Where two rings touch at a corner, the edge turning left is
+	 * taken, which keeps them apart.
+	 * @return the corners where the ring turns, as alternating latitudes
+	 * and longitudes, closed
+	 */
+	private double[] trace(byte[] edges, int width, int start) {
+		double[] ret = new double[16];
+		int length = 0;
+		int row = start / width;
+		int column = start % width;
+		ret[length++] = this.south + row * this.cellLatitude;
+		ret[length++] = this.west + column * this.cellLongitude;
+
+		int direction = Integer.numberOfTrailingZeros(edges[start]);
+		int corner = start;
+		while (true) {
+			edges[corner] &= ~(1 << direction);
+			row += ROW_STEP[direction];
+			column += COLUMN_STEP[direction];
+			corner = row * width + column;
+			if (corner == start) {
+				break;
+			}
+
+			int next = direction;
+			for (int turn : TURNS) {
+				int d = (direction + turn) & 3;
+				if ((edges[corner] & (1 << d)) != 0) {
+					next = d;
+					break;
+				}
+			}
+			if (next != direction) {
+				if (length + 2 > ret.length) {
+					ret = Arrays.copyOf(ret, ret.length * 2);
+				}
+				ret[length++] = this.south + row * this.cellLatitude;
+				ret[length++] = this.west + column * this.cellLongitude;
+				direction = next;
+			}
+		}
+
+		ret = Arrays.copyOf(ret, length + 2);
+		ret[length] = ret[0];
+		ret[length + 1] = ret[1];
+		return ret;
+	}
+}
@@ -18,14 +18,17 @@
  *  
  * Revision Log:
  *   2016-05-18  Basic functionality
+ *   2026-10-16  Read records from a streaming CsvTokenizer
+ *   2026-10-16  Hold identifiers shared through the feed's dictionary 
+ *               instead of a map of field values
  */
 package com.github.kjburns.gtfs;
 
 import java.util.HashMap;
 
-import com.github.kjburns.gtfs.misc.CsvFile;
+import com.github.kjburns.gtfs.IdentifierDictionary.Kind;
+import com.github.kjburns.gtfs.misc.CsvTokenizer;
 import com.github.kjburns.gtfs.misc.CsvFile.FieldNotFoundException;
-import com.github.kjburns.gtfs.misc.CsvFile.ReadPastEndOfTableException;
 
 /**
  * A trip on a public transit service. 
@@ -60,28 +63,33 @@ public class Trip {
 	
 	private int originalRecord;
 	
-	private HashMap<String, String> tableData = new HashMap<>();
+	private String tripId;
+	private String routeId;
+	private String serviceId;
+	private String shapeId;
+	private String blockId;
+	private String headsign;
+	private String shortName;
 	private WheelchairAccessibilityEnum wheelchairAccessibility;
 	private BikeAccessibilityEnum bikeAccessibility;
 	private int directionId;
 	
 	/**
-	 * Constructor. Reads a record from trips.txt
-	 * @param table Table to read from
-	 * @param record Record number to read from, where 1 is the first record.
+	 * Constructor. Reads the current record from trips.txt
+	 * @param table Table to read from, positioned at the record to read
+	 * @param ids dictionary of the feed's identifiers
 	 * @throws MissingRequiredFieldException If any required field is missing.
 	 * @throws InvalidDataException If any invalid data is found in the record.
 	 */
-	Trip(CsvFile table, int record) 
+	Trip(CsvTokenizer table, IdentifierDictionary ids) 
 			throws MissingRequiredFieldException, InvalidDataException {
-		this.originalRecord = record;
+		this.originalRecord = table.getRecordNumber();
+		HashMap<String, String> tableData = new HashMap<>();
 		
 		for (String key : this.requiredFieldNames) {
 			try {
-				String value = table.getData(key, record);
-				this.tableData.put(key, value);
-			} catch (ReadPastEndOfTableException ex) {
-				throw new IndexOutOfBoundsException();
+				String value = table.getData(key);
+				tableData.put(key, value);
 			} catch (FieldNotFoundException ex) {
 				throw new MissingRequiredFieldException(
 						GtfsFile.FILENAME_TRIPS, key);
@@ -91,26 +99,34 @@ public class Trip {
 		for (String key : this.optionalFieldNames) {
 			if (table.fieldExists(key)) {
 				try {
-					String value = table.getData(key, record);
-					this.tableData.put(key, value);
-				} catch (ReadPastEndOfTableException | 
-						 FieldNotFoundException ex) {
+					String value = table.getData(key);
+					tableData.put(key, value);
+				} catch (FieldNotFoundException ex) {
 					/*
-					 * Both of these exceptions shouldn't happen.
-					 * ReadPastEndOfTableException would have been thrown in
-					 *   the required fields.
-					 * FieldNotFoundException can't occur because that check
-					 *   was already made.
+					 * Can't occur because that check was already made.
 					 */
 					assert(false);
 				}
 			}
 		}
 		
-		this.interpretFieldValues();
+		this.tripId = ids.share(Kind.TRIP, tableData.get(FIELD_NAME_TRIP_ID));
+		this.routeId = 
+				ids.share(Kind.ROUTE, tableData.get(FIELD_NAME_ROUTE_ID));
+		this.serviceId = 
+				ids.share(Kind.SERVICE, tableData.get(FIELD_NAME_SERVICE_ID));
+		this.shapeId = 
+				ids.share(Kind.SHAPE, tableData.get(FIELD_NAME_SHAPE_ID));
+		this.blockId = 
+				ids.share(Kind.BLOCK, tableData.get(FIELD_NAME_BLOCK_ID));
+		this.headsign = tableData.get(FIELD_NAME_TRIP_HEADSIGN);
+		this.shortName = tableData.get(FIELD_NAME_TRIP_SHORT_NAME);
+		
+		this.interpretFieldValues(tableData);
 	}
 
-	private void interpretFieldValues() throws InvalidDataException {
+	private void interpretFieldValues(HashMap<String, String> tableData) 
+			throws InvalidDataException {
 		String key = null;
 		String strValue = null;
 		
@@ -118,7 +134,7 @@ public class Trip {
 		 * Wheelchair Accessibility
 		 */
 		key = Trip.FIELD_NAME_WHEELCHAIR_ACCESSIBLE;
-		strValue = this.tableData.get(key);
+		strValue = tableData.get(key);
 		InvalidDataException wheelchairException = new InvalidDataException(
 				GtfsFile.FILENAME_TRIPS, 
 				key, 
@@ -149,7 +165,7 @@ public class Trip {
 		 * Bike Accessibility
 		 */
 		key = Trip.FIELD_NAME_BIKES_ALLOWED;
-		strValue = this.tableData.get(key);
+		strValue = tableData.get(key);
 		InvalidDataException bikeException = new InvalidDataException(
 				GtfsFile.FILENAME_TRIPS, 
 				key, 
@@ -179,7 +195,7 @@ public class Trip {
 		 * Direction
 		 */
 		key = Trip.FIELD_NAME_DIRECTION_ID;
-		strValue = this.tableData.get(key);
+		strValue = tableData.get(key);
 		InvalidDataException dirException = new InvalidDataException(
 				GtfsFile.FILENAME_TRIPS, key, this.originalRecord, strValue);
 		try {
@@ -204,7 +220,7 @@ public class Trip {
 	 * @return
 	 */
 	public String getTripId() {
-		return this.tableData.get(FIELD_NAME_TRIP_ID);
+		return this.tripId;
 	}
 	
 	/**
@@ -213,7 +229,7 @@ public class Trip {
 	 * @return
 	 */
 	public String getServiceId() {
-		return this.tableData.get(FIELD_NAME_SERVICE_ID);
+		return this.serviceId;
 	}
 	
 	/**
@@ -222,7 +238,7 @@ public class Trip {
 	 * @return
 	 */
 	public String getRouteId() {
-		return this.tableData.get(FIELD_NAME_ROUTE_ID);
+		return this.routeId;
 	}
 	
 	/**
@@ -231,7 +247,7 @@ public class Trip {
 	 * defined.
 	 */
 	public String getHeadsign() {
-		return this.tableData.get(FIELD_NAME_TRIP_HEADSIGN);
+		return this.headsign;
 	}
 	
 	/**
@@ -240,7 +256,7 @@ public class Trip {
 	 * defined.
 	 */
 	public String getShortName() {
-		return this.tableData.get(FIELD_NAME_TRIP_SHORT_NAME);
+		return this.shortName;
 	}
 	
 	/**
@@ -253,7 +269,7 @@ public class Trip {
 	 * defined.
 	 */
 	public String getBlockId() {
-		return this.tableData.get(FIELD_NAME_BLOCK_ID);
+		return this.blockId;
 	}
 	
 	/**
@@ -263,7 +279,7 @@ public class Trip {
 	 * defined.
 	 */
 	public String getShapeId() {
-		return this.tableData.get(FIELD_NAME_SHAPE_ID);
+		return this.shapeId;
 	}
 
 	/**
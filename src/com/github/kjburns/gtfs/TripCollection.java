@@ -19,16 +19,19 @@
  * Revision Log:
  *   2016-05-18  Basic functionality
  *   2016-05-30  getTripById()
+ *   2026-10-16  Stream trips.txt through CsvTokenizer
+ *   2026-10-16  Key trips by their index in the feed's dictionary
  */
 package com.github.kjburns.gtfs;
 
-import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Iterator;
 
-import com.github.kjburns.gtfs.misc.CsvFile;
+import com.github.kjburns.gtfs.IdentifierDictionary.Kind;
+import com.github.kjburns.gtfs.misc.CsvTokenizer;
 
 /**
  * A collection of {@link Trip}s; the contents of trips.txt
@@ -36,35 +39,47 @@ import com.github.kjburns.gtfs.misc.CsvFile;
  *
  */
 public class TripCollection {
-	private HashMap<String, Trip> trips = new HashMap<>();
+	private final IdentifierDictionary ids;
+	/**
+	 * Trips in the order of trips.txt
+	 */
+	private ArrayList<Trip> trips = new ArrayList<>();
+	/**
+	 * Trips indexed by the dictionary index of their trip_id
+	 */
+	private Trip[] byIndex = new Trip[16];
 	
 	/**
 	 * Constructor. Reads trips.txt
-	 * @param f File object pointing to the location of trips.txt in the
-	 * zip file
+	 * @param table tokenizer positioned at the start of trips.txt
+	 * @param ids dictionary of the feed's identifiers
 	 * @throws IOException if there is any problem opening or reading the file
 	 * @throws MissingRequiredFieldException if any required fields are missing
 	 * @throws InvalidDataException if any invalid data are found in the table
 	 * @throws DatasetUniquenessException if more than one record exists for 
 	 * a given trip_id
 	 */
-	TripCollection(File f) 
+	TripCollection(CsvTokenizer table, IdentifierDictionary ids) 
 			throws IOException, MissingRequiredFieldException, 
 				InvalidDataException, DatasetUniquenessException {
-		try(FileInputStream fis = new FileInputStream(f)) {
-			CsvFile table = new CsvFile(fis);
-			for (int record = 1; record <= table.getRecordCount(); record++) {
-				Trip t = new Trip(table, record);
-				String id = t.getTripId();
-				if (this.trips.containsKey(id)) {
-					throw new DatasetUniquenessException(
-							GtfsFile.FILENAME_TRIPS, 
-							Trip.FIELD_NAME_TRIP_ID, 
-							id);
-				}
-				
-				this.trips.put(id, t);
+		this.ids = ids;
+		while (table.next()) {
+			Trip t = new Trip(table, ids);
+			String id = t.getTripId();
+			int index = ids.indexOf(Kind.TRIP, id);
+			if (index >= this.byIndex.length) {
+				this.byIndex = Arrays.copyOf(this.byIndex, 
+						Math.max(index + 1, this.byIndex.length * 2));
+			}
+			if (this.byIndex[index] != null) {
+				throw new DatasetUniquenessException(
+						GtfsFile.FILENAME_TRIPS, 
+						Trip.FIELD_NAME_TRIP_ID, 
+						id);
 			}
+			
+			this.byIndex[index] = t;
+			this.trips.add(t);
 		}
 	}
 	
@@ -77,15 +92,19 @@ public class TripCollection {
 	}
 	
 	/**
-	 * Gets an iterator for the stored trips.
+	 * Gets an iterator for the stored trips, in the order of trips.txt.
 	 * @return
 	 */
 	public Iterator<Trip> getIterator() {
-		return this.trips.values().iterator();
+		return Collections.unmodifiableList(this.trips).iterator();
 	}
 
 	public Trip getTripById(String tripId) {
-		return this.trips.get(tripId);
+		int index = this.ids.indexOf(Kind.TRIP, tripId);
+		if ((index < 0) || (index >= this.byIndex.length)) {
+			return null;
+		}
+		return this.byIndex[index];
 	}
 }
 	
\ No newline at end of file
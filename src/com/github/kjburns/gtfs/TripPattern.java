@@ -0,0 +1,205 @@
+/*
+ * TripPattern.java
+ * General Transit Feed Specification
+ *
+ * Copyright 2016 Kevin J. Burns
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Revision Log:
+ *   2026-10-16  Basic functionality
+ */
+package com.github.kjburns.gtfs;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * A group of trips which serve the same stops in the same order, with the
+ * same pickup and dropoff types; see
+ * {@link StopTimeCollection#getTripPatterns()}. The stops are held once for
+ * the pattern, and the times of each trip line up with them, so that the
+ * pattern reads as a timetable: one row per stop and one column per trip,
+ * with the trips in order of departure. Trips are numbered from 0 within
+ * the pattern.
+ * @author Kevin J. Burns
+ *
+ */
+public class TripPattern {
+	private final StopTimeTable table;
+	private final TripPatterns patterns;
+	private final int pattern;
+
+	TripPattern(StopTimeTable table, TripPatterns patterns, int pattern) {
+		this.table = table;
+		this.patterns = patterns;
+		this.pattern = pattern;
+	}
+
+	/**
+	 * Gets the number of stops served by each trip of the pattern.
+	 * @return
+	 */
+	public int getStopCount() {
+		return this.patterns.getLength(this.pattern);
+	}
+
+	/**
+	 * Gets the stop_id of a stop of the pattern.
+	 * @param position position of the stop along the pattern, from 0
+	 * @return
+	 * @throws IndexOutOfBoundsException if there is no such stop
+	 */
+	public String getStopId(int position) {
+		return this.table.stopIds.get(
+				this.patterns.stops[this.offset(position)]);
+	}
+
+	/**
+	 * Gets the stop_ids of the stops of the pattern, in order.
+	 * @return
+	 */
+	public List<String> getStopIds() {
+		return new StopIdList();
+	}
+
+	/**
+	 * Gets the pickup type of every trip at a stop of the pattern.
+	 * @param position position of the stop along the pattern, from 0
+	 * @return
+	 * @throws IndexOutOfBoundsException if there is no such stop
+	 */
+	public PickupDropoffTypeEnum getPickupType(int position) {
+		return StopTimeTable.PICKUP_DROPOFF_TYPES[
+				this.patterns.pickupTypes[this.offset(position)]];
+	}
+
+	/**
+	 * Gets the dropoff type of every trip at a stop of the pattern.
+	 * @param position position of the stop along the pattern, from 0
+	 * @return
+	 * @throws IndexOutOfBoundsException if there is no such stop
+	 */
+	public PickupDropoffTypeEnum getDropoffType(int position) {
+		return StopTimeTable.PICKUP_DROPOFF_TYPES[
+				this.patterns.dropoffTypes[this.offset(position)]];
+	}
+
+	/**
+	 * Gets the number of trips in the pattern.
+	 * @return
+	 */
+	public int getTripCount() {
+		return this.patterns.tripStart[this.pattern + 1] -
+				this.patterns.tripStart[this.pattern];
+	}
+
+	/**
+	 * Gets the trip_id of a trip of the pattern.
+	 * @param trip trip number within the pattern
+	 * @return
+	 * @throws IndexOutOfBoundsException if there is no such trip
+	 */
+	public String getTripId(int trip) {
+		return this.table.tripIds.get(this.tableTrip(trip));
+	}
+
+	/**
+	 * Gets the arrival time of a trip at a stop of the pattern, as an
+	 * offset from noon on the service day; see
+	 * {@link StopTime#getArrivalSecondsFromNoon()}.
+	 * @param trip trip number within the pattern
+	 * @param position position of the stop along the pattern, from 0
+	 * @return seconds after noon, or {@link StopTime#UNDEFINED_TIME}
+	 * @throws IndexOutOfBoundsException if there is no such trip or stop
+	 */
+	public int getArrivalSecondsFromNoon(int trip, int position) {
+		return this.table.arrival[this.row(trip, position)];
+	}
+
+	/**
+	 * Gets the departure time of a trip at a stop of the pattern, as an
+	 * offset from noon on the service day; see
+	 * {@link StopTime#getDepartureSecondsFromNoon()}.
+	 * @param trip trip number within the pattern
+	 * @param position position of the stop along the pattern, from 0
+	 * @return seconds after noon, or {@link StopTime#UNDEFINED_TIME}
+	 * @throws IndexOutOfBoundsException if there is no such trip or stop
+	 */
+	public int getDepartureSecondsFromNoon(int trip, int position) {
+		return this.table.departure[this.row(trip, position)];
+	}
+
+	/**
+	 * Gets the stop time of a trip at a stop of the pattern.
+	 * @param trip trip number within the pattern
+	 * @param position position of the stop along the pattern, from 0
+	 * @return
+	 * @throws IndexOutOfBoundsException if there is no such trip or stop
+	 */
+	public StopTime getStopTime(int trip, int position) {
+		return new StopTime(this.table, this.row(trip, position));
+	}
+
+	private int offset(int position) {
+		if ((position < 0) || (position >= this.getStopCount())) {
+			throw new IndexOutOfBoundsException("Stop " + position);
+		}
+		return this.patterns.stopStart[this.pattern] + position;
+	}
+
+	private int tableTrip(int trip) {
+		if ((trip < 0) || (trip >= this.getTripCount())) {
+			throw new IndexOutOfBoundsException("Trip " + trip);
+		}
+		return this.patterns.trips[
+				this.patterns.tripStart[this.pattern] + trip];
+	}
+
+	private int row(int trip, int position) {
+		this.offset(position);
+		return this.table.tripStart[this.tableTrip(trip)] + position;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (!(obj instanceof TripPattern)) {
+			return false;
+		}
+		TripPattern other = (TripPattern)obj;
+		return (this.patterns == other.patterns) &&
+				(this.pattern == other.pattern);
+	}
+
+	@Override
+	public int hashCode() {
+		return this.pattern;
+	}
+
+	/**
+	 * The stop_ids of the pattern, looked up as they are read.
+	 */
+	private class StopIdList extends AbstractList<String>
+			implements RandomAccess {
+		@Override
+		public String get(int index) {
+			return TripPattern.this.getStopId(index);
+		}
+
+		@Override
+		public int size() {
+			return TripPattern.this.getStopCount();
+		}
+	}
+}
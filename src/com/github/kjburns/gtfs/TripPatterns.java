@@ -0,0 +1,213 @@
+/*
+ * TripPatterns.java
+ * General Transit Feed Specification
+ *
+ * Copyright 2016 Kevin J. Burns
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Revision Log:
+ *   2026-10-16  Basic functionality
+ */
+package com.github.kjburns.gtfs;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The trips of a {@link StopTimeTable}, grouped into patterns: trips which
+ * serve the same stops in the same order, with the same pickup and dropoff
+ * types. The stops of each pattern are held once. The rows of a trip are
+ * contiguous and in order in the table, so the times of every trip of a
+ * pattern line up with the stops of the pattern, and are read from the
+ * table where they are rather than copied.
+ * @author Kevin J. Burns
+ *
+ */
+class TripPatterns {
+	/**
+	 * Offsets into {@link #stops} for each pattern. The extra last element
+	 * holds the length of stops.
+	 */
+	final int[] stopStart;
+	/**
+	 * Table stop index of each stop of each pattern, in order
+	 */
+	final int[] stops;
+	/**
+	 * Pickup and dropoff types of each element of stops, as ordinals
+	 */
+	final byte[] pickupTypes;
+	final byte[] dropoffTypes;
+	/**
+	 * Offsets into {@link #trips} for each pattern. The extra last element
+	 * holds the number of trips.
+	 */
+	final int[] tripStart;
+	/**
+	 * Table trip index of each trip, grouped by pattern, and in order of
+	 * the time of the first row within each pattern. Trips whose first row
+	 * has no time come first.
+	 */
+	final int[] trips;
+	/**
+	 * Pattern of each table trip index
+	 */
+	final int[] patternOf;
+
+	/**
+	 * Groups the trips of a table.
+	 * @param table finished table of stop times
+	 */
+	TripPatterns(StopTimeTable table) {
+		int tripCount = table.getTripCount();
+		this.patternOf = new int[tripCount];
+
+		/*
+		 * Number the patterns in the order their first trips appear
+		 */
+		Map<Key, Integer> numbers = new HashMap<>();
+		int[] first = new int[16];
+		int patternCount = 0;
+		for (int t = 0; t < tripCount; t++) {
+			Key key = new Key(table, t);
+			Integer number = numbers.get(key);
+			if (number == null) {
+				number = patternCount;
+				numbers.put(key, number);
+				if (patternCount == first.length) {
+					first = Arrays.copyOf(first, patternCount * 2);
+				}
+				first[patternCount++] = t;
+			}
+			this.patternOf[t] = number;
+		}
+
+		this.stopStart = new int[patternCount + 1];
+		for (int p = 0; p < patternCount; p++) {
+			int t = first[p];
+			this.stopStart[p + 1] = this.stopStart[p] +
+					table.tripStart[t + 1] - table.tripStart[t];
+		}
+		int stopTotal = this.stopStart[patternCount];
+		this.stops = new int[stopTotal];
+		this.pickupTypes = new byte[stopTotal];
+		this.dropoffTypes = new byte[stopTotal];
+		for (int p = 0; p < patternCount; p++) {
+			int row = table.tripStart[first[p]];
+			int length = this.stopStart[p + 1] - this.stopStart[p];
+			System.arraycopy(table.stop, row, this.stops,
+					this.stopStart[p], length);
+			System.arraycopy(table.pickupType, row, this.pickupTypes,
+					this.stopStart[p], length);
+			System.arraycopy(table.dropoffType, row, this.dropoffTypes,
+					this.stopStart[p], length);
+		}
+
+		/*
+		 * Place the trips of each pattern together, then order them by the
+		 * time of their first row
+		 */
+		this.tripStart = new int[patternCount + 1];
+		for (int t = 0; t < tripCount; t++) {
+			this.tripStart[this.patternOf[t] + 1]++;
+		}
+		for (int p = 0; p < patternCount; p++) {
+			this.tripStart[p + 1] += this.tripStart[p];
+		}
+		int[] next = Arrays.copyOf(this.tripStart, patternCount);
+		long[] keys = new long[tripCount];
+		for (int t = 0; t < tripCount; t++) {
+			int time = table.departure[table.tripStart[t]];
+			if (time == StopTimeTable.UNDEFINED_TIME) {
+				time = table.arrival[table.tripStart[t]];
+			}
+			keys[next[this.patternOf[t]]++] = ((long)time << 32) | t;
+		}
+		this.trips = new int[tripCount];
+		for (int p = 0; p < patternCount; p++) {
+			Arrays.sort(keys, this.tripStart[p], this.tripStart[p + 1]);
+		}
+		for (int i = 0; i < tripCount; i++) {
+			this.trips[i] = (int)keys[i];
+		}
+	}
+
+	/**
+	 * @return the number of patterns
+	 */
+	int getPatternCount() {
+		return this.tripStart.length - 1;
+	}
+
+	/**
+	 * @param pattern
+	 * @return the number of stops of a pattern
+	 */
+	int getLength(int pattern) {
+		return this.stopStart[pattern + 1] - this.stopStart[pattern];
+	}
+
+	/**
+	 * The stops and pickup and dropoff types of a trip, read in place from
+	 * the table, for grouping trips.
+	 */
+	private static final class Key {
+		private final StopTimeTable table;
+		private final int from;
+		private final int to;
+		private final int hash;
+
+		Key(StopTimeTable table, int trip) {
+			this.table = table;
+			this.from = table.tripStart[trip];
+			this.to = table.tripStart[trip + 1];
+			int hash = 1;
+			for (int row = this.from; row < this.to; row++) {
+				hash = 31 * hash + table.stop[row];
+				hash = 31 * hash +
+						((table.pickupType[row] << 4) | table.dropoffType[row]);
+			}
+			this.hash = hash;
+		}
+
+		@Override
+		public int hashCode() {
+			return this.hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			Key other = (Key)obj;
+			if ((this.hash != other.hash) ||
+					(this.to - this.from != other.to - other.from)) {
+				return false;
+			}
+			StopTimeTable table = this.table;
+			for (int i = 0; i < this.to - this.from; i++) {
+				int a = this.from + i;
+				int b = other.from + i;
+				if ((table.stop[a] != table.stop[b]) ||
+						(table.pickupType[a] != table.pickupType[b]) ||
+						(table.dropoffType[a] != table.dropoffType[b])) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+}
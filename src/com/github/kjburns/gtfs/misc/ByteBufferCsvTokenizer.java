@@ -0,0 +1,271 @@
+package com.github.kjburns.gtfs.misc;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * A {@link CsvTokenizer} which works directly on the bytes of a UTF-8
+ * encoded buffer. Fields are remembered as ranges of the buffer and are only
+ * decoded when requested as strings; the only copying happens for quoted
+ * fields containing escaped quotes or stray carriage returns, which are
+ * unescaped into a reusable side buffer.
+ * @author Kevin J. Burns
+ *
+ */
+class ByteBufferCsvTokenizer extends CsvTokenizer {
+	private ByteBuffer source;
+	private final int start;
+	private int position;
+	private int limit;
+
+	private int[] fieldStart = new int[16];
+	private int[] fieldEnd = new int[16];
+	private boolean[] fieldInScratch = new boolean[16];
+	private byte[] scratch = new byte[256];
+	private int scratchLength = 0;
+	private byte[] decodeBuffer = new byte[256];
+
+	ByteBufferCsvTokenizer(ByteBuffer source) {
+		this.source = source.duplicate();
+		this.start = source.position();
+		this.position = source.position();
+		this.limit = source.limit();
+	}
+
+	@Override
+	public long getBytePosition() {
+		return this.position - this.start;
+	}
+
+	@Override
+	protected boolean readRecord() {
+		this.fieldCount = 0;
+		this.scratchLength = 0;
+
+		ByteBuffer buf = this.source;
+		int pos = this.position;
+		int end = this.limit;
+
+		/*
+		 * Skip empty lines. Carriage returns are dropped outside of quotes,
+		 * so a line holding only carriage returns is empty too.
+		 */
+		while (pos < end) {
+			byte b = buf.get(pos);
+			if ((b != '\n') && (b != '\r')) {
+				break;
+			}
+			pos++;
+		}
+		if (pos >= end) {
+			this.position = pos;
+			return false;
+		}
+
+		while (true) {
+			if ((pos < end) && (buf.get(pos) == '\"')) {
+				pos = this.readQuotedField(pos + 1);
+			}
+			else {
+				pos = this.readPlainField(pos);
+			}
+
+			/*
+			 * pos is now at a delimiter, a line break or the end
+			 */
+			if (pos >= end) {
+				break;
+			}
+			byte b = buf.get(pos++);
+			if (b == '\n') {
+				break;
+			}
+		}
+
+		this.position = pos;
+		return true;
+	}
+
+	private int readPlainField(int pos) {
+		ByteBuffer buf = this.source;
+		int end = this.limit;
+		int start = pos;
+		boolean sawReturn = false;
+		while (pos < end) {
+			byte b = buf.get(pos);
+			if ((b == ',') || (b == '\n')) {
+				break;
+			}
+			if (b == '\r') {
+				sawReturn = true;
+			}
+			pos++;
+		}
+
+		int fieldEndPos = pos;
+		if (sawReturn) {
+			if ((buf.get(fieldEndPos - 1) == '\r') &&
+					!this.containsReturn(start, fieldEndPos - 1)) {
+				/*
+				 * the usual case: a CRLF line ending
+				 */
+				this.endField(start, fieldEndPos - 1, false);
+			}
+			else {
+				int scratchStart = this.scratchLength;
+				for (int i = start; i < fieldEndPos; i++) {
+					byte b = buf.get(i);
+					if (b != '\r') {
+						this.appendScratch(b);
+					}
+				}
+				this.endField(scratchStart, this.scratchLength, true);
+			}
+		}
+		else {
+			this.endField(start, fieldEndPos, false);
+		}
+		return pos;
+	}
+
+	private boolean containsReturn(int start, int end) {
+		for (int i = start; i < end; i++) {
+			if (this.source.get(i) == '\r') {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private int readQuotedField(int pos) {
+		ByteBuffer buf = this.source;
+		int end = this.limit;
+		int start = pos;
+		boolean escaped = false;
+		int closingQuote = -1;
+		while (pos < end) {
+			byte b = buf.get(pos);
+			if (b == '\"') {
+				if ((pos + 1 < end) && (buf.get(pos + 1) == '\"')) {
+					escaped = true;
+					pos += 2;
+					continue;
+				}
+				closingQuote = pos;
+				pos++;
+				break;
+			}
+			pos++;
+		}
+		if (closingQuote == -1) {
+			/*
+			 * unterminated quote; the field runs to the end of the source
+			 */
+			closingQuote = end;
+		}
+
+		if (escaped) {
+			int scratchStart = this.scratchLength;
+			for (int i = start; i < closingQuote; i++) {
+				byte b = buf.get(i);
+				this.appendScratch(b);
+				if (b == '\"') {
+					i++;
+				}
+			}
+			this.endField(scratchStart, this.scratchLength, true);
+		}
+		else {
+			this.endField(start, closingQuote, false);
+		}
+
+		/*
+		 * anything after the closing quote is ignored
+		 */
+		while (pos < end) {
+			byte b = buf.get(pos);
+			if ((b == ',') || (b == '\n')) {
+				break;
+			}
+			pos++;
+		}
+		return pos;
+	}
+
+	private void appendScratch(byte b) {
+		if (this.scratchLength == this.scratch.length) {
+			this.scratch = Arrays.copyOf(
+					this.scratch, this.scratch.length * 2);
+		}
+		this.scratch[this.scratchLength++] = b;
+	}
+
+	private void endField(int start, int end, boolean inScratch) {
+		if (this.fieldCount == this.fieldStart.length) {
+			int newLength = this.fieldStart.length * 2;
+			this.fieldStart = Arrays.copyOf(this.fieldStart, newLength);
+			this.fieldEnd = Arrays.copyOf(this.fieldEnd, newLength);
+			this.fieldInScratch =
+					Arrays.copyOf(this.fieldInScratch, newLength);
+		}
+		this.fieldStart[this.fieldCount] = start;
+		this.fieldEnd[this.fieldCount] = end;
+		this.fieldInScratch[this.fieldCount] = inScratch;
+		this.fieldCount++;
+	}
+
+	@Override
+	public String getData(int col) {
+		int length = this.getFieldLength(col);
+		if (length == 0) {
+			return "";
+		}
+		int start = this.fieldStart[col];
+		if (this.fieldInScratch[col]) {
+			return new String(
+					this.scratch, start, length, StandardCharsets.UTF_8);
+		}
+		if (this.source.hasArray()) {
+			return new String(this.source.array(),
+					this.source.arrayOffset() + start, length,
+					StandardCharsets.UTF_8);
+		}
+		if (this.decodeBuffer.length < length) {
+			this.decodeBuffer = new byte[Math.max(
+					length, this.decodeBuffer.length * 2)];
+		}
+		for (int i = 0; i < length; i++) {
+			this.decodeBuffer[i] = this.source.get(start + i);
+		}
+		return new String(
+				this.decodeBuffer, 0, length, StandardCharsets.UTF_8);
+	}
+
+	@Override
+	public int getFieldLength(int col) {
+		if (col >= this.fieldCount) {
+			return 0;
+		}
+		return this.fieldEnd[col] - this.fieldStart[col];
+	}
+
+	@Override
+	public char charAt(int col, int index) {
+		if ((index < 0) || (index >= this.getFieldLength(col))) {
+			throw new IndexOutOfBoundsException();
+		}
+		int pos = this.fieldStart[col] + index;
+		if (this.fieldInScratch[col]) {
+			return (char)(this.scratch[pos] & 0xff);
+		}
+		return (char)(this.source.get(pos) & 0xff);
+	}
+
+	@Override
+	public void close() {
+		/*
+		 * The buffer belongs to the caller
+		 */
+	}
+}
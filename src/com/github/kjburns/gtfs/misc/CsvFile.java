@@ -1,10 +1,28 @@
+/*
+ * CsvFile.java
+ * General Transit Feed Specification
+ *
+ * Revision Log:
+ *   2026-10-16  Read tables through CsvTokenizer instead of decoding the
+ *               whole file as one string; getRecordCount() now counts
+ *               every record. The old decoder left an empty row after
+ *               the final line break, which getRecordCount() subtracted,
+ *               so a file not ending in a line break lost its last record.
+ */
 package com.github.kjburns.gtfs.misc;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Vector;
 
+/**
+ * A csv table held in memory, with the field names in row 0 and one record
+ * in each row after it. Tables are read through a {@link CsvTokenizer}.
+ * @author Kevin J. Burns
+ *
+ */
 public class CsvFile {
 	public static class FilenameRequiredException extends Exception {
 
@@ -68,106 +86,49 @@ public class CsvFile {
 	}
 	
 	public CsvFile(String filename) throws IOException {
-		this(1, 1);
-		
-		File f = new File(filename);
-		String text = Filesystem.readAllText(f);
-		this.csvDecode(text);
+		try (CsvTokenizer table = 
+				CsvTokenizer.open(new FileInputStream(filename))) {
+			this.readTable(table);
+		}
 		
 		this.filename = filename;
-		this.empty = false;
-		this.valid = true;
 	}
 	
 	public CsvFile(InputStream is) throws IOException {
-		this(1, 1);
-		
-		String text = Filesystem.readAllText(is);
-		this.csvDecode(text);
-		
-		this.empty = false;
-		this.valid = true;
+		this(CsvTokenizer.open(is));
+	}
+	
+	/**
+	 * Reads all remaining records of a tokenizer into a new table. The 
+	 * tokenizer is left at the end of its table but is not closed.
+	 * @param table tokenizer which has not yet been advanced past its header
+	 * @throws IOException if the tokenizer cannot read its source
+	 */
+	public CsvFile(CsvTokenizer table) throws IOException {
+		this.readTable(table);
 	}
 	
-	protected void csvDecode(String source) {
-		int currRow = 0;
-		int currCol = 0;
-		int maxWidth = 0;
-		String currData = "";
-		boolean insideQuotes = false;
-		boolean ignoreFurther = false;
-		boolean finished = false;
-		boolean rowFinished = false;
+	private void readTable(CsvTokenizer table) throws IOException {
+		int maxWidth = table.getColumnCount();
 		
-		for (int i = 0; i < source.length(); i++) {
-			char ch = source.charAt(i);
-			String ch2 = source.substring(i, Math.min(i + 2, source.length()));
-			
-			switch(ch) {
-			case '\"':
-				if (currData.length() == 0) insideQuotes = true;
-				else {
-					if (insideQuotes) {
-						if (ch2.equals("\"\"")) {
-							currData += "\"";
-							i++;
-							continue;
-						}
-						else {
-							insideQuotes = false;
-							ignoreFurther = true;
-						}
-					}
-				}
-				break;
-			case ',':
-				if (insideQuotes) currData += ch;
-				else finished = true;
-				break;
-			case '\n':
-				if (insideQuotes) currData += ch;
-				else {
-					finished = true;
-					rowFinished = true;
-				}
-				break;
-			case '\r':
-				if (insideQuotes) currData += ch;
-				break;
-			default:
-				if (!ignoreFurther) {
-					currData += ch;
-				}
-			}
-			
-			if (i == source.length() - 1) finished = true;
-			if (finished) {
-				while (currRow >= this.rows.size()) this.rows.add(new Vector<String>());
-				if (currRow == 0) {
-					if (currCol == 0) this.rows.get(0).set(0, currData);
-					else this.rows.get(currRow).add(currData);
-				}
-				else {
-					this.rows.get(currRow).add(currData);
-				}
-				currCol++;
-				finished = false;
-				ignoreFurther = false;
-				insideQuotes = false;
-				currData = "";
-			}
-			if (rowFinished) {
-				if (currCol > maxWidth) maxWidth = currCol;
-				currCol = 0;
-				currRow++;
-				this.rows.add(new Vector<String>());
-				rowFinished = false;
-			}
+		Vector<String> header = new Vector<String>();
+		for (String name : table.getHeader()) header.add(name);
+		this.rows.add(header);
+		
+		while (table.next()) {
+			int width = Math.max(table.getFieldCount(), maxWidth);
+			Vector<String> row = new Vector<String>(width);
+			for (int i = 0; i < width; i++) row.add(table.getData(i));
+			this.rows.add(row);
+			maxWidth = width;
 		}
 		
 		for (int i = 0; i < this.rows.size(); i++) {
 			while (this.rows.get(i).size() < maxWidth) this.rows.get(i).add("");
 		}
+		
+		this.empty = false;
+		this.valid = true;
 	}
 	
 	private String csvEncode(String source) {
@@ -400,11 +361,18 @@ public class CsvFile {
 		return valid;
 	}
 	
+	/**
+	 * Gets the number of records in the table, not counting the row of
+	 * field names. Every record read is counted, whether or not the file
+	 * ends in a line break; before tables were read through
+	 * {@link CsvTokenizer}, the last record of a file without a final line
+	 * break was not counted.
+	 * @return
+	 */
 	public int getRecordCount() {
-		int height = this.getHeight() - 2;
-//		while(this.rows.get(height).size() < this.getWidth()) {
-//			height--;
-//		}
-		return height;
+		/*
+		 * row 0 holds the field names
+		 */
+		return this.getHeight() - 1;
 	}
 }
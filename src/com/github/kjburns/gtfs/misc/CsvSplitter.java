@@ -0,0 +1,119 @@
+package com.github.kjburns.gtfs.misc;
+
+import java.nio.ByteBuffer;
+import java.util.stream.IntStream;
+
+/**
+ * Splits the body of a comma-separated table held in a buffer into ranges
+ * which each begin at the start of a record, so that the ranges can be
+ * tokenized independently of each other.
+ * <p>
+ * A line break only ends a record if it is outside of quotes. Whether a
+ * given position is inside quotes is found by counting the double quotes
+ * before it: every quoted field opens and closes once, and each escaped
+ * quote counts twice, so an odd count means the position is inside a quoted
+ * field. The quotes in each range are counted in parallel. This assumes
+ * that quotes only appear as quoting, as required by RFC 4180; a stray quote
+ * in the middle of an unquoted field would confuse the split.
+ * </p>
+ * @author Kevin J. Burns
+ *
+ */
+public class CsvSplitter {
+	private CsvSplitter() {
+	}
+
+	/**
+	 * Splits the records following the header of a table.
+	 * @param table UTF-8 encoded table, including its header. Its position
+	 * is not modified.
+	 * @param count number of ranges to aim for. Fewer are returned if
+	 * records are long compared to the ranges.
+	 * @return buffers over consecutive ranges of the table which together
+	 * hold every record after the header, in order. Each range begins at
+	 * the start of a record and ends after a line break or at the end of the
+	 * table.
+	 */
+	public static ByteBuffer[] split(ByteBuffer table, int count) {
+		final ByteBuffer buf = table.duplicate();
+		final int limit = buf.limit();
+		int headerEnd = CsvSplitter.findRecordEnd(buf, buf.position(),
+				limit, false);
+		if (count < 1) {
+			count = 1;
+		}
+
+		final int length = limit - headerEnd;
+		final int[] nominal = new int[count + 1];
+		for (int i = 0; i <= count; i++) {
+			nominal[i] = headerEnd + (int)((long)length * i / count);
+		}
+
+		final int[] quotes = new int[count];
+		IntStream.range(0, count).parallel().forEach((i) -> {
+			int n = 0;
+			for (int pos = nominal[i]; pos < nominal[i + 1]; pos++) {
+				if (buf.get(pos) == '\"') {
+					n++;
+				}
+			}
+			quotes[i] = n;
+		});
+
+		final boolean[] insideQuotes = new boolean[count];
+		for (int i = 1; i < count; i++) {
+			insideQuotes[i] =
+					insideQuotes[i - 1] ^ ((quotes[i - 1] & 1) != 0);
+		}
+
+		final int[] boundary = new int[count + 1];
+		boundary[0] = headerEnd;
+		boundary[count] = limit;
+		IntStream.range(1, count).parallel().forEach((i) -> {
+			boundary[i] = CsvSplitter.findRecordEnd(
+					buf, nominal[i], limit, insideQuotes[i]);
+		});
+
+		/*
+		 * A record longer than a range pushes the boundary past the next
+		 * nominal one; such ranges come out empty and are dropped.
+		 */
+		int ranges = 0;
+		for (int i = 1; i <= count; i++) {
+			boundary[i] = Math.max(boundary[i], boundary[i - 1]);
+			if (boundary[i] > boundary[i - 1]) {
+				ranges++;
+			}
+		}
+
+		ByteBuffer[] ret = new ByteBuffer[ranges];
+		int r = 0;
+		for (int i = 1; i <= count; i++) {
+			if (boundary[i] > boundary[i - 1]) {
+				ByteBuffer slice = buf.duplicate();
+				slice.limit(boundary[i]);
+				slice.position(boundary[i - 1]);
+				ret[r++] = slice;
+			}
+		}
+		return ret;
+	}
+
+	/**
+	 * Finds the position just after the first line break outside of quotes.
+	 * @return the position after the line break, or limit if there is none
+	 */
+	private static int findRecordEnd(ByteBuffer buf, int pos, int limit,
+			boolean insideQuotes) {
+		for (; pos < limit; pos++) {
+			byte b = buf.get(pos);
+			if (b == '\"') {
+				insideQuotes = !insideQuotes;
+			}
+			else if ((b == '\n') && !insideQuotes) {
+				return pos + 1;
+			}
+		}
+		return limit;
+	}
+}
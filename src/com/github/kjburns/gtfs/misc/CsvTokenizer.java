@@ -0,0 +1,462 @@
+package com.github.kjburns.gtfs.misc;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+
+import com.github.kjburns.gtfs.misc.CsvFile.FieldNotFoundException;
+
+/**
+ * <p>A forward-only reader for comma-separated tables which holds a single
+ * record in memory at a time.</p>
+ * <p>
+ * Unlike {@link CsvFile}, this class never materializes the whole table.
+ * The first record is read as the header when the tokenizer is opened;
+ * every call to {@link #next()} then replaces the current record with the
+ * following one. Internal buffers are reused from record to record, so
+ * fields can be inspected through {@link #getFieldLength(int)},
+ * {@link #charAt(int, int)}, {@link #parseInt(int)} and
+ * {@link #parseDouble(int)} without allocating. {@link #getData(int)}
+ * creates a {@link String} and should only be used for fields which are
+ * kept.
+ * </p>
+ * <p>
+ * Quoting follows the same rules as {@link CsvFile}: a field which starts
+ * with a double quote may contain commas and line breaks, a doubled quote
+ * inside it stands for a single quote, and anything after the closing quote
+ * is ignored. Carriage returns outside of quotes are dropped, and empty
+ * lines are skipped.
+ * </p>
+ * <p>
+ * The slice accessors work in code units of the underlying source, which
+ * are bytes for a {@link ByteBuffer} source and chars for a {@link Reader}
+ * source. The two agree for ASCII content such as numbers, times and flags.
+ * </p>
+ * @author Kevin J. Burns
+ *
+ */
+public abstract class CsvTokenizer implements AutoCloseable {
+	private static final double[] POWERS_OF_TEN = {
+			1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+			1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+	};
+
+	private String[] header = new String[0];
+	private HashMap<String, Integer> columns = new HashMap<>();
+	private int recordNumber = -1;
+	private RecordMonitor monitor = null;
+	private int monitorInterval = Integer.MAX_VALUE;
+	/**
+	 * Records to read before the monitor is next called
+	 */
+	private int untilMonitor = Integer.MAX_VALUE;
+
+	/**
+	 * Number of fields in the current record.
+	 */
+	protected int fieldCount = 0;
+
+	/**
+	 * Opens a tokenizer on a character stream and reads the header.
+	 * @param reader source of the table. It is closed when the tokenizer is
+	 * closed.
+	 * @return a tokenizer positioned before the first record
+	 * @throws IOException if the source cannot be read
+	 */
+	public static CsvTokenizer open(Reader reader) throws IOException {
+		CsvTokenizer ret = new ReaderCsvTokenizer(reader);
+		ret.readHeader();
+		return ret;
+	}
+
+	/**
+	 * Opens a tokenizer on a UTF-8 encoded byte stream and reads the header.
+	 * @param is source of the table. It is closed when the tokenizer is
+	 * closed.
+	 * @return a tokenizer positioned before the first record
+	 * @throws IOException if the source cannot be read
+	 */
+	public static CsvTokenizer open(InputStream is) throws IOException {
+		return CsvTokenizer.open(
+				new InputStreamReader(is, StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Opens a tokenizer on the remaining content of a UTF-8 encoded buffer
+	 * and reads the header. The buffer is tokenized in place; fields are
+	 * only decoded when requested as strings.
+	 * @param buffer source of the table. Its position is not modified.
+	 * @return a tokenizer positioned before the first record
+	 * @throws IOException never, but declared for symmetry with the other
+	 * factories
+	 */
+	public static CsvTokenizer open(ByteBuffer buffer) throws IOException {
+		CsvTokenizer ret = new ByteBufferCsvTokenizer(buffer);
+		ret.readHeader();
+		return ret;
+	}
+
+	/**
+	 * Opens a tokenizer on a range of records of a UTF-8 encoded buffer which
+	 * does not begin with a header, such as one of the ranges produced by
+	 * {@link CsvSplitter#split(ByteBuffer, int)}. Record numbers count from
+	 * the start of the range.
+	 * @param buffer records to tokenize. Its position is not modified.
+	 * @param header names of the columns, usually from
+	 * {@link #getHeader()} of a tokenizer opened on the whole table
+	 * @return a tokenizer positioned before the first record of the range
+	 */
+	public static CsvTokenizer open(ByteBuffer buffer, String[] header) {
+		CsvTokenizer ret = new ByteBufferCsvTokenizer(buffer);
+		ret.setHeader(header.clone());
+		return ret;
+	}
+
+	private void readHeader() throws IOException {
+		if (!this.readRecord()) {
+			this.recordNumber = 0;
+			return;
+		}
+
+		String[] names = new String[this.fieldCount];
+		for (int i = 0; i < this.fieldCount; i++) {
+			String name = this.getData(i);
+			if ((i == 0) && name.startsWith("\uFEFF")) {
+				/*
+				 * byte order mark
+				 */
+				name = name.substring(1);
+			}
+			names[i] = name.trim();
+		}
+		this.setHeader(names);
+	}
+
+	private void setHeader(String[] names) {
+		this.header = names;
+		for (int i = 0; i < names.length; i++) {
+			if (!this.columns.containsKey(names[i])) {
+				this.columns.put(names[i], i);
+			}
+		}
+		this.recordNumber = 0;
+	}
+
+	/**
+	 * Reads the next record from the source into the internal buffers,
+	 * replacing the current one. Empty lines are not records.
+	 * @return {@code true} if a record was read; {@code false} at the end of
+	 * the source.
+	 * @throws IOException if the source cannot be read
+	 */
+	protected abstract boolean readRecord() throws IOException;
+
+	/**
+	 * Advances to the next record.
+	 * @return {@code true} if there is a current record; {@code false} if
+	 * the end of the table has been reached.
+	 * @throws IOException if the source cannot be read
+	 */
+	public boolean next() throws IOException {
+		if (!this.readRecord()) {
+			this.fieldCount = 0;
+			if (this.monitor != null) {
+				this.monitor.recordsRead(this);
+			}
+			return false;
+		}
+		this.recordNumber++;
+		if (--this.untilMonitor == 0) {
+			this.untilMonitor = this.monitorInterval;
+			if (this.monitor != null) {
+				this.monitor.recordsRead(this);
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Sets a monitor to be called as records are read. Any exception it
+	 * throws is thrown from {@link #next()}.
+	 * @param monitor monitor to call, or {@code null} for none
+	 * @param interval number of records read between calls to the monitor
+	 * @throws IllegalArgumentException if interval is less than 1
+	 */
+	public void setMonitor(RecordMonitor monitor, int interval) {
+		if (interval < 1) {
+			throw new IllegalArgumentException();
+		}
+		this.monitor = monitor;
+		this.monitorInterval = (monitor == null) ? Integer.MAX_VALUE : 
+				interval;
+		this.untilMonitor = this.monitorInterval;
+	}
+
+	/**
+	 * Gets the number of bytes of the source consumed so far. This is only
+	 * known for a {@link ByteBuffer} source; a {@link Reader} source reads
+	 * characters, ahead of the record being tokenized.
+	 * @return the number of bytes, or -1 if it is not known
+	 */
+	public long getBytePosition() {
+		return -1;
+	}
+
+	/**
+	 * Gets the number of the current record, where the header is record #0
+	 * and the first data record is #1. This matches the record numbers used
+	 * by {@link CsvFile}.
+	 * @return
+	 */
+	public int getRecordNumber() {
+		return this.recordNumber;
+	}
+
+	/**
+	 * Gets the number of fields in the current record, which may differ
+	 * from the number of columns in the header.
+	 * @return
+	 */
+	public int getFieldCount() {
+		return this.fieldCount;
+	}
+
+	/**
+	 * Gets the names of the columns, as read from the header.
+	 * @return
+	 */
+	public String[] getHeader() {
+		return this.header.clone();
+	}
+
+	/**
+	 * Gets the number of columns defined by the header.
+	 * @return
+	 */
+	public int getColumnCount() {
+		return this.header.length;
+	}
+
+	/**
+	 * Finds the column which holds the named field.
+	 * @param fieldName name of the field, as it appears in the header
+	 * @return the zero-based column index, or -1 if the field does not exist
+	 */
+	public int getColumnIndex(String fieldName) {
+		Integer ret = this.columns.get(fieldName.trim());
+		if (ret == null) {
+			return -1;
+		}
+		return ret;
+	}
+
+	/**
+	 * Determines whether the named field appears in the header.
+	 * @param fieldName
+	 * @return
+	 */
+	public boolean fieldExists(String fieldName) {
+		return this.getColumnIndex(fieldName) != -1;
+	}
+
+	/**
+	 * Gets the value of the named field in the current record.
+	 * @param fieldName name of the field
+	 * @return the value of the field; an empty string if the current record
+	 * is shorter than the header.
+	 * @throws FieldNotFoundException if the field does not appear in the
+	 * header
+	 */
+	public String getData(String fieldName) throws FieldNotFoundException {
+		int col = this.getColumnIndex(fieldName);
+		if (col == -1) {
+			throw new FieldNotFoundException();
+		}
+		return this.getData(col);
+	}
+
+	/**
+	 * Gets the value of a column in the current record as a new string.
+	 * @param col zero-based column index
+	 * @return the value of the field; an empty string if the current record
+	 * does not reach that column.
+	 */
+	public abstract String getData(int col);
+
+	/**
+	 * Gets the length of a field in the current record, without decoding it.
+	 * @param col zero-based column index
+	 * @return the length of the field, or 0 if the current record does not
+	 * reach that column.
+	 */
+	public abstract int getFieldLength(int col);
+
+	/**
+	 * Gets a single code unit of a field in the current record.
+	 * @param col zero-based column index
+	 * @param index position within the field
+	 * @return
+	 * @throws IndexOutOfBoundsException if index is not within the field
+	 */
+	public abstract char charAt(int col, int index);
+
+	/**
+	 * Determines whether a field in the current record is empty.
+	 * @param col zero-based column index
+	 * @return
+	 */
+	public boolean isFieldEmpty(int col) {
+		return this.getFieldLength(col) == 0;
+	}
+
+	/**
+	 * Determines whether a field in the current record is empty or consists
+	 * only of whitespace.
+	 * @param col zero-based column index
+	 * @return
+	 */
+	public boolean isFieldBlank(int col) {
+		int length = this.getFieldLength(col);
+		for (int i = 0; i < length; i++) {
+			if (this.charAt(col, i) > ' ') {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Compares a field in the current record to an ASCII string without
+	 * decoding the field.
+	 * @param col zero-based column index
+	 * @param value value to compare against
+	 * @return
+	 */
+	public boolean fieldEquals(int col, String value) {
+		int length = this.getFieldLength(col);
+		if (length != value.length()) {
+			return false;
+		}
+		for (int i = 0; i < length; i++) {
+			if (this.charAt(col, i) != value.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Parses a field of the current record as a decimal integer, with the
+	 * same rules as {@link Integer#parseInt(String)}.
+	 * @param col zero-based column index
+	 * @return
+	 * @throws NumberFormatException if the field is not an integer
+	 */
+	public int parseInt(int col) throws NumberFormatException {
+		int length = this.getFieldLength(col);
+		if (length == 0) {
+			throw new NumberFormatException();
+		}
+
+		int i = 0;
+		boolean negative = false;
+		char ch = this.charAt(col, 0);
+		if ((ch == '-') || (ch == '+')) {
+			negative = (ch == '-');
+			i++;
+			if (length == 1) {
+				throw new NumberFormatException();
+			}
+		}
+
+		/*
+		 * accumulate negatively so that Integer.MIN_VALUE can be represented
+		 */
+		int ret = 0;
+		for (; i < length; i++) {
+			ch = this.charAt(col, i);
+			if ((ch < '0') || (ch > '9')) {
+				throw new NumberFormatException();
+			}
+			int digit = ch - '0';
+			if (ret < (Integer.MIN_VALUE + digit) / 10) {
+				throw new NumberFormatException();
+			}
+			ret = ret * 10 - digit;
+		}
+
+		if (negative) {
+			return ret;
+		}
+		if (ret == Integer.MIN_VALUE) {
+			throw new NumberFormatException();
+		}
+		return -ret;
+	}
+
+	/**
+	 * Parses a field of the current record as a floating point number, with
+	 * the same rules as {@link Double#parseDouble(String)}. Plain decimal
+	 * values of up to 15 significant digits are converted without
+	 * allocating; anything else is handed to {@link Double#parseDouble}.
+	 * @param col zero-based column index
+	 * @return
+	 * @throws NumberFormatException if the field is not a number
+	 */
+	public double parseDouble(int col) throws NumberFormatException {
+		int length = this.getFieldLength(col);
+		int i = 0;
+		boolean negative = false;
+		if (length > 0) {
+			char ch = this.charAt(col, 0);
+			if ((ch == '-') || (ch == '+')) {
+				negative = (ch == '-');
+				i++;
+			}
+		}
+
+		long mantissa = 0;
+		int digits = 0;
+		int fractionDigits = 0;
+		boolean seenPoint = false;
+		boolean simple = (i < length);
+		for (; simple && (i < length); i++) {
+			char ch = this.charAt(col, i);
+			if ((ch >= '0') && (ch <= '9')) {
+				if ((mantissa != 0) || (ch != '0')) {
+					digits++;
+				}
+				mantissa = mantissa * 10 + (ch - '0');
+				if (seenPoint) {
+					fractionDigits++;
+				}
+			}
+			else if ((ch == '.') && !seenPoint) {
+				seenPoint = true;
+			}
+			else {
+				simple = false;
+			}
+		}
+
+		if (simple && (digits <= 15) &&
+				(fractionDigits < POWERS_OF_TEN.length) &&
+				(!seenPoint || (length - (negative ? 1 : 0) > 1))) {
+			/*
+			 * Both the mantissa and the power of ten are exactly
+			 * representable, so the division is correctly rounded.
+			 */
+			double ret = mantissa / POWERS_OF_TEN[fractionDigits];
+			return negative ? -ret : ret;
+		}
+
+		return Double.parseDouble(this.getData(col));
+	}
+
+	@Override
+	public abstract void close() throws IOException;
+}
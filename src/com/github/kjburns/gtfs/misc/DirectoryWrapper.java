@@ -0,0 +1,98 @@
+package com.github.kjburns.gtfs.misc;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Provides access to the files in a folder on disk, such as a zip file 
+ * which has already been unpacked. Entries are the names of the files 
+ * relative to the folder.
+ * <p>
+ * Files can either be streamed through {@link #openEntry(String)} or 
+ * mapped into memory through {@link #mapEntry(String)}. Mapping avoids 
+ * copying the file into the heap at all, but is limited to files smaller 
+ * than 2 GB; larger files must be streamed.
+ * </p>
+ * @author Kevin J. Burns
+ *
+ */
+public class DirectoryWrapper implements EntrySource {
+	private File folder;
+	
+	/**
+	 * Opens a folder.
+	 * @param path path of the folder
+	 * @throws FileNotFoundException if the path does not name a folder
+	 */
+	public DirectoryWrapper(String path) throws FileNotFoundException {
+		this.folder = new File(path);
+		if (!this.folder.isDirectory()) {
+			throw new FileNotFoundException(path);
+		}
+	}
+	
+	private File resolve(String path) {
+		return new File(this.folder, path);
+	}
+
+	@Override
+	public boolean hasEntry(String path) {
+		return this.resolve(path).isFile();
+	}
+
+	@Override
+	public InputStream openEntry(String path) throws IOException {
+		File f = this.resolve(path);
+		if (!f.isFile()) return null;
+		
+		return new FileInputStream(f);
+	}
+
+	@Override
+	public ByteBuffer mapEntry(String path) throws IOException {
+		File f = this.resolve(path);
+		if (!f.isFile()) return null;
+		
+		return DirectoryWrapper.mapFile(f);
+	}
+
+	@Override
+	public long getEntrySize(String path) {
+		File f = this.resolve(path);
+		return f.isFile() ? f.length() : -1;
+	}
+	
+	/**
+	 * Maps a file into memory for reading.
+	 * @param f file to map
+	 * @return a read-only buffer over the file, or <code>null</code> if the
+	 * file is too large to map
+	 * @throws IOException if the file cannot be mapped
+	 */
+	static ByteBuffer mapFile(File f) throws IOException {
+		if (f.length() > Integer.MAX_VALUE) return null;
+		
+		try (FileChannel channel = 
+				FileChannel.open(f.toPath(), StandardOpenOption.READ)) {
+			/*
+			 * The mapping stays valid after the channel is closed.
+			 */
+			return channel.map(
+					FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+	}
+
+	/**
+	 * Nothing needs to be released; mapped buffers are unmapped when they
+	 * are no longer referenced.
+	 */
+	@Override
+	public void close() {
+	}
+}
@@ -0,0 +1,57 @@
+package com.github.kjburns.gtfs.misc;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * A container of named files, such as a zip file or a folder on disk, 
+ * which can be read one entry at a time.
+ * @author Kevin J. Burns
+ *
+ */
+public interface EntrySource extends AutoCloseable {
+	/**
+	 * Determines whether an entry exists at the supplied location.
+	 * @param path path of the entry within the container
+	 * @return
+	 */
+	boolean hasEntry(String path);
+	
+	/**
+	 * Opens a stream for reading the contents of an entry. The caller is
+	 * responsible for closing the stream.
+	 * @param path path of the entry within the container
+	 * @return A stream over the contents of the entry if it is found; 
+	 * otherwise <code>null</code>.
+	 * @throws IOException if the entry cannot be opened
+	 */
+	InputStream openEntry(String path) throws IOException;
+	
+	/**
+	 * Maps the contents of an entry into memory, if the container supports
+	 * it. The default implementation does not.
+	 * @param path path of the entry within the container
+	 * @return A read-only buffer over the contents of the entry, or 
+	 * <code>null</code> if the entry is not found or cannot be mapped. In the
+	 * latter case, use {@link #openEntry(String)} instead.
+	 * @throws IOException if the entry cannot be mapped
+	 */
+	default ByteBuffer mapEntry(String path) throws IOException {
+		return null;
+	}
+	
+	/**
+	 * Gets the uncompressed size of an entry, if it is known. The default
+	 * implementation does not know it.
+	 * @param path path of the entry within the container
+	 * @return the size in bytes, or -1 if the entry is not found or its
+	 * size is not known
+	 */
+	default long getEntrySize(String path) {
+		return -1;
+	}
+	
+	@Override
+	void close() throws IOException;
+}
@@ -0,0 +1,162 @@
+package com.github.kjburns.gtfs.misc;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * A {@link CsvTokenizer} which reads from a character stream. Characters of
+ * the current record are copied, already unquoted, into a buffer which is
+ * reused for every record.
+ * @author Kevin J. Burns
+ *
+ */
+class ReaderCsvTokenizer extends CsvTokenizer {
+	private static final int INPUT_BUFFER_SIZE = 1 << 16;
+
+	private Reader source;
+	private char[] input = new char[INPUT_BUFFER_SIZE];
+	private int inputPosition = 0;
+	private int inputLength = 0;
+
+	private char[] record = new char[256];
+	private int recordLength = 0;
+	private int[] fieldStart = new int[16];
+	private int[] fieldEnd = new int[16];
+
+	ReaderCsvTokenizer(Reader source) {
+		this.source = source;
+	}
+
+	@Override
+	protected boolean readRecord() throws IOException {
+		this.fieldCount = 0;
+		this.recordLength = 0;
+
+		boolean insideQuotes = false;
+		boolean afterQuote = false;
+		boolean ignoreFurther = false;
+		boolean quoted = false;
+		int start = 0;
+
+		while (true) {
+			if (this.inputPosition == this.inputLength) {
+				this.inputLength = this.source.read(this.input);
+				this.inputPosition = 0;
+				if (this.inputLength <= 0) {
+					this.inputLength = 0;
+					if ((this.recordLength == 0) && (this.fieldCount == 0) &&
+							!quoted) {
+						return false;
+					}
+					this.endField(start);
+					return true;
+				}
+			}
+
+			char ch = this.input[this.inputPosition++];
+
+			if (afterQuote) {
+				afterQuote = false;
+				if (ch == '\"') {
+					this.append(ch);
+					continue;
+				}
+				insideQuotes = false;
+				ignoreFurther = true;
+			}
+
+			if (insideQuotes) {
+				if (ch == '\"') {
+					afterQuote = true;
+				}
+				else {
+					this.append(ch);
+				}
+				continue;
+			}
+
+			switch (ch) {
+			case '\"':
+				if (this.recordLength == start && !ignoreFurther) {
+					insideQuotes = true;
+					quoted = true;
+				}
+				else if (!ignoreFurther) {
+					this.append(ch);
+				}
+				break;
+			case ',':
+				this.endField(start);
+				start = this.recordLength;
+				ignoreFurther = false;
+				break;
+			case '\n':
+				if ((this.recordLength == 0) && (this.fieldCount == 0) &&
+						!quoted) {
+					/*
+					 * empty line
+					 */
+					break;
+				}
+				this.endField(start);
+				return true;
+			case '\r':
+				break;
+			default:
+				if (!ignoreFurther) {
+					this.append(ch);
+				}
+			}
+		}
+	}
+
+	private void append(char ch) {
+		if (this.recordLength == this.record.length) {
+			this.record = Arrays.copyOf(this.record, this.record.length * 2);
+		}
+		this.record[this.recordLength++] = ch;
+	}
+
+	private void endField(int start) {
+		if (this.fieldCount == this.fieldStart.length) {
+			this.fieldStart = Arrays.copyOf(
+					this.fieldStart, this.fieldStart.length * 2);
+			this.fieldEnd = Arrays.copyOf(
+					this.fieldEnd, this.fieldEnd.length * 2);
+		}
+		this.fieldStart[this.fieldCount] = start;
+		this.fieldEnd[this.fieldCount] = this.recordLength;
+		this.fieldCount++;
+	}
+
+	@Override
+	public String getData(int col) {
+		if (col >= this.fieldCount) {
+			return "";
+		}
+		return new String(this.record, this.fieldStart[col],
+				this.fieldEnd[col] - this.fieldStart[col]);
+	}
+
+	@Override
+	public int getFieldLength(int col) {
+		if (col >= this.fieldCount) {
+			return 0;
+		}
+		return this.fieldEnd[col] - this.fieldStart[col];
+	}
+
+	@Override
+	public char charAt(int col, int index) {
+		if ((index < 0) || (index >= this.getFieldLength(col))) {
+			throw new IndexOutOfBoundsException();
+		}
+		return this.record[this.fieldStart[col] + index];
+	}
+
+	@Override
+	public void close() throws IOException {
+		this.source.close();
+	}
+}
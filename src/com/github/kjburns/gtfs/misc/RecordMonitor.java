@@ -0,0 +1,19 @@
+package com.github.kjburns.gtfs.misc;
+
+/**
+ * Watches a {@link CsvTokenizer} as it reads, for example to report
+ * progress or to stop a long read which is no longer wanted. Set one
+ * through {@link CsvTokenizer#setMonitor(RecordMonitor, int)}.
+ * @author Kevin J. Burns
+ *
+ */
+public interface RecordMonitor {
+	/**
+	 * Called by a tokenizer after every few records it reads, and once
+	 * more when it reaches the end of the table. A monitor may stop the
+	 * read by throwing an unchecked exception, which is thrown on from
+	 * {@link CsvTokenizer#next()}.
+	 * @param tokenizer the tokenizer which is reading
+	 */
+	void recordsRead(CsvTokenizer tokenizer);
+}
@@ -6,10 +6,14 @@ import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
 import java.util.ArrayList;
 import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.List;
+import java.util.function.BooleanSupplier;
 import java.util.regex.Pattern;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
@@ -36,6 +40,15 @@ import javax.swing.SwingWorker;
  * </ol>
  * </p>
  * <p>
+ * Alternatively, a zip file can be opened in {@link LoadMode#STREAM} mode
+ * using {@link #ZipWrapper(String, SwingWorker, LoadMode)} or
+ * {@link #ZipWrapper(String, LoadMode, BooleanSupplier)}. In that mode
+ * nothing is copied to disk; the zip file stays open and the contents of
+ * each entry are read directly from it through {@link #openEntry(String)} 
+ * or {@link #openEntryChannel(String)}. {@link #getEntry(String)} is not 
+ * available in that mode. {@link #openEntry(String)} works in both modes.
+ * </p>
+ * <p>
  * The general workflow for using this class to write a zip file is as follows:
  * <ol>
  * <li>Create a new zip wrapper using {@link #ZipWrapper()}.</li>
@@ -57,23 +70,49 @@ import javax.swing.SwingWorker;
  * @author Kevin J. Burns
  *
  */
-public class ZipWrapper implements AutoCloseable {
+public class ZipWrapper implements EntrySource {
+	/**
+	 * Ways of making the contents of an existing zip file available.
+	 * @author Kevin J. Burns
+	 *
+	 */
+	public enum LoadMode {
+		/**
+		 * Every entry is copied to a temporary folder when the zip file is
+		 * loaded, and can be read through {@link ZipWrapper#getEntry(String)}.
+		 */
+		EXTRACT,
+		/**
+		 * Entries are read straight from the zip file when they are opened.
+		 * The zip file is kept open until {@link ZipWrapper#close()}.
+		 */
+		STREAM;
+	}
+	
 	private static class Entry {
 		public String locationInFile;
 		public String locationOnDisk;
+		public ZipEntry zipEntry;
 		
 		public Entry(String file, String disk) {
 			this.locationInFile = file;
 			this.locationOnDisk = disk;
 		}
+		
+		public Entry(ZipEntry ze) {
+			this.locationInFile = ze.getName();
+			this.zipEntry = ze;
+		}
 	}
 	
 	private ArrayList<Entry> entries = new ArrayList<Entry>();
 	private HashMap<String, Entry> entriesByZipLocation = 
 			new HashMap<String, Entry>();
 	private String tempFolder = null;
+	private ZipFile openZipFile = null;
 	private int minProgress = 0;
 	private int maxProgress = 100;
+	private long extractedByteCount = 0;
 	
 	/**
 	 * Creates an empty zip file.
@@ -101,7 +140,7 @@ public class ZipWrapper implements AutoCloseable {
 	 */
 	public ZipWrapper(String filename, SwingWorker<?, ?> workerThread) 
 			throws IOException {
-		this.doLoading(filename, workerThread);
+		this.doLoading(filename, workerThread, null);
 	}
 	
 	/**
@@ -121,11 +160,84 @@ public class ZipWrapper implements AutoCloseable {
 		this.minProgress = minProgress;
 		this.maxProgress = maxProgress;
 		
-		this.doLoading(filename, workerThread);
+		this.doLoading(filename, workerThread, null);
+	}
+	
+	/**
+	 * Loads a zip file in the requested mode. If invoked in this manner, you
+	 * must call the {@link #close()} function.
+	 * Progress on the worker thread ranges from 0 to 100.
+	 * @param filename Source file to read
+	 * @param workerThread Worker thread to report to
+	 * @param mode Whether to extract the entries to a temporary folder or to
+	 * stream them from the zip file on demand
+	 * @throws IOException
+	 */
+	public ZipWrapper(String filename, SwingWorker<?, ?> workerThread, 
+			LoadMode mode) throws IOException {
+		if (mode == LoadMode.STREAM) {
+			this.doStreamLoading(filename, workerThread, null);
+		}
+		else {
+			this.doLoading(filename, workerThread, null);
+		}
+	}
+	
+	/**
+	 * Loads a zip file in the requested mode, without reporting progress. 
+	 * If invoked in this manner, you must call the {@link #close()} 
+	 * function.
+	 * @param filename Source file to read
+	 * @param mode Whether to extract the entries to a temporary folder or to
+	 * stream them from the zip file on demand
+	 * @param cancelled Checked while entries are extracted, even partway 
+	 * through an entry; once it returns {@code true}, loading stops and the
+	 * entries not yet extracted are left out. This can be {@code null}.
+	 * @throws IOException
+	 */
+	public ZipWrapper(String filename, LoadMode mode, 
+			BooleanSupplier cancelled) throws IOException {
+		if (mode == LoadMode.STREAM) {
+			this.doStreamLoading(filename, null, cancelled);
+		}
+		else {
+			this.doLoading(filename, null, cancelled);
+		}
+	}
+	
+	private static boolean isCancelled(SwingWorker<?, ?> workerThread, 
+			BooleanSupplier cancelled) {
+		if ((workerThread != null) && workerThread.isCancelled()) {
+			return true;
+		}
+		return (cancelled != null) && cancelled.getAsBoolean();
+	}
+	
+	private void doStreamLoading(String filename, 
+			SwingWorker<?, ?> workerThread, BooleanSupplier cancelled) 
+					throws IOException {
+		this.openZipFile = new ZipFile(filename);
+		
+		Enumeration<? extends ZipEntry> zipEntries = 
+				this.openZipFile.entries();
+		while (zipEntries.hasMoreElements()) {
+			if (isCancelled(workerThread, cancelled)) break;
+			
+			ZipEntry ze = zipEntries.nextElement();
+			if (!ze.isDirectory()) {
+				this.addEntryToLists(new Entry(ze));
+			}
+		}
+		
+		if (workerThread != null) {
+			workerThread.firePropertyChange(
+					"progress", this.minProgress, this.maxProgress);
+		}
 	}
 
-	private void doLoading(String filename, SwingWorker<?, ?> workerThread)
-			throws IOException, FileNotFoundException {
+	private void doLoading(String filename, SwingWorker<?, ?> workerThread,
+			BooleanSupplier cancelled) 
+					throws IOException, FileNotFoundException {
 		this.tempFolder = System.getProperty("java.io.tmpdir");
 		this.tempFolder += System.getProperty("file.separator");
 		this.tempFolder += "zip";
@@ -141,9 +253,7 @@ public class ZipWrapper implements AutoCloseable {
 			int newValue;
 			
 			while (zipEntries.hasMoreElements()) {
-				if (workerThread != null) {
-					if (workerThread.isCancelled()) break;
-				}
+				if (isCancelled(workerThread, cancelled)) break;
 				
 				ZipEntry ze = zipEntries.nextElement();
 				String path = this.tempFolder + 
@@ -152,10 +262,20 @@ public class ZipWrapper implements AutoCloseable {
 				try(
 						InputStream is = zf.getInputStream(ze); 
 						FileOutputStream fos = new FileOutputStream(path)) {
-					byte[] bytes = new byte[1024];
+					byte[] bytes = new byte[1 << 16];
 					int length;
 					while ((length = is.read(bytes)) >= 0) {
 						fos.write(bytes, 0, length);
+						this.extractedByteCount += length;
+						if ((cancelled != null) && cancelled.getAsBoolean()) {
+							break;
+						}
+					}
+					if ((cancelled != null) && cancelled.getAsBoolean()) {
+						/*
+						 * The entry may be incomplete, so leave it out
+						 */
+						break;
 					}
 					
 					this.addEntryToLists(new Entry(ze.getName(), path));
@@ -198,7 +318,9 @@ public class ZipWrapper implements AutoCloseable {
 	/**
 	 * Gets a {@link File} object necessary for accessing the zip file entry. 
 	 * @param pathInFile Virtual path in zip file where the file can be found.
-	 * @return A File object if the entry is found; otherwise <code>null</code>.
+	 * @return A File object if the entry is found and is available on disk; 
+	 * otherwise <code>null</code>. Entries of a zip file loaded in 
+	 * {@link LoadMode#STREAM} mode are never available on disk.
 	 */
 	public File getEntry(String pathInFile) {
 		Entry entry = this.entriesByZipLocation.get(pathInFile);
@@ -208,6 +330,83 @@ public class ZipWrapper implements AutoCloseable {
 		
 		return new File(path);
 	}
+	
+	@Override
+	public long getEntrySize(String pathInFile) {
+		Entry entry = this.entriesByZipLocation.get(pathInFile);
+		if (entry == null) return -1;
+		
+		if (entry.zipEntry != null) {
+			return entry.zipEntry.getSize();
+		}
+		if (entry.locationOnDisk == null) return -1;
+		
+		return new File(entry.locationOnDisk).length();
+	}
+	
+	/**
+	 * Determines whether an entry exists at the supplied location.
+	 * @param pathInFile Virtual path in zip file
+	 * @return
+	 */
+	@Override
+	public boolean hasEntry(String pathInFile) {
+		return this.entriesByZipLocation.containsKey(pathInFile);
+	}
+	
+	/**
+	 * Opens a stream for reading the contents of an entry, regardless of the
+	 * mode the zip file was loaded in. The caller is responsible for closing
+	 * the stream.
+	 * @param pathInFile Virtual path in zip file where the file can be found.
+	 * @return A stream over the uncompressed contents of the entry if it is 
+	 * found; otherwise <code>null</code>.
+	 * @throws IOException if the entry cannot be opened
+	 */
+	@Override
+	public InputStream openEntry(String pathInFile) throws IOException {
+		Entry entry = this.entriesByZipLocation.get(pathInFile);
+		if (entry == null) return null;
+		
+		if (entry.zipEntry != null) {
+			return this.openZipFile.getInputStream(entry.zipEntry);
+		}
+		if (entry.locationOnDisk == null) return null;
+		
+		return new FileInputStream(entry.locationOnDisk);
+	}
+	
+	/**
+	 * Maps the contents of an entry into memory. Only entries which have
+	 * been extracted to disk can be mapped.
+	 * @param pathInFile Virtual path in zip file where the file can be found.
+	 * @return A read-only buffer over the uncompressed contents of the entry
+	 * if it is available on disk; otherwise <code>null</code>.
+	 * @throws IOException if the entry cannot be mapped
+	 */
+	@Override
+	public ByteBuffer mapEntry(String pathInFile) throws IOException {
+		File f = this.getEntry(pathInFile);
+		if (f == null) return null;
+		
+		return DirectoryWrapper.mapFile(f);
+	}
+	
+	/**
+	 * Opens a channel for reading the contents of an entry. This is a 
+	 * convenience method for {@link #openEntry(String)}.
+	 * @param pathInFile Virtual path in zip file where the file can be found.
+	 * @return A channel over the uncompressed contents of the entry if it is
+	 * found; otherwise <code>null</code>.
+	 * @throws IOException if the entry cannot be opened
+	 */
+	public ReadableByteChannel openEntryChannel(String pathInFile) 
+			throws IOException {
+		InputStream is = this.openEntry(pathInFile);
+		if (is == null) return null;
+		
+		return Channels.newChannel(is);
+	}
 
 	/**
 	 * Gets a list of all entries in the file. The virtual paths are returned.
@@ -234,7 +433,7 @@ public class ZipWrapper implements AutoCloseable {
 		List<String> ret = new ArrayList<String>();
 		
 		for (Entry e : this.entries) {
-			if (Pattern.matches(regex, e.locationOnDisk)) {
+			if (Pattern.matches(regex, e.locationInFile)) {
 				ret.add(e.locationInFile);
 			}
 		}
@@ -290,8 +489,7 @@ public class ZipWrapper implements AutoCloseable {
 					if (workerThread.isCancelled()) break;
 				}
 				
-				File inFile = new File(e.locationOnDisk);
-				try (FileInputStream fis = new FileInputStream(inFile)) {
+				try (InputStream fis = this.openEntry(e.locationInFile)) {
 					ZipEntry ze = new ZipEntry(e.locationInFile);
 					zos.putNextEntry(ze);
 					
@@ -319,10 +517,16 @@ public class ZipWrapper implements AutoCloseable {
 	}
 
 	/**
-	 * Closes this zip wrapper and deletes any associated temporary files.
+	 * Closes this zip wrapper, releases the zip file if it was loaded in 
+	 * {@link LoadMode#STREAM} mode and deletes any associated temporary 
+	 * files.
 	 */
 	@Override
 	public void close() throws IOException {
+		if (this.openZipFile != null) {
+			this.openZipFile.close();
+			this.openZipFile = null;
+		}
 		if (this.tempFolder == null) return;
 		
 		File folder = new File(tempFolder);
@@ -333,6 +537,16 @@ public class ZipWrapper implements AutoCloseable {
 		folder.delete();
 	}
 
+	/**
+	 * Gets the number of bytes copied to the temporary folder when the zip 
+	 * file was loaded.
+	 * @return the number of uncompressed bytes extracted, which is 0 if the
+	 * file was loaded in {@link LoadMode#STREAM} mode
+	 */
+	public long getExtractedByteCount() {
+		return this.extractedByteCount;
+	}
+
 	/**
 	 * @param minProgress the minProgress to set
 	 */
@@ -59,17 +59,20 @@ public class Sandbox {
 				System.out.print(route.getShortName());
 				System.out.print(" (");
 				System.out.print(st.getTripId());
+				System.out.print(", stop ");
+				System.out.print(stopTimes.getPositionInTrip(st) + 1);
 				System.out.println(")");
 			}
 			
 			// do a stop listing for the first trip in the list
+			// (* marks a time taken from the timepoint before the stop)
 			Trip trip = gtfs.getTrips().getIterator().next();
 			System.out.println("Stops on trip " + trip.getTripId());
 			List<StopTime> timetable2 = stopTimes.getTripSchedule(trip.getTripId());
 			for (StopTime st : timetable2) {
 				System.out.print(
 						stopTimes.getEarliestDepartureTime(st, now).format(df));
-				System.out.print(' ');
+				System.out.print(st.isTimepoint() ? "  " : "* ");
 				stop = gtfs.getStops().getStopById(st.getStopId());
 				System.out.println(stop.getStopName());
 			}
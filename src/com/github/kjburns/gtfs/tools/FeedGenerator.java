@@ -0,0 +1,977 @@
+/*
+ * FeedGenerator.java
+ * General Transit Feed Specification
+ *
+ * Copyright 2016 Kevin J. Burns
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Revision Log:
+ *   2026-10-16  Basic functionality
+ */
+package com.github.kjburns.gtfs.tools;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Random;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Writes synthetic gtfs feeds of a chosen size, for measuring the library
+ * against feeds too large or too private to share.
+ * <p>
+ * Generation is driven by a single seeded random number generator, so the
+ * same seed and settings always give the same tables, byte for byte,
+ * whether written to a zip file or a folder. The default settings give a
+ * feed about the size of a large metropolitan bus network;
+ * {@link #atScale(double)} multiplies them.
+ * </p>
+ * <p>
+ * The stops lie on a jittered grid about 400 meters apart. Each route runs
+ * both ways along a wandering path over the grid, with one shape per
+ * direction following the path through its stops, and its trips spread
+ * over the service day from 05:00 to 25:00. Every 50th stop is given a
+ * parent station, which is written in addition to the stops. Transfers
+ * join stops in neighboring cells of the grid.
+ * </p>
+ * @author Kevin J. Burns
+ *
+ */
+public class FeedGenerator {
+	/**
+	 * Seed used unless another is given.
+	 */
+	public static final long DEFAULT_SEED = 20161016L;
+
+	private static final String TIMEZONE = "America/Chicago";
+	private static final double CENTER_LAT = 41.88;
+	private static final double CENTER_LON = -87.63;
+	/**
+	 * Distance between neighboring stops of the grid, in meters
+	 */
+	private static final double STOP_SPACING = 400;
+	private static final double METERS_PER_DEGREE = 111195;
+	private static final int STOPS_PER_STATION = 50;
+	private static final int SERVICE_DAY_START = 5 * 3600;
+	private static final int SERVICE_DAY_LENGTH = 20 * 3600;
+	private static final String[] DAY_PATTERNS = {
+			"1,1,1,1,1,0,0", "0,0,0,0,0,1,0", "0,0,0,0,0,0,1", "1,1,1,1,1,1,1" };
+	private static final DateTimeFormatter DATE_FORMAT =
+			DateTimeFormatter.BASIC_ISO_DATE;
+
+	private long seed = DEFAULT_SEED;
+	private int agencyCount = 1;
+	private int stopCount = 10000;
+	private int routeCount = 150;
+	private int tripCount = 15000;
+	private int stopTimesPerTrip = 40;
+	private int shapePointsPerShape = 500;
+	private int calendarCount = 4;
+	private int calendarDateCount = 100;
+	private int transferCount = 2000;
+	private LocalDate startDate = LocalDate.of(2026, 1, 1);
+	private int dayCount = 365;
+
+	/*
+	 * Working state, valid while a feed is being written
+	 */
+	private Random random;
+	private int gridColumns;
+	private double[] stopLat;
+	private double[] stopLon;
+	/**
+	 * Stops visited by each route in direction 0; direction 1 visits them
+	 * in reverse.
+	 */
+	private int[][] patterns;
+
+	/**
+	 * Creates a generator with the default settings.
+	 */
+	public FeedGenerator() {
+	}
+
+	/**
+	 * Creates a generator for a feed of a multiple of the default size. The
+	 * number of stops, routes, trips, agencies, calendar and calendar_dates
+	 * rows and transfers is multiplied; the length of each trip and shape
+	 * is not.
+	 * @param scale size relative to the default, such as 1, 10 or 100
+	 * @return
+	 * @throws IllegalArgumentException if scale is not positive
+	 */
+	public static FeedGenerator atScale(double scale) {
+		if (!(scale > 0)) {
+			throw new IllegalArgumentException("scale " + scale);
+		}
+		FeedGenerator ret = new FeedGenerator();
+		ret.setAgencyCount(scaled(ret.agencyCount, scale));
+		ret.setStopCount(scaled(ret.stopCount, scale));
+		ret.setRouteCount(scaled(ret.routeCount, scale));
+		ret.setTripCount(scaled(ret.tripCount, scale));
+		ret.setCalendarCount(scaled(ret.calendarCount, scale));
+		ret.setCalendarDateCount(scaled(ret.calendarDateCount, scale));
+		ret.setTransferCount(scaled(ret.transferCount, scale));
+		return ret;
+	}
+
+	private static int scaled(int count, double scale) {
+		return (int)Math.max(1, Math.min(Math.round(count * scale),
+				Integer.MAX_VALUE));
+	}
+
+	private static int checkCount(int count, int min, String what) {
+		if (count < min) {
+			throw new IllegalArgumentException(what + " " + count);
+		}
+		return count;
+	}
+
+	/**
+	 * @return the seed of the random number generator
+	 */
+	public long getSeed() {
+		return this.seed;
+	}
+
+	/**
+	 * @param seed the seed of the random number generator
+	 */
+	public void setSeed(long seed) {
+		this.seed = seed;
+	}
+
+	/**
+	 * @return the number of agencies
+	 */
+	public int getAgencyCount() {
+		return this.agencyCount;
+	}
+
+	/**
+	 * Sets the number of agencies. Routes are shared among them in turn.
+	 * @param agencyCount at least 1
+	 */
+	public void setAgencyCount(int agencyCount) {
+		this.agencyCount = checkCount(agencyCount, 1, "agencies");
+	}
+
+	/**
+	 * @return the number of stops, not counting stations
+	 */
+	public int getStopCount() {
+		return this.stopCount;
+	}
+
+	/**
+	 * @param stopCount number of stops, not counting stations; at least 1
+	 */
+	public void setStopCount(int stopCount) {
+		this.stopCount = checkCount(stopCount, 1, "stops");
+	}
+
+	/**
+	 * @return the number of routes
+	 */
+	public int getRouteCount() {
+		return this.routeCount;
+	}
+
+	/**
+	 * @param routeCount number of routes, at least 1
+	 */
+	public void setRouteCount(int routeCount) {
+		this.routeCount = checkCount(routeCount, 1, "routes");
+	}
+
+	/**
+	 * @return the number of trips, over all routes
+	 */
+	public int getTripCount() {
+		return this.tripCount;
+	}
+
+	/**
+	 * @param tripCount number of trips over all routes, shared among them
+	 * as evenly as possible
+	 */
+	public void setTripCount(int tripCount) {
+		this.tripCount = checkCount(tripCount, 0, "trips");
+	}
+
+	/**
+	 * @return the number of stop_times rows of each trip
+	 */
+	public int getStopTimesPerTrip() {
+		return this.stopTimesPerTrip;
+	}
+
+	/**
+	 * @param stopTimesPerTrip number of stop_times rows of each trip, at
+	 * least 2
+	 */
+	public void setStopTimesPerTrip(int stopTimesPerTrip) {
+		this.stopTimesPerTrip = checkCount(stopTimesPerTrip, 2,
+				"stop times per trip");
+	}
+
+	/**
+	 * @return the number of points of each shape
+	 */
+	public int getShapePointsPerShape() {
+		return this.shapePointsPerShape;
+	}
+
+	/**
+	 * Sets the number of points of each shape. There are two shapes per
+	 * route, one for each direction.
+	 * @param shapePointsPerShape at least 2, or 0 to leave out shapes.txt
+	 */
+	public void setShapePointsPerShape(int shapePointsPerShape) {
+		if (shapePointsPerShape != 0) {
+			checkCount(shapePointsPerShape, 2, "shape points");
+		}
+		this.shapePointsPerShape = shapePointsPerShape;
+	}
+
+	/**
+	 * @return the number of calendar rows, which is the number of services
+	 */
+	public int getCalendarCount() {
+		return this.calendarCount;
+	}
+
+	/**
+	 * Sets the number of calendar rows, one for each service. The first
+	 * four run on weekdays, Saturdays, Sundays and every day; the rest run
+	 * on days of the week chosen at random.
+	 * @param calendarCount at least 1
+	 */
+	public void setCalendarCount(int calendarCount) {
+		this.calendarCount = checkCount(calendarCount, 1, "calendar rows");
+	}
+
+	/**
+	 * @return the number of calendar_dates rows
+	 */
+	public int getCalendarDateCount() {
+		return this.calendarDateCount;
+	}
+
+	/**
+	 * Sets the number of calendar_dates rows, which add or remove service
+	 * on single days. There can be at most one for each service and day.
+	 * @param calendarDateCount number of rows, or 0 to leave out
+	 * calendar_dates.txt
+	 */
+	public void setCalendarDateCount(int calendarDateCount) {
+		this.calendarDateCount = checkCount(calendarDateCount, 0,
+				"calendar_dates rows");
+	}
+
+	/**
+	 * @return the number of transfers rows
+	 */
+	public int getTransferCount() {
+		return this.transferCount;
+	}
+
+	/**
+	 * @param transferCount number of transfers rows, or 0 to leave out
+	 * transfers.txt
+	 */
+	public void setTransferCount(int transferCount) {
+		this.transferCount = checkCount(transferCount, 0, "transfers");
+	}
+
+	/**
+	 * @return the first day of service
+	 */
+	public LocalDate getStartDate() {
+		return this.startDate;
+	}
+
+	/**
+	 * @param startDate the first day of service
+	 */
+	public void setStartDate(LocalDate startDate) {
+		if (startDate == null) {
+			throw new IllegalArgumentException("start date");
+		}
+		this.startDate = startDate;
+	}
+
+	/**
+	 * @return the number of days of service
+	 */
+	public int getDayCount() {
+		return this.dayCount;
+	}
+
+	/**
+	 * @param dayCount number of days of service, at least 1
+	 */
+	public void setDayCount(int dayCount) {
+		this.dayCount = checkCount(dayCount, 1, "days");
+	}
+
+	/**
+	 * Writes a feed to a zip file, replacing any file already there.
+	 * @param zip
+	 * @throws IOException
+	 * @throws IllegalStateException if there are more calendar_dates rows
+	 * than services times days
+	 */
+	public void writeZip(File zip) throws IOException {
+		this.checkSettings();
+		/*
+		 * Entries carry the same local time wherever the feed is written,
+		 * so the zip is the same byte for byte.
+		 */
+		long time = this.startDate.atStartOfDay(ZoneId.systemDefault())
+				.toInstant().toEpochMilli();
+		try (ZipOutputStream zos =
+				new ZipOutputStream(new FileOutputStream(zip))) {
+			/*
+			 * Compression takes most of the time at the default level, for
+			 * little gain in size
+			 */
+			zos.setLevel(Deflater.BEST_SPEED);
+			this.write(new TableSink() {
+				private Writer writer = new BufferedWriter(
+						new OutputStreamWriter(zos, StandardCharsets.UTF_8),
+						1 << 16);
+
+				@Override
+				public Writer begin(String table) throws IOException {
+					ZipEntry entry = new ZipEntry(table);
+					entry.setTime(time);
+					zos.putNextEntry(entry);
+					return this.writer;
+				}
+
+				@Override
+				public void end() throws IOException {
+					this.writer.flush();
+					zos.closeEntry();
+				}
+			});
+		}
+	}
+
+	/**
+	 * Writes a feed to a folder, one file per table, replacing any tables
+	 * already there. The folder is created if it does not exist.
+	 * @param folder
+	 * @throws IOException
+	 * @throws IllegalStateException if there are more calendar_dates rows
+	 * than services times days
+	 */
+	public void writeFolder(File folder) throws IOException {
+		this.checkSettings();
+		Files.createDirectories(folder.toPath());
+		this.write(new TableSink() {
+			private Writer writer = null;
+
+			@Override
+			public Writer begin(String table) throws IOException {
+				this.writer = Files.newBufferedWriter(
+						new File(folder, table).toPath(),
+						StandardCharsets.UTF_8);
+				return this.writer;
+			}
+
+			@Override
+			public void end() throws IOException {
+				this.writer.close();
+			}
+		});
+	}
+
+	private void checkSettings() {
+		if ((long)this.calendarDateCount >
+				(long)this.calendarCount * this.dayCount) {
+			throw new IllegalStateException("more calendar_dates rows than " +
+					"services times days");
+		}
+	}
+
+	/**
+	 * Destination of the tables of a feed, written one at a time.
+	 */
+	private interface TableSink {
+		/**
+		 * Starts a table.
+		 * @param table name of the table, such as stops.txt
+		 * @return writer for the contents of the table
+		 * @throws IOException
+		 */
+		Writer begin(String table) throws IOException;
+
+		/**
+		 * Finishes the table most recently started.
+		 * @throws IOException
+		 */
+		void end() throws IOException;
+	}
+
+	private void write(TableSink sink) throws IOException {
+		this.random = new Random(this.seed);
+		try {
+			this.writeAgencies(sink);
+			this.writeStops(sink);
+			this.writeRoutes(sink);
+			this.writeCalendar(sink);
+			this.writeCalendarDates(sink);
+			this.writeShapes(sink);
+			int[] tripStart = this.writeTrips(sink);
+			this.writeStopTimes(sink, tripStart);
+			this.writeTransfers(sink);
+		} finally {
+			this.random = null;
+			this.stopLat = null;
+			this.stopLon = null;
+			this.patterns = null;
+		}
+	}
+
+	private void writeAgencies(TableSink sink) throws IOException {
+		Writer out = sink.begin("agency.txt");
+		out.write("agency_id,agency_name,agency_url,agency_timezone," +
+				"agency_lang\n");
+		StringBuilder row = new StringBuilder();
+		for (int a = 0; a < this.agencyCount; a++) {
+			row.setLength(0);
+			row.append('A').append(a)
+				.append(",Synthetic Transit ").append(a)
+				.append(",http://example.com/").append(a)
+				.append(',').append(TIMEZONE)
+				.append(",en\n");
+			out.append(row);
+		}
+		sink.end();
+	}
+
+	private void writeStops(TableSink sink) throws IOException {
+		int n = this.stopCount;
+		this.gridColumns = (int)Math.ceil(Math.sqrt(n));
+		int gridRows = (n + this.gridColumns - 1) / this.gridColumns;
+		double cellLat = STOP_SPACING / METERS_PER_DEGREE;
+		double cellLon = cellLat / Math.cos(Math.toRadians(CENTER_LAT));
+		double originLat = CENTER_LAT - cellLat * gridRows / 2;
+		double originLon = CENTER_LON - cellLon * this.gridColumns / 2;
+
+		this.stopLat = new double[n];
+		this.stopLon = new double[n];
+		Writer out = sink.begin("stops.txt");
+		out.write("stop_id,stop_code,stop_name,stop_lat,stop_lon," +
+				"location_type,parent_station\n");
+		StringBuilder row = new StringBuilder();
+		for (int i = 0; i < n; i++) {
+			int r = i / this.gridColumns;
+			int c = i % this.gridColumns;
+			this.stopLat[i] = originLat +
+					cellLat * (r + 0.2 + 0.6 * this.random.nextDouble());
+			this.stopLon[i] = originLon +
+					cellLon * (c + 0.2 + 0.6 * this.random.nextDouble());
+			row.setLength(0);
+			row.append('S').append(i)
+				.append(',').append(10000 + i)
+				.append(",\"Street ").append(r)
+				.append(" & Avenue ").append(c)
+				.append(", Stop ").append(i).append("\",");
+			appendDecimal(row, this.stopLat[i], 6);
+			row.append(',');
+			appendDecimal(row, this.stopLon[i], 6);
+			row.append(",0,");
+			if (i % STOPS_PER_STATION == 0) {
+				row.append("ST").append(i / STOPS_PER_STATION);
+			}
+			row.append('\n');
+			out.append(row);
+		}
+		for (int i = 0; i < n; i += STOPS_PER_STATION) {
+			row.setLength(0);
+			row.append("ST").append(i / STOPS_PER_STATION)
+				.append(",,Station ").append(i / STOPS_PER_STATION)
+				.append(',');
+			appendDecimal(row, this.stopLat[i], 6);
+			row.append(',');
+			appendDecimal(row, this.stopLon[i], 6);
+			row.append(",1,\n");
+			out.append(row);
+		}
+		sink.end();
+	}
+
+	private void writeRoutes(TableSink sink) throws IOException {
+		/*
+		 * Each route wanders over the grid, heading mostly one way and
+		 * turning back at the edges
+		 */
+		int gridRows = (this.stopCount + this.gridColumns - 1) /
+				this.gridColumns;
+		this.patterns = new int[this.routeCount][this.stopTimesPerTrip];
+		for (int[] pattern : this.patterns) {
+			int r = this.random.nextInt(gridRows);
+			int c = this.random.nextInt(this.gridColumns);
+			int dr = this.random.nextInt(3) - 1;
+			int dc = (dr == 0) ?
+					(this.random.nextBoolean() ? 1 : -1) :
+					this.random.nextInt(3) - 1;
+			for (int k = 0; k < pattern.length; k++) {
+				int stop = r * this.gridColumns + c;
+				if (stop >= this.stopCount) {
+					/*
+					 * The last row of the grid is not full
+					 */
+					stop = Math.max(0, stop - this.gridColumns);
+				}
+				pattern[k] = stop;
+
+				if ((r + dr < 0) || (r + dr >= gridRows)) {
+					dr = -dr;
+				}
+				if ((c + dc < 0) || (c + dc >= this.gridColumns)) {
+					dc = -dc;
+				}
+				r = Math.max(0, Math.min(r + dr, gridRows - 1));
+				c = Math.max(0, Math.min(c + dc, this.gridColumns - 1));
+				if (this.random.nextInt(4) == 0) {
+					/*
+					 * Jog sideways
+					 */
+					if (dr == 0) {
+						r = Math.max(0, Math.min(
+								r + this.random.nextInt(3) - 1, gridRows - 1));
+					}
+					else {
+						c = Math.max(0, Math.min(
+								c + this.random.nextInt(3) - 1,
+								this.gridColumns - 1));
+					}
+				}
+			}
+		}
+
+		Writer out = sink.begin("routes.txt");
+		out.write("route_id,agency_id,route_short_name,route_long_name," +
+				"route_type,route_color\n");
+		StringBuilder row = new StringBuilder();
+		for (int r = 0; r < this.routeCount; r++) {
+			int[] pattern = this.patterns[r];
+			row.setLength(0);
+			row.append('R').append(r)
+				.append(",A").append(r % this.agencyCount)
+				.append(',').append(r + 1)
+				.append(",Stop ").append(pattern[0])
+				.append(" - Stop ").append(pattern[pattern.length - 1])
+				.append(',').append((r % 10 == 9) ? 1 : 3)
+				.append(',');
+			String color = Integer.toHexString(
+					this.random.nextInt(1 << 24) | (1 << 24));
+			row.append(color, 1, 7).append('\n');
+			out.append(row);
+		}
+		sink.end();
+	}
+
+	private void writeCalendar(TableSink sink) throws IOException {
+		String start = this.startDate.format(DATE_FORMAT);
+		String end = this.startDate.plusDays(this.dayCount - 1)
+				.format(DATE_FORMAT);
+		Writer out = sink.begin("calendar.txt");
+		out.write("service_id,monday,tuesday,wednesday,thursday,friday," +
+				"saturday,sunday,start_date,end_date\n");
+		StringBuilder row = new StringBuilder();
+		for (int s = 0; s < this.calendarCount; s++) {
+			row.setLength(0);
+			row.append("SV").append(s).append(',');
+			if (s < DAY_PATTERNS.length) {
+				row.append(DAY_PATTERNS[s]);
+			}
+			else {
+				int days = 1 + this.random.nextInt(127);
+				for (int d = 0; d < 7; d++) {
+					row.append((d > 0) ? "," : "").append((days >> d) & 1);
+				}
+			}
+			row.append(',').append(start).append(',').append(end).append('\n');
+			out.append(row);
+		}
+		sink.end();
+	}
+
+	private void writeCalendarDates(TableSink sink) throws IOException {
+		if (this.calendarDateCount == 0) {
+			return;
+		}
+		/*
+		 * Row k belongs to service k mod services, and falls in the
+		 * (k / services)th of equal spans of the service period, so no
+		 * service has two rows on the same day.
+		 */
+		int perService = (this.calendarDateCount + this.calendarCount - 1) /
+				this.calendarCount;
+		int span = this.dayCount / perService;
+		Writer out = sink.begin("calendar_dates.txt");
+		out.write("service_id,date,exception_type\n");
+		StringBuilder row = new StringBuilder();
+		for (int k = 0; k < this.calendarDateCount; k++) {
+			int day = (k / this.calendarCount) * span +
+					this.random.nextInt(span);
+			row.setLength(0);
+			row.append("SV").append(k % this.calendarCount)
+				.append(',').append(this.startDate.plusDays(day)
+						.format(DATE_FORMAT))
+				.append(',').append(this.random.nextBoolean() ? 1 : 2)
+				.append('\n');
+			out.append(row);
+		}
+		sink.end();
+	}
+
+	/**
+	 * Computes the distance along a route's path to each of its stops, in
+	 * direction 0.
+	 * @param pattern stops of the route
+	 * @return distances in meters, starting at 0
+	 */
+	private double[] measure(int[] pattern) {
+		double scaleLon = Math.cos(Math.toRadians(CENTER_LAT));
+		double[] ret = new double[pattern.length];
+		for (int k = 1; k < pattern.length; k++) {
+			double dLat = this.stopLat[pattern[k]] -
+					this.stopLat[pattern[k - 1]];
+			double dLon = (this.stopLon[pattern[k]] -
+					this.stopLon[pattern[k - 1]]) * scaleLon;
+			ret[k] = ret[k - 1] +
+					METERS_PER_DEGREE * Math.sqrt(dLat * dLat + dLon * dLon);
+		}
+		return ret;
+	}
+
+	private void writeShapes(TableSink sink) throws IOException {
+		if (this.shapePointsPerShape == 0) {
+			return;
+		}
+		/*
+		 * Points are spaced evenly by stop along the path through the
+		 * route's stops, so the shape passes through every stop when it
+		 * has more points than the route has stops.
+		 */
+		Writer out = sink.begin("shapes.txt");
+		out.write("shape_id,shape_pt_lat,shape_pt_lon,shape_pt_sequence," +
+				"shape_dist_traveled\n");
+		StringBuilder row = new StringBuilder();
+		int last = this.stopTimesPerTrip - 1;
+		for (int r = 0; r < this.routeCount; r++) {
+			int[] pattern = this.patterns[r];
+			double[] distance = this.measure(pattern);
+			for (int direction = 0; direction < 2; direction++) {
+				for (int p = 0; p < this.shapePointsPerShape; p++) {
+					double position =
+							(double)p * last / (this.shapePointsPerShape - 1);
+					if (direction == 1) {
+						position = last - position;
+					}
+					int k = Math.min((int)position, last - 1);
+					double t = position - k;
+					int a = pattern[k];
+					int b = pattern[k + 1];
+					double along = distance[k] +
+							t * (distance[k + 1] - distance[k]);
+					if (direction == 1) {
+						along = distance[last] - along;
+					}
+					row.setLength(0);
+					row.append("SH").append(r).append('_').append(direction)
+						.append(',');
+					appendDecimal(row, this.stopLat[a] +
+							t * (this.stopLat[b] - this.stopLat[a]), 6);
+					row.append(',');
+					appendDecimal(row, this.stopLon[a] +
+							t * (this.stopLon[b] - this.stopLon[a]), 6);
+					row.append(',').append(p + 1).append(',');
+					appendDecimal(row, along, 1);
+					row.append('\n');
+					out.append(row);
+				}
+			}
+		}
+		sink.end();
+	}
+
+	/**
+	 * Writes trips.txt.
+	 * @param sink
+	 * @return the time at which each trip leaves its first stop, in
+	 * seconds after midnight
+	 * @throws IOException
+	 */
+	private int[] writeTrips(TableSink sink) throws IOException {
+		int[] ret = new int[this.tripCount];
+		Writer out = sink.begin("trips.txt");
+		out.write("route_id,service_id,trip_id,trip_headsign,direction_id," +
+				"shape_id\n");
+		StringBuilder row = new StringBuilder();
+		int trip = 0;
+		for (int r = 0; r < this.routeCount; r++) {
+			int[] pattern = this.patterns[r];
+			int trips = this.tripsOfRoute(r);
+			int headway = SERVICE_DAY_LENGTH / Math.max(1, trips);
+			for (int k = 0; k < trips; k++, trip++) {
+				int direction = k % 2;
+				ret[trip] = SERVICE_DAY_START + k * headway +
+						this.random.nextInt(Math.max(1, Math.min(headway, 600)));
+				row.setLength(0);
+				row.append('R').append(r)
+					.append(",SV").append(
+							this.random.nextInt(this.calendarCount))
+					.append(",T").append(trip)
+					.append(",Stop ").append((direction == 0) ?
+							pattern[pattern.length - 1] : pattern[0])
+					.append(',').append(direction)
+					.append(',');
+				if (this.shapePointsPerShape > 0) {
+					row.append("SH").append(r).append('_').append(direction);
+				}
+				row.append('\n');
+				out.append(row);
+			}
+		}
+		sink.end();
+		return ret;
+	}
+
+	private int tripsOfRoute(int route) {
+		return (int)((long)this.tripCount * (route + 1) / this.routeCount -
+				(long)this.tripCount * route / this.routeCount);
+	}
+
+	private void writeStopTimes(TableSink sink, int[] tripStart)
+			throws IOException {
+		Writer out = sink.begin("stop_times.txt");
+		out.write("trip_id,arrival_time,departure_time,stop_id," +
+				"stop_sequence,timepoint,shape_dist_traveled\n");
+		StringBuilder row = new StringBuilder();
+		int last = this.stopTimesPerTrip - 1;
+		int trip = 0;
+		for (int r = 0; r < this.routeCount; r++) {
+			int[] pattern = this.patterns[r];
+			double[] distance = this.measure(pattern);
+			int trips = this.tripsOfRoute(r);
+			for (int k = 0; k < trips; k++, trip++) {
+				int direction = k % 2;
+				int time = tripStart[trip];
+				for (int i = 0; i <= last; i++) {
+					int stop = (direction == 0) ? i : last - i;
+					int dwell = ((i == 0) || (i == last) ||
+							(this.random.nextInt(4) != 0)) ?
+									0 : 20;
+					row.setLength(0);
+					row.append('T').append(trip).append(',');
+					appendTime(row, time);
+					row.append(',');
+					appendTime(row, time + dwell);
+					row.append(",S").append(pattern[stop])
+						.append(',').append(i + 1)
+						.append(',').append(
+								((i == 0) || (i == last) || (i % 5 == 0)) ?
+										1 : 0)
+						.append(',');
+					appendDecimal(row, (direction == 0) ?
+							distance[stop] : distance[last] - distance[stop],
+							1);
+					row.append('\n');
+					out.append(row);
+					time += dwell + 60 + this.random.nextInt(120);
+				}
+			}
+		}
+		sink.end();
+	}
+
+	private void writeTransfers(TableSink sink) throws IOException {
+		if (this.transferCount == 0) {
+			return;
+		}
+		/*
+		 * Each transfer leads from a stop to the stop one cell over
+		 */
+		Writer out = sink.begin("transfers.txt");
+		out.write("from_stop_id,to_stop_id,transfer_type," +
+				"min_transfer_time\n");
+		StringBuilder row = new StringBuilder();
+		for (int k = 0; k < this.transferCount; k++) {
+			int from = this.random.nextInt(this.stopCount);
+			int to = from + (this.random.nextBoolean() ? 1 : -1) *
+					(this.random.nextBoolean() ? 1 : this.gridColumns);
+			if ((to < 0) || (to >= this.stopCount)) {
+				to = from;
+			}
+			int type = this.random.nextInt(4);
+			row.setLength(0);
+			row.append('S').append(from)
+				.append(",S").append(to)
+				.append(',').append(type)
+				.append(',');
+			if (type == 2) {
+				row.append(60 + 30 * this.random.nextInt(9));
+			}
+			row.append('\n');
+			out.append(row);
+		}
+		sink.end();
+	}
+
+	/**
+	 * Appends a number rounded to a fixed number of decimal places,
+	 * without depending on the default locale.
+	 */
+	private static void appendDecimal(StringBuilder sb, double value,
+			int places) {
+		long factor = 1;
+		for (int i = 0; i < places; i++) {
+			factor *= 10;
+		}
+		long scaled = Math.round(value * factor);
+		if (scaled < 0) {
+			sb.append('-');
+			scaled = -scaled;
+		}
+		sb.append(scaled / factor);
+		if (places > 0) {
+			sb.append('.');
+			String fraction = Long.toString(scaled % factor + factor);
+			sb.append(fraction, 1, fraction.length());
+		}
+	}
+
+	/**
+	 * Appends a time of day as HH:MM:SS, with hours past 23 for times after
+	 * midnight.
+	 */
+	private static void appendTime(StringBuilder sb, int seconds) {
+		int hours = seconds / 3600;
+		int minutes = seconds / 60 % 60;
+		int secs = seconds % 60;
+		sb.append((char)('0' + hours / 10)).append((char)('0' + hours % 10))
+			.append(':')
+			.append((char)('0' + minutes / 10)).append((char)('0' + minutes % 10))
+			.append(':')
+			.append((char)('0' + secs / 10)).append((char)('0' + secs % 10));
+	}
+
+	/**
+	 * Writes a feed from the command line. The output is written as a zip
+	 * file if its name ends in .zip, and otherwise as a folder.
+	 * <pre>
+	 * FeedGenerator output [--scale=N] [--seed=N] [--agencies=N]
+	 *         [--stops=N] [--routes=N] [--trips=N] [--stop-times-per-trip=N]
+	 *         [--shape-points=N] [--calendar=N] [--calendar-dates=N]
+	 *         [--transfers=N] [--start-date=YYYYMMDD] [--days=N]
+	 * </pre>
+	 * The scale is applied first, and the other options then override the
+	 * counts it gives.
+	 * @param args
+	 * @throws IOException
+	 */
+	public static void main(String[] args) throws IOException {
+		if ((args.length == 0) || args[0].startsWith("--")) {
+			System.err.println("usage: FeedGenerator output [--scale=N] " +
+					"[--seed=N] [--agencies=N] [--stops=N] [--routes=N] " +
+					"[--trips=N] [--stop-times-per-trip=N] " +
+					"[--shape-points=N] [--calendar=N] [--calendar-dates=N] " +
+					"[--transfers=N] [--start-date=YYYYMMDD] [--days=N]");
+			System.exit(2);
+		}
+
+		FeedGenerator generator = new FeedGenerator();
+		for (int i = 1; i < args.length; i++) {
+			if (args[i].startsWith("--scale=")) {
+				generator = atScale(Double.parseDouble(
+						args[i].substring("--scale=".length())));
+			}
+		}
+		for (int i = 1; i < args.length; i++) {
+			int eq = args[i].indexOf('=');
+			if (!args[i].startsWith("--") || (eq < 0)) {
+				throw new IllegalArgumentException(args[i]);
+			}
+			String name = args[i].substring(2, eq);
+			String value = args[i].substring(eq + 1);
+			switch (name) {
+			case "scale":
+				break;
+			case "seed":
+				generator.setSeed(Long.parseLong(value));
+				break;
+			case "agencies":
+				generator.setAgencyCount(Integer.parseInt(value));
+				break;
+			case "stops":
+				generator.setStopCount(Integer.parseInt(value));
+				break;
+			case "routes":
+				generator.setRouteCount(Integer.parseInt(value));
+				break;
+			case "trips":
+				generator.setTripCount(Integer.parseInt(value));
+				break;
+			case "stop-times-per-trip":
+				generator.setStopTimesPerTrip(Integer.parseInt(value));
+				break;
+			case "shape-points":
+				generator.setShapePointsPerShape(Integer.parseInt(value));
+				break;
+			case "calendar":
+				generator.setCalendarCount(Integer.parseInt(value));
+				break;
+			case "calendar-dates":
+				generator.setCalendarDateCount(Integer.parseInt(value));
+				break;
+			case "transfers":
+				generator.setTransferCount(Integer.parseInt(value));
+				break;
+			case "start-date":
+				generator.setStartDate(LocalDate.parse(value, DATE_FORMAT));
+				break;
+			case "days":
+				generator.setDayCount(Integer.parseInt(value));
+				break;
+			default:
+				throw new IllegalArgumentException(args[i]);
+			}
+		}
+
+		File output = new File(args[0]);
+		if (args[0].toLowerCase().endsWith(".zip")) {
+			generator.writeZip(output);
+		}
+		else {
+			generator.writeFolder(output);
+		}
+	}
+}
@@ -0,0 +1,139 @@
+/*
+ * ConnectionScannerTest.java
+ * General Transit Feed Specification
+ *
+ * Copyright 2016 Kevin J. Burns
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Revision Log:
+ *   2026-10-16  Basic functionality
+ */
+package com.github.kjburns.gtfs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.github.kjburns.gtfs.tools.FeedGenerator;
+
+/**
+ * Tests of the connection scanner against {@link RaptorRouter}, which
+ * must agree on the earliest arrival at every stop.
+ * @author Kevin J. Burns
+ *
+ */
+class ConnectionScannerTest {
+	private static final int QUERIES = 200;
+
+	@TempDir
+	static Path folder;
+	private static GtfsFile gtfs;
+	private static ConnectionScanner scanner;
+	private static RaptorRouter router;
+	private static List<String> stopIds = new ArrayList<>();
+
+	@BeforeAll
+	static void load() throws Exception {
+		FeedGenerator.atScale(0.05).writeFolder(folder.toFile());
+		gtfs = new GtfsFile(folder.toString(), null);
+		scanner = new ConnectionScanner(gtfs);
+		router = new RaptorRouter(gtfs);
+		router.setMaxTransfers(50);
+		for (int i = 0; i < scanner.getStopCount(); i++) {
+			String id = scanner.getStopId(i);
+			if (gtfs.getStops().getStopById(id) != null) {
+				stopIds.add(id);
+			}
+		}
+	}
+
+	@AfterAll
+	static void close() throws Exception {
+		gtfs.close();
+	}
+
+	/**
+	 * Queries through the morning of a weekday.
+	 */
+	@Test
+	void earliestArrivalMatchesRaptor() {
+		this.compare(LocalDateTime.of(2026, 3, 4, 7, 0), 1);
+	}
+
+	/**
+	 * Queries just after midnight, which can only be answered by trips of
+	 * the previous service day, whose times are past 24:00:00.
+	 */
+	@Test
+	void earliestArrivalAfterMidnightMatchesRaptor() {
+		this.compare(LocalDateTime.of(2026, 3, 5, 0, 5), 2);
+	}
+
+	/**
+	 * Queries more dates than are kept, then the first of them again,
+	 * whose connections must be built anew.
+	 */
+	@Test
+	void earliestArrivalAfterEvictionMatchesRaptor() {
+		LocalDateTime start = LocalDateTime.of(2026, 4, 1, 8, 0);
+		for (int day = 0; day <= ConnectionScanner.CACHED_DATES; day++) {
+			long departure = start.plusDays(day)
+					.atZone(gtfs.getZoneId()).toEpochSecond();
+			scanner.earliestArrivals(stopIds.get(0), departure);
+		}
+		this.compare(start, 3);
+	}
+
+	/**
+	 * Compares random queries departing within an hour of a time.
+	 * @param start
+	 * @param seed
+	 */
+	private void compare(LocalDateTime start, long seed) {
+		long base = start.atZone(gtfs.getZoneId()).toEpochSecond();
+		Random random = new Random(seed);
+		int reached = 0;
+		for (int q = 0; q < QUERIES; q++) {
+			String from = stopIds.get(random.nextInt(stopIds.size()));
+			String to = stopIds.get(random.nextInt(stopIds.size()));
+			if (from.equals(to)) {
+				continue;
+			}
+			long departure = base + random.nextInt(3600);
+
+			List<Journey> journeys = router.route(from, to, departure);
+			long expected = journeys.isEmpty() ? ConnectionScanner.UNREACHABLE :
+					journeys.get(journeys.size() - 1).getArrivalEpochSecond();
+			long actual = scanner.earliestArrival(from, to, departure);
+			assertEquals(expected, actual, from + " to " + to + " at " +
+					departure);
+			assertEquals(actual, scanner.earliestArrivals(from, departure)
+					[scanner.getStopIndex(to)]);
+			if (actual != ConnectionScanner.UNREACHABLE) {
+				reached++;
+			}
+		}
+		assertTrue(reached > 0, "no query reached its destination");
+	}
+}
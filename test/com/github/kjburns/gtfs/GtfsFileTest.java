@@ -0,0 +1,140 @@
+/*
+ * GtfsFileTest.java
+ * General Transit Feed Specification
+ *
+ * Copyright 2016 Kevin J. Burns
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Revision Log:
+ *   2026-10-16  Basic functionality
+ */
+package com.github.kjburns.gtfs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.github.kjburns.gtfs.tools.FeedGenerator;
+
+/**
+ * Tests of cancelling a load and of the progress it reports.
+ * @author Kevin J. Burns
+ *
+ */
+class GtfsFileTest {
+	private static final int CHECK_INTERVAL = 100;
+
+	@TempDir
+	static Path folder;
+
+	@BeforeAll
+	static void writeFeed() throws Exception {
+		FeedGenerator.atScale(0.1).writeFolder(folder.toFile());
+	}
+
+	/**
+	 * Progress is reported in bytes as the tables are parsed, and reaches
+	 * the size of every table once loading is done.
+	 */
+	@Test
+	void progressReachesTotal() throws Exception {
+		ProgressRecorder progress = new ProgressRecorder(null);
+		try (GtfsFile gtfs = new GtfsFile(folder.toString(), null,
+				options(null, progress))) {
+		}
+		assertTrue(progress.reports.get() > 1);
+		assertTrue(progress.total.get() > 0);
+		assertEquals(progress.total.get(), progress.maxRead.get());
+	}
+
+	/**
+	 * A token cancelled while the tables are parsed stops the load before
+	 * it reads much further, and the constructor throws.
+	 */
+	@Test
+	void cancelledTokenStopsLoading() throws Exception {
+		CancellationToken token = new CancellationToken();
+		ProgressRecorder progress = new ProgressRecorder(token);
+		progress.armed.set(true);
+		assertThrows(InterruptedException.class, () -> new GtfsFile(
+				folder.toString(), null, options(token, progress)));
+		assertTrue(token.isCancelled());
+		assertTrue(progress.maxRead.get() < progress.total.get() / 2,
+				progress.maxRead + " of " + progress.total);
+	}
+
+	/**
+	 * With lazy loading, the accessor which is loading a table when the
+	 * token is cancelled throws, and so do later ones which need it.
+	 */
+	@Test
+	void cancelledTokenStopsLazyLoading() throws Exception {
+		CancellationToken token = new CancellationToken();
+		ProgressRecorder progress = new ProgressRecorder(token);
+		GtfsLoadOptions options = options(token, progress);
+		options.setLazyLoading(true);
+		try (GtfsFile gtfs = new GtfsFile(folder.toString(), null, options)) {
+			progress.armed.set(true);
+			assertThrows(CancellationException.class,
+					() -> gtfs.getAllTimetables());
+			assertTrue(token.isCancelled());
+			assertThrows(CancellationException.class,
+					() -> gtfs.getAllTimetables());
+		}
+	}
+
+	private static GtfsLoadOptions options(CancellationToken token,
+			LoadProgressSink sink) {
+		GtfsLoadOptions options = new GtfsLoadOptions();
+		options.setCancellationToken(token);
+		options.setProgressSink(sink);
+		options.setCheckInterval(CHECK_INTERVAL);
+		return options;
+	}
+
+	/**
+	 * Records the progress reported, and cancels a token at the first
+	 * report once armed.
+	 */
+	private static class ProgressRecorder implements LoadProgressSink {
+		private final CancellationToken token;
+		final AtomicBoolean armed = new AtomicBoolean();
+		final AtomicLong reports = new AtomicLong();
+		final AtomicLong maxRead = new AtomicLong();
+		final AtomicLong total = new AtomicLong();
+
+		ProgressRecorder(CancellationToken token) {
+			this.token = token;
+		}
+
+		@Override
+		public void progress(long bytesRead, long totalBytes) {
+			this.reports.incrementAndGet();
+			this.maxRead.accumulateAndGet(bytesRead, Math::max);
+			this.total.set(totalBytes);
+			if (this.armed.get()) {
+				this.token.cancel();
+			}
+		}
+	}
+}
@@ -0,0 +1,175 @@
+/*
+ * GtfsSnapshotTest.java
+ * General Transit Feed Specification
+ *
+ * Copyright 2016 Kevin J. Burns
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Revision Log:
+ *   2026-10-16  Basic functionality
+ */
+package com.github.kjburns.gtfs;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.github.kjburns.gtfs.tools.FeedGenerator;
+
+/**
+ * Tests of writing and reading snapshots.
+ * @author Kevin J. Burns
+ *
+ */
+class GtfsSnapshotTest {
+	@TempDir
+	Path folder;
+	private Path feed;
+	private Path snapshot;
+
+	@BeforeEach
+	void writeFeed() throws Exception {
+		this.feed = this.folder.resolve("feed");
+		this.snapshot = this.folder.resolve("feed.snapshot");
+		Files.createDirectory(this.feed);
+		FeedGenerator.atScale(0.02).writeFolder(this.feed.toFile());
+	}
+
+	@Test
+	void snapshotRoundTrip() throws Exception {
+		try (GtfsFile parsed = this.load(null);
+				GtfsFile written = this.load(this.snapshot)) {
+			long fingerprint = GtfsSnapshot.fingerprint(this.feed.toString());
+			assertNotNull(GtfsSnapshot.open(this.snapshot, fingerprint));
+			assertEquals(Arrays.asList("feed", "feed.snapshot"),
+					this.listFolder());
+			try (GtfsFile read = this.load(this.snapshot)) {
+				assertSameTables(parsed, read);
+			}
+		}
+	}
+
+	@Test
+	void corruptSnapshotIsReplaced() throws Exception {
+		try (GtfsFile written = this.load(this.snapshot)) {
+		}
+		byte[] good = Files.readAllBytes(this.snapshot);
+		long fingerprint = GtfsSnapshot.fingerprint(this.feed.toString());
+
+		byte[] corrupt = good.clone();
+		corrupt[corrupt.length / 2] ^= 1;
+		Files.write(this.snapshot, corrupt);
+		assertNull(GtfsSnapshot.open(this.snapshot, fingerprint));
+		try (GtfsFile parsed = this.load(null);
+				GtfsFile read = this.load(this.snapshot)) {
+			assertSameTables(parsed, read);
+		}
+		assertArrayEquals(good, Files.readAllBytes(this.snapshot));
+
+		byte[] truncated = new byte[good.length / 2];
+		System.arraycopy(good, 0, truncated, 0, truncated.length);
+		Files.write(this.snapshot, truncated);
+		assertNull(GtfsSnapshot.open(this.snapshot, fingerprint));
+		try (GtfsFile read = this.load(this.snapshot)) {
+		}
+		assertArrayEquals(good, Files.readAllBytes(this.snapshot));
+	}
+
+	/**
+	 * A write which fails partway through the body leaves the previous
+	 * snapshot in place and no temporary file behind.
+	 */
+	@Test
+	void failedWriteLeavesNothingBehind() throws Exception {
+		try (GtfsFile written = this.load(this.snapshot)) {
+		}
+		byte[] good = Files.readAllBytes(this.snapshot);
+		long fingerprint = GtfsSnapshot.fingerprint(this.feed.toString());
+		assertThrows(NullPointerException.class,
+				() -> GtfsSnapshot.write(null, fingerprint, this.snapshot));
+		assertArrayEquals(good, Files.readAllBytes(this.snapshot));
+		assertEquals(Arrays.asList("feed", "feed.snapshot"),
+				this.listFolder());
+	}
+
+	private List<String> listFolder() throws IOException {
+		try (Stream<Path> paths = Files.list(this.folder)) {
+			return paths.map(p -> p.getFileName().toString()).sorted()
+					.collect(Collectors.toList());
+		}
+	}
+
+	private GtfsFile load(Path snapshotPath) throws Exception {
+		GtfsLoadOptions options = new GtfsLoadOptions();
+		if (snapshotPath != null) {
+			options.setSnapshotPath(snapshotPath.toString());
+		}
+		return new GtfsFile(this.feed.toString(), null, options);
+	}
+
+	private static void assertSameTables(GtfsFile expected, GtfsFile actual) {
+		StopTimeTableTest.assertSameColumns(
+				expected.getAllTimetables().getTable(),
+				actual.getAllTimetables().getTable());
+		assertSameShapes(expected.getShapes(), actual.getShapes());
+		assertSameCalendar(expected.getServiceCalendar(),
+				actual.getServiceCalendar());
+	}
+
+	private static void assertSameShapes(TransitShapeCollection expected,
+			TransitShapeCollection actual) {
+		assertEquals(expected.getShapeCount(), actual.getShapeCount());
+		for (Iterator<TransitShape> it = expected.getShapeIterator();
+				it.hasNext(); ) {
+			TransitShape e = it.next();
+			TransitShape a = actual.getShapeById(e.getShapeId());
+			assertNotNull(a, e.getShapeId());
+			int n = e.getPointCount();
+			assertEquals(n, a.getPointCount());
+			assertEquals(e.hasDistanceTraveled(), a.hasDistanceTraveled());
+			for (int i = 0; i < n; i++) {
+				assertEquals(e.getSequence(i), a.getSequence(i));
+				assertEquals(e.getLatitude(i), a.getLatitude(i), 0);
+				assertEquals(e.getLongitude(i), a.getLongitude(i), 0);
+				assertEquals(e.getMeasure(i), a.getMeasure(i), 0);
+			}
+		}
+	}
+
+	private static void assertSameCalendar(ServiceCalendar expected,
+			ServiceCalendar actual) {
+		assertEquals(expected.getFirstDate(), actual.getFirstDate());
+		assertEquals(expected.getDayCount(), actual.getDayCount());
+		assertEquals(expected.getServiceCount(), actual.getServiceCount());
+		for (int day = 0; day < expected.getDayCount(); day++) {
+			assertEquals(expected.getActiveServices(day),
+					actual.getActiveServices(day));
+		}
+	}
+}
@@ -0,0 +1,178 @@
+/*
+ * RaptorRouterTest.java
+ * General Transit Feed Specification
+ *
+ * Copyright 2016 Kevin J. Burns
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Revision Log:
+ *   2026-10-16  Basic functionality
+ */
+package com.github.kjburns.gtfs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZonedDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests of the journeys planned by the router, on a small feed whose
+ * every journey can be worked out by hand.
+ * @author Kevin J. Burns
+ *
+ */
+class RaptorRouterTest {
+	private static final LocalDate WEEKDAY =
+			LocalDate.parse(TestFeeds.WEEKDAY);
+
+	@TempDir
+	static Path folder;
+	private static GtfsFile gtfs;
+
+	/**
+	 * Adds to the small feed of {@link TestFeeds} a stop S4, five minutes'
+	 * walk from S3, and a stop S5. On weekdays, T4 runs from S4 at 08:12 to
+	 * S5 at 08:20, too soon after T1 reaches S3 to be caught, and T5 from
+	 * S4 at 08:16 to S5 at 08:30. T6 runs straight from S1 at 07:50 to S5
+	 * at 09:00.
+	 */
+	@BeforeAll
+	static void load() throws Exception {
+		TestFeeds.writeSmallFeed(folder);
+		TestFeeds.append(folder, "stops.txt",
+				"S4,Fourth,41.021,-87.0",
+				"S5,Fifth,41.05,-87.0");
+		TestFeeds.append(folder, "routes.txt",
+				"R2,A1,2,Two,3",
+				"R3,A1,3,Three,3");
+		TestFeeds.append(folder, "trips.txt",
+				"R2,WK,T4",
+				"R2,WK,T5",
+				"R3,WK,T6");
+		TestFeeds.append(folder, "stop_times.txt",
+				"T4,08:12:00,08:12:00,S4,1,1,",
+				"T4,08:20:00,08:20:00,S5,2,1,",
+				"T5,08:16:00,08:16:00,S4,1,1,",
+				"T5,08:30:00,08:30:00,S5,2,1,",
+				"T6,07:50:00,07:50:00,S1,1,1,",
+				"T6,09:00:00,09:00:00,S5,2,1,");
+		TestFeeds.write(folder, "transfers.txt",
+				"from_stop_id,to_stop_id,transfer_type,min_transfer_time",
+				"S3,S4,2,300");
+		GtfsLoadOptions options = new GtfsLoadOptions();
+		options.setInterpolateStopTimes(true);
+		gtfs = new GtfsFile(folder.toString(), null, options);
+	}
+
+	@AfterAll
+	static void close() throws Exception {
+		gtfs.close();
+	}
+
+	/**
+	 * A single ride, on the first trip to leave after the time asked for.
+	 */
+	@Test
+	void directRide() {
+		RaptorRouter router = new RaptorRouter(gtfs);
+		List<Journey> journeys = router.route("S1", "S3", at(WEEKDAY, 7, 55));
+		assertEquals(1, journeys.size());
+		Journey journey = journeys.get(0);
+		assertEquals(0, journey.getTransferCount());
+		assertEquals(1, journey.getLegs().size());
+		assertRide(journey.getLegs().get(0), "T1", "S1", "S3",
+				at(WEEKDAY, 8, 0), at(WEEKDAY, 8, 10));
+	}
+
+	/**
+	 * The ride with no transfers arrives at 09:00; riding T1, walking to
+	 * S4 and riding T5 arrives at 08:30. T4 leaves S4 before the walk
+	 * ends, so it is not taken.
+	 */
+	@Test
+	void transferArrivesEarlier() {
+		RaptorRouter router = new RaptorRouter(gtfs);
+		List<Journey> journeys = router.route("S1", "S5", at(WEEKDAY, 7, 30));
+		assertEquals(2, journeys.size());
+
+		Journey direct = journeys.get(0);
+		assertEquals(0, direct.getTransferCount());
+		assertRide(direct.getLegs().get(0), "T6", "S1", "S5",
+				at(WEEKDAY, 7, 50), at(WEEKDAY, 9, 0));
+
+		Journey changing = journeys.get(1);
+		assertEquals(1, changing.getTransferCount());
+		assertEquals(at(WEEKDAY, 8, 30), changing.getArrivalEpochSecond());
+		List<JourneyLeg> legs = changing.getLegs();
+		assertEquals(3, legs.size());
+		assertRide(legs.get(0), "T1", "S1", "S3",
+				at(WEEKDAY, 8, 0), at(WEEKDAY, 8, 10));
+		JourneyLeg walk = legs.get(1);
+		assertTrue(walk.isWalk());
+		assertEquals("S3", walk.getFromStopId());
+		assertEquals("S4", walk.getToStopId());
+		assertEquals(300, walk.getArrivalEpochSecond() -
+				walk.getDepartureEpochSecond());
+		assertRide(legs.get(2), "T5", "S4", "S5",
+				at(WEEKDAY, 8, 16), at(WEEKDAY, 8, 30));
+
+		router.setMaxTransfers(0);
+		journeys = router.route("S1", "S5", at(WEEKDAY, 7, 30));
+		assertEquals(1, journeys.size());
+		assertEquals(0, journeys.get(0).getTransferCount());
+	}
+
+	/**
+	 * Just after midnight on a Sunday, T3 of Saturday's service, at
+	 * 25:00:00, is the ride to take.
+	 */
+	@Test
+	void rideAfterMidnight() {
+		LocalDate saturday = LocalDate.of(2026, 3, 7);
+		LocalDate sunday = saturday.plusDays(1);
+		RaptorRouter router = new RaptorRouter(gtfs);
+		List<Journey> journeys = router.route("S1", "S3", at(sunday, 0, 30));
+		assertEquals(1, journeys.size());
+		JourneyLeg leg = journeys.get(0).getLegs().get(0);
+		assertRide(leg, "T3", "S1", "S3",
+				at(sunday, 1, 0), at(sunday, 1, 20));
+		assertEquals(saturday, leg.getServiceDate());
+	}
+
+	private static void assertRide(JourneyLeg leg, String tripId,
+			String fromStopId, String toStopId, long departure,
+			long arrival) {
+		assertFalse(leg.isWalk());
+		assertEquals(tripId, leg.getTripId());
+		assertEquals(fromStopId, leg.getFromStopId());
+		assertEquals(toStopId, leg.getToStopId());
+		assertEquals(departure, leg.getDepartureEpochSecond());
+		assertEquals(arrival, leg.getArrivalEpochSecond());
+	}
+
+	private static long at(LocalDate date, int hour, int minute) {
+		return ZonedDateTime.of(date, LocalTime.of(hour, minute),
+				gtfs.getZoneId()).toEpochSecond();
+	}
+}
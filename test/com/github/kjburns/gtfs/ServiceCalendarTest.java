@@ -0,0 +1,170 @@
+/*
+ * ServiceCalendarTest.java
+ * General Transit Feed Specification
+ *
+ * Copyright 2016 Kevin J. Burns
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Revision Log:
+ *   2026-10-16  Basic functionality
+ */
+package com.github.kjburns.gtfs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZonedDateTime;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests of the service calendar, over a feed whose calendar runs until
+ * 9999-12-31.
+ * @author Kevin J. Burns
+ *
+ */
+class ServiceCalendarTest {
+	@TempDir
+	Path folder;
+
+	/**
+	 * Weekday and weekend services are answered on any date of an
+	 * open-ended calendar, and calendar_dates.txt overrides them on the
+	 * dates it names.
+	 */
+	@Test
+	void openEndedCalendarWithOverrides() throws Exception {
+		try (GtfsFile gtfs = this.load(null)) {
+			assertOverrides(gtfs.getServiceCalendar());
+		}
+	}
+
+	/**
+	 * The calendar read back from a snapshot answers the same.
+	 */
+	@Test
+	void snapshotKeepsOpenEndedCalendar() throws Exception {
+		Path snapshot = this.folder.resolve("feed.snapshot");
+		try (GtfsFile written = this.load(snapshot)) {
+		}
+		assertNotNull(GtfsSnapshot.open(snapshot,
+				GtfsSnapshot.fingerprint(this.feed().toString())));
+		try (GtfsFile read = this.load(snapshot)) {
+			assertOverrides(read.getServiceCalendar());
+		}
+	}
+
+	private static void assertOverrides(ServiceCalendar calendar) {
+		assertEquals(LocalDate.of(2026, 1, 1), calendar.getFirstDate());
+		assertEquals(LocalDate.of(9999, 12, 31), calendar.getLastDate());
+
+		assertActive(calendar, "2026-03-04", "WK");
+		assertActive(calendar, "2026-03-07", "WE");
+		assertActive(calendar, "9999-12-31", "WK");
+		assertActive(calendar, "9999-12-25", "WE");
+		assertActive(calendar, "2026-12-25", "WE");
+		assertActive(calendar, "2026-12-26");
+		assertActive(calendar, "2030-06-04", "WK", "EX");
+		assertActive(calendar, "2026-02-07", "WE", "EX");
+
+		assertFalse(calendar.isServiceDefinedOn("WK",
+				LocalDate.of(2025, 12, 31)));
+		assertEquals(-1, calendar.getDayIndex(LocalDate.of(2025, 12, 31)));
+	}
+
+	/**
+	 * Noon is found from the time zone's offsets on dates on either side
+	 * of its transitions, however far into the calendar.
+	 */
+	@Test
+	void noonFollowsTimeZone() throws Exception {
+		try (GtfsFile gtfs = this.load(null)) {
+			LocalDate date = LocalDate.of(2026, 1, 1);
+			for (int i = 0; i < 3 * 366; i++) {
+				assertNoon(gtfs, date.plusDays(i));
+			}
+			assertNoon(gtfs, LocalDate.of(2099, 3, 8));
+			assertNoon(gtfs, LocalDate.of(2099, 11, 1));
+			assertNoon(gtfs, LocalDate.of(9999, 12, 31));
+		}
+	}
+
+	private GtfsFile load(Path snapshot) throws Exception {
+		Path feed = this.feed();
+		if (!Files.isDirectory(feed)) {
+			Files.createDirectory(feed);
+			this.writeFeed(feed);
+		}
+		GtfsLoadOptions options = new GtfsLoadOptions();
+		if (snapshot != null) {
+			options.setSnapshotPath(snapshot.toString());
+		}
+		return new GtfsFile(feed.toString(), null, options);
+	}
+
+	private Path feed() {
+		return this.folder.resolve("feed");
+	}
+
+	private void writeFeed(Path feed) throws Exception {
+		TestFeeds.writeSmallFeed(feed);
+		TestFeeds.write(feed, "calendar.txt",
+				"service_id,monday,tuesday,wednesday,thursday,friday," +
+						"saturday,sunday,start_date,end_date",
+				"WK,1,1,1,1,1,0,0,20260101,99991231",
+				"WE,0,0,0,0,0,1,1,20260101,99991231");
+		TestFeeds.write(feed, "calendar_dates.txt",
+				"service_id,date,exception_type",
+				"WK,20261225,2",
+				"WE,20261225,1",
+				"WE,20261226,2",
+				"EX,20300604,1",
+				"EX,20260207,1",
+				"WK,99991225,2",
+				"WE,99991225,1");
+	}
+
+	private static void assertActive(ServiceCalendar calendar, String date,
+			String... serviceIds) {
+		LocalDate d = LocalDate.parse(date);
+		int expected = 0;
+		for (String id : new String[] { "WK", "WE", "EX" }) {
+			boolean active = false;
+			for (String s : serviceIds) {
+				active |= s.equals(id);
+			}
+			assertEquals(active, calendar.isServiceDefinedOn(id, d),
+					id + " on " + date);
+			if (active) {
+				expected++;
+			}
+		}
+		assertEquals(expected, calendar.getActiveServices(d).cardinality(),
+				date);
+		assertTrue(calendar.getDayIndex(d) >= 0, date);
+	}
+
+	private static void assertNoon(GtfsFile gtfs, LocalDate date) {
+		assertEquals(ZonedDateTime.of(date, LocalTime.NOON, gtfs.getZoneId())
+				.toEpochSecond(), gtfs.getNoonEpochSecond(date),
+				date.toString());
+	}
+}
@@ -0,0 +1,159 @@
+/*
+ * StopTimeCollectionTest.java
+ * General Transit Feed Specification
+ *
+ * Copyright 2016 Kevin J. Burns
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Revision Log:
+ *   2026-10-16  Basic functionality
+ */
+package com.github.kjburns.gtfs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests of the queries on stop times.
+ * @author Kevin J. Burns
+ *
+ */
+class StopTimeCollectionTest {
+	private static final LocalDate WEEKDAY =
+			LocalDate.parse(TestFeeds.WEEKDAY);
+
+	@TempDir
+	Path folder;
+
+	/**
+	 * S2 is halfway between timepoints at 08:00 and 08:10, so its
+	 * interpolated departure is 08:05, and that is when T1 leaves it.
+	 */
+	@Test
+	void interpolatedTimesGovernDepartures() throws Exception {
+		try (GtfsFile gtfs = this.load(true)) {
+			StopTimeCollection stopTimes = gtfs.getAllTimetables();
+			List<ScheduledDeparture> next = stopTimes.getNextDepartures(
+					"S2", this.at(gtfs, 8, 1), 1);
+			assertEquals(1, next.size());
+			StopTime st = next.get(0).getStopTime();
+			assertEquals("T1", st.getTripId());
+			assertEquals(this.at(gtfs, 8, 5), next.get(0).getEpochSecond());
+			assertEquals(this.at(gtfs, 8, 5),
+					stopTimes.getEarliestDepartureEpochSecond(st, WEEKDAY));
+
+			List<StopTime> timetable = stopTimes.getTimetable("S2", WEEKDAY);
+			assertEquals(LocalTime.of(8, 5), stopTimes
+					.getEarliestDepartureTime(timetable.get(0), WEEKDAY)
+					.toLocalTime());
+		}
+	}
+
+	/**
+	 * Without interpolation, S2 takes the departure of the timepoint
+	 * before it, so at 08:01 the next departure is T2's at 09:00.
+	 */
+	@Test
+	void clearedTimesFallBackToTimepoints() throws Exception {
+		try (GtfsFile gtfs = this.load(true)) {
+			StopTimeCollection stopTimes = gtfs.getAllTimetables();
+			StopTimeTable table = stopTimes.getTable();
+			table.clearInterpolatedTimes();
+			for (int row = 0; row < table.size; row++) {
+				if (table.timepoint[row] == 0) {
+					assertEquals(row - 1, table.governingTimepoint[row]);
+				}
+			}
+
+			List<ScheduledDeparture> next = stopTimes.getNextDepartures(
+					"S2", this.at(gtfs, 8, 1), 1);
+			assertEquals("T2", next.get(0).getStopTime().getTripId());
+			assertEquals(this.at(gtfs, 9, 0), next.get(0).getEpochSecond());
+		}
+	}
+
+	/**
+	 * From 07:00 on a weekday, the next departures from S1 are T1 and T2,
+	 * then T1 of the following day; a departure at the very instant asked
+	 * for is included.
+	 */
+	@Test
+	void nextDeparturesInOrder() throws Exception {
+		try (GtfsFile gtfs = this.load(true)) {
+			StopTimeCollection stopTimes = gtfs.getAllTimetables();
+			List<ScheduledDeparture> next = stopTimes.getNextDepartures(
+					"S1", this.at(gtfs, 7, 0), 3);
+			assertEquals(3, next.size());
+			assertDeparture(next.get(0), "T1", WEEKDAY, this.at(gtfs, 8, 0));
+			assertDeparture(next.get(1), "T2", WEEKDAY, this.at(gtfs, 9, 0));
+			assertDeparture(next.get(2), "T1", WEEKDAY.plusDays(1),
+					this.at(gtfs, 8, 0) + 86400);
+
+			next = stopTimes.getNextDepartures("S1", this.at(gtfs, 8, 0), 1);
+			assertDeparture(next.get(0), "T1", WEEKDAY, this.at(gtfs, 8, 0));
+		}
+	}
+
+	/**
+	 * Just after midnight on a Sunday, the next departure from S1 is T3 of
+	 * Saturday's service, at 25:00:00, and the one after that is T3 of
+	 * Sunday's, the following night. Daylight saving time begins between
+	 * the two.
+	 */
+	@Test
+	void nextDeparturesAfterMidnight() throws Exception {
+		try (GtfsFile gtfs = this.load(true)) {
+			ZoneId zone = gtfs.getZoneId();
+			LocalDate saturday = LocalDate.of(2026, 3, 7);
+			LocalDate sunday = saturday.plusDays(1);
+			List<ScheduledDeparture> next = gtfs.getAllTimetables()
+					.getNextDepartures("S1", ZonedDateTime.of(sunday,
+							LocalTime.of(0, 30), zone), 2);
+			assertEquals(2, next.size());
+			assertDeparture(next.get(0), "T3", saturday, ZonedDateTime.of(
+					sunday, LocalTime.of(1, 0), zone).toEpochSecond());
+			assertDeparture(next.get(1), "T3", sunday, ZonedDateTime.of(
+					sunday.plusDays(1), LocalTime.of(1, 0), zone)
+					.toEpochSecond());
+		}
+	}
+
+	private static void assertDeparture(ScheduledDeparture departure,
+			String tripId, LocalDate serviceDate, long epochSecond) {
+		assertEquals(tripId, departure.getStopTime().getTripId());
+		assertEquals(serviceDate, departure.getServiceDate());
+		assertEquals(epochSecond, departure.getEpochSecond());
+	}
+
+	private GtfsFile load(boolean interpolate) throws Exception {
+		TestFeeds.writeSmallFeed(this.folder);
+		GtfsLoadOptions options = new GtfsLoadOptions();
+		options.setInterpolateStopTimes(interpolate);
+		return new GtfsFile(this.folder.toString(), null, options);
+	}
+
+	private long at(GtfsFile gtfs, int hour, int minute) {
+		return ZonedDateTime.of(WEEKDAY, LocalTime.of(hour, minute),
+				gtfs.getZoneId()).toEpochSecond();
+	}
+}
@@ -0,0 +1,144 @@
+/*
+ * StopTimeTableTest.java
+ * General Transit Feed Specification
+ *
+ * Copyright 2016 Kevin J. Burns
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Revision Log:
+ *   2026-10-16  Basic functionality
+ */
+package com.github.kjburns.gtfs;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.github.kjburns.gtfs.tools.FeedGenerator;
+
+/**
+ * Tests of reading stop_times.txt.
+ * @author Kevin J. Burns
+ *
+ */
+class StopTimeTableTest {
+	/**
+	 * Headsigns given to the rows, in turn. Some hold quoted line breaks,
+	 * commas and quotes, so that the ranges read in parallel must be split
+	 * with regard to quoting.
+	 */
+	private static final String[] HEADSIGNS = {
+			"\"Downtown\nvia Main\"", "Airport",
+			"\"\"\"Express\"\", 1st, 2nd\r\nand 3rd\"", "\"\n\n\"" };
+
+	@TempDir
+	Path folder;
+
+	@Test
+	void parallelReadMatchesSequentialRead() throws Exception {
+		FeedGenerator generator = FeedGenerator.atScale(0.1);
+		generator.writeFolder(this.folder.toFile());
+		File stopTimes = this.folder.resolve("stop_times.txt").toFile();
+		addHeadsigns(stopTimes);
+		assertTrue(stopTimes.length() > 2 << 20,
+				"stop_times.txt is too small to be split");
+
+		try (GtfsFile sequential = load(1); GtfsFile parallel = load(4)) {
+			StopTimeTable expected =
+					sequential.getAllTimetables().getTable();
+			StopTimeTable actual = parallel.getAllTimetables().getTable();
+			assertSameColumns(expected, actual);
+			assertEquals("Downtown\nvia Main",
+					actual.headsigns.get(actual.headsign[0]));
+		}
+	}
+
+	private GtfsFile load(int parallelism) throws Exception {
+		GtfsLoadOptions options = new GtfsLoadOptions();
+		options.setStopTimesParallelism(parallelism);
+		return new GtfsFile(this.folder.toString(), null, options);
+	}
+
+	/**
+	 * Adds a stop_headsign column to a table which has no quoted fields.
+	 * @param file stop_times.txt
+	 * @throws Exception
+	 */
+	private static void addHeadsigns(File file) throws Exception {
+		List<String> lines =
+				Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+		StringBuilder sb = new StringBuilder();
+		sb.append(lines.get(0)).append(",stop_headsign\n");
+		for (int i = 1; i < lines.size(); i++) {
+			sb.append(lines.get(i)).append(',')
+				.append(HEADSIGNS[(i - 1) % HEADSIGNS.length]).append('\n');
+		}
+		Files.write(file.toPath(),
+				sb.toString().getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Asserts that two tables hold the same rows, in the same order, and
+	 * the same indices built over them. Identifiers are compared by value,
+	 * since their indices depend on the order they were first seen in.
+	 * @param expected
+	 * @param actual
+	 */
+	static void assertSameColumns(StopTimeTable expected,
+			StopTimeTable actual) {
+		int n = expected.size;
+		assertEquals(n, actual.size);
+		for (int row = 0; row < n; row++) {
+			assertEquals(expected.tripIds.get(expected.trip[row]),
+					actual.tripIds.get(actual.trip[row]));
+			assertEquals(expected.stopIds.get(expected.stop[row]),
+					actual.stopIds.get(actual.stop[row]));
+			assertEquals(headsign(expected, row), headsign(actual, row));
+		}
+		assertArrayEquals(Arrays.copyOf(expected.arrival, n),
+				Arrays.copyOf(actual.arrival, n));
+		assertArrayEquals(Arrays.copyOf(expected.departure, n),
+				Arrays.copyOf(actual.departure, n));
+		assertArrayEquals(Arrays.copyOf(expected.stopSequence, n),
+				Arrays.copyOf(actual.stopSequence, n));
+		assertArrayEquals(Arrays.copyOf(expected.pickupType, n),
+				Arrays.copyOf(actual.pickupType, n));
+		assertArrayEquals(Arrays.copyOf(expected.dropoffType, n),
+				Arrays.copyOf(actual.dropoffType, n));
+		assertArrayEquals(Arrays.copyOf(expected.timepoint, n),
+				Arrays.copyOf(actual.timepoint, n));
+		assertArrayEquals(Arrays.copyOf(expected.shapeDistance, n),
+				Arrays.copyOf(actual.shapeDistance, n));
+		assertArrayEquals(expected.interpolated, actual.interpolated);
+		assertArrayEquals(expected.tripStart, actual.tripStart);
+		assertArrayEquals(expected.governingTimepoint,
+				actual.governingTimepoint);
+	}
+
+	private static String headsign(StopTimeTable table, int row) {
+		int index = table.headsign[row];
+		return (index == StopTimeTable.NO_HEADSIGN) ?
+				null : table.headsigns.get(index);
+	}
+}
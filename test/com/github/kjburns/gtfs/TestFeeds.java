@@ -0,0 +1,126 @@
+/*
+ * TestFeeds.java
+ * General Transit Feed Specification
+ *
+ * Copyright 2016 Kevin J. Burns
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Revision Log:
+ *   2026-10-16  Basic functionality
+ */
+package com.github.kjburns.gtfs;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Small feeds written out for tests, whose every time can be checked by
+ * hand.
+ * @author Kevin J. Burns
+ *
+ */
+final class TestFeeds {
+	/**
+	 * A weekday in the calendar of {@link #writeSmallFeed(Path)}
+	 */
+	static final String WEEKDAY = "2026-03-04";
+
+	private TestFeeds() {
+	}
+
+	/**
+	 * Writes a feed of one route through three stops, S1, S2 and S3, in
+	 * America/Chicago. On weekdays, T1 departs S1 at 08:00 and reaches S3
+	 * at 08:10, and T2 departs S1 at 09:00 and reaches S3 at 09:10. Each
+	 * passes S2, which is not a timepoint and has no times, halfway along
+	 * by shape_dist_traveled. On weekends, T3 runs from S1 at 25:00 to S3
+	 * at 25:20, without stopping at S2.
+	 * @param folder empty folder to write the tables to
+	 * @throws IOException
+	 */
+	static void writeSmallFeed(Path folder) throws IOException {
+		write(folder, "agency.txt",
+				"agency_id,agency_name,agency_url,agency_timezone",
+				"A1,Test Transit,http://example.com,America/Chicago");
+		write(folder, "stops.txt",
+				"stop_id,stop_name,stop_lat,stop_lon",
+				"S1,First,41.0,-87.0",
+				"S2,Second,41.01,-87.0",
+				"S3,Third,41.02,-87.0");
+		write(folder, "routes.txt",
+				"route_id,agency_id,route_short_name,route_long_name," +
+						"route_type",
+				"R1,A1,1,One,3");
+		write(folder, "calendar.txt",
+				"service_id,monday,tuesday,wednesday,thursday,friday," +
+						"saturday,sunday,start_date,end_date",
+				"WK,1,1,1,1,1,0,0,20260101,20271231",
+				"WE,0,0,0,0,0,1,1,20260101,20271231");
+		write(folder, "trips.txt",
+				"route_id,service_id,trip_id",
+				"R1,WK,T1",
+				"R1,WK,T2",
+				"R1,WE,T3");
+		write(folder, "stop_times.txt",
+				"trip_id,arrival_time,departure_time,stop_id," +
+						"stop_sequence,timepoint,shape_dist_traveled",
+				"T1,08:00:00,08:00:00,S1,1,1,0",
+				"T1,,,S2,2,0,1.1",
+				"T1,08:10:00,08:10:00,S3,3,1,2.2",
+				"T2,09:00:00,09:00:00,S1,1,1,0",
+				"T2,,,S2,2,0,1.1",
+				"T2,09:10:00,09:10:00,S3,3,1,2.2",
+				"T3,25:00:00,25:00:00,S1,1,1,0",
+				"T3,25:20:00,25:20:00,S3,2,1,2.2");
+	}
+
+	/**
+	 * Writes a table, one line for each of its rows.
+	 * @param folder
+	 * @param name file name of the table
+	 * @param lines header and records
+	 * @throws IOException
+	 */
+	static void write(Path folder, String name, String... lines)
+			throws IOException {
+		StringBuilder sb = new StringBuilder();
+		for (String line : lines) {
+			sb.append(line).append('\n');
+		}
+		Files.write(folder.resolve(name),
+				sb.toString().getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Adds rows to the end of a table written by
+	 * {@link #write(Path, String, String...)}.
+	 * @param folder
+	 * @param name file name of the table
+	 * @param lines records
+	 * @throws IOException
+	 */
+	static void append(Path folder, String name, String... lines)
+			throws IOException {
+		StringBuilder sb = new StringBuilder();
+		for (String line : lines) {
+			sb.append(line).append('\n');
+		}
+		Files.write(folder.resolve(name),
+				sb.toString().getBytes(StandardCharsets.UTF_8),
+				StandardOpenOption.APPEND);
+	}
+}